@@ -0,0 +1,13 @@
+package com.ccpay.gateway;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+// Scans only its own package: the common module's configurations are servlet-stack
+@SpringBootApplication
+public class ApiGatewayApplication {
+    
+    public static void main(String[] args) {
+        SpringApplication.run(ApiGatewayApplication.class, args);
+    }
+}
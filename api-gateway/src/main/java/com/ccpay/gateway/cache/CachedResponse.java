@@ -0,0 +1,47 @@
+package com.ccpay.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+
+// A fully buffered upstream response that can be replayed to any number of callers
+public class CachedResponse {
+    
+    public static final String CACHE_HEADER = "X-Cache";
+    
+    private final int status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final long expiresAtNanos;
+    
+    public CachedResponse(int status, HttpHeaders headers, byte[] body, long expiresAtNanos) {
+        this.status = status;
+        this.headers = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            // Hop-by-hop headers describe the original connection, not the payload
+            if (!HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name) && !HttpHeaders.CONNECTION.equalsIgnoreCase(name)) {
+                this.headers.put(name, new ArrayList<>(values));
+            }
+        });
+        this.headers.setContentLength(body.length);
+        this.body = body;
+        this.expiresAtNanos = expiresAtNanos;
+    }
+    
+    public boolean isExpired(long nowNanos) {
+        return nowNanos - expiresAtNanos >= 0;
+    }
+    
+    // A null cache status keeps whatever X-Cache header the stored response carried
+    public Mono<Void> writeTo(ServerHttpResponse response, String cacheStatus) {
+        response.setStatusCode(HttpStatusCode.valueOf(status));
+        response.getHeaders().putAll(headers);
+        if (cacheStatus != null) {
+            response.getHeaders().set(CACHE_HEADER, cacheStatus);
+        }
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
@@ -0,0 +1,114 @@
+package com.ccpay.gateway.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Bounded in-memory store behind the ResponseCache route filter. Entries are kept in access
+// order, so a full store evicts the least recently used entry, and indexed by scope, so a write
+// drops only its caller's entries. Every operation is constant time apart from invalidating a
+// scope, which is linear in that scope's entries. The critical sections are a few map
+// operations, so one lock serves the event loops.
+@Component
+public class ResponseCacheStore {
+    
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<String>> keysByScope = new HashMap<>();
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    
+    public ResponseCacheStore(MeterRegistry meterRegistry,
+                              @Value("${app.gateway.response-cache.max-entries:10000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("gateway.response.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("gateway.response.cache").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("gateway.response.cache.evictions").register(meterRegistry);
+        Gauge.builder("gateway.response.cache.size", this, ResponseCacheStore::size).register(meterRegistry);
+    }
+    
+    public CachedResponse get(String key) {
+        CachedResponse cached = null;
+        synchronized (lock) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.response.isExpired(System.nanoTime())) {
+                    remove(key, entry);
+                } else {
+                    cached = entry.response;
+                }
+            }
+        }
+        if (cached != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return cached;
+    }
+    
+    public void put(String scope, String key, CachedResponse response) {
+        int evicted = 0;
+        synchronized (lock) {
+            Entry previous = entries.put(key, new Entry(scope, response));
+            if (previous == null) {
+                keysByScope.computeIfAbsent(scope, s -> new HashSet<>()).add(key);
+            }
+            // The eldest entry is the least recently used; expired ones go the same way
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries) {
+                Map.Entry<String, Entry> victim = eldest.next();
+                eldest.remove();
+                unindex(victim.getKey(), victim.getValue().scope);
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            evictions.increment(evicted);
+        }
+    }
+    
+    // Drops every entry under a service-and-user scope, after a write that may have changed them
+    public void invalidate(String scope) {
+        synchronized (lock) {
+            Set<String> keys = keysByScope.remove(scope);
+            if (keys != null) {
+                for (String key : keys) {
+                    entries.remove(key);
+                }
+            }
+        }
+    }
+    
+    private int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+    
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        unindex(key, entry.scope);
+    }
+    
+    private void unindex(String key, String scope) {
+        Set<String> keys = keysByScope.get(scope);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysByScope.remove(scope);
+        }
+    }
+    
+    private record Entry(String scope, CachedResponse response) {
+    }
+}
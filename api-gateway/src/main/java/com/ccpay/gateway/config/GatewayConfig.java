@@ -0,0 +1,20 @@
+package com.ccpay.gateway.config;
+
+import com.ccpay.common.config.JacksonConfig;
+import com.ccpay.common.security.TrustedHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+// JacksonConfig is not servlet-specific; imported so the gateway's own error bodies format
+// timestamps like the services'
+@Configuration
+@Import(JacksonConfig.class)
+public class GatewayConfig {
+    
+    @Bean
+    public TrustedHeaders trustedHeaders(@Value("${app.gateway.trusted-header-secret}") String secret) {
+        return new TrustedHeaders(secret);
+    }
+}
@@ -0,0 +1,41 @@
+package com.ccpay.gateway.controller;
+
+import com.ccpay.common.constants.ErrorCodes;
+import com.ccpay.common.dto.ErrorResponse;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeoutException;
+
+// Target of the routes' circuit breaker fallbackUri: a fast, well-formed error instead of a
+// hanging or reset connection while a downstream service is slow or down
+@RestController
+@RequestMapping("/fallback")
+public class FallbackController {
+    
+    private static final String RETRY_AFTER_SECONDS = "5";
+    
+    @RequestMapping("/{service}")
+    public Mono<ResponseEntity<ErrorResponse>> fallback(@PathVariable String service, ServerWebExchange exchange) {
+        Throwable cause = exchange.getAttribute(ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR);
+        boolean timedOut = cause instanceof TimeoutException;
+        
+        ErrorResponse body = ErrorResponse.builder()
+                .errorCode(timedOut ? ErrorCodes.GATEWAY_TIMEOUT : ErrorCodes.SERVICE_UNAVAILABLE)
+                .message(timedOut ? service + " did not respond in time" : service + " is temporarily unavailable")
+                .path(exchange.getRequest().getPath().value())
+                .timestamp(LocalDateTime.now())
+                .build();
+        return Mono.just(ResponseEntity.status(timedOut ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(body));
+    }
+}
@@ -0,0 +1,134 @@
+package com.ccpay.gateway.filter;
+
+import com.ccpay.common.constants.ErrorCodes;
+import com.ccpay.common.constants.SecurityConstants;
+import com.ccpay.common.dto.ErrorResponse;
+import com.ccpay.common.security.TrustedHeaders;
+import com.ccpay.gateway.security.AccessTokenVerifier;
+import com.ccpay.gateway.security.VerifiedToken;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Verifies the bearer token once at the edge and forwards the identity as signed headers.
+// Identity headers arriving from clients are always stripped first. Public paths pass through
+// without a token; a token that is present on them is still verified and forwarded.
+@Component
+@Slf4j
+public class AuthenticationFilter implements GlobalFilter, Ordered {
+
+    public static final String USER_ID_ATTRIBUTE = AuthenticationFilter.class.getName() + ".userId";
+
+    // Ahead of every route filter, so caching and coalescing see the caller's identity
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 100;
+
+    private final AccessTokenVerifier accessTokenVerifier;
+    private final TrustedHeaders trustedHeaders;
+    private final ObjectMapper objectMapper;
+    private final List<PathPattern> publicPaths;
+
+    public AuthenticationFilter(AccessTokenVerifier accessTokenVerifier,
+                                TrustedHeaders trustedHeaders,
+                                ObjectMapper objectMapper,
+                                @Value("${app.gateway.public-paths}") List<String> publicPaths) {
+        this.accessTokenVerifier = accessTokenVerifier;
+        this.trustedHeaders = trustedHeaders;
+        this.objectMapper = objectMapper;
+        this.publicPaths = publicPaths.stream().map(PathPatternParser.defaultInstance::parse).toList();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpRequest.Builder forwarded = request.mutate().headers(headers -> {
+            for (String name : TrustedHeaders.ALL) {
+                headers.remove(name);
+            }
+        });
+        boolean isPublic = isPublic(request);
+
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(SecurityConstants.JWT_TOKEN_PREFIX)) {
+            if (isPublic) {
+                return chain.filter(exchange.mutate().request(forwarded.build()).build());
+            }
+            return reject(exchange, ErrorCodes.INVALID_TOKEN, "Missing access token");
+        }
+
+        VerifiedToken token;
+        try {
+            token = accessTokenVerifier.verify(authorization.substring(SecurityConstants.JWT_TOKEN_PREFIX.length()));
+        } catch (ExpiredJwtException e) {
+            return isPublic ? chain.filter(exchange.mutate().request(forwarded.build()).build())
+                    : reject(exchange, ErrorCodes.TOKEN_EXPIRED, "Access token expired");
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected access token: {}", e.getMessage());
+            return isPublic ? chain.filter(exchange.mutate().request(forwarded.build()).build())
+                    : reject(exchange, ErrorCodes.INVALID_TOKEN, "Invalid access token");
+        }
+
+        String authorities = String.join(",", token.authorities());
+        String signature = trustedHeaders.sign(token.userId(), token.username(), authorities, token.expiresAt());
+        forwarded.headers(headers -> {
+            headers.set(TrustedHeaders.USER_ID, token.userId());
+            headers.set(TrustedHeaders.USERNAME, token.username());
+            headers.set(TrustedHeaders.AUTHORITIES, authorities);
+            headers.set(TrustedHeaders.EXPIRES, Long.toString(token.expiresAt()));
+            headers.set(TrustedHeaders.SIGNATURE, signature);
+        });
+        exchange.getAttributes().put(USER_ID_ATTRIBUTE, token.userId());
+        return chain.filter(exchange.mutate().request(forwarded.build()).build());
+    }
+
+    private boolean isPublic(ServerHttpRequest request) {
+        for (PathPattern pattern : publicPaths) {
+            if (pattern.matches(request.getPath().pathWithinApplication())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, String errorCode, String message) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(ErrorResponse.builder()
+                    .errorCode(errorCode)
+                    .message(message)
+                    .path(exchange.getRequest().getPath().value())
+                    .timestamp(LocalDateTime.now())
+                    .build());
+        } catch (JsonProcessingException e) {
+            body = ("{\"errorCode\":\"" + errorCode + "\"}").getBytes(StandardCharsets.UTF_8);
+        }
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
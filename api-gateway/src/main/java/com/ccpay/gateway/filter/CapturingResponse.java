@@ -0,0 +1,59 @@
+package com.ccpay.gateway.filter;
+
+import com.ccpay.gateway.cache.CachedResponse;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+// Buffers a replayable upstream response on its way to the client and hands a copy to the
+// callback. Responses that are not a plain 200, are known to be too large, or forbid storing
+// stream through untouched and are never handed over.
+class CapturingResponse extends ServerHttpResponseDecorator {
+    
+    private final int maxBodyBytes;
+    private final Duration ttl;
+    private final Consumer<CachedResponse> onCaptured;
+    
+    CapturingResponse(ServerHttpResponse delegate, int maxBodyBytes, Duration ttl, Consumer<CachedResponse> onCaptured) {
+        super(delegate);
+        this.maxBodyBytes = maxBodyBytes;
+        this.ttl = ttl;
+        this.onCaptured = onCaptured;
+    }
+    
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        if (!isReplayable()) {
+            return super.writeWith(body);
+        }
+        return DataBufferUtils.join(Flux.from(body)).flatMap(joined -> {
+            byte[] bytes = new byte[joined.readableByteCount()];
+            joined.read(bytes);
+            DataBufferUtils.release(joined);
+            if (bytes.length <= maxBodyBytes) {
+                onCaptured.accept(new CachedResponse(HttpStatus.OK.value(), getHeaders(), bytes,
+                        System.nanoTime() + ttl.toNanos()));
+            }
+            return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+        });
+    }
+    
+    boolean isReplayable() {
+        HttpHeaders headers = getHeaders();
+        String cacheControl = headers.getCacheControl();
+        return getStatusCode() != null && getStatusCode().value() == HttpStatus.OK.value()
+                // Known to be too large: stream it through instead of buffering
+                && headers.getContentLength() <= maxBodyBytes
+                && !headers.containsKey(HttpHeaders.SET_COOKIE)
+                && (cacheControl == null || !cacheControl.contains("no-store"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.ccpay.gateway.filter;
+
+import com.ccpay.gateway.cache.CachedResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Collapses identical in-flight GETs into one upstream call. The first request for a key goes
+// upstream; requests arriving with the same route, caller and URI before it completes wait for
+// its response and replay it. The key is dropped before followers are released, so a request
+// arriving after completion always sees fresh data. When the leader's response cannot be
+// replayed (not a 200, too large, failed or cancelled) followers go upstream themselves.
+//
+//   filters:
+//     - Coalesce
+@Component
+public class CoalesceGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<CoalesceGatewayFilterFactory.Config> {
+
+    public static final String COALESCED_HEADER = "X-Coalesced";
+
+    private final Map<String, Sinks.One<CachedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+    private final Counter fallthroughs;
+
+    public CoalesceGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.leaders = counter(meterRegistry, "leader");
+        this.followers = counter(meterRegistry, "follower");
+        this.fallthroughs = counter(meterRegistry, "fallthrough");
+        Gauge.builder("gateway.coalesce.in.flight", inFlight, Map::size).register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // Must capture what NettyWriteResponseFilter writes, as ResponseCache does
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+
+            String key = ResponseCacheGatewayFilterFactory.key(ResponseCacheGatewayFilterFactory.scope(exchange), request);
+            Sinks.One<CachedResponse> sink = Sinks.one();
+            Sinks.One<CachedResponse> leader = inFlight.putIfAbsent(key, sink);
+            if (leader != null) {
+                return leader.asMono()
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMap(shared -> {
+                            if (shared.isPresent()) {
+                                followers.increment();
+                                ServerHttpResponse response = exchange.getResponse();
+                                response.getHeaders().set(COALESCED_HEADER, "true");
+                                return shared.get().writeTo(response, null);
+                            }
+                            fallthroughs.increment();
+                            return chain.filter(exchange);
+                        });
+            }
+
+            leaders.increment();
+            ServerHttpResponse capturing = new CapturingResponse(exchange.getResponse(), config.getMaxBodyBytes(),
+                    Duration.ZERO, captured -> {
+                        inFlight.remove(key, sink);
+                        sink.tryEmitValue(captured);
+                    });
+            return chain.filter(exchange.mutate().response(capturing).build())
+                    .doFinally(signal -> {
+                        // No-op if the response was captured; otherwise release followers to go upstream
+                        inFlight.remove(key, sink);
+                        sink.tryEmitEmpty();
+                    });
+        }, ResponseCacheGatewayFilterFactory.ORDER);
+    }
+
+    private static Counter counter(MeterRegistry registry, String role) {
+        return Counter.builder("gateway.coalesce.requests").tag("role", role).register(registry);
+    }
+
+    @Getter
+    @Setter
+    public static class Config {
+        private int maxBodyBytes = 256 * 1024;
+    }
+}
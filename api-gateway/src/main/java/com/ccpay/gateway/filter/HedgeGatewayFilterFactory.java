@@ -0,0 +1,186 @@
+package com.ccpay.gateway.filter;
+
+import com.ccpay.gateway.cache.CachedResponse;
+import com.ccpay.gateway.hedge.HedgeBudget;
+import com.ccpay.gateway.hedge.LatencyWindow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+// Hedged requests for tail-sensitive GET routes. The request goes upstream once; if it has not
+// answered by the route's recent latency percentile, an identical second request is sent and
+// whichever answers first is returned while the other is cancelled. Hedges are capped by a
+// per-route budget, so a slow upstream sees at most budgetPercent extra load rather than double.
+// Upstream errors are returned as they arrive; hedging only chases slowness, not failures.
+//
+// The filter makes the upstream call itself over the gateway's HTTP client, so it must be the
+// last filter on its route; the route's response-timeout metadata still applies.
+//
+//   filters:
+//     - Hedge=0.95,5
+@Component
+public class HedgeGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgeGatewayFilterFactory.Config> {
+
+    public static final String HEDGED_HEADER = "X-Hedged";
+
+    private static final int WINDOW_SIZE = 1024;
+    private static final int MIN_SAMPLES = 100;
+    // Upstream read responses are small; a larger one fails the request instead of being buffered
+    private static final int MAX_BODY_BYTES = 1024 * 1024;
+
+    private final WebClient webClient;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    private final MeterRegistry meterRegistry;
+
+    public HedgeGatewayFilterFactory(HttpClient httpClient,
+                                     ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                     MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_BODY_BYTES))
+                .build();
+        this.headersFilters = headersFilters;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("percentile", "budgetPercent");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        // One window, budget and set of counters per route the filter is declared on
+        LatencyWindow window = new LatencyWindow(WINDOW_SIZE, MIN_SAMPLES, config.getPercentile());
+        HedgeBudget budget = new HedgeBudget(config.getBudgetPercent(), config.getBurst());
+        Counter denied = counter(config.getRouteId(), "denied");
+        Counter sent = counter(config.getRouteId(), "sent");
+        Counter won = counter(config.getRouteId(), "won");
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            if (exchange.getRequest().getMethod() != HttpMethod.GET || route == null) {
+                return chain.filter(exchange);
+            }
+            ServerWebExchangeUtils.setAlreadyRouted(exchange);
+
+            URI uri = upstreamUri(route, exchange.getRequest());
+            HttpHeaders headers = forwardedHeaders(exchange);
+            budget.onRequest();
+
+            Mono<CachedResponse> primary = call(uri, headers, window);
+            long trigger = window.percentileNanos();
+            Mono<CachedResponse> response = primary;
+            if (trigger >= 0) {
+                Duration delay = Duration.ofNanos(Math.max(trigger, config.getMinDelay().toNanos()));
+                Mono<CachedResponse> hedge = Mono.delay(delay)
+                        .flatMap(tick -> {
+                            if (!budget.tryAcquire()) {
+                                denied.increment();
+                                return Mono.<CachedResponse>never();
+                            }
+                            sent.increment();
+                            return call(uri, headers, window).doOnNext(hedged -> won.increment());
+                        })
+                        // A failed hedge leaves the primary to answer
+                        .onErrorResume(e -> Mono.never());
+                response = Mono.firstWithSignal(primary, hedge.map(hedged -> {
+                    exchange.getResponse().getHeaders().set(HEDGED_HEADER, "true");
+                    return hedged;
+                }));
+            }
+            return response
+                    .timeout(responseTimeout(route, config))
+                    .flatMap(upstream -> upstream.writeTo(exchange.getResponse(), null));
+        };
+    }
+
+    private Mono<CachedResponse> call(URI uri, HttpHeaders headers, LatencyWindow window) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return webClient.get()
+                    .uri(uri)
+                    .headers(outgoing -> outgoing.addAll(headers))
+                    .exchangeToMono(upstream -> upstream.bodyToMono(byte[].class)
+                            .defaultIfEmpty(new byte[0])
+                            // Written once and never stored, so it needs no expiry
+                            .map(body -> new CachedResponse(upstream.statusCode().value(),
+                                    upstream.headers().asHttpHeaders(), body, 0)))
+                    .doOnSuccess(upstream -> window.record(System.nanoTime() - start))
+                    // A call cancelled by a faster twin was at least this slow; dropping it would
+                    // pull the percentile, and with it the trigger, down after every hedge
+                    .doOnCancel(() -> window.record(System.nanoTime() - start));
+        });
+    }
+
+    private static URI upstreamUri(Route route, ServerHttpRequest request) {
+        return UriComponentsBuilder.fromUri(route.getUri())
+                .replacePath(request.getURI().getRawPath())
+                .replaceQuery(request.getURI().getRawQuery())
+                .build(true)
+                .toUri();
+    }
+
+    // Same header handling as the gateway's own routing filter: forwarded headers added,
+    // hop-by-hop headers removed, Host left to the client
+    private HttpHeaders forwardedHeaders(ServerWebExchange exchange) {
+        HttpHeaders filtered = HttpHeadersFilter.filterRequest(headersFilters.getIfAvailable(List::of), exchange);
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(filtered);
+        headers.remove(HttpHeaders.HOST);
+        return headers;
+    }
+
+    private static Duration responseTimeout(Route route, Config config) {
+        Object timeout = route.getMetadata().get(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR);
+        if (timeout instanceof Number millis) {
+            return Duration.ofMillis(millis.longValue());
+        }
+        if (timeout != null) {
+            return Duration.ofMillis(Long.parseLong(timeout.toString()));
+        }
+        return config.getResponseTimeout();
+    }
+
+    private Counter counter(String routeId, String result) {
+        return Counter.builder("gateway.hedge.requests")
+                .tag("route", routeId).tag("result", result).register(meterRegistry);
+    }
+
+    @Getter
+    @Setter
+    public static class Config implements HasRouteId {
+        // Set by the route locator from the route the filter is declared on
+        private String routeId;
+        private double percentile = 0.95;
+        private double budgetPercent = 5;
+        // Hedges allowed back to back after a quiet spell
+        private int burst = 10;
+        // Floor for the trigger, so a very fast upstream is not hedged on scheduling noise
+        private Duration minDelay = Duration.ofMillis(5);
+        private Duration responseTimeout = Duration.ofSeconds(5);
+    }
+}
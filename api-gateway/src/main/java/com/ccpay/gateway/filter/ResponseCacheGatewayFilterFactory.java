@@ -0,0 +1,99 @@
+package com.ccpay.gateway.filter;
+
+import com.ccpay.gateway.cache.CachedResponse;
+import com.ccpay.gateway.cache.ResponseCacheStore;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.Duration;
+import java.util.List;
+
+// Short-TTL cache for idempotent GETs on a route. Entries are keyed by upstream service, caller
+// and full URI, so one user's data is never served to another, and ResponseCacheInvalidationFilter
+// drops that caller's entries after a write to the same service through any route. Only
+// complete 200 responses that do not forbid storing are kept.
+// Responses served from upstream are marked X-Cache: MISS whether or not they were stored.
+//
+//   filters:
+//     - ResponseCache=2s
+@Component
+public class ResponseCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    public static final String ANONYMOUS = "anonymous";
+
+    // Ahead of NettyWriteResponseFilter, which writes the upstream body to the response of the
+    // exchange it was given: a response decorated by any later filter is never written to.
+    // Filters sharing this order keep their declared order on the route.
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    private final ResponseCacheStore store;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCacheStore store) {
+        super(Config.class);
+        this.store = store;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttl");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET || bypass(request.getHeaders())) {
+                return chain.filter(exchange);
+            }
+
+            String scope = scope(exchange);
+            String key = key(scope, request);
+            CachedResponse cached = store.get(key);
+            if (cached != null) {
+                return cached.writeTo(exchange.getResponse(), "HIT");
+            }
+            ServerHttpResponse response = exchange.getResponse();
+            response.getHeaders().set(CachedResponse.CACHE_HEADER, "MISS");
+            ServerHttpResponse caching = new CapturingResponse(response, config.getMaxBodyBytes(), config.getTtl(),
+                    captured -> store.put(scope, key, captured));
+            return chain.filter(exchange.mutate().response(caching).build());
+        }, ORDER);
+    }
+
+    // The upstream rather than the route: a read route and a write route to one service share it
+    static String scope(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String userId = exchange.getAttribute(AuthenticationFilter.USER_ID_ATTRIBUTE);
+        return (route != null ? route.getUri().toString() : "") + '|' + (userId != null ? userId : ANONYMOUS);
+    }
+
+    static String key(String scope, ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        return scope + '|' + request.getURI().getRawPath() + (query != null ? '?' + query : "");
+    }
+
+    private static boolean bypass(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return cacheControl != null && (cacheControl.contains("no-cache") || cacheControl.contains("no-store"));
+    }
+
+    @Getter
+    @Setter
+    public static class Config {
+        private Duration ttl = Duration.ofSeconds(2);
+        private int maxBodyBytes = 256 * 1024;
+    }
+}
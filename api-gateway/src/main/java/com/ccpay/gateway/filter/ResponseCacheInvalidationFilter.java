@@ -0,0 +1,43 @@
+package com.ccpay.gateway.filter;
+
+import com.ccpay.gateway.cache.ResponseCacheStore;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+// Drops the caller's cached responses from a service once a write to it completes, whichever
+// route carried the write: reads and writes to wallet-service travel on different routes.
+@Component
+public class ResponseCacheInvalidationFilter implements GlobalFilter, Ordered {
+
+    private static final Set<HttpMethod> SAFE_METHODS = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+
+    private final ResponseCacheStore store;
+
+    public ResponseCacheInvalidationFilter(ResponseCacheStore store) {
+        this.store = store;
+    }
+
+    // Needs the caller's identity
+    @Override
+    public int getOrder() {
+        return AuthenticationFilter.ORDER + 1;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (SAFE_METHODS.contains(exchange.getRequest().getMethod())) {
+            return chain.filter(exchange);
+        }
+        String scope = ResponseCacheGatewayFilterFactory.scope(exchange);
+        // Again afterwards, so a read racing the write cannot leave a stale copy behind
+        store.invalidate(scope);
+        return chain.filter(exchange).doFinally(signal -> store.invalidate(scope));
+    }
+}
@@ -0,0 +1,33 @@
+package com.ccpay.gateway.filter;
+
+import com.ccpay.common.tracing.TraceContext;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+// Gives every request a trace id at the edge: the client's X-Trace-Id or traceparent if it is
+// well-formed, otherwise a new one. It is forwarded downstream, where the services' own
+// TraceIdFilter adopts it, and returned to the client.
+@Component
+public class TraceIdFilter implements GlobalFilter, Ordered {
+    
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String traceId = TraceContext.resolve(request.getHeaders().getFirst(TraceContext.HEADER),
+                request.getHeaders().getFirst(TraceContext.TRACEPARENT_HEADER));
+        exchange.getResponse().getHeaders().set(TraceContext.HEADER, traceId);
+        return chain.filter(exchange.mutate()
+                .request(request.mutate().headers(headers -> headers.set(TraceContext.HEADER, traceId)).build())
+                .build());
+    }
+}
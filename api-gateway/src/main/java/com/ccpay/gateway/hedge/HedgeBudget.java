@@ -0,0 +1,36 @@
+package com.ccpay.gateway.hedge;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket capping hedges at a fixed share of a route's traffic. Every request earns a
+// fraction of a token and every hedge spends a whole one, so when upstream slows down across the
+// board hedging stops at the budget instead of multiplying its load. Tokens are kept in
+// millionths to stay in a single atomic long.
+public class HedgeBudget {
+    
+    private static final long TOKEN = 1_000_000;
+    
+    private final long creditPerRequest;
+    private final long maxTokens;
+    private final AtomicLong tokens = new AtomicLong();
+    
+    public HedgeBudget(double budgetPercent, int burst) {
+        this.creditPerRequest = Math.round(budgetPercent / 100 * TOKEN);
+        this.maxTokens = burst * TOKEN;
+    }
+    
+    public void onRequest() {
+        tokens.getAndUpdate(current -> Math.min(maxTokens, current + creditPerRequest));
+    }
+    
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < TOKEN) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - TOKEN));
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package com.ccpay.gateway.hedge;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Rolling window of the most recent upstream latencies. Recording is one atomic increment and a
+// lazy store; the percentile is recomputed by sorting a copy of the window at most every
+// REFRESH_NANOS, so the per-request cost stays flat however many requests share a route.
+public class LatencyWindow {
+    
+    private static final long REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    private final AtomicLongArray samples;
+    private final int mask;
+    private final int minSamples;
+    private final double percentile;
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong nextRefresh = new AtomicLong(System.nanoTime());
+    private volatile long cachedNanos = -1;
+    
+    public LatencyWindow(int size, int minSamples, double percentile) {
+        if (Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Latency window size must be a power of two");
+        }
+        this.samples = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.minSamples = Math.min(minSamples, size);
+        this.percentile = percentile;
+    }
+    
+    public void record(long nanos) {
+        samples.lazySet((int) (recorded.getAndIncrement() & mask), nanos);
+    }
+    
+    // Latency at the configured percentile, or -1 until enough samples have been seen
+    public long percentileNanos() {
+        long now = System.nanoTime();
+        long refreshAt = nextRefresh.get();
+        if (now - refreshAt >= 0 && nextRefresh.compareAndSet(refreshAt, now + REFRESH_NANOS)) {
+            cachedNanos = compute();
+        }
+        return cachedNanos;
+    }
+    
+    private long compute() {
+        int count = (int) Math.min(recorded.get(), samples.length());
+        if (count < minSamples) {
+            return -1;
+        }
+        long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        return sorted[Math.min(count - 1, (int) Math.ceil(percentile * count) - 1)];
+    }
+}
@@ -0,0 +1,46 @@
+package com.ccpay.gateway.security;
+
+import com.ccpay.common.constants.SecurityConstants;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Verifies access tokens locally with the same key material as auth-service's JwtService, so
+// no request needs a round trip to auth-service. The parser and key are built once; parsing
+// is thread-safe.
+@Component
+public class AccessTokenVerifier {
+    
+    private final JwtParser parser;
+    
+    public AccessTokenVerifier(@Value("${jwt.secret}") String jwtSecret) {
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret)))
+                .requireIssuer(SecurityConstants.JWT_ISSUER)
+                .requireAudience(SecurityConstants.JWT_AUDIENCE)
+                .build();
+    }
+    
+    public VerifiedToken verify(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        if (!SecurityConstants.TOKEN_TYPE_ACCESS.equals(claims.get(SecurityConstants.CLAIM_TOKEN_TYPE, String.class))) {
+            throw new JwtException("Not an access token");
+        }
+        String userId = claims.get(SecurityConstants.CLAIM_USER_ID, String.class);
+        if (userId == null) {
+            throw new JwtException("Access token carries no user ID");
+        }
+        Object authorities = claims.get(SecurityConstants.CLAIM_AUTHORITIES);
+        List<String> granted = authorities instanceof List<?> list 
+                ? list.stream().map(String::valueOf).toList() 
+                : List.of();
+        return new VerifiedToken(userId, claims.getSubject(), granted, claims.getExpiration().getTime() / 1000);
+    }
+}
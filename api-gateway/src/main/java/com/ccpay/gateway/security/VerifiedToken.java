@@ -0,0 +1,6 @@
+package com.ccpay.gateway.security;
+
+import java.util.List;
+
+public record VerifiedToken(String userId, String username, List<String> authorities, long expiresAt) {
+}
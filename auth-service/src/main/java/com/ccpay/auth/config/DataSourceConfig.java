@@ -0,0 +1,49 @@
+package com.ccpay.auth.config;
+
+import com.ccpay.common.jdbc.StatementCountingDataSource;
+import com.ccpay.common.limit.LimitedDataSource;
+import com.ccpay.common.limit.ResourceLimiter;
+import com.ccpay.common.threads.VirtualThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// The one place the pool is wrapped: statement counting (QueryBudgetConfig) outside, the
+// virtual-thread connection limit (VirtualThreadConfig) next to the pool
+@Configuration
+public class DataSourceConfig {
+    
+    // Static so wrapping the DataSource does not pull this configuration in early
+    @Bean
+    public static BeanPostProcessor dataSourceWrapper(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${" + VirtualThreads.ENABLED_PROPERTY + ":false}") boolean virtualThreads,
+            @Value("${app.query-budget.enabled:true}") boolean queryBudget,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int permits,
+            @Value("${app.resource-limits.database.max-waiting:200}") int maxWaiting,
+            @Value("${app.resource-limits.database.max-wait-millis:5000}") long maxWaitMillis) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource)
+                        || bean instanceof StatementCountingDataSource || bean instanceof LimitedDataSource) {
+                    return bean;
+                }
+                if (virtualThreads) {
+                    dataSource = new LimitedDataSource(dataSource, new ResourceLimiter("database", permits,
+                            maxWaiting, Duration.ofMillis(maxWaitMillis), meterRegistry.getObject()));
+                }
+                if (queryBudget) {
+                    dataSource = new StatementCountingDataSource(dataSource);
+                }
+                return dataSource;
+            }
+        };
+    }
+}
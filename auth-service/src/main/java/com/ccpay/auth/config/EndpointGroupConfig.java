@@ -0,0 +1,22 @@
+package com.ccpay.auth.config;
+
+import com.ccpay.common.limit.EndpointGroup;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Token refresh is cheap and keeps signed-in users signed in; login is expensive (password
+// hashing) but the reason most people are here. Registration and account maintenance
+// share the default group and are shed first.
+@Configuration
+public class EndpointGroupConfig {
+    
+    @Bean
+    public EndpointGroup tokenEndpointGroup() {
+        return EndpointGroup.of("token", 0.3, "/api/v1/auth/refresh", "/api/v1/auth/logout");
+    }
+    
+    @Bean
+    public EndpointGroup loginEndpointGroup() {
+        return EndpointGroup.of("login", 0.4, "/api/v1/auth/login", "/api/v1/auth/mfa/**");
+    }
+}
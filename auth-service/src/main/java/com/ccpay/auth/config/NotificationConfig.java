@@ -0,0 +1,66 @@
+package com.ccpay.auth.config;
+
+import com.ccpay.auth.mail.AlertType;
+import com.ccpay.auth.mail.NotificationCoalescer;
+import com.ccpay.auth.mail.NotificationDispatcher;
+import com.ccpay.auth.mail.SmtpConnectionPool;
+import com.ccpay.auth.service.EmailService;
+import com.ccpay.common.retry.RetryQueue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thymeleaf.TemplateEngine;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Configuration
+public class NotificationConfig {
+    
+    @Bean
+    public RetryQueue retryQueue(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                 @Value("${app.notifications.max-attempts:5}") int maxAttempts) {
+        return new RetryQueue(jdbcTemplate, meterRegistry, 1, maxAttempts);
+    }
+    
+    @Bean(destroyMethod = "close")
+    public SmtpConnectionPool smtpConnectionPool(
+            JavaMailSenderImpl mailSender, MeterRegistry meterRegistry,
+            @Value("${app.notifications.connection-max-idle-seconds:60}") long maxIdleSeconds) {
+        return new SmtpConnectionPool(mailSender, Duration.ofSeconds(maxIdleSeconds), meterRegistry);
+    }
+    
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public NotificationDispatcher notificationDispatcher(
+            RetryQueue retryQueue, SmtpConnectionPool smtpConnectionPool, TemplateEngine templateEngine,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${spring.mail.from:noreply@ccautopay.com}") String fromEmail,
+            @Value("${app.notifications.senders:4}") int senders,
+            @Value("${app.notifications.batch-size:50}") int batchSize,
+            @Value("${app.notifications.lease-seconds:120}") long leaseSeconds,
+            @Value("${app.notifications.poll-interval-millis:200}") long pollIntervalMillis) {
+        return new NotificationDispatcher(retryQueue, smtpConnectionPool, templateEngine, objectMapper, fromEmail,
+                EmailService.TEMPLATES, senders, batchSize, leaseSeconds, pollIntervalMillis, meterRegistry);
+    }
+    
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public NotificationCoalescer notificationCoalescer(
+            JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, RetryQueue retryQueue,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${app.notifications.digest.transaction-window-seconds:900}") long transactionWindowSeconds,
+            @Value("${app.notifications.digest.low-balance-window-seconds:21600}") long lowBalanceWindowSeconds,
+            @Value("${app.notifications.digest.max-per-user-per-hour:6}") int maxDigestsPerHour,
+            @Value("${app.notifications.digest.batch-size:200}") int batchSize,
+            @Value("${app.notifications.digest.poll-interval-millis:1000}") long pollIntervalMillis) {
+        Map<AlertType, Long> windowSeconds = Map.of(
+                AlertType.TRANSACTION, transactionWindowSeconds,
+                AlertType.LOW_BALANCE, lowBalanceWindowSeconds);
+        return new NotificationCoalescer(jdbcTemplate, transactionTemplate, retryQueue, objectMapper, windowSeconds,
+                maxDigestsPerHour, batchSize, pollIntervalMillis, meterRegistry);
+    }
+}
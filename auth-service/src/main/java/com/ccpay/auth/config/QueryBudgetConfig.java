@@ -0,0 +1,33 @@
+package com.ccpay.auth.config;
+
+import com.ccpay.common.jdbc.QueryBudgetFilter;
+import com.ccpay.common.utils.PatternValues;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+
+// Per-request JDBC statement accounting. Budgets are "pattern=statements" entries; login
+// legitimately runs a few more statements than token refresh (lookup, lockout bookkeeping,
+// refresh token insert), so each endpoint gets its own. DataSourceConfig does the counting.
+@Configuration
+@ConditionalOnProperty(name = "app.query-budget.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryBudgetConfig {
+    
+    @Bean
+    public FilterRegistrationBean<QueryBudgetFilter> queryBudgetFilter(
+            MeterRegistry meterRegistry,
+            @Value("${app.query-budget.default-max-statements:10}") int defaultBudget,
+            @Value("${app.query-budget.max-statements:}") List<String> budgets) {
+        FilterRegistrationBean<QueryBudgetFilter> registration = new FilterRegistrationBean<>(new QueryBudgetFilter(
+                defaultBudget, PatternValues.parse(budgets, Integer::parseInt), List.of("/actuator/**"), meterRegistry));
+        // Right behind the trace id filter, so token lookups in the security chain are counted
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,27 @@
+package com.ccpay.auth.config;
+
+import com.ccpay.common.threads.PinningMonitor;
+import com.ccpay.common.threads.VirtualThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Limits on the blocking resources behind request and @Async threads. In the default platform
+// thread mode Tomcat's pool and the executors already bound them; with virtual threads the
+// database connections are capped in DataSourceConfig instead. SMTP sessions are bounded in
+// either mode by the notification senders (app.notifications.senders).
+@Configuration
+public class VirtualThreadConfig {
+    
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = VirtualThreads.ENABLED_PROPERTY, havingValue = "true")
+    public PinningMonitor pinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${app.virtual-threads.pinning-threshold-millis:20}") long thresholdMillis) {
+        return new PinningMonitor(Duration.ofMillis(thresholdMillis), meterRegistry);
+    }
+}
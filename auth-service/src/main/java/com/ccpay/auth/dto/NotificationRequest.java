@@ -0,0 +1,20 @@
+package com.ccpay.auth.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+// An email waiting in the notification queue, rendered only when it is sent
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationRequest {
+    private String recipient;
+    private String subject;
+    private String template;
+    private Map<String, Object> variables;
+}
@@ -0,0 +1,39 @@
+package com.ccpay.auth.listener;
+
+import com.ccpay.auth.service.EmailService;
+import com.ccpay.common.constants.ApplicationConstants;
+import com.ccpay.common.eventbus.EventBus;
+import com.ccpay.common.events.TransactionEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class TransactionAlertListener {
+    
+    private final EventBus eventBus;
+    private final EmailService emailService;
+    
+    @Value("${app.notifications.low-balance-threshold:100}")
+    private BigDecimal lowBalanceThreshold;
+    
+    @PostConstruct
+    public void subscribe() {
+        eventBus.subscribe(ApplicationConstants.TRANSACTION_EVENTS_TOPIC, "auth-transaction-alerts",
+                TransactionEvent.class, this::onTransactionEvents);
+    }
+    
+    // One batch becomes one coalescer transaction; on Kafka, offsets are committed after it
+    public void onTransactionEvents(List<TransactionEvent> events) {
+        List<TransactionEvent> completed = events.stream()
+                .filter(event -> ApplicationConstants.TRANSACTION_COMPLETED.equals(event.getStatus()))
+                .filter(event -> event.getUserId() != null && event.getTransactionId() != null)
+                .toList();
+        emailService.sendTransactionAlerts(completed, lowBalanceThreshold);
+    }
+}
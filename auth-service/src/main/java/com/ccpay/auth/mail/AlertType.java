@@ -0,0 +1,16 @@
+package com.ccpay.auth.mail;
+
+import com.ccpay.common.constants.ApplicationConstants;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+// Alert kinds that are coalesced into digests; each has its own window per user
+@Getter
+@RequiredArgsConstructor
+public enum AlertType {
+    TRANSACTION(ApplicationConstants.TRANSACTION_NOTIFICATION_TEMPLATE, "Recent Account Activity"),
+    LOW_BALANCE(ApplicationConstants.LOW_BALANCE_ALERT_TEMPLATE, "Low Balance Alert");
+    
+    private final String template;
+    private final String subject;
+}
@@ -0,0 +1,246 @@
+package com.ccpay.auth.mail;
+
+import com.ccpay.auth.dto.NotificationRequest;
+import com.ccpay.common.retry.RetryQueue;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Turns alert storms into digests before they reach the notification queue. Alerts are stored
+// per user and type, and a repeated alert (same dedup key) replaces the pending one. The first
+// alert after a quiet spell is flushed on the next poll; later ones wait until a window has
+// passed since the last digest, so a user gets at most one email per type per window however
+// many events arrive. Each digest also spends one unit of the user's hourly quota; over quota,
+// the window is pushed to the next hour and keeps collecting. Flushing, quota and the queue
+// insert share one transaction, so an alert is either still pending or queued for sending.
+// Not a component: NotificationConfig creates it next to the dispatcher.
+@Slf4j
+public class NotificationCoalescer {
+    
+    // Listed in the digest; the rest are only counted
+    static final int MAX_DIGEST_ITEMS = 20;
+    
+    private static final String UPSERT_ALERT =
+            "INSERT INTO notification_alerts (user_id, alert_type, dedup_key, payload) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (user_id, alert_type, dedup_key) DO UPDATE SET payload = EXCLUDED.payload";
+    
+    private static final String OPEN_WINDOW =
+            "INSERT INTO notification_windows (user_id, alert_type, flush_at) VALUES (?, ?, LOCALTIMESTAMP) " +
+            "ON CONFLICT (user_id, alert_type) DO UPDATE SET flush_at = GREATEST(LOCALTIMESTAMP, " +
+            "notification_windows.last_sent_at + make_interval(secs => ?)) " +
+            "WHERE notification_windows.flush_at IS NULL";
+    
+    private static final String CLAIM_WINDOWS =
+            "SELECT user_id, alert_type FROM notification_windows WHERE flush_at <= LOCALTIMESTAMP " +
+            "ORDER BY flush_at LIMIT ? FOR UPDATE SKIP LOCKED";
+    
+    private static final String CLOSE_WINDOW =
+            "UPDATE notification_windows SET flush_at = NULL, last_sent_at = LOCALTIMESTAMP " +
+            "WHERE user_id = ? AND alert_type = ?";
+    
+    private static final String DEFER_WINDOW =
+            "UPDATE notification_windows SET flush_at = date_trunc('hour', LOCALTIMESTAMP) + interval '1 hour' " +
+            "WHERE user_id = ? AND alert_type = ?";
+    
+    // Returns no row once the user has used up the hour's quota
+    private static final String SPEND_QUOTA =
+            "INSERT INTO notification_quotas (user_id, period_start, sent) " +
+            "VALUES (?, date_trunc('hour', LOCALTIMESTAMP), 1) " +
+            "ON CONFLICT (user_id, period_start) DO UPDATE SET sent = notification_quotas.sent + 1 " +
+            "WHERE notification_quotas.sent < ? RETURNING sent";
+    
+    private static final String TAKE_ALERTS =
+            "DELETE FROM notification_alerts WHERE user_id = ? AND alert_type = ? " +
+            "RETURNING payload, created_at";
+    
+    private static final String RECIPIENT =
+            "SELECT email, first_name FROM users WHERE user_id = ? AND status = 'ACTIVE'";
+    
+    private static final String PURGE_QUOTAS =
+            "DELETE FROM notification_quotas WHERE period_start < LOCALTIMESTAMP - interval '1 day'";
+    
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {
+    };
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RetryQueue retryQueue;
+    private final ObjectMapper objectMapper;
+    private final Map<AlertType, Long> windowSeconds;
+    private final int maxDigestsPerHour;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final ScheduledExecutorService poller;
+    private final Map<AlertType, Counter> alertsAccepted = new EnumMap<>(AlertType.class);
+    private final Counter digestsQueued;
+    private final Counter digestsDeferred;
+    private final Counter alertsDigested;
+    
+    public NotificationCoalescer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                 RetryQueue retryQueue, ObjectMapper objectMapper,
+                                 Map<AlertType, Long> windowSeconds, int maxDigestsPerHour, int batchSize,
+                                 long pollIntervalMillis, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.retryQueue = retryQueue;
+        this.objectMapper = objectMapper;
+        this.windowSeconds = windowSeconds;
+        this.maxDigestsPerHour = maxDigestsPerHour;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.digestsQueued = Counter.builder("notifications.digests").tag("result", "queued").register(meterRegistry);
+        this.digestsDeferred = Counter.builder("notifications.digests").tag("result", "deferred").register(meterRegistry);
+        this.alertsDigested = Counter.builder("notifications.alerts").tag("result", "digested").register(meterRegistry);
+        for (AlertType type : AlertType.values()) {
+            alertsAccepted.put(type, Counter.builder("notifications.alerts").tag("result", "accepted")
+                    .tag("type", type.name()).register(meterRegistry));
+        }
+    }
+    
+    public void start() {
+        poller.scheduleWithFixedDelay(this::flushSafely, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::purgeQuotas, 1, 60, TimeUnit.MINUTES);
+    }
+    
+    public void stop() throws InterruptedException {
+        poller.shutdown();
+        poller.awaitTermination(30, TimeUnit.SECONDS);
+    }
+    
+    // Joins the caller's transaction if there is one
+    public void submit(List<Alert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        // Same lock order in every batch, so concurrent submitters cannot deadlock
+        List<Alert> sorted = new ArrayList<>(alerts);
+        sorted.sort(Comparator.comparing(Alert::userId).thenComparing(Alert::type).thenComparing(Alert::dedupKey));
+        List<Object[]> rows = new ArrayList<>(sorted.size());
+        List<Object[]> windows = new ArrayList<>();
+        Alert previous = null;
+        for (Alert alert : sorted) {
+            rows.add(new Object[]{alert.userId(), alert.type().name(), alert.dedupKey(), serialize(alert.details())});
+            if (previous == null || !previous.userId().equals(alert.userId()) || previous.type() != alert.type()) {
+                windows.add(new Object[]{alert.userId(), alert.type().name(), windowSeconds.get(alert.type())});
+            }
+            previous = alert;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPSERT_ALERT, rows);
+            jdbcTemplate.batchUpdate(OPEN_WINDOW, windows);
+        });
+        for (Alert alert : alerts) {
+            alertsAccepted.get(alert.type()).increment();
+        }
+    }
+    
+    private void flushSafely() {
+        try {
+            Integer flushed;
+            do {
+                flushed = transactionTemplate.execute(status -> flush());
+            } while (flushed != null && flushed == batchSize && !poller.isShutdown());
+        } catch (Exception e) {
+            log.error("Notification digest flush failed", e);
+        }
+    }
+    
+    private int flush() {
+        List<Object[]> due = jdbcTemplate.query(CLAIM_WINDOWS,
+                (rs, rowNum) -> new Object[]{rs.getObject("user_id", UUID.class), rs.getString("alert_type")},
+                batchSize);
+        for (Object[] window : due) {
+            UUID userId = (UUID) window[0];
+            AlertType type = AlertType.valueOf((String) window[1]);
+            if (jdbcTemplate.queryForList(SPEND_QUOTA, Integer.class, userId, maxDigestsPerHour).isEmpty()) {
+                jdbcTemplate.update(DEFER_WINDOW, userId, type.name());
+                digestsDeferred.increment();
+                continue;
+            }
+            jdbcTemplate.update(CLOSE_WINDOW, userId, type.name());
+            queueDigest(userId, type);
+        }
+        return due.size();
+    }
+    
+    private void queueDigest(UUID userId, AlertType type) {
+        List<Map<String, Object>> alerts = jdbcTemplate.query(TAKE_ALERTS, (rs, rowNum) -> {
+            Map<String, Object> details = new HashMap<>(deserialize(rs.getString("payload")));
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            details.put("receivedAt", createdAt.toLocalDateTime().toString());
+            return details;
+        }, userId, type.name());
+        List<Map<String, Object>> recipient = jdbcTemplate.queryForList(RECIPIENT, userId);
+        if (alerts.isEmpty() || recipient.isEmpty()) {
+            return;
+        }
+        alerts.sort(Comparator.comparing(details -> (String) details.get("receivedAt")));
+        alertsDigested.increment(alerts.size());
+        
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("userName", recipient.get(0).get("first_name"));
+        variables.put("alerts", alerts.subList(0, Math.min(alerts.size(), MAX_DIGEST_ITEMS)));
+        variables.put("alertCount", alerts.size());
+        variables.put("omittedCount", Math.max(alerts.size() - MAX_DIGEST_ITEMS, 0));
+        NotificationRequest request = NotificationRequest.builder()
+                .recipient((String) recipient.get(0).get("email"))
+                .subject(alerts.size() == 1 ? type.getSubject() : type.getSubject() + " (" + alerts.size() + ")")
+                .template(type.getTemplate())
+                .variables(variables)
+                .build();
+        retryQueue.enqueueNow(NotificationDispatcher.QUEUE, serialize(request));
+        digestsQueued.increment();
+    }
+    
+    private void purgeQuotas() {
+        try {
+            jdbcTemplate.update(PURGE_QUOTAS);
+        } catch (Exception e) {
+            log.warn("Failed to purge notification quotas: {}", e.getMessage());
+        }
+    }
+    
+    private String serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize notification", e);
+        }
+    }
+    
+    private Map<String, Object> deserialize(String payload) {
+        try {
+            return objectMapper.readValue(payload, PAYLOAD_TYPE);
+        } catch (JsonProcessingException e) {
+            log.warn("Dropping unreadable alert payload: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+    
+    // dedupKey identifies the thing alerted on (a transaction, a wallet); a newer alert with the
+    // same key replaces a pending one
+    public record Alert(UUID userId, AlertType type, String dedupKey, Map<String, Object> details) {
+    }
+}
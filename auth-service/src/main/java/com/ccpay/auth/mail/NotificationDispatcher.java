@@ -0,0 +1,204 @@
+package com.ccpay.auth.mail;
+
+import com.ccpay.auth.dto.NotificationRequest;
+import com.ccpay.common.retry.RetryItem;
+import com.ccpay.common.retry.RetryQueue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Sends queued notifications in batches. Each sender claims up to batchSize due items, renders
+// them with the cached templates and sends them all over one pooled SMTP connection, then
+// deletes the sent rows in one statement. A rejected recipient fails only its own item; a
+// broken connection is replaced and the rest of the batch continues on a fresh one. Failed
+// items are rescheduled with the queue's backoff and dead-lettered after its max attempts.
+// Delivery is at least once: a crash between send and delete resends when the lease lapses.
+// Not a component: NotificationConfig creates it with the SMTP pool.
+@Slf4j
+public class NotificationDispatcher {
+    
+    public static final String QUEUE = "notifications";
+    
+    private final RetryQueue retryQueue;
+    private final SmtpConnectionPool connectionPool;
+    private final TemplateEngine templateEngine;
+    private final ObjectMapper objectMapper;
+    private final String fromEmail;
+    private final List<String> templates;
+    private final int senders;
+    private final int batchSize;
+    private final long leaseSeconds;
+    private final long pollIntervalMillis;
+    private final ScheduledExecutorService executor;
+    private final Counter sent;
+    private final Counter failed;
+    private final DistributionSummary batchSizes;
+    private final Timer batchTimer;
+    
+    public NotificationDispatcher(RetryQueue retryQueue, SmtpConnectionPool connectionPool,
+                                  TemplateEngine templateEngine, ObjectMapper objectMapper, String fromEmail,
+                                  List<String> templates, int senders, int batchSize, long leaseSeconds,
+                                  long pollIntervalMillis, MeterRegistry meterRegistry) {
+        this.retryQueue = retryQueue;
+        this.connectionPool = connectionPool;
+        this.templateEngine = templateEngine;
+        this.objectMapper = objectMapper;
+        this.fromEmail = fromEmail;
+        this.templates = templates;
+        this.senders = senders;
+        this.batchSize = batchSize;
+        this.leaseSeconds = leaseSeconds;
+        this.pollIntervalMillis = pollIntervalMillis;
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(senders + 1, runnable -> {
+            Thread thread = new Thread(runnable, "notification-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sent = Counter.builder("notifications.sent").tag("result", "sent").register(meterRegistry);
+        this.failed = Counter.builder("notifications.sent").tag("result", "failed").register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("notifications.batch.size").register(meterRegistry);
+        this.batchTimer = Timer.builder("notifications.batch.duration").register(meterRegistry);
+    }
+    
+    public void start() {
+        warmTemplates();
+        for (int i = 0; i < senders; i++) {
+            executor.scheduleWithFixedDelay(this::drainSafely, pollIntervalMillis, pollIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+        executor.scheduleWithFixedDelay(this::refreshMetrics, 0, 30, TimeUnit.SECONDS);
+    }
+    
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+    
+    // Parses every template once so the first emails after startup do not pay for it
+    private void warmTemplates() {
+        for (String template : templates) {
+            try {
+                templateEngine.process(template, new Context());
+            } catch (Exception e) {
+                log.warn("Failed to pre-compile email template {}: {}", template, e.getMessage());
+            }
+        }
+    }
+    
+    private void drainSafely() {
+        try {
+            List<RetryItem> batch;
+            do {
+                batch = retryQueue.claim(QUEUE, batchSize, leaseSeconds);
+                if (!batch.isEmpty()) {
+                    List<RetryItem> claimed = batch;
+                    batchTimer.record(() -> deliver(claimed));
+                }
+            } while (batch.size() == batchSize && !executor.isShutdown());
+        } catch (Exception e) {
+            log.error("Notification batch failed", e);
+        }
+    }
+    
+    private void deliver(List<RetryItem> batch) {
+        batchSizes.record(batch.size());
+        List<RetryItem> delivered = new ArrayList<>(batch.size());
+        Transport transport = null;
+        int i = 0;
+        try {
+            for (; i < batch.size(); i++) {
+                RetryItem item = batch.get(i);
+                MimeMessage message;
+                try {
+                    message = render(item);
+                } catch (Exception e) {
+                    fail(item, e);
+                    continue;
+                }
+                if (transport == null) {
+                    transport = connectionPool.borrow();
+                }
+                try {
+                    transport.sendMessage(message, message.getAllRecipients());
+                    delivered.add(item);
+                } catch (SendFailedException e) {
+                    // Rejected by the relay; the connection is still good
+                    fail(item, e);
+                } catch (MessagingException e) {
+                    connectionPool.discard(transport);
+                    transport = null;
+                    fail(item, e);
+                }
+            }
+        } catch (MessagingException e) {
+            // No connection could be opened, so nothing from here on can be sent
+            log.warn("SMTP connection failed, rescheduling {} notifications: {}", batch.size() - i, e.getMessage());
+            for (; i < batch.size(); i++) {
+                fail(batch.get(i), e);
+            }
+        } finally {
+            if (transport != null) {
+                connectionPool.release(transport);
+            }
+            retryQueue.complete(delivered);
+            sent.increment(delivered.size());
+        }
+    }
+    
+    private MimeMessage render(RetryItem item) throws Exception {
+        NotificationRequest request = objectMapper.readValue(item.getPayload(), NotificationRequest.class);
+        Context context = new Context();
+        context.setVariables(request.getVariables());
+        String htmlContent = templateEngine.process(request.getTemplate(), context);
+        
+        MimeMessage message = new MimeMessage(connectionPool.session());
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(request.getRecipient());
+        helper.setSubject(request.getSubject());
+        helper.setText(htmlContent, true);
+        // Transport.sendMessage, unlike Transport.send, does not finalize the headers itself
+        message.saveChanges();
+        return message;
+    }
+    
+    private void fail(RetryItem item, Exception error) {
+        failed.increment();
+        try {
+            if (retryQueue.fail(item, error)) {
+                log.warn("Notification {} dead-lettered after {} attempts: {}",
+                        item.getId(), item.getAttempts(), error.getMessage());
+            }
+        } catch (Exception e) {
+            // The lease lapses and the item is claimed again
+            log.error("Failed to record notification failure for {}", item.getId(), e);
+        }
+    }
+    
+    private void refreshMetrics() {
+        try {
+            retryQueue.refreshMetrics(QUEUE);
+        } catch (Exception e) {
+            log.warn("Failed to refresh notification queue metrics: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.ccpay.auth.mail;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+
+// Keeps connected, authenticated SMTP transports between batches instead of paying the TCP,
+// TLS and AUTH handshakes for every message as JavaMailSender.send does. Connections idle for
+// longer than maxIdle are closed on the next borrow, since relays drop quiet sessions. The pool
+// is not capped itself: each notification sender holds at most one connection at a time.
+@Slf4j
+public class SmtpConnectionPool implements AutoCloseable {
+    
+    private final JavaMailSenderImpl mailSender;
+    private final long maxIdleNanos;
+    private final BlockingDeque<IdleTransport> idle = new LinkedBlockingDeque<>();
+    private final Counter opened;
+    
+    public SmtpConnectionPool(JavaMailSenderImpl mailSender, Duration maxIdle, MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.maxIdleNanos = maxIdle.toNanos();
+        this.opened = Counter.builder("smtp.connections.opened").register(meterRegistry);
+    }
+    
+    public Session session() {
+        return mailSender.getSession();
+    }
+    
+    public Transport borrow() throws MessagingException {
+        IdleTransport candidate;
+        // Most recently returned first, so surplus connections age out at the back
+        while ((candidate = idle.pollFirst()) != null) {
+            if (System.nanoTime() - candidate.returnedAt < maxIdleNanos && candidate.transport.isConnected()) {
+                return candidate.transport;
+            }
+            closeQuietly(candidate.transport);
+        }
+        Transport transport = session().getTransport(mailSender.getProtocol());
+        // Same credential handling as JavaMailSenderImpl: empty means none
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        transport.connect(mailSender.getHost(), mailSender.getPort(),
+                username == null || username.isEmpty() ? null : username,
+                password == null || password.isEmpty() ? null : password);
+        opened.increment();
+        return transport;
+    }
+    
+    public void release(Transport transport) {
+        idle.offerFirst(new IdleTransport(transport, System.nanoTime()));
+    }
+    
+    // For a transport that failed mid-conversation and can no longer be trusted
+    public void discard(Transport transport) {
+        closeQuietly(transport);
+    }
+    
+    @Override
+    public void close() {
+        IdleTransport candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            closeQuietly(candidate.transport);
+        }
+    }
+    
+    private static void closeQuietly(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection: {}", e.getMessage());
+        }
+    }
+    
+    private record IdleTransport(Transport transport, long returnedAt) {
+    }
+}
@@ -2,11 +2,13 @@ package com.ccpay.auth.security;
 
 import com.ccpay.common.constants.SecurityConstants;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -14,11 +16,11 @@ import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class JwtService {
     
     @Value("${jwt.secret}")
@@ -30,6 +32,18 @@ public class JwtService {
     @Value("${jwt.refresh-token-expiration:2592000000}")
     private long refreshTokenExpiration;
     
+    private final Timer signTimer;
+    private final Timer verifiedTimer;
+    private final Timer expiredTimer;
+    private final Timer rejectedTimer;
+    
+    public JwtService(MeterRegistry meterRegistry) {
+        this.signTimer = Timer.builder("auth.jwt.sign").publishPercentileHistogram().register(meterRegistry);
+        this.verifiedTimer = verifyTimer(meterRegistry, "valid");
+        this.expiredTimer = verifyTimer(meterRegistry, "expired");
+        this.rejectedTimer = verifyTimer(meterRegistry, "invalid");
+    }
+    
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -46,6 +60,10 @@ public class JwtService {
                 userDetails.getAuthorities().stream()
                         .map(GrantedAuthority::getAuthority)
                         .collect(Collectors.toList()));
+        // Lets the gateway forward the user ID without a lookup
+        if (userDetails instanceof CustomUserDetails customUserDetails) {
+            extraClaims.put(SecurityConstants.CLAIM_USER_ID, customUserDetails.getUserId().toString());
+        }
         
         return generateToken(extraClaims, userDetails, accessTokenExpiration);
     }
@@ -62,10 +80,11 @@ public class JwtService {
             UserDetails userDetails,
             long expiration
     ) {
+        long start = System.nanoTime();
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
         
-        return Jwts
+        String token = Jwts
                 .builder()
                 .setClaims(extraClaims)
                 .setSubject(userDetails.getUsername())
@@ -75,6 +94,8 @@ public class JwtService {
                 .setExpiration(expiryDate)
                 .signWith(getSignInKey(), SignatureAlgorithm.HS256)
                 .compact();
+        signTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return token;
     }
     
     public boolean isTokenValid(String token, UserDetails userDetails) {
@@ -106,12 +127,27 @@ public class JwtService {
     }
     
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        long start = System.nanoTime();
+        Timer outcome = rejectedTimer;
+        try {
+            Claims claims = Jwts
+                    .parser()
+                    .verifyWith(getSignInKey())
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+            outcome = verifiedTimer;
+            return claims;
+        } catch (ExpiredJwtException e) {
+            outcome = expiredTimer;
+            throw e;
+        } finally {
+            outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private static Timer verifyTimer(MeterRegistry registry, String result) {
+        return Timer.builder("auth.jwt.verify").tag("result", result).publishPercentileHistogram().register(registry);
     }
     
     private SecretKey getSignInKey() {
@@ -13,12 +13,15 @@ import com.ccpay.auth.security.JwtService;
 import com.ccpay.common.constants.ApplicationConstants;
 import com.ccpay.common.constants.ErrorCodes;
 import com.ccpay.common.constants.SecurityConstants;
+import com.ccpay.common.events.UserEvent;
 import com.ccpay.common.exceptions.BusinessException;
 import com.ccpay.common.exceptions.UnauthorizedException;
+import com.ccpay.common.outbox.OutboxWriter;
 import com.ccpay.common.utils.SecurityUtils;
 import com.warrenstrange.googleauth.GoogleAuthenticator;
 import com.warrenstrange.googleauth.GoogleAuthenticatorKey;
 import com.warrenstrange.googleauth.GoogleAuthenticatorQRGenerator;
+import io.micrometer.core.annotation.Timed;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -38,6 +41,7 @@ import java.util.UUID;
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed(value = "auth.operations", histogram = true)
 public class AuthService {
     
     private final UserRepository userRepository;
@@ -48,6 +52,7 @@ public class AuthService {
     private final AuthenticationManager authenticationManager;
     private final GoogleAuthenticator googleAuthenticator;
     private final EmailService emailService;
+    private final OutboxWriter outboxWriter;
     
     @Value("${app.mfa.issuer:CC AutoPay}")
     private String mfaIssuer;
@@ -56,7 +61,7 @@ public class AuthService {
     public AuthResponse register(RegisterRequest request) {
         // Check if user already exists
         if (userRepository.existsByEmail(request.getEmail())) {
-            throw new BusinessException(ErrorCodes.USER_ALREADY_EXISTS, 
+            throw BusinessException.expected(ErrorCodes.USER_ALREADY_EXISTS, 
                     "User with this email already exists");
         }
         
@@ -78,6 +83,17 @@ public class AuthService {
         
         user = userRepository.save(user);
         
+        // Published by the outbox relay only if the registration commits
+        outboxWriter.append(ApplicationConstants.USER_EVENTS_TOPIC, user.getUserId().toString(),
+                UserEvent.USER_REGISTERED, UserEvent.builder()
+                        .eventType(UserEvent.USER_REGISTERED)
+                        .userId(user.getUserId())
+                        .email(user.getEmail())
+                        .firstName(user.getFirstName())
+                        .lastName(user.getLastName())
+                        .occurredAt(LocalDateTime.now())
+                        .build());
+        
         // Send verification email
         emailService.sendVerificationEmail(user);
         
@@ -92,18 +108,18 @@ public class AuthService {
     @Transactional
     public AuthResponse login(LoginRequest request, HttpServletRequest httpRequest) {
         User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new UnauthorizedException(ErrorCodes.INVALID_CREDENTIALS, 
+                .orElseThrow(() -> UnauthorizedException.expected(ErrorCodes.INVALID_CREDENTIALS, 
                         "Invalid credentials"));
         
         // Check if account is locked
         if (user.isAccountLocked()) {
-            throw new UnauthorizedException(ErrorCodes.ACCOUNT_LOCKED, 
+            throw UnauthorizedException.expected(ErrorCodes.ACCOUNT_LOCKED, 
                     "Account is locked due to multiple failed login attempts");
         }
         
         // Check if email is verified
         if (!user.isEmailVerified()) {
-            throw new UnauthorizedException(ErrorCodes.ACCOUNT_NOT_VERIFIED, 
+            throw UnauthorizedException.expected(ErrorCodes.ACCOUNT_NOT_VERIFIED, 
                     "Please verify your email before logging in");
         }
         
@@ -134,7 +150,7 @@ public class AuthService {
                 
                 // Verify MFA code
                 if (!googleAuthenticator.authorize(user.getMfaSecret(), Integer.parseInt(request.getMfaCode()))) {
-                    throw new UnauthorizedException(ErrorCodes.INVALID_MFA_CODE, "Invalid MFA code");
+                    throw UnauthorizedException.expected(ErrorCodes.INVALID_MFA_CODE, "Invalid MFA code");
                 }
             }
             
@@ -160,19 +176,19 @@ public class AuthService {
             
             userRepository.save(user);
             
-            throw new UnauthorizedException(ErrorCodes.INVALID_CREDENTIALS, "Invalid credentials");
+            throw UnauthorizedException.expected(ErrorCodes.INVALID_CREDENTIALS, "Invalid credentials");
         }
     }
     
     @Transactional
     public AuthResponse refreshToken(RefreshTokenRequest request) {
         RefreshToken refreshToken = refreshTokenRepository.findByToken(request.getRefreshToken())
-                .orElseThrow(() -> new UnauthorizedException(ErrorCodes.TOKEN_EXPIRED, 
+                .orElseThrow(() -> UnauthorizedException.expected(ErrorCodes.TOKEN_EXPIRED, 
                         "Invalid refresh token"));
         
         // Validate token
         if (!refreshToken.isValid()) {
-            throw new UnauthorizedException(ErrorCodes.TOKEN_EXPIRED, "Refresh token expired or revoked");
+            throw UnauthorizedException.expected(ErrorCodes.TOKEN_EXPIRED, "Refresh token expired or revoked");
         }
         
         User user = refreshToken.getUser();
@@ -232,7 +248,7 @@ public class AuthService {
         
         // Verify the code
         if (!googleAuthenticator.authorize(secret, Integer.parseInt(code))) {
-            throw new BusinessException(ErrorCodes.INVALID_MFA_CODE, "Invalid MFA code");
+            throw BusinessException.expected(ErrorCodes.INVALID_MFA_CODE, "Invalid MFA code");
         }
         
         // Enable MFA
@@ -290,7 +306,7 @@ public class AuthService {
         
         // Verify password
         if (!passwordEncoder.matches(password, user.getPasswordHash())) {
-            throw new UnauthorizedException(ErrorCodes.INVALID_CREDENTIALS, "Invalid password");
+            throw UnauthorizedException.expected(ErrorCodes.INVALID_CREDENTIALS, "Invalid password");
         }
         
         // Disable MFA
@@ -317,7 +333,7 @@ public class AuthService {
                 .orElseThrow(() -> new BusinessException(ErrorCodes.USER_NOT_FOUND, "User not found"));
         
         if (user.isEmailVerified()) {
-            throw new BusinessException(ErrorCodes.INVALID_REQUEST_FORMAT, "Email already verified");
+            throw BusinessException.expected(ErrorCodes.INVALID_REQUEST_FORMAT, "Email already verified");
         }
         
         emailService.sendVerificationEmail(user);
@@ -348,7 +364,7 @@ public class AuthService {
         
         // Verify old password
         if (!passwordEncoder.matches(oldPassword, user.getPasswordHash())) {
-            throw new UnauthorizedException(ErrorCodes.INVALID_CREDENTIALS, "Invalid old password");
+            throw UnauthorizedException.expected(ErrorCodes.INVALID_CREDENTIALS, "Invalid old password");
         }
         
         // Update password
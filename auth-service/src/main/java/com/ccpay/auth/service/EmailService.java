@@ -1,37 +1,44 @@
 package com.ccpay.auth.service;
 
+import com.ccpay.auth.dto.NotificationRequest;
 import com.ccpay.auth.entity.User;
+import com.ccpay.auth.mail.AlertType;
+import com.ccpay.auth.mail.NotificationCoalescer;
+import com.ccpay.auth.mail.NotificationDispatcher;
+import com.ccpay.common.constants.ApplicationConstants;
+import com.ccpay.common.events.TransactionEvent;
+import com.ccpay.common.retry.RetryQueue;
 import com.ccpay.common.utils.SecurityUtils;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+// Queues emails in the caller's transaction; NotificationDispatcher sends them
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
     
-    private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
+    public static final List<String> TEMPLATES =
+            List.of("email-verification", "password-reset", "login-notification", "mfa-enabled",
+                    ApplicationConstants.TRANSACTION_NOTIFICATION_TEMPLATE, ApplicationConstants.LOW_BALANCE_ALERT_TEMPLATE);
     
-    @Value("${spring.mail.from:noreply@ccautopay.com}")
-    private String fromEmail;
+    private final RetryQueue retryQueue;
+    private final NotificationCoalescer notificationCoalescer;
+    private final ObjectMapper objectMapper;
     
     @Value("${app.frontend.url:http://localhost:3000}")
     private String frontendUrl;
     
-    @Async("notificationExecutor")
     public void sendVerificationEmail(User user) {
         String token = SecurityUtils.generateSecureToken();
         String verificationLink = frontendUrl + "/verify-email?token=" + token + "&email=" + user.getEmail();
@@ -43,7 +50,6 @@ public class EmailService {
         sendEmail(user.getEmail(), "Verify Your Email", "email-verification", variables);
     }
     
-    @Async("notificationExecutor")
     public void sendPasswordResetEmail(User user, String resetToken) {
         String resetLink = frontendUrl + "/reset-password?token=" + resetToken;
         
@@ -55,7 +61,6 @@ public class EmailService {
         sendEmail(user.getEmail(), "Password Reset Request", "password-reset", variables);
     }
     
-    @Async("notificationExecutor")
     public void sendLoginNotification(User user, String ipAddress, String deviceInfo) {
         Map<String, Object> variables = new HashMap<>();
         variables.put("userName", user.getFirstName());
@@ -66,7 +71,6 @@ public class EmailService {
         sendEmail(user.getEmail(), "New Login to Your Account", "login-notification", variables);
     }
     
-    @Async("notificationExecutor")
     public void sendMfaEnabledNotification(User user) {
         Map<String, Object> variables = new HashMap<>();
         variables.put("userName", user.getFirstName());
@@ -74,26 +78,44 @@ public class EmailService {
         sendEmail(user.getEmail(), "Two-Factor Authentication Enabled", "mfa-enabled", variables);
     }
     
+    // One alert per transaction, plus a low-balance alert when it left its wallet under the
+    // threshold; repeated low-balance alerts for one wallet collapse into the latest balance
+    public void sendTransactionAlerts(List<TransactionEvent> events, BigDecimal lowBalanceThreshold) {
+        List<NotificationCoalescer.Alert> alerts = new ArrayList<>(events.size());
+        for (TransactionEvent event : events) {
+            Map<String, Object> details = new HashMap<>();
+            details.put("type", event.getType());
+            details.put("amount", event.getAmount());
+            details.put("currency", event.getCurrency());
+            details.put("category", event.getCategory());
+            alerts.add(new NotificationCoalescer.Alert(event.getUserId(), AlertType.TRANSACTION,
+                    event.getTransactionId().toString(), details));
+            
+            BigDecimal balance = event.getBalanceAfter();
+            if (balance != null && event.getWalletId() != null && balance.compareTo(lowBalanceThreshold) < 0) {
+                Map<String, Object> lowBalance = new HashMap<>();
+                lowBalance.put("walletId", event.getWalletId().toString());
+                lowBalance.put("balance", balance);
+                lowBalance.put("currency", event.getCurrency());
+                alerts.add(new NotificationCoalescer.Alert(event.getUserId(), AlertType.LOW_BALANCE,
+                        event.getWalletId().toString(), lowBalance));
+            }
+        }
+        notificationCoalescer.submit(alerts);
+    }
+    
     private void sendEmail(String to, String subject, String template, Map<String, Object> variables) {
+        NotificationRequest request = NotificationRequest.builder()
+                .recipient(to)
+                .subject(subject)
+                .template(template)
+                .variables(variables)
+                .build();
         try {
-            Context context = new Context();
-            context.setVariables(variables);
-            
-            String htmlContent = templateEngine.process(template, context);
-            
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            
-            log.info("Email sent successfully to: {}", to);
-        } catch (MessagingException e) {
-            log.error("Failed to send email to: {}", to, e);
+            retryQueue.enqueueNow(NotificationDispatcher.QUEUE, objectMapper.writeValueAsString(request));
+            log.debug("Email queued for: {}", to);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize notification for " + to, e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,2 @@
+-- Trace id of the request that wrote the event, sent on as the record's trace-id header
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS trace_id VARCHAR(64);
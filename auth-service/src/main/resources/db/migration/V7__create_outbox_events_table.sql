@@ -0,0 +1,13 @@
+-- Transactional outbox (com.ccpay.common.outbox). Rows are written in the business transaction
+-- and deleted by the relay once Kafka has acknowledged them, so the table stays small.
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    topic VARCHAR(255) NOT NULL,
+    message_key VARCHAR(255),
+    event_type VARCHAR(100) NOT NULL,
+    payload JSONB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Insert-then-delete churn: vacuum early so the relay's ORDER BY id scan stays cheap
+ALTER TABLE outbox_events SET (autovacuum_vacuum_scale_factor = 0.01, autovacuum_vacuum_threshold = 1000);
@@ -0,0 +1,31 @@
+-- Alert coalescing (com.ccpay.auth.mail.NotificationCoalescer). Pending alerts are keyed by
+-- user, type and dedup key, so a repeated alert replaces the pending one instead of adding a
+-- second. One window row per user and type: flush_at is set while alerts wait for a digest and
+-- cleared once it has been queued, and last_sent_at spaces digests at least one window apart.
+CREATE TABLE IF NOT EXISTS notification_alerts (
+    user_id UUID NOT NULL,
+    alert_type VARCHAR(50) NOT NULL,
+    dedup_key VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP,
+    PRIMARY KEY (user_id, alert_type, dedup_key)
+);
+
+CREATE TABLE IF NOT EXISTS notification_windows (
+    user_id UUID NOT NULL,
+    alert_type VARCHAR(50) NOT NULL,
+    flush_at TIMESTAMP,
+    last_sent_at TIMESTAMP,
+    PRIMARY KEY (user_id, alert_type)
+);
+
+CREATE INDEX IF NOT EXISTS idx_notification_windows_flush_at
+    ON notification_windows (flush_at) WHERE flush_at IS NOT NULL;
+
+-- Digests sent per user per hour, across all alert types
+CREATE TABLE IF NOT EXISTS notification_quotas (
+    user_id UUID NOT NULL,
+    period_start TIMESTAMP NOT NULL,
+    sent INTEGER NOT NULL,
+    PRIMARY KEY (user_id, period_start)
+);
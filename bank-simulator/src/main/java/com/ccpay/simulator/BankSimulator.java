@@ -0,0 +1,195 @@
+package com.ccpay.simulator;
+
+import com.ccpay.simulator.SimulatorProfile.Endpoint;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Embeddable stand-in for the bank connector and card provider APIs. Latency is simulated by
+// scheduling the response rather than sleeping, so thousands of slow calls in flight cost no
+// threads. Payments are idempotent on the idempotency key like the real providers: a replay
+// returns the original decision, while 5xx and timeouts are not remembered.
+public class BankSimulator implements AutoCloseable {
+    
+    public static final String IDEMPOTENCY_KEY_HEADER = "X-Idempotency-Key";
+    
+    private static final int MAX_REMEMBERED_KEYS = 2_000_000;
+    
+    private final SimulatorProfile profile;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ScheduledExecutorService delays;
+    private final Map<String, Integer> decisions = new ConcurrentHashMap<>();
+    private final SimulatorStats stats = new SimulatorStats();
+    
+    private BankSimulator(SimulatorProfile profile, HttpServer server, int handlerThreads) {
+        this.profile = profile;
+        this.server = server;
+        this.handlers = Executors.newFixedThreadPool(handlerThreads, daemonThreads("bank-sim-http"));
+        this.delays = Executors.newScheduledThreadPool(2, daemonThreads("bank-sim-delay"));
+    
+        server.setExecutor(handlers);
+        server.createContext("/v1/card-payments", exchange -> handlePayment(exchange, Endpoint.CARD_PAYMENT));
+        server.createContext("/v1/bank-transfers", exchange -> handlePayment(exchange, Endpoint.BANK_TRANSFER));
+        server.createContext("/v1/accounts", this::handleBalance);
+        server.createContext("/__simulator/stats", this::handleStats);
+    }
+    
+    // Port 0 picks a free port; see port() and baseUrl()
+    public static BankSimulator start(int port, SimulatorProfile profile) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        BankSimulator simulator = new BankSimulator(profile, server,
+                Math.max(4, Runtime.getRuntime().availableProcessors()));
+        server.start();
+        return simulator;
+    }
+    
+    public int port() {
+        return server.getAddress().getPort();
+    }
+    
+    public String baseUrl() {
+        return "http://127.0.0.1:" + port();
+    }
+    
+    public SimulatorStats stats() {
+        return stats;
+    }
+    
+    private void handlePayment(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        drain(exchange);
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respondNow(exchange, 405, "{\"error\":\"method not allowed\"}");
+            return;
+        }
+        String name = endpoint.name().toLowerCase();
+        stats.increment(name + ".requests");
+    
+        String key = exchange.getRequestHeaders().getFirst(IDEMPOTENCY_KEY_HEADER);
+        Integer previous = key == null ? null : decisions.get(key);
+        if (previous != null) {
+            stats.increment(name + ".replayed");
+            respondLater(exchange, endpoint, previous, decisionBody(key, previous, true));
+            return;
+        }
+    
+        switch (profile.failures(endpoint).sample()) {
+            case TIMEOUT:
+                stats.increment(name + ".timeout");
+                delays.schedule(() -> respondNow(exchange, 504, "{\"error\":\"upstream timeout\"}"),
+                        profile.timeoutMillis(), TimeUnit.MILLISECONDS);
+                return;
+            case ERROR:
+                stats.increment(name + ".error");
+                respondLater(exchange, endpoint, 503, "{\"error\":\"provider unavailable\"}");
+                return;
+            case DECLINE:
+                stats.increment(name + ".declined");
+                respondLater(exchange, endpoint, 422, remember(key, 422));
+                return;
+            default:
+                stats.increment(name + ".approved");
+                respondLater(exchange, endpoint, 201, remember(key, 201));
+        }
+    }
+    
+    private void handleBalance(HttpExchange exchange) throws IOException {
+        drain(exchange);
+        stats.increment("account_balance.requests");
+        if (profile.failures(Endpoint.ACCOUNT_BALANCE).sample() != FailureProfile.Outcome.OK) {
+            stats.increment("account_balance.error");
+            respondLater(exchange, Endpoint.ACCOUNT_BALANCE, 503, "{\"error\":\"provider unavailable\"}");
+            return;
+        }
+        long cents = SimulatorRandom.current().nextLong(1_000, 10_000_000);
+        respondLater(exchange, Endpoint.ACCOUNT_BALANCE, 200,
+                "{\"available\":" + cents / 100 + "." + String.format("%02d", cents % 100) + ",\"currency\":\"USD\"}");
+    }
+    
+    private void handleStats(HttpExchange exchange) throws IOException {
+        drain(exchange);
+        StringBuilder body = new StringBuilder("{");
+        stats.snapshot().forEach((name, value) -> {
+            if (body.length() > 1) {
+                body.append(',');
+            }
+            body.append('"').append(name).append("\":").append(value);
+        });
+        respondNow(exchange, 200, body.append('}').toString());
+    }
+    
+    private String remember(String key, int status) {
+        String reference = key != null ? key : SimulatorRandom.uuid().toString();
+        if (key != null) {
+            if (decisions.size() >= MAX_REMEMBERED_KEYS) {
+                decisions.clear();
+            }
+            decisions.put(key, status);
+        }
+        return decisionBody(reference, status, false);
+    }
+    
+    private static String decisionBody(String reference, int status, boolean replayed) {
+        return "{\"reference\":\"" + reference + "\",\"status\":\""
+                + (status == 201 ? "APPROVED" : "DECLINED") + "\",\"replayed\":" + replayed + "}";
+    }
+    
+    private void respondLater(HttpExchange exchange, Endpoint endpoint, int status, String body) {
+        long delay = profile.latency(endpoint).sampleMillis();
+        if (delay <= 0) {
+            respondNow(exchange, status, body);
+        } else {
+            delays.schedule(() -> handlers.execute(() -> respondNow(exchange, status, body)),
+                    delay, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    private void respondNow(HttpExchange exchange, int status, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            out.write(bytes);
+        } catch (IOException e) {
+            // Client gave up first, which is what timeouts are for
+            stats.increment("client.disconnected");
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private static void drain(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+    
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        delays.shutdownNow();
+        handlers.shutdownNow();
+    }
+}
@@ -0,0 +1,72 @@
+package com.ccpay.simulator;
+
+// Standalone entry point:
+//   ./gradlew :bank-simulator:run -Dsimulator.profile=degraded
+// Set simulator.webhook.url to also push card-transaction webhooks at simulator.webhook.rate/s,
+// simulator.smtp.port to also accept mail on that port, and simulator.redis.port to also serve
+// an in-memory Redis stand-in. Set simulator.seed to repeat a run's random draws.
+public final class BankSimulatorApplication {
+    
+    private BankSimulatorApplication() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int port = Integer.getInteger("simulator.port", 8090);
+        String profileName = System.getProperty("simulator.profile", "realistic");
+        BankSimulator simulator = BankSimulator.start(port, SimulatorProfile.named(profileName));
+        System.out.println("Bank simulator (" + profileName + ") listening on " + simulator.baseUrl());
+        
+        String webhookUrl = System.getProperty("simulator.webhook.url");
+        WebhookEmitter emitter = null;
+        if (webhookUrl != null) {
+            emitter = WebhookEmitter.builder(webhookUrl, System.getProperty("simulator.webhook.secret", "change-me"))
+                    .eventsPerSecond(Double.parseDouble(System.getProperty("simulator.webhook.rate", "100")))
+                    .duplicateRate(Double.parseDouble(System.getProperty("simulator.webhook.duplicate-rate", "0.02")))
+                    .deliveryDelay(LatencyProfile.logNormal(5, 2000))
+                    .build()
+                    .start();
+            System.out.println("Emitting card-transaction webhooks to " + webhookUrl);
+        }
+        
+        Integer smtpPort = Integer.getInteger("simulator.smtp.port");
+        SmtpSink smtpSink = null;
+        if (smtpPort != null) {
+            smtpSink = SmtpSink.start(smtpPort,
+                    medianLatency(Long.getLong("simulator.smtp.session-millis", 150)),
+                    medianLatency(Long.getLong("simulator.smtp.message-millis", 5)));
+            System.out.println("SMTP sink listening on port " + smtpSink.port());
+        }
+        
+        Integer redisPort = Integer.getInteger("simulator.redis.port");
+        RedisStandIn redis = null;
+        if (redisPort != null) {
+            redis = RedisStandIn.start(redisPort);
+            System.out.println("Redis stand-in listening on port " + redis.port());
+        }
+        
+        WebhookEmitter runningEmitter = emitter;
+        SmtpSink runningSink = smtpSink;
+        RedisStandIn runningRedis = redis;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (runningEmitter != null) {
+                runningEmitter.close();
+                System.out.println("Webhook stats: " + runningEmitter.stats().snapshot());
+            }
+            if (runningSink != null) {
+                runningSink.close();
+                System.out.println("SMTP stats: " + runningSink.stats().snapshot());
+            }
+            if (runningRedis != null) {
+                runningRedis.close();
+                System.out.println("Redis stats: " + runningRedis.stats().snapshot());
+            }
+            System.out.println("Simulator stats: " + simulator.stats().snapshot());
+            simulator.close();
+        }));
+        Thread.currentThread().join();
+    }
+    
+    private static LatencyProfile medianLatency(long medianMillis) {
+        return medianMillis > 0 ? LatencyProfile.logNormal(medianMillis, medianMillis * 4) : LatencyProfile.none();
+    }
+}
@@ -0,0 +1,88 @@
+package com.ccpay.simulator;
+
+// Failure model for one endpoint. Rates are per request; a burst makes every request in its
+// window fail with 503, which is what trips circuit breakers in practice.
+public final class FailureProfile {
+    
+    public enum Outcome { OK, DECLINE, ERROR, TIMEOUT }
+    
+    private final double declineRate;
+    private final double errorRate;
+    private final double timeoutRate;
+    private final long burstEveryMillis;
+    private final long burstLengthMillis;
+    private final long startedAt = System.currentTimeMillis();
+    
+    private FailureProfile(Builder builder) {
+        this.declineRate = builder.declineRate;
+        this.errorRate = builder.errorRate;
+        this.timeoutRate = builder.timeoutRate;
+        this.burstEveryMillis = builder.burstEveryMillis;
+        this.burstLengthMillis = builder.burstLengthMillis;
+    }
+    
+    public static FailureProfile none() {
+        return builder().build();
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    public Outcome sample() {
+        if (inBurst(System.currentTimeMillis())) {
+            return Outcome.ERROR;
+        }
+        double roll = SimulatorRandom.current().nextDouble();
+        if (roll < timeoutRate) {
+            return Outcome.TIMEOUT;
+        }
+        if (roll < timeoutRate + errorRate) {
+            return Outcome.ERROR;
+        }
+        if (roll < timeoutRate + errorRate + declineRate) {
+            return Outcome.DECLINE;
+        }
+        return Outcome.OK;
+    }
+    
+    private boolean inBurst(long now) {
+        return burstEveryMillis > 0 && (now - startedAt) % burstEveryMillis < burstLengthMillis;
+    }
+    
+    public static final class Builder {
+        private double declineRate;
+        private double errorRate;
+        private double timeoutRate;
+        private long burstEveryMillis;
+        private long burstLengthMillis;
+        
+        public Builder declineRate(double declineRate) {
+            this.declineRate = declineRate;
+            return this;
+        }
+        
+        public Builder errorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+        
+        public Builder timeoutRate(double timeoutRate) {
+            this.timeoutRate = timeoutRate;
+            return this;
+        }
+        
+        public Builder errorBurst(long everyMillis, long lengthMillis) {
+            this.burstEveryMillis = everyMillis;
+            this.burstLengthMillis = lengthMillis;
+            return this;
+        }
+        
+        public FailureProfile build() {
+            if (declineRate + errorRate + timeoutRate > 1.0) {
+                throw new IllegalArgumentException("Failure rates add up to more than 1");
+            }
+            return new FailureProfile(this);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.ccpay.simulator;
+
+import java.util.SplittableRandom;
+
+// Response latency model. Log-normal is the usual shape for remote calls: a tight body
+// with a long right tail, fitted here from a median and a p99.
+public final class LatencyProfile {
+    
+    private static final double Z_99 = 2.3263;
+    
+    private final long minMillis;
+    private final long maxMillis;
+    private final double mu;
+    private final double sigma;
+    private final boolean logNormal;
+    
+    private LatencyProfile(long minMillis, long maxMillis, double mu, double sigma, boolean logNormal) {
+        this.minMillis = minMillis;
+        this.maxMillis = maxMillis;
+        this.mu = mu;
+        this.sigma = sigma;
+        this.logNormal = logNormal;
+    }
+    
+    public static LatencyProfile none() {
+        return fixed(0);
+    }
+    
+    public static LatencyProfile fixed(long millis) {
+        return new LatencyProfile(millis, millis, 0, 0, false);
+    }
+    
+    public static LatencyProfile uniform(long minMillis, long maxMillis) {
+        return new LatencyProfile(minMillis, maxMillis, 0, 0, false);
+    }
+    
+    public static LatencyProfile logNormal(long medianMillis, long p99Millis) {
+        if (medianMillis <= 0 || p99Millis < medianMillis) {
+            throw new IllegalArgumentException("Require 0 < median <= p99");
+        }
+        double sigma = Math.log((double) p99Millis / medianMillis) / Z_99;
+        return new LatencyProfile(0, Long.MAX_VALUE, Math.log(medianMillis), sigma, true);
+    }
+    
+    public long sampleMillis() {
+        SplittableRandom random = SimulatorRandom.current();
+        if (logNormal) {
+            return Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+        }
+        return minMillis == maxMillis ? minMillis : random.nextLong(minMillis, maxMillis + 1);
+    }
+    
+    @Override
+    public String toString() {
+        return logNormal 
+                ? String.format("logNormal(median=%.0fms, sigma=%.2f)", Math.exp(mu), sigma)
+                : "uniform(" + minMillis + "-" + maxMillis + "ms)";
+    }
+}
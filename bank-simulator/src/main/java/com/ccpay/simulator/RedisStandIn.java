@@ -0,0 +1,472 @@
+package com.ccpay.simulator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+// In-memory server speaking enough RESP2 for Lettuce and Spring Data Redis, so a service can run
+// without a Redis instance: strings (GET, SET with EX/PX/NX/XX, INCRBY), hashes, DEL, EXISTS,
+// expiry, KEYS, INFO and the connection handshake. HELLO is refused, so clients fall back to
+// RESP2; CONFIG, CLIENT, SELECT and AUTH are accepted and ignored, and PUBLISH reaches no one.
+// Expired keys are dropped when next read. One database, one thread per connection; unknown
+// commands are answered with an error and counted as redis.unknown.<COMMAND> in the stats.
+public class RedisStandIn implements AutoCloseable {
+    
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+    private final SimulatorStats stats = new SimulatorStats();
+    
+    private RedisStandIn(ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+        this.connections = Executors.newCachedThreadPool(BankSimulator.daemonThreads("redis-stand-in"));
+    }
+    
+    // Port 0 picks a free port; see port()
+    public static RedisStandIn start(int port) throws IOException {
+        ServerSocket serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        RedisStandIn redis = new RedisStandIn(serverSocket);
+        Thread acceptor = BankSimulator.daemonThreads("redis-stand-in-accept").newThread(redis::acceptLoop);
+        acceptor.start();
+        return redis;
+    }
+    
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+    
+    public SimulatorStats stats() {
+        return stats;
+    }
+    
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.execute(() -> session(socket));
+            } catch (SocketException e) {
+                // Closed
+                return;
+            } catch (IOException e) {
+                stats.increment("redis.accept.failed");
+            }
+        }
+    }
+    
+    private void session(Socket socket) {
+        stats.increment("redis.connections");
+        try (socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            List<byte[]> command;
+            while ((command = readCommand(in)) != null) {
+                if (command.isEmpty()) {
+                    continue;
+                }
+                String name = text(command.get(0)).toUpperCase(Locale.ROOT);
+                stats.increment("redis.commands");
+                boolean quit = execute(name, command, out);
+                // Pipelined commands are answered together
+                if (quit || in.available() == 0) {
+                    out.flush();
+                }
+                if (quit) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            stats.increment("redis.connections.dropped");
+        }
+    }
+    
+    // Returns true when the client asked to close the connection
+    private boolean execute(String name, List<byte[]> args, OutputStream out) throws IOException {
+        switch (name) {
+            case "PING" -> {
+                if (args.size() > 1) {
+                    bulk(out, args.get(1));
+                } else {
+                    simple(out, "PONG");
+                }
+            }
+            case "ECHO" -> bulk(out, arg(args, 1));
+            case "QUIT" -> {
+                simple(out, "OK");
+                return true;
+            }
+            case "AUTH", "SELECT", "CLIENT", "FLUSHDB", "FLUSHALL", "CONFIG", "READONLY" -> {
+                if (name.startsWith("FLUSH")) {
+                    data.clear();
+                }
+                if ("CONFIG".equals(name) && args.size() > 1 && "GET".equalsIgnoreCase(text(args.get(1)))) {
+                    array(out, List.of());
+                } else {
+                    simple(out, "OK");
+                }
+            }
+            case "INFO" -> bulk(out, "# Server\r\nredis_version:7.0.0\r\nredis_mode:standalone\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            case "DBSIZE" -> integer(out, data.size());
+            case "PUBLISH" -> integer(out, 0);
+            case "GET" -> {
+                Entry entry = live(text(arg(args, 1)));
+                if (entry == null) {
+                    nil(out);
+                } else if (entry.value instanceof byte[] value) {
+                    bulk(out, value);
+                } else {
+                    wrongType(out);
+                }
+            }
+            case "SET" -> set(args, out);
+            case "SETEX", "PSETEX" -> {
+                long ttl = Long.parseLong(text(arg(args, 2)));
+                data.put(text(arg(args, 1)), new Entry(arg(args, 3),
+                        expiresAt("SETEX".equals(name) ? ttl * 1000 : ttl)));
+                simple(out, "OK");
+            }
+            case "INCR", "INCRBY", "DECR", "DECRBY" -> incrementBy(name, args, out);
+            case "DEL", "UNLINK" -> {
+                int removed = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    String key = text(args.get(i));
+                    if (live(key) != null && data.remove(key) != null) {
+                        removed++;
+                    }
+                }
+                integer(out, removed);
+            }
+            case "EXISTS" -> {
+                int present = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    if (live(text(args.get(i))) != null) {
+                        present++;
+                    }
+                }
+                integer(out, present);
+            }
+            case "EXPIRE", "PEXPIRE" -> {
+                long ttl = Long.parseLong(text(arg(args, 2)));
+                Entry updated = data.computeIfPresent(text(arg(args, 1)), (key, entry) -> entry.expired() ? null
+                        : new Entry(entry.value, expiresAt("EXPIRE".equals(name) ? ttl * 1000 : ttl)));
+                integer(out, updated == null ? 0 : 1);
+            }
+            case "TTL", "PTTL" -> {
+                Entry entry = live(text(arg(args, 1)));
+                if (entry == null) {
+                    integer(out, -2);
+                } else if (entry.expiresAt == 0) {
+                    integer(out, -1);
+                } else {
+                    long remaining = entry.expiresAt - System.currentTimeMillis();
+                    integer(out, "TTL".equals(name) ? (remaining + 999) / 1000 : remaining);
+                }
+            }
+            case "KEYS" -> {
+                Pattern pattern = glob(text(arg(args, 1)));
+                List<byte[]> keys = new ArrayList<>();
+                for (String key : data.keySet()) {
+                    if (pattern.matcher(key).matches() && live(key) != null) {
+                        keys.add(key.getBytes(StandardCharsets.ISO_8859_1));
+                    }
+                }
+                array(out, keys);
+            }
+            case "HSET", "HMSET" -> hashSet(name, args, out);
+            case "HGET" -> {
+                Map<String, byte[]> hash = hash(text(arg(args, 1)), out);
+                if (hash != null) {
+                    byte[] value = hash.get(text(arg(args, 2)));
+                    if (value == null) {
+                        nil(out);
+                    } else {
+                        bulk(out, value);
+                    }
+                }
+            }
+            case "HGETALL" -> {
+                Map<String, byte[]> hash = hash(text(arg(args, 1)), out);
+                if (hash != null) {
+                    List<byte[]> fields = new ArrayList<>();
+                    synchronized (hash) {
+                        hash.forEach((field, value) -> {
+                            fields.add(field.getBytes(StandardCharsets.ISO_8859_1));
+                            fields.add(value);
+                        });
+                    }
+                    array(out, fields);
+                }
+            }
+            case "HDEL" -> {
+                Map<String, byte[]> hash = hash(text(arg(args, 1)), out);
+                if (hash != null) {
+                    int removed = 0;
+                    synchronized (hash) {
+                        for (int i = 2; i < args.size(); i++) {
+                            if (hash.remove(text(args.get(i))) != null) {
+                                removed++;
+                            }
+                        }
+                    }
+                    integer(out, removed);
+                }
+            }
+            default -> {
+                stats.increment("redis.unknown." + name);
+                error(out, "ERR unknown command '" + name + "'");
+            }
+        }
+        return false;
+    }
+    
+    private void set(List<byte[]> args, OutputStream out) throws IOException {
+        String key = text(arg(args, 1));
+        long expiresAt = 0;
+        boolean onlyIfAbsent = false;
+        boolean onlyIfPresent = false;
+        for (int i = 3; i < args.size(); i++) {
+            String option = text(args.get(i)).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "EX" -> expiresAt = expiresAt(Long.parseLong(text(arg(args, ++i))) * 1000);
+                case "PX" -> expiresAt = expiresAt(Long.parseLong(text(arg(args, ++i))));
+                case "NX" -> onlyIfAbsent = true;
+                case "XX" -> onlyIfPresent = true;
+                default -> {
+                    error(out, "ERR syntax error");
+                    return;
+                }
+            }
+        }
+        Entry entry = new Entry(arg(args, 2), expiresAt);
+        boolean written;
+        if (onlyIfAbsent) {
+            live(key);
+            written = data.putIfAbsent(key, entry) == null;
+        } else if (onlyIfPresent) {
+            written = live(key) != null && data.replace(key, entry) != null;
+        } else {
+            data.put(key, entry);
+            written = true;
+        }
+        if (written) {
+            simple(out, "OK");
+        } else {
+            nil(out);
+        }
+    }
+    
+    private void incrementBy(String name, List<byte[]> args, OutputStream out) throws IOException {
+        long delta = name.endsWith("BY") ? Long.parseLong(text(arg(args, 2))) : 1;
+        long signed = name.startsWith("DECR") ? -delta : delta;
+        long[] result = new long[1];
+        try {
+            data.compute(text(arg(args, 1)), (key, entry) -> {
+                boolean present = entry != null && !entry.expired();
+                long current = present ? Long.parseLong(text((byte[]) entry.value)) : 0;
+                result[0] = current + signed;
+                return new Entry(Long.toString(result[0]).getBytes(StandardCharsets.US_ASCII),
+                        present ? entry.expiresAt : 0);
+            });
+        } catch (ClassCastException | NumberFormatException e) {
+            error(out, "ERR value is not an integer or out of range");
+            return;
+        }
+        integer(out, result[0]);
+    }
+    
+    private void hashSet(String name, List<byte[]> args, OutputStream out) throws IOException {
+        if (args.size() < 4 || args.size() % 2 != 0) {
+            error(out, "ERR wrong number of arguments for '" + name + "' command");
+            return;
+        }
+        Entry entry = data.compute(text(args.get(1)), (key, existing) -> existing == null || existing.expired()
+                ? new Entry(new LinkedHashMap<String, byte[]>(), 0) : existing);
+        if (!(entry.value instanceof Map)) {
+            wrongType(out);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, byte[]> hash = (Map<String, byte[]>) entry.value;
+        int added = 0;
+        synchronized (hash) {
+            for (int i = 2; i < args.size(); i += 2) {
+                if (hash.put(text(args.get(i)), args.get(i + 1)) == null) {
+                    added++;
+                }
+            }
+        }
+        if ("HMSET".equals(name)) {
+            simple(out, "OK");
+        } else {
+            integer(out, added);
+        }
+    }
+    
+    // The hash stored at key, an empty one if there is none, or null after answering WRONGTYPE
+    @SuppressWarnings("unchecked")
+    private Map<String, byte[]> hash(String key, OutputStream out) throws IOException {
+        Entry entry = live(key);
+        if (entry == null) {
+            return new LinkedHashMap<>();
+        }
+        if (entry.value instanceof Map) {
+            return (Map<String, byte[]>) entry.value;
+        }
+        wrongType(out);
+        return null;
+    }
+    
+    private Entry live(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.expired()) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+    
+    private static long expiresAt(long ttlMillis) {
+        return System.currentTimeMillis() + ttlMillis;
+    }
+    
+    private static Pattern glob(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            switch (c) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+    
+    // A RESP array of bulk strings, or an inline command line as typed into telnet; null at end of stream
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        int first = in.read();
+        if (first < 0) {
+            return null;
+        }
+        if (first != '*') {
+            String line = (char) first + readLine(in);
+            List<byte[]> inline = new ArrayList<>();
+            for (String part : line.trim().split("\\s+")) {
+                if (!part.isEmpty()) {
+                    inline.add(part.getBytes(StandardCharsets.ISO_8859_1));
+                }
+            }
+            return inline;
+        }
+        int count = Integer.parseInt(readLine(in));
+        List<byte[]> command = new ArrayList<>(Math.max(count, 0));
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Expected a bulk string");
+            }
+            int length = Integer.parseInt(readLine(in));
+            byte[] value = in.readNBytes(length);
+            if (value.length < length) {
+                throw new EOFException();
+            }
+            // Trailing CRLF
+            in.readNBytes(2);
+            command.add(value);
+        }
+        return command;
+    }
+    
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                throw new EOFException();
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+    
+    private static byte[] arg(List<byte[]> args, int index) throws IOException {
+        if (index >= args.size()) {
+            throw new IOException("Missing argument " + index);
+        }
+        return args.get(index);
+    }
+    
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+    
+    private static void simple(OutputStream out, String value) throws IOException {
+        out.write(('+' + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    private static void error(OutputStream out, String message) throws IOException {
+        out.write(('-' + message + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    private static void wrongType(OutputStream out) throws IOException {
+        error(out, "WRONGTYPE Operation against a key holding the wrong kind of value");
+    }
+    
+    private static void integer(OutputStream out, long value) throws IOException {
+        out.write((":" + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    private static void nil(OutputStream out) throws IOException {
+        out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    private static void bulk(OutputStream out, byte[] value) throws IOException {
+        out.write(("$" + value.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(value);
+        out.write('\r');
+        out.write('\n');
+    }
+    
+    private static void array(OutputStream out, List<byte[]> values) throws IOException {
+        out.write(("*" + values.size() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        for (byte[] value : values) {
+            bulk(out, value);
+        }
+    }
+    
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        connections.shutdownNow();
+    }
+    
+    // A string (byte[]) or hash value; expiresAt is epoch millis, 0 for none
+    private record Entry(Object value, long expiresAt) {
+    
+        boolean expired() {
+            return expiresAt != 0 && expiresAt <= System.currentTimeMillis();
+        }
+    }
+}
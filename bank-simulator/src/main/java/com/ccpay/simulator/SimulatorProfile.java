@@ -0,0 +1,90 @@
+package com.ccpay.simulator;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Latency and failure behaviour per simulated endpoint, plus the presets used by benchmarks
+public final class SimulatorProfile {
+    
+    public enum Endpoint { CARD_PAYMENT, BANK_TRANSFER, ACCOUNT_BALANCE }
+    
+    private final Map<Endpoint, LatencyProfile> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, FailureProfile> failures = new EnumMap<>(Endpoint.class);
+    private long timeoutMillis = 30_000;
+    
+    public SimulatorProfile() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, LatencyProfile.none());
+            failures.put(endpoint, FailureProfile.none());
+        }
+    }
+    
+    public static SimulatorProfile ideal() {
+        return new SimulatorProfile();
+    }
+    
+    public static SimulatorProfile realistic() {
+        return new SimulatorProfile()
+                .latency(Endpoint.CARD_PAYMENT, LatencyProfile.logNormal(80, 600))
+                .failures(Endpoint.CARD_PAYMENT, FailureProfile.builder()
+                        .declineRate(0.02).errorRate(0.005).timeoutRate(0.001).build())
+                .latency(Endpoint.BANK_TRANSFER, LatencyProfile.logNormal(150, 1200))
+                .failures(Endpoint.BANK_TRANSFER, FailureProfile.builder()
+                        .declineRate(0.01).errorRate(0.005).timeoutRate(0.001).build())
+                .latency(Endpoint.ACCOUNT_BALANCE, LatencyProfile.logNormal(30, 200));
+    }
+    
+    // A struggling provider: slow tail, frequent 5xx and a 5 s outage every minute
+    public static SimulatorProfile degraded() {
+        FailureProfile degraded = FailureProfile.builder()
+                .declineRate(0.02).errorRate(0.05).timeoutRate(0.02)
+                .errorBurst(60_000, 5_000)
+                .build();
+        return realistic()
+                .latency(Endpoint.CARD_PAYMENT, LatencyProfile.logNormal(300, 4000))
+                .failures(Endpoint.CARD_PAYMENT, degraded)
+                .latency(Endpoint.BANK_TRANSFER, LatencyProfile.logNormal(500, 6000))
+                .failures(Endpoint.BANK_TRANSFER, degraded);
+    }
+    
+    public static SimulatorProfile named(String name) {
+        switch (name.toLowerCase()) {
+            case "ideal":
+                return ideal();
+            case "realistic":
+                return realistic();
+            case "degraded":
+                return degraded();
+            default:
+                throw new IllegalArgumentException("Unknown simulator profile: " + name);
+        }
+    }
+    
+    public SimulatorProfile latency(Endpoint endpoint, LatencyProfile latency) {
+        latencies.put(endpoint, latency);
+        return this;
+    }
+    
+    public SimulatorProfile failures(Endpoint endpoint, FailureProfile failure) {
+        failures.put(endpoint, failure);
+        return this;
+    }
+    
+    // How long a TIMEOUT outcome hangs before answering 504; set above the client's read timeout
+    public SimulatorProfile timeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        return this;
+    }
+    
+    public LatencyProfile latency(Endpoint endpoint) {
+        return latencies.get(endpoint);
+    }
+    
+    public FailureProfile failures(Endpoint endpoint) {
+        return failures.get(endpoint);
+    }
+    
+    public long timeoutMillis() {
+        return timeoutMillis;
+    }
+}
@@ -0,0 +1,39 @@
+package com.ccpay.simulator;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+// Randomness behind every simulated latency, failure, balance, webhook and id. Each thread
+// draws from its own generator, split from one root seeded with simulator.seed when it is set,
+// so a run can be repeated: a single-threaded one exactly, a concurrent one with the same
+// streams, though threads may pick them up in a different order. Without the property the
+// root seed is random.
+final class SimulatorRandom {
+    
+    private static final SplittableRandom ROOT = root(Long.getLong("simulator.seed"));
+    private static final ThreadLocal<SplittableRandom> CURRENT = ThreadLocal.withInitial(SimulatorRandom::split);
+    
+    private SimulatorRandom() {
+    }
+    
+    static SplittableRandom current() {
+        return CURRENT.get();
+    }
+    
+    // A version 4 UUID from the current thread's generator, so ids repeat with the seed too
+    static UUID uuid() {
+        SplittableRandom random = current();
+        long most = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long least = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(most, least);
+    }
+    
+    private static SplittableRandom root(Long seed) {
+        return seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+    }
+    
+    // SplittableRandom is not thread-safe, and split advances the root
+    private static synchronized SplittableRandom split() {
+        return ROOT.split();
+    }
+}
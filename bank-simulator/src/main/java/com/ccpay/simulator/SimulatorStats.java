@@ -0,0 +1,31 @@
+package com.ccpay.simulator;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Named counters that stay cheap under heavy concurrent increments
+public final class SimulatorStats {
+    
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    
+    public void increment(String name) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+    
+    public long get(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+    
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((name, counter) -> snapshot.put(name, counter.sum()));
+        return snapshot;
+    }
+    
+    public void reset() {
+        counters.clear();
+    }
+}
@@ -0,0 +1,162 @@
+package com.ccpay.simulator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Minimal SMTP server that accepts and discards mail, for measuring senders without a relay.
+// Speaks enough of RFC 5321 for JavaMail: EHLO/HELO, AUTH PLAIN and LOGIN (any credentials),
+// MAIL, RCPT, DATA, RSET, NOOP and QUIT; no STARTTLS, so clients must not require it.
+// sessionLatency delays the greeting, standing in for the TCP, TLS and AUTH handshakes of a real
+// relay; messageLatency delays each DATA acknowledgement. One thread per connection.
+public class SmtpSink implements AutoCloseable {
+    
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final LatencyProfile sessionLatency;
+    private final LatencyProfile messageLatency;
+    private final SimulatorStats stats = new SimulatorStats();
+    
+    private SmtpSink(ServerSocket serverSocket, LatencyProfile sessionLatency, LatencyProfile messageLatency) {
+        this.serverSocket = serverSocket;
+        this.sessionLatency = sessionLatency;
+        this.messageLatency = messageLatency;
+        this.connections = Executors.newCachedThreadPool(BankSimulator.daemonThreads("smtp-sink"));
+    }
+    
+    // Port 0 picks a free port; see port()
+    public static SmtpSink start(int port, LatencyProfile sessionLatency, LatencyProfile messageLatency)
+            throws IOException {
+        ServerSocket serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        SmtpSink sink = new SmtpSink(serverSocket, sessionLatency, messageLatency);
+        Thread acceptor = BankSimulator.daemonThreads("smtp-sink-accept").newThread(sink::acceptLoop);
+        acceptor.start();
+        return sink;
+    }
+    
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+    
+    public SimulatorStats stats() {
+        return stats;
+    }
+    
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> session(socket));
+            } catch (SocketException e) {
+                // Closed
+                return;
+            } catch (IOException e) {
+                stats.increment("smtp.accept.failed");
+            }
+        }
+    }
+    
+    private void session(Socket socket) {
+        stats.increment("smtp.sessions");
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+            pause(sessionLatency);
+            reply(out, "220 smtp-sink ESMTP");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() < 4 ? line.toUpperCase(Locale.ROOT)
+                        : line.substring(0, 4).toUpperCase(Locale.ROOT);
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-smtp-sink\r\n250-AUTH PLAIN LOGIN\r\n250-8BITMIME\r\n250 SIZE 10485760");
+                    case "HELO" -> reply(out, "250 smtp-sink");
+                    case "AUTH" -> authenticate(line, in, out);
+                    case "MAIL", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "RCPT" -> {
+                        stats.increment("smtp.recipients");
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // Discarded
+                        }
+                        pause(messageLatency);
+                        stats.increment("smtp.messages");
+                        reply(out, "250 OK queued");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            stats.increment("smtp.sessions.dropped");
+        }
+    }
+    
+    // Accepts any credentials; an initial response on the AUTH line counts as the first answer
+    private void authenticate(String line, BufferedReader in, Writer out) throws IOException {
+        String[] parts = line.split(" ");
+        String mechanism = parts.length > 1 ? parts[1].toUpperCase(Locale.ROOT) : "";
+        boolean initialResponse = parts.length > 2;
+        if ("PLAIN".equals(mechanism)) {
+            if (!initialResponse) {
+                reply(out, "334 ");
+                in.readLine();
+            }
+        } else if ("LOGIN".equals(mechanism)) {
+            if (!initialResponse) {
+                reply(out, "334 VXNlcm5hbWU6");
+                in.readLine();
+            }
+            reply(out, "334 UGFzc3dvcmQ6");
+            in.readLine();
+        } else {
+            reply(out, "504 Unrecognized authentication type");
+            return;
+        }
+        stats.increment("smtp.auth");
+        reply(out, "235 Authentication successful");
+    }
+    
+    private static void reply(Writer out, String response) throws IOException {
+        out.write(response);
+        out.write("\r\n");
+        out.flush();
+    }
+    
+    private static void pause(LatencyProfile latency) throws IOException {
+        long millis = latency.sampleMillis();
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            }
+        }
+    }
+    
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        connections.shutdownNow();
+    }
+}
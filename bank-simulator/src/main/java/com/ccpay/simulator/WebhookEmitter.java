@@ -0,0 +1,199 @@
+package com.ccpay.simulator;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Plays the card network's side of the transaction webhook: signed deliveries at a fixed
+// rate, with delayed ("slow") deliveries and duplicate callbacks of the same transaction.
+// Signatures match the wallet service: hex(HMAC-SHA256(secret, timestamp + "." + body)).
+public class WebhookEmitter implements AutoCloseable {
+    
+    public static final String SIGNATURE_HEADER = "X-Webhook-Signature";
+    public static final String TIMESTAMP_HEADER = "X-Webhook-Timestamp";
+    
+    private static final String[] CATEGORIES = {"GROCERIES", "DINING", "TRAVEL", "FUEL", "SHOPPING", "UTILITIES"};
+    private static final long TICK_MILLIS = 10;
+    // The services' wire format; LocalDateTime.toString() drops the seconds when they are zero
+    private static final DateTimeFormatter TRANSACTION_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    
+    private final URI target;
+    private final SecretKeySpec secretKey;
+    private final double eventsPerSecond;
+    private final double duplicateRate;
+    private final LatencyProfile deliveryDelay;
+    private final UUID[] cardIds;
+    private final UUID[] userIds;
+    private final DeliveryListener listener;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService scheduler;
+    private final SimulatorStats stats = new SimulatorStats();
+    private double owed;
+    
+    private WebhookEmitter(Builder builder) {
+        this.target = URI.create(builder.targetUrl);
+        this.secretKey = new SecretKeySpec(builder.secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.eventsPerSecond = builder.eventsPerSecond;
+        this.duplicateRate = builder.duplicateRate;
+        this.deliveryDelay = builder.deliveryDelay;
+        this.listener = builder.listener;
+        this.cardIds = new UUID[builder.cards];
+        this.userIds = new UUID[builder.cards];
+        for (int i = 0; i < builder.cards; i++) {
+            cardIds[i] = SimulatorRandom.uuid();
+            userIds[i] = SimulatorRandom.uuid();
+        }
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        this.scheduler = Executors.newScheduledThreadPool(2, BankSimulator.daemonThreads("webhook-emitter"));
+    }
+    
+    public static Builder builder(String targetUrl, String secret) {
+        return new Builder(targetUrl, secret);
+    }
+    
+    public WebhookEmitter start() {
+        scheduler.scheduleAtFixedRate(this::tick, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        return this;
+    }
+    
+    public SimulatorStats stats() {
+        return stats;
+    }
+    
+    // Emits whole events owed so far, carrying the fraction over, so low rates stay accurate
+    private void tick() {
+        owed += eventsPerSecond * TICK_MILLIS / 1000.0;
+        while (owed >= 1) {
+            owed--;
+            emit();
+        }
+    }
+    
+    private void emit() {
+        SplittableRandom random = SimulatorRandom.current();
+        int card = random.nextInt(cardIds.length);
+        long cents = random.nextLong(100, 50_000);
+        String body = "{\"externalTransactionId\":\"sim-" + SimulatorRandom.uuid() + "\","
+                + "\"cardId\":\"" + cardIds[card] + "\","
+                + "\"userId\":\"" + userIds[card] + "\","
+                + "\"amount\":" + cents / 100 + "." + String.format("%02d", cents % 100) + ","
+                + "\"merchantName\":\"Simulated Merchant " + random.nextInt(500) + "\","
+                + "\"merchantCategory\":\"" + CATEGORIES[random.nextInt(CATEGORIES.length)] + "\","
+                + "\"transactionDate\":\"" + TRANSACTION_DATE.format(LocalDateTime.now()) + "\","
+                + "\"pending\":false}";
+        
+        deliverLater(body, "webhook.sent");
+        if (random.nextDouble() < duplicateRate) {
+            deliverLater(body, "webhook.duplicate_sent");
+        }
+    }
+    
+    private void deliverLater(String body, String counter) {
+        long delay = deliveryDelay.sampleMillis();
+        scheduler.schedule(() -> deliver(body, counter), delay, TimeUnit.MILLISECONDS);
+    }
+    
+    private void deliver(String body, String counter) {
+        String timestamp = Long.toString(System.currentTimeMillis() / 1000);
+        HttpRequest request = HttpRequest.newBuilder(target)
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .header(TIMESTAMP_HEADER, timestamp)
+                .header(SIGNATURE_HEADER, sign(timestamp, body))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        stats.increment(counter);
+        long sentAt = System.nanoTime();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    stats.increment(error != null ? "webhook.failed" : "webhook.status." + response.statusCode());
+                    listener.delivered(error != null ? -1 : response.statusCode(), System.nanoTime() - sentAt);
+                });
+    }
+    
+    private String sign(String timestamp, String body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(secretKey);
+            mac.update(timestamp.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) '.');
+            return HexFormat.of().formatHex(mac.doFinal(body.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+    
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+    
+    public static final class Builder {
+        private final String targetUrl;
+        private final String secret;
+        private double eventsPerSecond = 100;
+        private double duplicateRate;
+        private LatencyProfile deliveryDelay = LatencyProfile.none();
+        private int cards = 10_000;
+        private DeliveryListener listener = (status, nanos) -> {
+        };
+        
+        private Builder(String targetUrl, String secret) {
+            this.targetUrl = targetUrl;
+            this.secret = secret;
+        }
+        
+        public Builder eventsPerSecond(double eventsPerSecond) {
+            this.eventsPerSecond = eventsPerSecond;
+            return this;
+        }
+        
+        public Builder duplicateRate(double duplicateRate) {
+            this.duplicateRate = duplicateRate;
+            return this;
+        }
+        
+        // Delay between the event and its delivery; a long tail here models slow webhooks
+        public Builder deliveryDelay(LatencyProfile deliveryDelay) {
+            this.deliveryDelay = deliveryDelay;
+            return this;
+        }
+        
+        public Builder cards(int cards) {
+            this.cards = cards;
+            return this;
+        }
+        
+        // Told of every delivery's response, for load tests that measure acknowledgement latency
+        public Builder onDelivered(DeliveryListener listener) {
+            this.listener = listener;
+            return this;
+        }
+        
+        public WebhookEmitter build() {
+            return new WebhookEmitter(this);
+        }
+    }
+    
+    // status is -1 when the delivery failed without a response; called on the HTTP client's threads
+    @FunctionalInterface
+    public interface DeliveryListener {
+        void delivered(int status, long nanos);
+    }
+}
@@ -0,0 +1,59 @@
+package com.ccpay.benchmarks.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+// Balance polls through one of the simulator profile's gateway routes, each for a random one of a
+// fixed set of accounts, so identical requests overlap as often as pollers of the same balances
+// would. The simulator's own failures come back as 503 and are counted as shed.
+final class BalanceReads implements Scenario {
+    
+    private final String route;
+    private final String baseUrl;
+    private final int accounts;
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private SplittableRandom[] randoms;
+    
+    // route is the path prefix: baseline or tuned
+    BalanceReads(String route, String baseUrl, int accounts) {
+        this.route = route;
+        this.baseUrl = baseUrl;
+        this.accounts = accounts;
+    }
+    
+    @Override
+    public String name() {
+        return route;
+    }
+    
+    @Override
+    public int expectedStatus() {
+        return 200;
+    }
+    
+    // Seeded per worker, so each run asks for the same accounts in the same order
+    @Override
+    public void prepare(int workers) {
+        randoms = new SplittableRandom[workers];
+        for (int w = 0; w < workers; w++) {
+            randoms[w] = new SplittableRandom(w);
+        }
+    }
+    
+    @Override
+    public int execute(int worker, long iteration) throws Exception {
+        String account = "acct-" + randoms[worker].nextInt(accounts);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + route + "/v1/accounts/" + account + "/balance"))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,120 @@
+package com.ccpay.benchmarks.loadtest;
+
+import com.ccpay.simulator.SimulatorProfile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// The gateway's Coalesce and Hedge filters measured through api-gateway itself (see GatewayStack):
+// the same balance polls on the untuned route and on the one with both filters, comparing client
+// latency and the calls that reach the simulator. Arguments are name=value options, plus
+// --property=value overrides passed to the gateway:
+//   scenarios     comma-separated, default baseline,tuned
+//   rate          balance GETs per second, default 100
+//   accounts      distinct accounts polled, default 20
+//   workers       client threads, default 64
+//   bank-profile  simulator latency and failure profile, default realistic (see SimulatorProfile)
+//   seed          simulator.seed, default 42
+//   warmup        seconds run and discarded before each scenario is measured, default 10
+//   duration      seconds measured per scenario, default 60
+//   label         release or build name written into every result row, default "current"
+//   out           report directory, default build/reports/loadtest/gateway
+// Writes summary.csv and <scenario>.hgrm as AuthLoadTest does, so LoadTestComparison reads both.
+public final class GatewayLoadTest {
+    
+    private static final List<String> ALL = List.of("baseline", "tuned");
+    private static final String UPSTREAM_CALLS = "account_balance.requests";
+    
+    private GatewayLoadTest() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> serviceArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                serviceArgs.add(arg);
+                continue;
+            }
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                System.err.println("Expected name=value or --property=value: " + arg);
+                System.exit(2);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        List<String> scenarios = options.containsKey("scenarios")
+                ? Arrays.asList(options.get("scenarios").split(",")) : ALL;
+        double rate = Double.parseDouble(options.getOrDefault("rate", "100"));
+        int accounts = Integer.parseInt(options.getOrDefault("accounts", "20"));
+        int workers = Integer.parseInt(options.getOrDefault("workers", "64"));
+        // Read once, when the simulator first draws a random number
+        System.setProperty("simulator.seed", options.getOrDefault("seed", "42"));
+        SimulatorProfile bankProfile = SimulatorProfile.named(options.getOrDefault("bank-profile", "realistic"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+        String label = options.getOrDefault("label", "current");
+        File out = new File(options.getOrDefault("out", "build/reports/loadtest/gateway"));
+        if (!out.isDirectory() && !out.mkdirs()) {
+            throw new IOException("Cannot create " + out);
+        }
+    
+        List<ScenarioResult> results = new ArrayList<>();
+        try (GatewayStack stack = GatewayStack.start(bankProfile, serviceArgs)) {
+            for (String name : scenarios) {
+                if (!ALL.contains(name.trim())) {
+                    throw new IllegalArgumentException("Unknown scenario " + name + ", expected one of " + ALL);
+                }
+                Scenario scenario = new BalanceReads(name.trim(), stack.baseUrl(), accounts);
+                scenario.prepare(workers);
+                if (!warmup.isZero()) {
+                    LoadRunner.run(scenario, workers, rate, warmup);
+                }
+                long upstreamBefore = stack.bank().stats().get(UPSTREAM_CALLS);
+                Map<String, Long> filtersBefore = stack.filterCounts();
+                ScenarioResult result = LoadRunner.run(scenario, workers, rate, duration);
+                long upstream = stack.bank().stats().get(UPSTREAM_CALLS) - upstreamBefore;
+    
+                result.writePercentiles(new File(out, result.scenario() + ".hgrm"));
+                results.add(result);
+                System.err.printf(Locale.ROOT, "%s: %.1f/s, %.1f upstream calls/s, p50 %.2f ms, p99 %.2f ms, "
+                                + "p99.9 %.2f ms, %d shed, %d unexpected, %d errors%n",
+                        result.scenario(), result.throughput(), upstream / result.seconds(),
+                        result.latencies().getValueAtPercentile(50) / 1000.0,
+                        result.latencies().getValueAtPercentile(99) / 1000.0,
+                        result.latencies().getValueAtPercentile(99.9) / 1000.0,
+                        result.shed(), result.unexpected(), result.errors());
+                stack.filterCounts().forEach((counter, count) -> {
+                    long delta = count - filtersBefore.getOrDefault(counter, 0L);
+                    if (delta > 0) {
+                        System.err.printf(Locale.ROOT, "  %s: %d (%.1f/s)%n", counter, delta, delta / result.seconds());
+                    }
+                });
+            }
+            System.err.println("Bank simulator: " + stack.bank().stats().snapshot());
+        }
+    
+        File summary = new File(out, "summary.csv");
+        try (PrintStream csv = new PrintStream(summary)) {
+            csv.println(ScenarioResult.CSV_HEADER);
+            for (ScenarioResult result : results) {
+                csv.println(result.csvRow(label));
+            }
+        }
+        System.out.println(ScenarioResult.CSV_HEADER);
+        for (ScenarioResult result : results) {
+            System.out.println(result.csvRow(label));
+        }
+        System.out.println("Written to " + summary.getAbsolutePath());
+        // Reactor Netty's event loops would otherwise keep the JVM alive
+        System.exit(0);
+    }
+}
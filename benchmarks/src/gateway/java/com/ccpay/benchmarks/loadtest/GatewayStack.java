@@ -0,0 +1,88 @@
+package com.ccpay.benchmarks.loadtest;
+
+import com.ccpay.gateway.ApiGatewayApplication;
+import com.ccpay.simulator.BankSimulator;
+import com.ccpay.simulator.SimulatorProfile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// api-gateway in this JVM with its simulator profile, which routes /baseline/** and /tuned/**
+// (Coalesce and Hedge) to the bank simulator's balance endpoint. Both are public paths, so no
+// token or other service is needed.
+final class GatewayStack implements AutoCloseable {
+    
+    private final BankSimulator bank;
+    private final ConfigurableApplicationContext context;
+    
+    private GatewayStack(BankSimulator bank, ConfigurableApplicationContext context) {
+        this.bank = bank;
+        this.context = context;
+    }
+    
+    // serviceArgs are --property=value overrides for the gateway
+    static GatewayStack start(SimulatorProfile bankProfile, List<String> serviceArgs) throws IOException {
+        BankSimulator bank = BankSimulator.start(0, bankProfile);
+    
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.profiles.active", "simulator");
+        properties.put("server.port", "0");
+        properties.put("SIMULATOR_URL", bank.baseUrl());
+        // The default profile logs com.ccpay at DEBUG, which would be measured too
+        properties.put("logging.level.com.ccpay", "INFO");
+        for (String arg : serviceArgs) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --property=value: " + arg);
+            }
+            properties.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+    
+        ConfigurableApplicationContext context;
+        try {
+            context = new SpringApplicationBuilder(ApiGatewayApplication.class).run(args);
+        } catch (RuntimeException e) {
+            bank.close();
+            throw e;
+        }
+        return new GatewayStack(bank, context);
+    }
+    
+    String baseUrl() {
+        return "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+    }
+    
+    BankSimulator bank() {
+        return bank;
+    }
+    
+    // The Coalesce and Hedge filters' counters by tags, for the share of requests each handled
+    Map<String, Long> filterCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        MeterRegistry registry = context.getBean(MeterRegistry.class);
+        for (String name : List.of("gateway.coalesce.requests", "gateway.hedge.requests")) {
+            for (Counter counter : registry.find(name).counters()) {
+                StringBuilder key = new StringBuilder(name);
+                counter.getId().getTags().forEach(tag -> key.append(',').append(tag.getKey()).append('=').append(tag.getValue()));
+                counts.put(key.toString(), (long) counter.count());
+            }
+        }
+        return counts;
+    }
+    
+    @Override
+    public void close() {
+        context.close();
+        bank.close();
+    }
+}
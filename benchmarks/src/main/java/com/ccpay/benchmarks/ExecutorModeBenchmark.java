@@ -0,0 +1,123 @@
+package com.ccpay.benchmarks;
+
+import com.ccpay.common.config.AsyncConfig;
+import com.ccpay.common.limit.ResourceLimiter;
+import com.ccpay.common.threads.VirtualThreads;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Compares AsyncConfig's platform thread pools with its virtual-thread mode on the kind of work
+// auth-service hands to @Async: a short database call and, for a share of tasks, an SMTP send.
+// Both are simulated with sleeps behind ResourceLimiters sized like the Hikari pool and the SMTP
+// limit, so in either mode throughput is bounded by the resources and the difference shows in
+// thread count and memory. Prints one CSV row per mode; virtual threads need Java 21.
+public final class ExecutorModeBenchmark {
+    
+    private static final int DB_PERMITS = 10;
+    private static final long DB_MILLIS = 2;
+    private static final int SMTP_PERMITS = 20;
+    private static final long SMTP_MILLIS = 40;
+    private static final int SMTP_PERCENT = 20;
+    
+    private ExecutorModeBenchmark() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        System.out.println("mode,java,tasks,seconds,tasks_per_second,peak_platform_threads,peak_heap_mb,rejected,caller_runs");
+        // Warm-up pass so class loading and JIT do not land on the first mode measured
+        run("platform", false, tasks / 10, false);
+        run("platform", false, tasks, true);
+        if (VirtualThreads.isSupported()) {
+            run("virtual", true, tasks / 10, false);
+            run("virtual", true, tasks, true);
+        } else {
+            System.err.println("Java " + Runtime.version().feature() + ": virtual mode skipped, it needs Java 21");
+        }
+    }
+    
+    private static void run(String mode, boolean virtualThreads, int tasks, boolean report) throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ResourceLimiter database = new ResourceLimiter("database", DB_PERMITS, Integer.MAX_VALUE,
+                Duration.ofSeconds(30), registry);
+        ResourceLimiter smtp = new ResourceLimiter("smtp", SMTP_PERMITS, Integer.MAX_VALUE,
+                Duration.ofSeconds(30), registry);
+        Executor executor = new AsyncConfig(registry, virtualThreads).getAsyncExecutor();
+        
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        threads.resetPeakThreadCount();
+        // [0] peak heap bytes
+        AtomicLongArray peaks = new AtomicLongArray(1);
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peaks.accumulateAndGet(0, memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+        
+        CountDownLatch done = new CountDownLatch(tasks);
+        AtomicLong rejected = new AtomicLong();
+        long start = System.nanoTime();
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(() -> {
+                try {
+                    if (!use(database, DB_MILLIS)
+                            || ThreadLocalRandom.current().nextInt(100) < SMTP_PERCENT && !use(smtp, SMTP_MILLIS)) {
+                        rejected.incrementAndGet();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        sampler.interrupt();
+        if (executor instanceof DisposableBean disposable) {
+            disposable.destroy();
+        } else if (executor instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+        
+        if (report) {
+            Counter callerRuns = registry.find("async.executor.caller.runs").counter();
+            System.out.printf("%s,%d,%d,%.3f,%.0f,%d,%.1f,%d,%.0f%n", mode, Runtime.version().feature(), tasks,
+                    seconds, tasks / seconds, threads.getPeakThreadCount(), peaks.get(0) / (1024.0 * 1024.0),
+                    rejected.get(), callerRuns != null ? callerRuns.count() : 0.0);
+        }
+    }
+    
+    private static boolean use(ResourceLimiter limiter, long millis) {
+        if (!limiter.tryAcquire()) {
+            return false;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            limiter.release();
+        }
+    }
+}
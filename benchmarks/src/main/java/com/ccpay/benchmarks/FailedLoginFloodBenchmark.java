@@ -0,0 +1,107 @@
+package com.ccpay.benchmarks;
+
+import com.ccpay.common.constants.ErrorCodes;
+import com.ccpay.common.exceptions.UnauthorizedException;
+import com.ccpay.common.utils.LogSampler;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The failure path of a credential-stuffing flood: every login throws INVALID_CREDENTIALS from
+// deep in the request stack and GlobalExceptionHandler logs it. "baseline" throws with a stack
+// trace and formats one log line per failure, as before; "expected" throws the stackless variant
+// and formats only the lines GlobalExceptionHandler's sampler lets through. Lines go to a null
+// stream, so appender I/O, which only widens the gap, is left out. Prints one CSV row per mode.
+public final class FailedLoginFloodBenchmark {
+    
+    // Roughly the depth of a login request inside Tomcat, the security filter chain and MVC
+    private static final int STACK_DEPTH = 150;
+    
+    private static final PrintStream NULL_LOG = new PrintStream(OutputStream.nullOutputStream());
+    
+    private FailedLoginFloodBenchmark() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int failures = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        System.out.println("mode,threads,stack_depth,failures,seconds,failures_per_second,bytes_per_failure,log_lines");
+        // Warm-up pass so class loading and JIT do not land on the first mode measured
+        run("baseline", false, failures / 10, threads, false);
+        run("expected", true, failures / 10, threads, false);
+        run("baseline", false, failures, threads, true);
+        run("expected", true, failures, threads, true);
+    }
+    
+    private static void run(String mode, boolean expected, int failures, int threads, boolean report)
+            throws InterruptedException {
+        LogSampler sampler = new LogSampler(Duration.ofSeconds(10), 10);
+        AtomicLong logLines = new AtomicLong();
+        AtomicLong allocated = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(threads);
+        int perThread = failures / threads;
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                long allocatedBefore = allocatedBytes();
+                long lines = 0;
+                for (int i = 0; i < perThread; i++) {
+                    try {
+                        descend(STACK_DEPTH, expected);
+                    } catch (UnauthorizedException e) {
+                        lines += handle(e, expected, sampler);
+                    }
+                }
+                allocated.addAndGet(allocatedBytes() - allocatedBefore);
+                logLines.addAndGet(lines);
+                done.countDown();
+            });
+            worker.start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long total = (long) perThread * threads;
+        if (report) {
+            System.out.printf("%s,%d,%d,%d,%.3f,%.0f,%.0f,%d%n", mode, threads, STACK_DEPTH, total, seconds,
+                    total / seconds, (double) allocated.get() / total, logLines.get());
+        }
+    }
+    
+    private static int descend(int depth, boolean expected) {
+        if (depth == 0) {
+            throw expected
+                    ? UnauthorizedException.expected(ErrorCodes.INVALID_CREDENTIALS, "Invalid credentials")
+                    : new UnauthorizedException(ErrorCodes.INVALID_CREDENTIALS, "Invalid credentials");
+        }
+        // Not a tail call, so every level keeps a frame
+        return descend(depth - 1, expected) + 1;
+    }
+    
+    // Mirrors GlobalExceptionHandler.logFailure, including the per-request trace id
+    private static int handle(UnauthorizedException e, boolean expected, LogSampler sampler) {
+        String traceId = UUID.randomUUID().toString();
+        if (expected) {
+            long suppressed = sampler.tryLog(e.getErrorCode());
+            if (suppressed < 0) {
+                return 0;
+            }
+            NULL_LOG.println(MessageFormatter.arrayFormat("{} [{}]: {} ({} more {} since last logged)",
+                    new Object[]{"UnauthorizedException", traceId, e.getMessage(), suppressed, e.getErrorCode()})
+                    .getMessage());
+            return 1;
+        }
+        NULL_LOG.println(MessageFormatter.arrayFormat("{} [{}]: {}",
+                new Object[]{"UnauthorizedException", traceId, e.getMessage()}).getMessage());
+        return 1;
+    }
+    
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
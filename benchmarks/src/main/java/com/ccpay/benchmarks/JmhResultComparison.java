@@ -0,0 +1,89 @@
+package com.ccpay.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Compares two JMH JSON result files benchmark by benchmark (parameters included) and prints
+// one CSV row each. Throughput scores are better higher, time scores lower. Exits with 1 if
+// any benchmark is worse than the baseline by more than the tolerance, beyond the error
+// bounds of both runs, so it can gate a build.
+public final class JmhResultComparison {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    private JmhResultComparison() {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: JmhResultComparison <baseline.json> <current.json> [tolerance-percent]");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+        
+        int regressions = 0;
+        System.out.println("benchmark,mode,unit,baseline,current,change_percent,result");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode now = entry.getValue();
+            JsonNode before = baseline.get(entry.getKey());
+            String mode = now.get("mode").asText();
+            JsonNode metric = now.get("primaryMetric");
+            if (before == null) {
+                System.out.printf("%s,%s,%s,,%.3f,,new%n", entry.getKey(), mode, metric.get("scoreUnit").asText(),
+                        metric.get("score").asDouble());
+                continue;
+            }
+            JsonNode beforeMetric = before.get("primaryMetric");
+            double oldScore = beforeMetric.get("score").asDouble();
+            double newScore = metric.get("score").asDouble();
+            double noise = error(beforeMetric) + error(metric);
+            boolean higherIsBetter = "thrpt".equals(mode);
+            double worse = higherIsBetter ? oldScore - newScore : newScore - oldScore;
+            boolean regressed = worse > noise && worse > oldScore * tolerance;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%s,%s,%s,%.3f,%.3f,%.1f,%s%n", entry.getKey(), mode, metric.get("scoreUnit").asText(),
+                    oldScore, newScore, (newScore - oldScore) / oldScore * 100, regressed ? "regressed" : "ok");
+        }
+        if (regressions > 0) {
+            System.err.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, tolerance * 100);
+            System.exit(1);
+        }
+    }
+    
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : MAPPER.readTree(file)) {
+            results.put(key(result), result);
+        }
+        return results;
+    }
+    
+    private static String key(JsonNode result) {
+        StringBuilder key = new StringBuilder(result.get("benchmark").asText());
+        JsonNode params = result.get("params");
+        if (params != null) {
+            Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> param = fields.next();
+                key.append(':').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+        }
+        return key.toString();
+    }
+    
+    // JMH reports NaN when there were too few iterations to estimate the error
+    private static double error(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble(0);
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
@@ -0,0 +1,53 @@
+package com.ccpay.benchmarks.jmh;
+
+import com.ccpay.common.config.CacheConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// The key built for every @Cacheable call, hit or miss
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheKeyBenchmark {
+    
+    private KeyGenerator keyGenerator;
+    private Object target;
+    private Method method;
+    private Object[] params;
+    
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        keyGenerator = new CacheConfig().keyGenerator();
+        target = new WalletLookup();
+        method = WalletLookup.class.getMethod("find", UUID.class, String.class);
+        params = new Object[] {UUID.randomUUID(), "USD"};
+    }
+    
+    @Benchmark
+    public Object generate() {
+        return keyGenerator.generate(target, method, params);
+    }
+    
+    // Stands in for a cached service method
+    public static class WalletLookup {
+        public Object find(UUID userId, String currency) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ccpay.benchmarks.jmh;
+
+import com.ccpay.common.utils.CryptoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// AES-GCM field encryption round trip, at the size of a card number and of a small JSON blob
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CryptoUtilsBenchmark {
+    
+    @Param({"16", "1024"})
+    private int plainTextLength;
+    
+    private String key;
+    private String plainText;
+    private String cipherText;
+    
+    @Setup
+    public void setUp() throws Exception {
+        key = CryptoUtils.generateAESKey();
+        plainText = "4".repeat(plainTextLength);
+        cipherText = CryptoUtils.encrypt(plainText, key);
+    }
+    
+    @Benchmark
+    public String encrypt() throws Exception {
+        return CryptoUtils.encrypt(plainText, key);
+    }
+    
+    @Benchmark
+    public String decrypt() throws Exception {
+        return CryptoUtils.decrypt(cipherText, key);
+    }
+}
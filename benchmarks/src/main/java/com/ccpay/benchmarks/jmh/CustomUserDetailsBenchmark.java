@@ -0,0 +1,46 @@
+package com.ccpay.benchmarks.jmh;
+
+import com.ccpay.auth.entity.User;
+import com.ccpay.auth.security.CustomUserDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Flattening roles and their permissions into authorities, done for every authenticated request
+// and every token issued. Entities are already loaded; the queries behind them are not measured.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomUserDetailsBenchmark {
+    
+    @Param({"1", "4"})
+    private int roles;
+    
+    @Param({"4", "32"})
+    private int permissionsPerRole;
+    
+    private User user;
+    
+    @Setup
+    public void setUp() {
+        user = Fixtures.user(roles, permissionsPerRole);
+    }
+    
+    @Benchmark
+    public CustomUserDetails create() {
+        return CustomUserDetails.create(user);
+    }
+}
@@ -0,0 +1,36 @@
+package com.ccpay.benchmarks.jmh;
+
+import com.ccpay.auth.entity.Permission;
+import com.ccpay.auth.entity.Role;
+import com.ccpay.auth.entity.User;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+final class Fixtures {
+    
+    private Fixtures() {
+    }
+    
+    // A user holding the given number of roles, each granting its own permissions
+    static User user(int roles, int permissionsPerRole) {
+        Set<Role> assigned = new HashSet<>();
+        for (int r = 0; r < roles; r++) {
+            Set<Permission> permissions = new HashSet<>();
+            for (int p = 0; p < permissionsPerRole; p++) {
+                permissions.add(Permission.builder().name("PERMISSION_" + r + "_" + p).build());
+            }
+            assigned.add(Role.builder().name("ROLE_" + r).permissions(permissions).build());
+        }
+        return User.builder()
+                .userId(UUID.randomUUID())
+                .email("benchmark.user@example.com")
+                .passwordHash("$2a$12$abcdefghijklmnopqrstuvwxyz0123456789ABCDEFGHIJKLMNOPQ")
+                .firstName("Bench")
+                .lastName("Mark")
+                .emailVerified(true)
+                .roles(assigned)
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.ccpay.benchmarks.jmh;
+
+import com.ccpay.auth.security.CustomUserDetails;
+import com.ccpay.auth.security.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+// Access token signing, and the parsing the JWT filter does on every authenticated request:
+// extracting the subject and then validating, each of which verifies the signature again.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+    
+    // The development default from application.yml
+    private static final String SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    
+    private JwtService jwtService;
+    private CustomUserDetails userDetails;
+    private String accessToken;
+    
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(new SimpleMeterRegistry());
+        set("jwtSecret", SECRET);
+        set("accessTokenExpiration", 3_600_000L);
+        set("refreshTokenExpiration", 2_592_000_000L);
+        userDetails = CustomUserDetails.create(Fixtures.user(2, 8));
+        accessToken = jwtService.generateAccessToken(userDetails);
+    }
+    
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtService.generateAccessToken(userDetails);
+    }
+    
+    @Benchmark
+    public String extractUsername() {
+        return jwtService.extractUsername(accessToken);
+    }
+    
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(accessToken, userDetails);
+    }
+    
+    private void set(String name, Object value) {
+        Field field = ReflectionUtils.findField(JwtService.class, name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, jwtService, value);
+    }
+}
@@ -0,0 +1,33 @@
+package com.ccpay.benchmarks.jmh;
+
+import com.ccpay.common.utils.SecurityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Refresh tokens come from one shared SecureRandom; the 4-thread run shows whether it contends
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecureTokenBenchmark {
+    
+    @Benchmark
+    public String generateSecureToken() {
+        return SecurityUtils.generateSecureToken();
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public String generateSecureTokenContended() {
+        return SecurityUtils.generateSecureToken();
+    }
+}
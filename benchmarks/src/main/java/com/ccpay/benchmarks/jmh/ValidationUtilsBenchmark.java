@@ -0,0 +1,43 @@
+package com.ccpay.benchmarks.jmh;
+
+import com.ccpay.common.utils.ValidationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Request validation checks, on formatted input as users type it
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationUtilsBenchmark {
+    
+    private String cardNumber = "4111 1111 1111 1111";
+    private String email = "first.last+billing@example.co.uk";
+    private String phoneNumber = "+1 (415) 555-0123";
+    
+    @Benchmark
+    public boolean creditCardNumber() {
+        return ValidationUtils.isValidCreditCardNumber(cardNumber);
+    }
+    
+    @Benchmark
+    public boolean email() {
+        return ValidationUtils.isValidEmail(email);
+    }
+    
+    @Benchmark
+    public boolean phoneNumber() {
+        return ValidationUtils.isValidPhoneNumber(phoneNumber);
+    }
+}
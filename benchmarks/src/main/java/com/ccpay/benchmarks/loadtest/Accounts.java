@@ -0,0 +1,112 @@
+package com.ccpay.benchmarks.loadtest;
+
+import com.warrenstrange.googleauth.GoogleAuthenticator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// A pool of seeded users, registered through the API before anything is measured. Email
+// verification and MFA are then switched on in the database: verification links only reach the
+// SMTP sink, and /mfa/setup and /mfa/enable read a user id from the principal's name, which is
+// the email, so they cannot enable MFA for these users.
+final class Accounts {
+    
+    // Below the concurrency limiter's default min-limit, so seeding is not shed however the
+    // limit has adapted; seeding is not measured, so it gains nothing from more
+    private static final int MAX_SEED_THREADS = 4;
+    
+    private final List<String> emails;
+    private final List<String> refreshTokens;
+    private final List<String> mfaSecrets;
+    
+    private Accounts(List<String> emails, List<String> refreshTokens, List<String> mfaSecrets) {
+        this.emails = emails;
+        this.refreshTokens = refreshTokens;
+        this.mfaSecrets = mfaSecrets;
+    }
+    
+    // Registers count users named <prefix>-<n>@loadtest.example; authenticator non-null also enables MFA
+    static Accounts seed(AuthClient client, DataSource dataSource, String prefix, int count, int threads,
+                         GoogleAuthenticator authenticator) throws Exception {
+        List<String> emails = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            emails.add(prefix + "-" + i + "@loadtest.example");
+        }
+        List<String> refreshTokens = new ArrayList<>(count);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, MAX_SEED_THREADS));
+        try {
+            List<Future<String>> registered = new ArrayList<>(count);
+            for (String email : emails) {
+                registered.add(executor.submit(() -> {
+                    AuthClient.Response response = client.register(email);
+                    // Other traffic can still hold the limit down; back off and retry
+                    for (int attempt = 1; response.status() == 503 && attempt < 20; attempt++) {
+                        Thread.sleep(50L * attempt);
+                        response = client.register(email);
+                    }
+                    if (response.status() != 201) {
+                        throw new IllegalStateException("Registering " + email + " failed with "
+                                + response.status() + ": " + response.body());
+                    }
+                    return response.data("refreshToken");
+                }));
+            }
+            for (Future<String> token : registered) {
+                refreshTokens.add(token.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    
+        List<String> mfaSecrets = new ArrayList<>(count);
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement verify = connection.prepareStatement(
+                    "UPDATE users SET email_verified = true, email_verified_at = now() WHERE email LIKE ?")) {
+                verify.setString(1, prefix + "-%");
+                verify.executeUpdate();
+            }
+            if (authenticator != null) {
+                enableMfa(connection, emails, authenticator, mfaSecrets);
+            }
+        }
+        return new Accounts(List.copyOf(emails), List.copyOf(refreshTokens), List.copyOf(mfaSecrets));
+    }
+    
+    private static void enableMfa(Connection connection, List<String> emails, GoogleAuthenticator authenticator,
+                                  List<String> secrets) throws SQLException {
+        try (PreparedStatement enable = connection.prepareStatement(
+                "UPDATE users SET mfa_enabled = true, mfa_secret = ? WHERE email = ?")) {
+            for (String email : emails) {
+                String secret = authenticator.createCredentials().getKey();
+                secrets.add(secret);
+                enable.setString(1, secret);
+                enable.setString(2, email);
+                enable.addBatch();
+            }
+            enable.executeBatch();
+        }
+    }
+    
+    int size() {
+        return emails.size();
+    }
+    
+    String email(long index) {
+        return emails.get((int) Math.floorMod(index, (long) emails.size()));
+    }
+    
+    String refreshToken(int index) {
+        return refreshTokens.get(index);
+    }
+    
+    String mfaSecret(long index) {
+        return mfaSecrets.get((int) Math.floorMod(index, (long) mfaSecrets.size()));
+    }
+}
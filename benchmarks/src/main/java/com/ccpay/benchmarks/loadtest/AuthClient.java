@@ -0,0 +1,77 @@
+package com.ccpay.benchmarks.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// The auth endpoints the scenarios call, over one shared HTTP/1.1 client with keep-alive
+final class AuthClient {
+    
+    // Meets RegisterRequest's password rules
+    static final String PASSWORD = "LoadTest#2024";
+    static final String WRONG_PASSWORD = "Wrong#Pass2024";
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    
+    AuthClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+    
+    Response register(String email) throws IOException, InterruptedException {
+        return post("/api/v1/auth/register", Map.of(
+                "email", email,
+                "password", PASSWORD,
+                "firstName", "Load",
+                "lastName", "Test",
+                "acceptTerms", true));
+    }
+    
+    Response login(String email, String password, String mfaCode) throws IOException, InterruptedException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("email", email);
+        body.put("password", password);
+        if (mfaCode != null) {
+            body.put("mfaCode", mfaCode);
+        }
+        return post("/api/v1/auth/login", body);
+    }
+    
+    Response refresh(String refreshToken) throws IOException, InterruptedException {
+        return post("/api/v1/auth/refresh", Map.of("refreshToken", refreshToken));
+    }
+    
+    private Response post(String path, Map<String, Object> body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)))
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        return new Response(response.statusCode(), response.body());
+    }
+    
+    record Response(int status, String body) {
+    
+        // A field of the ApiResponse data, or null
+        String data(String field) throws JsonProcessingException {
+            JsonNode value = MAPPER.readTree(body).path("data").path(field);
+            return value.isMissingNode() || value.isNull() ? null : value.asText();
+        }
+    }
+}
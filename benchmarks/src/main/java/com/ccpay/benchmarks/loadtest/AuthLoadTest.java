@@ -0,0 +1,108 @@
+package com.ccpay.benchmarks.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// End-to-end load test of auth-service, started in this JVM against local stand-ins (see
+// AuthStack). Arguments are name=value options, plus --property=value overrides passed to the
+// service:
+//   scenarios  comma-separated, default all (see Scenarios)
+//   workers    concurrent clients, default 16
+//   rate       target requests per second per scenario, default 0 for as fast as the workers go
+//   warmup     seconds run and discarded before each scenario is measured, default 10
+//   duration   seconds measured per scenario, default 30
+//   users      accounts seeded per scenario, default 100
+//   saturation-workers, saturation-rate  the saturation scenario's clients and requests per
+//              second, default 256 and 5000: above the default max-limit of 200 and above
+//              what one instance can log in, so the limiter sheds
+//   label      release or build name written into every result row, default "current"
+//   out        report directory, default build/reports/loadtest
+//   jdbc-url, jdbc-username, jdbc-password  an existing database instead of embedded Postgres
+// Writes summary.csv, one row per scenario with fixed columns for LoadTestComparison, and
+// <scenario>.hgrm with each full latency distribution. Both the client and the service share
+// this machine's CPUs, so compare results only between runs on the same hardware.
+public final class AuthLoadTest {
+    
+    private AuthLoadTest() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> serviceArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                serviceArgs.add(arg);
+                continue;
+            }
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                System.err.println("Expected name=value or --property=value: " + arg);
+                System.exit(2);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        List<String> scenarios = options.containsKey("scenarios")
+                ? Arrays.asList(options.get("scenarios").split(",")) : Scenarios.ALL;
+        int workers = Integer.parseInt(options.getOrDefault("workers", "16"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        int users = Integer.parseInt(options.getOrDefault("users", "100"));
+        int saturationWorkers = Integer.parseInt(options.getOrDefault("saturation-workers", "256"));
+        double saturationRate = Double.parseDouble(options.getOrDefault("saturation-rate", "5000"));
+        String label = options.getOrDefault("label", "current");
+        File out = new File(options.getOrDefault("out", "build/reports/loadtest"));
+        if (!out.isDirectory() && !out.mkdirs()) {
+            throw new IOException("Cannot create " + out);
+        }
+    
+        // Emails are unique per run, so an existing database can be reused
+        String runId = "lt" + UUID.randomUUID().toString().substring(0, 8);
+        List<ScenarioResult> results = new ArrayList<>();
+        try (AuthStack stack = AuthStack.start(options.get("jdbc-url"), options.get("jdbc-username"),
+                options.get("jdbc-password"), serviceArgs)) {
+            AuthClient client = new AuthClient(stack.baseUrl());
+            for (String name : scenarios) {
+                Scenario scenario = Scenarios.named(name.trim(), stack, client, runId, users, saturationWorkers,
+                        saturationRate);
+                int scenarioWorkers = scenario.workers(workers);
+                double scenarioRate = scenario.rate(rate);
+                scenario.prepare(scenarioWorkers);
+                if (!warmup.isZero()) {
+                    LoadRunner.run(scenario, scenarioWorkers, scenarioRate, warmup);
+                }
+                ScenarioResult result = LoadRunner.run(scenario, scenarioWorkers, scenarioRate, duration);
+                result.writePercentiles(new File(out, result.scenario() + ".hgrm"));
+                results.add(result);
+                System.err.printf("%s: %.1f/s, p99 %.2f ms, %d shed (%.1f%%), %d unexpected, %d errors%n",
+                        result.scenario(), result.throughput(), result.latencies().getValueAtPercentile(99) / 1000.0,
+                        result.shed(), result.shedPercent(), result.unexpected(), result.errors());
+            }
+            System.err.println("SMTP sink: " + stack.smtp().stats().snapshot());
+            System.err.println("Redis stand-in: " + stack.redis().stats().snapshot());
+        }
+    
+        File summary = new File(out, "summary.csv");
+        try (PrintStream csv = new PrintStream(summary)) {
+            csv.println(ScenarioResult.CSV_HEADER);
+            for (ScenarioResult result : results) {
+                csv.println(result.csvRow(label));
+            }
+        }
+        System.out.println(ScenarioResult.CSV_HEADER);
+        for (ScenarioResult result : results) {
+            System.out.println(result.csvRow(label));
+        }
+        System.out.println("Written to " + summary.getAbsolutePath());
+        // Kafka clients and pools left by the service would otherwise keep the JVM alive
+        System.exit(0);
+    }
+}
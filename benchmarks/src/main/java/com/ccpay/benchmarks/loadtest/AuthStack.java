@@ -0,0 +1,130 @@
+package com.ccpay.benchmarks.loadtest;
+
+import com.ccpay.auth.AuthServiceApplication;
+import com.ccpay.simulator.LatencyProfile;
+import com.ccpay.simulator.RedisStandIn;
+import com.ccpay.simulator.SmtpSink;
+import com.warrenstrange.googleauth.GoogleAuthenticator;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// auth-service in this JVM, with everything it talks to on loopback: embedded Postgres (or the
+// database given as jdbc-url), the simulator's Redis stand-in and SMTP sink, and a sink for
+// Zipkin spans. It runs with the prod profile, so logging and tracing cost what they do in
+// production. Kafka has no stand-in: the bootstrap address is a closed port, so events stay in
+// the outbox table as they do while the broker is down, and the relay's retries are not logged.
+// Embedded Postgres starts empty on every run, which keeps runs comparable.
+final class AuthStack implements AutoCloseable {
+    
+    private final EmbeddedPostgres postgres;
+    private final RedisStandIn redis;
+    private final SmtpSink smtp;
+    private final ZipkinSink zipkin;
+    private final ConfigurableApplicationContext context;
+    
+    private AuthStack(EmbeddedPostgres postgres, RedisStandIn redis, SmtpSink smtp, ZipkinSink zipkin,
+                      ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.redis = redis;
+        this.smtp = smtp;
+        this.zipkin = zipkin;
+        this.context = context;
+    }
+    
+    // jdbcUrl null starts embedded Postgres; serviceArgs are --property=value overrides for the service
+    static AuthStack start(String jdbcUrl, String jdbcUsername, String jdbcPassword, List<String> serviceArgs)
+            throws IOException {
+        EmbeddedPostgres postgres = null;
+        if (jdbcUrl == null) {
+            postgres = EmbeddedPostgres.builder().start();
+            jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+            jdbcUsername = "postgres";
+            jdbcPassword = "";
+        }
+        RedisStandIn redis = RedisStandIn.start(0);
+        SmtpSink smtp = SmtpSink.start(0, LatencyProfile.none(), LatencyProfile.none());
+        ZipkinSink zipkin = ZipkinSink.start();
+    
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.profiles.active", "prod");
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", jdbcUsername);
+        properties.put("spring.datasource.password", jdbcPassword == null ? "" : jdbcPassword);
+        properties.put("spring.data.redis.host", "127.0.0.1");
+        properties.put("spring.data.redis.port", Integer.toString(redis.port()));
+        // The sink takes any credentials and offers no STARTTLS, which JavaMail then skips
+        properties.put("spring.mail.host", "127.0.0.1");
+        properties.put("spring.mail.port", Integer.toString(smtp.port()));
+        properties.put("spring.mail.username", "loadtest");
+        properties.put("spring.mail.password", "loadtest");
+        properties.put("spring.kafka.bootstrap-servers", "127.0.0.1:9");
+        properties.put("management.zipkin.tracing.endpoint", zipkin.endpoint());
+        properties.put("logging.level.org.apache.kafka", "OFF");
+        properties.put("logging.level.com.ccpay.common.outbox", "OFF");
+        // Spring joins repeated arguments with commas, so overrides replace defaults here instead
+        for (String arg : serviceArgs) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --property=value: " + arg);
+            }
+            properties.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        
+        ConfigurableApplicationContext context;
+        try {
+            context = new SpringApplicationBuilder(AuthServiceApplication.class).run(args);
+        } catch (RuntimeException e) {
+            zipkin.close();
+            smtp.close();
+            redis.close();
+            if (postgres != null) {
+                postgres.close();
+            }
+            throw e;
+        }
+        return new AuthStack(postgres, redis, smtp, zipkin, context);
+    }
+    
+    String baseUrl() {
+        return "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+    }
+    
+    DataSource dataSource() {
+        return context.getBean(DataSource.class);
+    }
+    
+    // The service's own instance, so codes match its time step and window
+    GoogleAuthenticator googleAuthenticator() {
+        return context.getBean(GoogleAuthenticator.class);
+    }
+    
+    RedisStandIn redis() {
+        return redis;
+    }
+    
+    SmtpSink smtp() {
+        return smtp;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        context.close();
+        zipkin.close();
+        smtp.close();
+        redis.close();
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.ccpay.benchmarks.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Drives one scenario from a fixed set of worker threads for a fixed time. Without a target rate
+// each worker sends its next request as soon as the last one returns (closed loop, for peak
+// throughput). With one, requests are scheduled at fixed intervals across the workers and
+// latency is measured from the scheduled start, so time spent waiting for a free worker behind
+// a slow service is counted instead of silently omitted. Latency is recorded only for responses
+// with the scenario's expected status; 503s from load shedding, other statuses and I/O errors
+// are counted separately.
+final class LoadRunner {
+    
+    // Anything slower is recorded as this
+    static final long MAX_LATENCY_MICROS = Duration.ofMinutes(1).toNanos() / 1000;
+    
+    private LoadRunner() {
+    }
+    
+    static ScenarioResult run(Scenario scenario, int workers, double rate, Duration duration)
+            throws InterruptedException {
+        long intervalNanos = rate > 0 ? (long) (1_000_000_000 / rate) : 0;
+        AtomicLong tickets = new AtomicLong();
+        List<Tally> tallies = new ArrayList<>(workers);
+        List<Thread> threads = new ArrayList<>(workers);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (int w = 0; w < workers; w++) {
+            int worker = w;
+            Tally tally = new Tally();
+            tallies.add(tally);
+            Thread thread = new Thread(() -> {
+                for (long iteration = 0; ; iteration++) {
+                    long intended;
+                    if (intervalNanos > 0) {
+                        intended = start + tickets.getAndIncrement() * intervalNanos;
+                        // A backlog left at the end is dropped; the latencies already show it
+                        if (intended >= end || System.nanoTime() >= end) {
+                            return;
+                        }
+                        parkUntil(intended);
+                    } else {
+                        intended = System.nanoTime();
+                        if (intended >= end) {
+                            return;
+                        }
+                    }
+                    int status;
+                    try {
+                        status = scenario.execute(worker, iteration);
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (Exception e) {
+                        tally.errors++;
+                        continue;
+                    }
+                    tally.record(status, scenario.expectedStatus(), (System.nanoTime() - intended) / 1000);
+                }
+            }, "load-" + scenario.name() + "-" + w);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+    
+        Histogram latencies = new Histogram(MAX_LATENCY_MICROS, 3);
+        long ok = 0;
+        long shed = 0;
+        long unexpected = 0;
+        long errors = 0;
+        for (Tally tally : tallies) {
+            latencies.add(tally.latencies);
+            ok += tally.ok;
+            shed += tally.shed;
+            unexpected += tally.unexpected;
+            errors += tally.errors;
+        }
+        return new ScenarioResult(scenario.name(), workers, rate, seconds, ok, shed, unexpected, errors, latencies);
+    }
+    
+    private static void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+    
+    // Owned by one worker until it finishes
+    private static final class Tally {
+    
+        private final Histogram latencies = new Histogram(MAX_LATENCY_MICROS, 3);
+        private long ok;
+        private long shed;
+        private long unexpected;
+        private long errors;
+    
+        void record(int status, int expectedStatus, long micros) {
+            if (status == expectedStatus) {
+                ok++;
+                latencies.recordValue(Math.min(micros, MAX_LATENCY_MICROS));
+            } else if (status == 503) {
+                shed++;
+            } else {
+                unexpected++;
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ccpay.benchmarks.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compares two AuthLoadTest summaries scenario by scenario (with workers and target rate) on
+// throughput, where higher is better, and p99 latency, where lower is better, and prints one CSV
+// row per metric. Exits with 1 if either is worse than the baseline by more than the tolerance,
+// or if requests failed in the current run that did not in the baseline, so it can gate a build.
+public final class LoadTestComparison {
+    
+    private LoadTestComparison() {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: LoadTestComparison <baseline.csv> <current.csv> [tolerance-percent]");
+            System.exit(2);
+        }
+        Map<String, Map<String, String>> baseline = load(new File(args[0]));
+        Map<String, Map<String, String>> current = load(new File(args[1]));
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+    
+        int regressions = 0;
+        System.out.println("scenario,metric,baseline,current,change_percent,result");
+        for (Map.Entry<String, Map<String, String>> entry : current.entrySet()) {
+            Map<String, String> now = entry.getValue();
+            Map<String, String> before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%s,,,,,new%n", entry.getKey());
+                continue;
+            }
+            if (!compare(entry.getKey(), "throughput_per_second", true, before, now, tolerance)) {
+                regressions++;
+            }
+            if (!compare(entry.getKey(), "p99_ms", false, before, now, tolerance)) {
+                regressions++;
+            }
+            long failedBefore = failed(before);
+            long failedNow = failed(now);
+            boolean newFailures = failedBefore == 0 && failedNow > 0;
+            if (newFailures) {
+                regressions++;
+            }
+            System.out.printf("%s,failed_requests,%d,%d,,%s%n", entry.getKey(), failedBefore, failedNow,
+                    newFailures ? "regressed" : "ok");
+        }
+        if (regressions > 0) {
+            System.err.printf("%d metric(s) regressed by more than %.0f%% or started failing%n", regressions,
+                    tolerance * 100);
+            System.exit(1);
+        }
+    }
+    
+    // Prints the row and returns false if the metric regressed
+    private static boolean compare(String key, String metric, boolean higherIsBetter, Map<String, String> before,
+                                   Map<String, String> now, double tolerance) {
+        double oldValue = Double.parseDouble(before.get(metric));
+        double newValue = Double.parseDouble(now.get(metric));
+        double worse = higherIsBetter ? oldValue - newValue : newValue - oldValue;
+        boolean regressed = worse > oldValue * tolerance;
+        double change = oldValue == 0 ? 0 : (newValue - oldValue) / oldValue * 100;
+        System.out.printf("%s,%s,%.2f,%.2f,%.1f,%s%n", key, metric, oldValue, newValue, change,
+                regressed ? "regressed" : "ok");
+        return !regressed;
+    }
+    
+    private static long failed(Map<String, String> row) {
+        return Long.parseLong(row.get("unexpected")) + Long.parseLong(row.get("errors"));
+    }
+    
+    private static Map<String, Map<String, String>> load(File file) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath());
+        List<String> header = Arrays.asList(lines.get(0).split(","));
+        Map<String, Map<String, String>> rows = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] values = line.split(",", -1);
+            Map<String, String> row = new LinkedHashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                row.put(header.get(i), values[i]);
+            }
+            rows.put(row.get("scenario") + ":workers=" + row.get("workers") + ":rate=" + row.get("target_rate"), row);
+        }
+        return rows;
+    }
+}
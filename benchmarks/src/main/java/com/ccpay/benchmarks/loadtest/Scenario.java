@@ -0,0 +1,25 @@
+package com.ccpay.benchmarks.loadtest;
+
+// One scripted workload. prepare runs once before warm-up and is not measured; execute sends one
+// request on behalf of a worker and returns its HTTP status. Workers call execute concurrently,
+// each with its own index, so per-worker state needs no locking.
+interface Scenario {
+    
+    String name();
+    
+    int expectedStatus();
+    
+    // The load it is driven with; a scenario may override the run's workers and rate
+    default int workers(int requested) {
+        return requested;
+    }
+    
+    default double rate(double requested) {
+        return requested;
+    }
+    
+    default void prepare(int workers) throws Exception {
+    }
+    
+    int execute(int worker, long iteration) throws Exception;
+}
@@ -0,0 +1,48 @@
+package com.ccpay.benchmarks.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Locale;
+
+// One scenario's measured run. Latencies are in microseconds and reported in milliseconds.
+record ScenarioResult(String scenario, int workers, double targetRate, double seconds, long ok, long shed,
+                      long unexpected, long errors, Histogram latencies) {
+    
+    static final String CSV_HEADER = "label,scenario,workers,target_rate,seconds,requests,ok,shed,unexpected,errors,"
+            + "throughput_per_second,mean_ms,p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+    
+    long requests() {
+        return ok + shed + unexpected + errors;
+    }
+    
+    // Share of requests turned away by the concurrency limiter
+    double shedPercent() {
+        return requests() == 0 ? 0 : 100.0 * shed / requests();
+    }
+    
+    // Successful requests per second
+    double throughput() {
+        return ok / seconds;
+    }
+    
+    String csvRow(String label) {
+        return String.format(Locale.ROOT, "%s,%s,%d,%.0f,%.1f,%d,%d,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f",
+                label, scenario, workers, targetRate, seconds, requests(), ok, shed, unexpected, errors,
+                throughput(), latencies.getMean() / 1000, millis(50), millis(90), millis(99), millis(99.9),
+                latencies.getMaxValue() / 1000.0);
+    }
+    
+    // The full distribution in HdrHistogram's percentile format, which its plotter overlays across runs
+    void writePercentiles(File file) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(file)) {
+            latencies.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+    
+    private double millis(double percentile) {
+        return latencies.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,291 @@
+package com.ccpay.benchmarks.loadtest;
+
+import com.warrenstrange.googleauth.GoogleAuthenticator;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The auth-service workloads, by name:
+//   register      registration storm, a new email on every request
+//   login         password login to verified accounts without MFA
+//   login-mfa     MFA login as a client does it: the password alone gets the MFA challenge,
+//                 then password and TOTP code get the tokens; both requests are measured
+//   refresh       refresh-token churn, each worker rotating its own token chain
+//   failed-login  credential-stuffing flood: wrong passwords for real accounts, alternating
+//                 with unknown emails
+//   saturation    login at a fixed rate from more clients than the concurrency limit's maximum,
+//                 so the service must shed; shed counts the 503s, latency covers the admitted
+// Each scenario seeds its own accounts, so a lockout or a rotated token in one cannot affect another.
+final class Scenarios {
+    
+    // In run order when all are selected. Registration runs last, so the other scenarios always
+    // see the same number of users however fast registration was.
+    static final List<String> ALL = List.of("login", "login-mfa", "refresh", "failed-login", "saturation", "register");
+    
+    private Scenarios() {
+    }
+    
+    static Scenario named(String name, AuthStack stack, AuthClient client, String runId, int users,
+                          int saturationWorkers, double saturationRate) {
+        DataSource dataSource = stack.dataSource();
+        return switch (name) {
+            case "register" -> new Register(client, runId);
+            case "login" -> new Login("login", client, dataSource, runId, users);
+            case "login-mfa" -> new MfaLogin(client, dataSource, stack.googleAuthenticator(), runId, users);
+            case "refresh" -> new Refresh(client, dataSource, runId, users);
+            case "failed-login" -> new FailedLogin(client, dataSource, runId, users);
+            case "saturation" -> new Saturation(new Login("saturation", client, dataSource, runId, users),
+                    saturationWorkers, saturationRate);
+            default -> throw new IllegalArgumentException("Unknown scenario " + name + ", expected one of " + ALL);
+        };
+    }
+    
+    private static final class Register implements Scenario {
+    
+        private final AuthClient client;
+        private final String runId;
+        private final AtomicLong sequence = new AtomicLong();
+    
+        private Register(AuthClient client, String runId) {
+            this.client = client;
+            this.runId = runId;
+        }
+    
+        @Override
+        public String name() {
+            return "register";
+        }
+    
+        @Override
+        public int expectedStatus() {
+            return 201;
+        }
+    
+        @Override
+        public int execute(int worker, long iteration) throws Exception {
+            return client.register(runId + "-register-" + sequence.getAndIncrement() + "@loadtest.example").status();
+        }
+    }
+    
+    private static final class Login implements Scenario {
+    
+        private final String name;
+        private final AuthClient client;
+        private final DataSource dataSource;
+        private final String runId;
+        private final int users;
+        private final AtomicLong sequence = new AtomicLong();
+        private Accounts accounts;
+    
+        private Login(String name, AuthClient client, DataSource dataSource, String runId, int users) {
+            this.name = name;
+            this.client = client;
+            this.dataSource = dataSource;
+            this.runId = runId;
+            this.users = users;
+        }
+    
+        @Override
+        public String name() {
+            return name;
+        }
+    
+        @Override
+        public int expectedStatus() {
+            return 200;
+        }
+    
+        @Override
+        public void prepare(int workers) throws Exception {
+            accounts = Accounts.seed(client, dataSource, runId + "-" + name, users, workers, null);
+        }
+    
+        @Override
+        public int execute(int worker, long iteration) throws Exception {
+            return client.login(accounts.email(sequence.getAndIncrement()), AuthClient.PASSWORD, null).status();
+        }
+    }
+    
+    // Login with its own accounts, driven past capacity whatever workers and rate the run was given
+    private static final class Saturation implements Scenario {
+    
+        private final Login login;
+        private final int workers;
+        private final double rate;
+    
+        private Saturation(Login login, int workers, double rate) {
+            this.login = login;
+            this.workers = workers;
+            this.rate = rate;
+        }
+    
+        @Override
+        public String name() {
+            return login.name();
+        }
+    
+        @Override
+        public int expectedStatus() {
+            return login.expectedStatus();
+        }
+    
+        @Override
+        public int workers(int requested) {
+            return workers;
+        }
+    
+        @Override
+        public double rate(double requested) {
+            return rate;
+        }
+    
+        @Override
+        public void prepare(int workers) throws Exception {
+            login.prepare(workers);
+        }
+    
+        @Override
+        public int execute(int worker, long iteration) throws Exception {
+            return login.execute(worker, iteration);
+        }
+    }
+    
+    private static final class MfaLogin implements Scenario {
+    
+        private final AuthClient client;
+        private final DataSource dataSource;
+        private final GoogleAuthenticator authenticator;
+        private final String runId;
+        private final int users;
+        private Accounts accounts;
+        private int workers;
+    
+        private MfaLogin(AuthClient client, DataSource dataSource, GoogleAuthenticator authenticator, String runId,
+                         int users) {
+            this.client = client;
+            this.dataSource = dataSource;
+            this.authenticator = authenticator;
+            this.runId = runId;
+            this.users = users;
+        }
+    
+        @Override
+        public String name() {
+            return "login-mfa";
+        }
+    
+        @Override
+        public int expectedStatus() {
+            return 200;
+        }
+    
+        @Override
+        public void prepare(int workers) throws Exception {
+            accounts = Accounts.seed(client, dataSource, runId + "-mfa", users, workers, authenticator);
+            this.workers = workers;
+        }
+    
+        // Even iterations ask for the challenge, odd ones answer it for the same account
+        @Override
+        public int execute(int worker, long iteration) throws Exception {
+            long account = worker + (iteration / 2) * workers;
+            String email = accounts.email(account);
+            if (iteration % 2 == 0) {
+                return client.login(email, AuthClient.PASSWORD, null).status();
+            }
+            String code = String.format("%06d", authenticator.getTotpPassword(accounts.mfaSecret(account)));
+            return client.login(email, AuthClient.PASSWORD, code).status();
+        }
+    }
+    
+    private static final class Refresh implements Scenario {
+    
+        private final AuthClient client;
+        private final DataSource dataSource;
+        private final String runId;
+        private final int users;
+        private Accounts accounts;
+        private String[] tokens;
+    
+        private Refresh(AuthClient client, DataSource dataSource, String runId, int users) {
+            this.client = client;
+            this.dataSource = dataSource;
+            this.runId = runId;
+            this.users = users;
+        }
+    
+        @Override
+        public String name() {
+            return "refresh";
+        }
+    
+        @Override
+        public int expectedStatus() {
+            return 200;
+        }
+    
+        @Override
+        public void prepare(int workers) throws Exception {
+            accounts = Accounts.seed(client, dataSource, runId + "-refresh", Math.max(users, workers), workers, null);
+            tokens = new String[workers];
+            for (int i = 0; i < workers; i++) {
+                tokens[i] = accounts.refreshToken(i);
+            }
+        }
+    
+        @Override
+        public int execute(int worker, long iteration) throws Exception {
+            AuthClient.Response response = client.refresh(tokens[worker]);
+            if (response.status() == 200) {
+                tokens[worker] = response.data("refreshToken");
+            } else if (response.status() == 401) {
+                // The token was rotated by a request whose response was lost; start a new chain
+                AuthClient.Response login = client.login(accounts.email(worker), AuthClient.PASSWORD, null);
+                if (login.status() == 200) {
+                    tokens[worker] = login.data("refreshToken");
+                }
+            }
+            return response.status();
+        }
+    }
+    
+    private static final class FailedLogin implements Scenario {
+    
+        private final AuthClient client;
+        private final DataSource dataSource;
+        private final String runId;
+        private final int users;
+        private final AtomicLong sequence = new AtomicLong();
+        private Accounts accounts;
+    
+        private FailedLogin(AuthClient client, DataSource dataSource, String runId, int users) {
+            this.client = client;
+            this.dataSource = dataSource;
+            this.runId = runId;
+            this.users = users;
+        }
+    
+        @Override
+        public String name() {
+            return "failed-login";
+        }
+    
+        @Override
+        public int expectedStatus() {
+            return 401;
+        }
+    
+        @Override
+        public void prepare(int workers) throws Exception {
+            accounts = Accounts.seed(client, dataSource, runId + "-victim", users, workers, null);
+        }
+    
+        @Override
+        public int execute(int worker, long iteration) throws Exception {
+            long n = sequence.getAndIncrement();
+            String email = n % 2 == 0 ? accounts.email(n / 2) : runId + "-unknown-" + n + "@loadtest.example";
+            return client.login(email, AuthClient.WRONG_PASSWORD, null).status();
+        }
+    }
+}
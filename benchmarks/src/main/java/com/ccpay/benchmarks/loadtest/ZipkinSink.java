@@ -0,0 +1,46 @@
+package com.ccpay.benchmarks.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Accepts and discards Zipkin span uploads, so the services under test pay for exporting traces
+final class ZipkinSink implements AutoCloseable {
+    
+    private final HttpServer server;
+    private final ExecutorService threads;
+    
+    private ZipkinSink(HttpServer server, ExecutorService threads) {
+        this.server = server;
+        this.threads = threads;
+    }
+    
+    static ZipkinSink start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        server.setExecutor(threads);
+        server.createContext("/api/v2/spans", exchange -> {
+            try (exchange) {
+                exchange.getRequestBody().readAllBytes();
+                exchange.sendResponseHeaders(202, -1);
+            }
+        });
+        server.start();
+        return new ZipkinSink(server, threads);
+    }
+    
+    String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v2/spans";
+    }
+    
+    // The server's dispatcher is not a daemon thread and would keep the JVM up
+    @Override
+    public void close() {
+        server.stop(0);
+        threads.shutdownNow();
+    }
+}
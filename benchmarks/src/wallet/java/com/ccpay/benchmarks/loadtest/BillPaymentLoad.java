@@ -0,0 +1,139 @@
+package com.ccpay.benchmarks.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Card bill payments through BillPaymentPipeline to the bank simulator. wallet-service has no
+// endpoint that creates them, so PENDING payments are inserted at a fixed rate, as whatever
+// creates them in production would, and the pipeline picks them up on its own poll. Latency runs
+// from the insert to COMPLETED, both by the database clock; declined and failed payments are
+// unexpected, and payments still unfinished when the run has drained are errors.
+final class BillPaymentLoad {
+    
+    static final String NAME = "bill-payment";
+    
+    private static final long TICK_MILLIS = 10;
+    // Retries of provider errors and timeouts can outlast this; they are counted as errors
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+    
+    private static final String INSERT_WALLET =
+            "INSERT INTO wallets (wallet_id, user_id, balance, currency) VALUES (?, ?, ?, 'USD')";
+    
+    private static final String INSERT_PAYMENT =
+            "INSERT INTO transactions (user_id, wallet_id, type, amount, currency, destination_type, " +
+            "destination_id, reference_number, status) VALUES (?, ?, 'PAYMENT', ?, 'USD', 'CREDIT_CARD', ?, ?, 'PENDING')";
+    
+    private static final String UNFINISHED =
+            "SELECT count(*) FROM transactions WHERE reference_number LIKE ? AND status IN ('PENDING', 'PROCESSING')";
+    
+    private static final String OUTCOMES =
+            "SELECT status, (EXTRACT(EPOCH FROM completed_at - initiated_at) * 1000000)::bigint " +
+            "FROM transactions WHERE reference_number LIKE ?";
+    
+    private final DataSource dataSource;
+    private final List<UUID[]> wallets;
+    private final SplittableRandom random = new SplittableRandom(42);
+    
+    private BillPaymentLoad(DataSource dataSource, List<UUID[]> wallets) {
+        this.dataSource = dataSource;
+        this.wallets = wallets;
+    }
+    
+    // Wallets funded well beyond what a run can spend, so no payment fails on balance
+    static BillPaymentLoad prepare(DataSource dataSource, int walletCount) throws SQLException {
+        List<UUID[]> wallets = new ArrayList<>(walletCount);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement(INSERT_WALLET)) {
+            for (int i = 0; i < walletCount; i++) {
+                UUID walletId = UUID.randomUUID();
+                UUID userId = UUID.randomUUID();
+                wallets.add(new UUID[]{walletId, userId});
+                insert.setObject(1, walletId);
+                insert.setObject(2, userId);
+                insert.setBigDecimal(3, new BigDecimal("10000000.00"));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        return new BillPaymentLoad(dataSource, wallets);
+    }
+    
+    // prefix keeps each run's payments apart, so warm-up is not measured
+    ScenarioResult run(String prefix, double rate, Duration duration) throws SQLException, InterruptedException {
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        double owed = 0;
+        long inserted = 0;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement(INSERT_PAYMENT)) {
+            for (long tick = start; tick < end; tick += TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS)) {
+                long remaining;
+                while ((remaining = tick - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.sleep(remaining);
+                }
+                owed += rate * TICK_MILLIS / 1000.0;
+                for (; owed >= 1; owed--) {
+                    UUID[] wallet = wallets.get(random.nextInt(wallets.size()));
+                    insert.setObject(1, wallet[1]);
+                    insert.setObject(2, wallet[0]);
+                    insert.setBigDecimal(3, BigDecimal.valueOf(random.nextLong(100, 50_000), 2));
+                    insert.setObject(4, UUID.randomUUID());
+                    insert.setString(5, prefix + "-" + inserted++);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (unfinished(prefix) > 0 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+    
+        Histogram latencies = new Histogram(LoadRunner.MAX_LATENCY_MICROS, 3);
+        long ok = 0;
+        long unexpected = 0;
+        long errors = 0;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement outcomes = connection.prepareStatement(OUTCOMES)) {
+            outcomes.setString(1, prefix + "-%");
+            try (ResultSet rows = outcomes.executeQuery()) {
+                while (rows.next()) {
+                    switch (rows.getString(1)) {
+                        case "COMPLETED" -> {
+                            ok++;
+                            latencies.recordValue(Math.min(Math.max(rows.getLong(2), 0), LoadRunner.MAX_LATENCY_MICROS));
+                        }
+                        case "PENDING", "PROCESSING" -> errors++;
+                        default -> unexpected++;
+                    }
+                }
+            }
+        }
+        return new ScenarioResult(NAME, 0, rate, seconds, ok, 0, unexpected, errors, latencies);
+    }
+    
+    private long unfinished(String prefix) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement count = connection.prepareStatement(UNFINISHED)) {
+            count.setString(1, prefix + "-%");
+            try (ResultSet rows = count.executeQuery()) {
+                rows.next();
+                return rows.getLong(1);
+            }
+        }
+    }
+}
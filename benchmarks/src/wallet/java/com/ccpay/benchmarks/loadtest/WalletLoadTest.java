@@ -0,0 +1,115 @@
+package com.ccpay.benchmarks.loadtest;
+
+import com.ccpay.simulator.SimulatorProfile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// End-to-end load test of wallet-service against the bank simulator, started in this JVM (see
+// WalletStack). Arguments are name=value options, plus --property=value overrides passed to the
+// service:
+//   scenarios       comma-separated, default webhook,bill-payment
+//   webhook-rate    card transaction webhooks per second, default 5000
+//   duplicate-rate  share of webhooks delivered twice, default 0.1
+//   payment-rate    bill payments created per second, default 100
+//   wallets         wallets seeded for bill payments, default 1000
+//   bank-profile    simulator latency and failure profile, default realistic (see SimulatorProfile)
+//   warmup          seconds run and discarded before each scenario is measured, default 10
+//   duration        seconds measured per scenario, default 30
+//   label           release or build name written into every result row, default "current"
+//   out             report directory, default build/reports/loadtest/wallet
+//   jdbc-url, jdbc-username, jdbc-password  an existing database instead of embedded Postgres
+// Writes summary.csv and <scenario>.hgrm as AuthLoadTest does, so LoadTestComparison reads both.
+public final class WalletLoadTest {
+    
+    private static final List<String> ALL = List.of(WebhookLoad.NAME, BillPaymentLoad.NAME);
+    
+    private WalletLoadTest() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> serviceArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                serviceArgs.add(arg);
+                continue;
+            }
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                System.err.println("Expected name=value or --property=value: " + arg);
+                System.exit(2);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        List<String> scenarios = options.containsKey("scenarios")
+                ? Arrays.asList(options.get("scenarios").split(",")) : ALL;
+        double webhookRate = Double.parseDouble(options.getOrDefault("webhook-rate", "5000"));
+        double duplicateRate = Double.parseDouble(options.getOrDefault("duplicate-rate", "0.1"));
+        double paymentRate = Double.parseDouble(options.getOrDefault("payment-rate", "100"));
+        int wallets = Integer.parseInt(options.getOrDefault("wallets", "1000"));
+        SimulatorProfile bankProfile = SimulatorProfile.named(options.getOrDefault("bank-profile", "realistic"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        String label = options.getOrDefault("label", "current");
+        File out = new File(options.getOrDefault("out", "build/reports/loadtest/wallet"));
+        if (!out.isDirectory() && !out.mkdirs()) {
+            throw new IOException("Cannot create " + out);
+        }
+    
+        // Payment references are unique per run, so an existing database can be reused
+        String runId = "lt" + UUID.randomUUID().toString().substring(0, 8);
+        List<ScenarioResult> results = new ArrayList<>();
+        try (WalletStack stack = WalletStack.start(options.get("jdbc-url"), options.get("jdbc-username"),
+                options.get("jdbc-password"), bankProfile, serviceArgs)) {
+            for (String name : scenarios) {
+                ScenarioResult result = switch (name.trim()) {
+                    case WebhookLoad.NAME -> {
+                        if (!warmup.isZero()) {
+                            WebhookLoad.run(stack, webhookRate, duplicateRate, warmup);
+                        }
+                        yield WebhookLoad.run(stack, webhookRate, duplicateRate, duration);
+                    }
+                    case BillPaymentLoad.NAME -> {
+                        BillPaymentLoad payments = BillPaymentLoad.prepare(stack.dataSource(), wallets);
+                        if (!warmup.isZero()) {
+                            payments.run(runId + "-warmup", paymentRate, warmup);
+                        }
+                        yield payments.run(runId, paymentRate, duration);
+                    }
+                    default -> throw new IllegalArgumentException("Unknown scenario " + name + ", expected one of " + ALL);
+                };
+                result.writePercentiles(new File(out, result.scenario() + ".hgrm"));
+                results.add(result);
+                System.err.printf("%s: %.1f/s, p99 %.2f ms, %d shed (%.1f%%), %d unexpected, %d errors%n",
+                        result.scenario(), result.throughput(), result.latencies().getValueAtPercentile(99) / 1000.0,
+                        result.shed(), result.shedPercent(), result.unexpected(), result.errors());
+            }
+            System.err.println("Bank simulator: " + stack.bank().stats().snapshot());
+            System.err.println("Redis stand-in: " + stack.redis().stats().snapshot());
+        }
+    
+        File summary = new File(out, "summary.csv");
+        try (PrintStream csv = new PrintStream(summary)) {
+            csv.println(ScenarioResult.CSV_HEADER);
+            for (ScenarioResult result : results) {
+                csv.println(result.csvRow(label));
+            }
+        }
+        System.out.println(ScenarioResult.CSV_HEADER);
+        for (ScenarioResult result : results) {
+            System.out.println(result.csvRow(label));
+        }
+        System.out.println("Written to " + summary.getAbsolutePath());
+        // Kafka clients and pools left by the service would otherwise keep the JVM alive
+        System.exit(0);
+    }
+}
@@ -0,0 +1,126 @@
+package com.ccpay.benchmarks.loadtest;
+
+import com.ccpay.simulator.BankSimulator;
+import com.ccpay.simulator.RedisStandIn;
+import com.ccpay.simulator.SimulatorProfile;
+import com.ccpay.wallet.WalletServiceApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// wallet-service in this JVM, wired to the bank simulator: HttpBillPaymentGateway calls its card
+// payment endpoint, and the harness plays the card network against the webhook endpoint with
+// WebhookEmitter. Postgres, Redis and Zipkin are stood in for as in AuthStack, with the prod
+// profile and Kafka on a closed port. Lives in its own source set because auth-service and
+// wallet-service each bring an application.yml, and only one of them would be read.
+final class WalletStack implements AutoCloseable {
+    
+    static final String WEBHOOK_SECRET = "loadtest-webhook-secret";
+    
+    private final EmbeddedPostgres postgres;
+    private final RedisStandIn redis;
+    private final BankSimulator bank;
+    private final ZipkinSink zipkin;
+    private final ConfigurableApplicationContext context;
+    
+    private WalletStack(EmbeddedPostgres postgres, RedisStandIn redis, BankSimulator bank, ZipkinSink zipkin,
+                        ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.redis = redis;
+        this.bank = bank;
+        this.zipkin = zipkin;
+        this.context = context;
+    }
+    
+    // jdbcUrl null starts embedded Postgres; serviceArgs are --property=value overrides for the service
+    static WalletStack start(String jdbcUrl, String jdbcUsername, String jdbcPassword, SimulatorProfile bankProfile,
+                             List<String> serviceArgs) throws IOException {
+        EmbeddedPostgres postgres = null;
+        if (jdbcUrl == null) {
+            postgres = EmbeddedPostgres.builder().start();
+            jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+            jdbcUsername = "postgres";
+            jdbcPassword = "";
+        }
+        RedisStandIn redis = RedisStandIn.start(0);
+        BankSimulator bank = BankSimulator.start(0, bankProfile);
+        ZipkinSink zipkin = ZipkinSink.start();
+    
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.profiles.active", "prod");
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", jdbcUsername);
+        properties.put("spring.datasource.password", jdbcPassword == null ? "" : jdbcPassword);
+        properties.put("spring.data.redis.host", "127.0.0.1");
+        properties.put("spring.data.redis.port", Integer.toString(redis.port()));
+        properties.put("spring.kafka.bootstrap-servers", "127.0.0.1:9");
+        properties.put("management.zipkin.tracing.endpoint", zipkin.endpoint());
+        properties.put("app.bill-payment.gateway.base-url", bank.baseUrl());
+        properties.put("app.card-webhook.secret", WEBHOOK_SECRET);
+        properties.put("logging.level.org.apache.kafka", "OFF");
+        properties.put("logging.level.com.ccpay.common.outbox", "OFF");
+        // Spring joins repeated arguments with commas, so overrides replace defaults here instead
+        for (String arg : serviceArgs) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --property=value: " + arg);
+            }
+            properties.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+    
+        ConfigurableApplicationContext context;
+        try {
+            context = new SpringApplicationBuilder(WalletServiceApplication.class).run(args);
+        } catch (RuntimeException e) {
+            zipkin.close();
+            bank.close();
+            redis.close();
+            if (postgres != null) {
+                postgres.close();
+            }
+            throw e;
+        }
+        return new WalletStack(postgres, redis, bank, zipkin, context);
+    }
+    
+    String baseUrl() {
+        return "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+    }
+    
+    String webhookUrl() {
+        return baseUrl() + "/api/v1/webhooks/card-transactions";
+    }
+    
+    DataSource dataSource() {
+        return context.getBean(DataSource.class);
+    }
+    
+    BankSimulator bank() {
+        return bank;
+    }
+    
+    RedisStandIn redis() {
+        return redis;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        context.close();
+        zipkin.close();
+        bank.close();
+        redis.close();
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.ccpay.benchmarks.loadtest;
+
+import com.ccpay.simulator.WebhookEmitter;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// The card network's transaction webhooks at a fixed rate, duplicates included, from the bank
+// simulator's WebhookEmitter. Open loop: events are sent on schedule however slowly they are
+// acknowledged, so a backlog in the service shows up as latency rather than as a lower send
+// rate. Latency runs from sending a delivery to its acknowledgement; 202 (stored) and 200
+// (duplicate) are both acknowledgements, 503 from a full ingestion queue is shed.
+final class WebhookLoad {
+    
+    static final String NAME = "webhook";
+    
+    // Deliveries still in flight when the run ends are waited for this long
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(10);
+    
+    private WebhookLoad() {
+    }
+    
+    static ScenarioResult run(WalletStack stack, double rate, double duplicateRate, Duration duration)
+            throws InterruptedException {
+        Histogram latencies = new ConcurrentHistogram(LoadRunner.MAX_LATENCY_MICROS, 3);
+        LongAdder ok = new LongAdder();
+        LongAdder shed = new LongAdder();
+        LongAdder unexpected = new LongAdder();
+        LongAdder errors = new LongAdder();
+        WebhookEmitter emitter = WebhookEmitter.builder(stack.webhookUrl(), WalletStack.WEBHOOK_SECRET)
+                .eventsPerSecond(rate)
+                .duplicateRate(duplicateRate)
+                .onDelivered((status, nanos) -> {
+                    if (status == 200 || status == 202) {
+                        ok.increment();
+                        latencies.recordValue(Math.min(nanos / 1000, LoadRunner.MAX_LATENCY_MICROS));
+                    } else if (status == 503) {
+                        shed.increment();
+                    } else if (status < 0) {
+                        errors.increment();
+                    } else {
+                        unexpected.increment();
+                    }
+                })
+                .build();
+    
+        long start = System.nanoTime();
+        emitter.start();
+        TimeUnit.NANOSECONDS.sleep(duration.toNanos());
+        emitter.close();
+        double seconds = (System.nanoTime() - start) / 1e9;
+    
+        long sent = emitter.stats().get("webhook.sent") + emitter.stats().get("webhook.duplicate_sent");
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (ok.sum() + shed.sum() + unexpected.sum() + errors.sum() < sent && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        // Statuses behind any unexpected results
+        System.err.println("Webhook emitter: " + emitter.stats().snapshot());
+        // A snapshot, as late answers can still arrive; deliveries that never returned count as errors
+        Histogram answeredLatencies = latencies.copy();
+        long answered = answeredLatencies.getTotalCount() + shed.sum() + unexpected.sum() + errors.sum();
+        return new ScenarioResult(NAME, 0, rate, seconds, answeredLatencies.getTotalCount(), shed.sum(),
+                unexpected.sum(), errors.sum() + Math.max(sent - answered, 0), answeredLatencies);
+    }
+}
@@ -1,29 +1,55 @@
 package com.ccpay.common.config;
 
+import com.ccpay.common.threads.TaskExecutorMetrics;
+import com.ccpay.common.threads.VirtualThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.Arrays;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadPoolExecutor;
 
+// Virtual-thread executors when spring.threads.virtual.enabled is set; bound what they block on
 @Configuration
 @EnableAsync
+@Slf4j
 public class AsyncConfig implements AsyncConfigurer {
     
+    private final MeterRegistry meterRegistry;
+    private final boolean virtualThreads;
+    
+    public AsyncConfig(MeterRegistry meterRegistry,
+                       @Value("${" + VirtualThreads.ENABLED_PROPERTY + ":false}") boolean virtualThreadsEnabled) {
+        this.meterRegistry = meterRegistry;
+        this.virtualThreads = virtualThreadsEnabled && VirtualThreads.isSupported();
+        if (virtualThreadsEnabled && !virtualThreads) {
+            log.warn("Virtual threads requested but running on Java {}; using platform thread pools",
+                    Runtime.version().feature());
+        }
+    }
+    
     @Override
     @Bean(name = "taskExecutor")
     public Executor getAsyncExecutor() {
+        if (virtualThreads) {
+            return virtual("taskExecutor", "AsyncExecutor-", 60_000);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(10);
         executor.setMaxPoolSize(50);
         executor.setQueueCapacity(100);
         executor.setThreadNamePrefix("AsyncExecutor-");
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        TaskExecutorMetrics.instrument(executor, "taskExecutor", new ThreadPoolExecutor.CallerRunsPolicy(),
+                meterRegistry);
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(60);
         executor.initialize();
@@ -32,34 +58,54 @@ public class AsyncConfig implements AsyncConfigurer {
     
     @Bean(name = "notificationExecutor")
     public TaskExecutor notificationExecutor() {
+        if (virtualThreads) {
+            return virtual("notificationExecutor", "NotificationExecutor-", 0);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(5);
         executor.setMaxPoolSize(20);
         executor.setQueueCapacity(500);
         executor.setThreadNamePrefix("NotificationExecutor-");
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        TaskExecutorMetrics.instrument(executor, "notificationExecutor", new ThreadPoolExecutor.CallerRunsPolicy(),
+                meterRegistry);
         executor.initialize();
         return executor;
     }
     
     @Bean(name = "paymentExecutor")
     public TaskExecutor paymentExecutor() {
+        if (virtualThreads) {
+            return virtual("paymentExecutor", "PaymentExecutor-", 0);
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(10);
         executor.setMaxPoolSize(30);
         executor.setQueueCapacity(200);
         executor.setThreadNamePrefix("PaymentExecutor-");
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        TaskExecutorMetrics.instrument(executor, "paymentExecutor", new ThreadPoolExecutor.CallerRunsPolicy(),
+                meterRegistry);
         executor.initialize();
         return executor;
     }
     
+    private SimpleAsyncTaskExecutor virtual(String name, String threadNamePrefix, long terminationTimeoutMillis) {
+        SimpleAsyncTaskExecutor executor = VirtualThreads.executor(threadNamePrefix, terminationTimeoutMillis);
+        TaskExecutorMetrics.instrument(executor, name, meterRegistry);
+        return executor;
+    }
+    
+    // Runs on the task's thread, so the MDC carried over from the submitter is still in place.
+    // Argument values are left out: they are often users and email addresses.
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
-        return (throwable, method, objects) -> {
-            System.err.println("Exception caught in async method: " + method.getName());
-            System.err.println("Exception message: " + throwable.getMessage());
-            throwable.printStackTrace();
-        };
+        return (throwable, method, params) -> log.atError()
+                .setCause(throwable)
+                .addKeyValue("asyncMethod", method.getDeclaringClass().getSimpleName() + "." + method.getName())
+                .addKeyValue("argumentTypes", Arrays.stream(params)
+                        .map(param -> param == null ? "null" : param.getClass().getSimpleName())
+                        .toList())
+                .addKeyValue("exception", throwable.getClass().getName())
+                .log("Async method {}.{} failed: {}", method.getDeclaringClass().getSimpleName(),
+                        method.getName(), throwable.getMessage());
     }
 }
\ No newline at end of file
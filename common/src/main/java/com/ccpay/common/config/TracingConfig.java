@@ -0,0 +1,44 @@
+package com.ccpay.common.config;
+
+import brave.handler.SpanHandler;
+import com.ccpay.common.tracing.TailSamplingSpanHandler;
+import com.ccpay.common.utils.PatternValues;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.time.Duration;
+import java.util.List;
+
+// Tail sampling for services that bring Brave. The handler is ordered ahead of the reporters so
+// it sees every span first and forwards only the traces it keeps. Latency thresholds are
+// "pattern=millis" entries matched against the span's uri tag in order; the first match wins.
+@Configuration
+@ConditionalOnClass(name = "brave.handler.SpanHandler")
+@ConditionalOnProperty(name = "app.tracing.tail-sampling.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingConfig {
+    
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public TailSamplingSpanHandler tailSamplingSpanHandler(
+            ObjectProvider<SpanHandler> spanHandlers,
+            MeterRegistry meterRegistry,
+            @Value("${app.tracing.tail-sampling.baseline-rate:0.01}") double baselineRate,
+            @Value("${app.tracing.tail-sampling.max-baseline-per-second:10}") int maxBaselinePerSecond,
+            @Value("${app.tracing.tail-sampling.default-latency-threshold-millis:500}") long defaultThresholdMillis,
+            @Value("${app.tracing.tail-sampling.latency-thresholds:}") List<String> latencyThresholds,
+            @Value("${app.tracing.tail-sampling.max-pending-traces:10000}") int maxPendingTraces,
+            @Value("${app.tracing.tail-sampling.max-spans-per-trace:200}") int maxSpansPerTrace,
+            @Value("${app.tracing.tail-sampling.max-trace-age-seconds:60}") long maxTraceAgeSeconds) {
+        return new TailSamplingSpanHandler(() -> spanHandlers.orderedStream().toList(), baselineRate,
+                maxBaselinePerSecond, Duration.ofMillis(defaultThresholdMillis),
+                PatternValues.parse(latencyThresholds, millis -> Duration.ofMillis(Long.parseLong(millis))),
+                maxPendingTraces, maxSpansPerTrace, Duration.ofSeconds(maxTraceAgeSeconds), meterRegistry);
+    }
+}
@@ -11,6 +11,7 @@ public class ErrorCodes {
     public static final String MFA_REQUIRED = "1006";
     public static final String INVALID_MFA_CODE = "1007";
     public static final String SESSION_EXPIRED = "1008";
+    public static final String INVALID_TOKEN = "1009";
     
     // User Management Errors (1100-1199)
     public static final String USER_NOT_FOUND = "1101";
@@ -53,6 +54,7 @@ public class ErrorCodes {
     public static final String EXTERNAL_SERVICE_ERROR = "5004";
     public static final String CONFIGURATION_ERROR = "5005";
     public static final String RATE_LIMIT_EXCEEDED = "5006";
+    public static final String GATEWAY_TIMEOUT = "5007";
     
     // Validation Errors (6000-6099)
     public static final String VALIDATION_FAILED = "6001";
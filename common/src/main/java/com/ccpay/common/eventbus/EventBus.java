@@ -0,0 +1,28 @@
+package com.ccpay.common.eventbus;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// Moves domain events between modules. KafkaEventBus crosses processes; RingBufferEventBus keeps
+// everything in one JVM for single-node deployments and tests. Each subscriber name receives
+// every event of its topic, like a Kafka consumer group.
+// Publishing returns once the event is queued; the future completes when the bus has accepted
+// it (broker acknowledgement on Kafka, a ring slot in process) and fails if it could not.
+public interface EventBus extends AutoCloseable {
+    
+    CompletableFuture<Void> publish(String topic, String key, Object event);
+    
+    // An event already serialized as JSON, as the outbox relay holds it. Headers reach Kafka
+    // consumers as record headers; in process only the trace id is kept.
+    CompletableFuture<Void> publishJson(String topic, String key, byte[] json, String traceId,
+                                        Map<String, byte[]> headers);
+    
+    <T> void subscribe(String topic, String subscriber, Class<T> type, EventHandler<T> handler);
+    
+    // Per-event delivery that keeps each key's events in order but may run different keys in
+    // parallel, beyond the topic's partition count on Kafka
+    <T> void subscribeKeyed(String topic, String subscriber, Class<T> type, KeyedEventHandler<T> handler);
+    
+    @Override
+    void close();
+}
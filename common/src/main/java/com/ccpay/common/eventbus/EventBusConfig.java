@@ -0,0 +1,40 @@
+package com.ccpay.common.eventbus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+// The bus of every service that scans common, picked with app.event-bus.type: kafka (default)
+// or in-memory, which keeps a service's events inside its JVM and needs no broker
+@Configuration
+public class EventBusConfig {
+    
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.event-bus.type", havingValue = "kafka", matchIfMissing = true)
+    public EventBus kafkaEventBus(KafkaProperties kafkaProperties, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                  @Value("${app.event-bus.kafka.concurrency:1}") int concurrency,
+                                  @Value("${app.event-bus.kafka.keyed.lanes:32}") int keyedLanes,
+                                  @Value("${app.event-bus.kafka.keyed.max-in-flight:10000}") int keyedMaxInFlight,
+                                  @Value("${app.event-bus.kafka.keyed.commit-interval-millis:1000}") long keyedCommitIntervalMillis) {
+        // Events are serialized by the bus, so its producer sends bytes rather than the JsonSerializer default
+        Map<String, Object> producerProperties = kafkaProperties.buildProducerProperties(null);
+        producerProperties.putAll(KafkaEventBus.producerProperties());
+        return new KafkaEventBus(new KafkaProducer<>(producerProperties), kafkaProperties.buildConsumerProperties(null),
+                objectMapper, meterRegistry, concurrency, keyedLanes, keyedMaxInFlight, keyedCommitIntervalMillis);
+    }
+    
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.event-bus.type", havingValue = "in-memory")
+    public EventBus ringBufferEventBus(ObjectMapper objectMapper,
+                                       @Value("${app.event-bus.ring.buffer-size:65536}") int bufferSize,
+                                       @Value("${app.event-bus.ring.max-batch-size:1000}") int maxBatchSize) {
+        return new RingBufferEventBus(objectMapper, bufferSize, maxBatchSize);
+    }
+}
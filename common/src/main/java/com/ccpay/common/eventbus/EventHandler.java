@@ -0,0 +1,11 @@
+package com.ccpay.common.eventbus;
+
+import java.util.List;
+
+// Receives events in batches, in publish order for a given topic. The list is only valid for
+// the duration of the call.
+@FunctionalInterface
+public interface EventHandler<T> {
+    
+    void onEvents(List<T> events) throws Exception;
+}
@@ -0,0 +1,201 @@
+package com.ccpay.common.eventbus;
+
+import com.ccpay.common.kafka.KeyOrderedConsumer;
+import com.ccpay.common.tracing.KafkaTraceHeaders;
+import com.ccpay.common.tracing.TraceContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Event bus over Kafka. Each subscriber name is a consumer group with a batch listener; offsets
+// are committed after the handler returns, and a throwing handler goes through the container's
+// default error handler (retry, then log and skip). Values are read as raw JSON and mapped to
+// the subscriber's type. Published events are serialized to JSON here and sent by one
+// idempotent producer, which keeps each partition's order across in-flight requests.
+// Keyed subscriptions run on a KeyOrderedConsumer instead of a listener container.
+// Published records carry the publisher's trace id; a batch handler runs under the id its
+// records share, or a fresh one logged against theirs when they differ.
+@Slf4j
+public class KafkaEventBus implements EventBus {
+
+    private final Producer<String, byte[]> producer;
+    private final Map<String, Object> consumerProperties;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int concurrency;
+    private final int keyedLanes;
+    private final int keyedMaxInFlight;
+    private final long keyedCommitIntervalMillis;
+    private final List<ConcurrentMessageListenerContainer<String, byte[]>> containers = new CopyOnWriteArrayList<>();
+    private final List<KeyOrderedConsumer<?>> keyedConsumers = new CopyOnWriteArrayList<>();
+
+    public KafkaEventBus(Producer<String, byte[]> producer, Map<String, Object> consumerProperties,
+                         ObjectMapper objectMapper, MeterRegistry meterRegistry, int concurrency,
+                         int keyedLanes, int keyedMaxInFlight, long keyedCommitIntervalMillis) {
+        this.producer = producer;
+        this.consumerProperties = consumerProperties;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.concurrency = concurrency;
+        this.keyedLanes = keyedLanes;
+        this.keyedMaxInFlight = keyedMaxInFlight;
+        this.keyedCommitIntervalMillis = keyedCommitIntervalMillis;
+    }
+
+    // Producer settings for ordered, duplicate-free sends per partition; callers add bootstrap
+    // servers and anything else from their Kafka properties
+    public static Map<String, Object> producerProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        properties.put(ProducerConfig.ACKS_CONFIG, "all");
+        properties.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        properties.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return properties;
+    }
+    
+    @Override
+    public CompletableFuture<Void> publish(String topic, String key, Object event) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return publishJson(topic, key, json, TraceContext.current(), Map.of());
+    }
+    
+    @Override
+    public CompletableFuture<Void> publishJson(String topic, String key, byte[] json, String traceId,
+                                               Map<String, byte[]> headers) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, key, json);
+        headers.forEach((name, value) -> record.headers().add(name, value));
+        KafkaTraceHeaders.inject(record.headers(), traceId);
+        CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+        producer.send(record, (metadata, e) -> {
+            if (e != null) {
+                acknowledged.completeExceptionally(e);
+            } else {
+                acknowledged.complete(null);
+            }
+        });
+        return acknowledged;
+    }
+
+    @Override
+    public <T> void subscribe(String topic, String subscriber, Class<T> type, EventHandler<T> handler) {
+        Map<String, Object> properties = new HashMap<>(consumerProperties);
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, subscriber);
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+
+        ContainerProperties containerProperties = new ContainerProperties(topic);
+        containerProperties.setMessageListener((BatchMessageListener<String, byte[]>) records -> {
+            List<T> events = new ArrayList<>(records.size());
+            Set<String> traceIds = new LinkedHashSet<>();
+            for (ConsumerRecord<String, byte[]> record : records) {
+                T event = read(record, type);
+                if (event != null) {
+                    events.add(event);
+                }
+                String traceId = KafkaTraceHeaders.extract(record.headers());
+                if (traceId != null) {
+                    traceIds.add(traceId);
+                }
+            }
+            TraceContext.set(batchTraceId(subscriber, traceIds));
+            try {
+                handler.onEvents(events);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Event handler " + subscriber + " failed on " + topic, e);
+            } finally {
+                TraceContext.clear();
+            }
+        });
+
+        ConcurrentMessageListenerContainer<String, byte[]> container = new ConcurrentMessageListenerContainer<>(
+                new DefaultKafkaConsumerFactory<>(properties), containerProperties);
+        container.setConcurrency(concurrency);
+        container.setBeanName("event-bus-" + subscriber);
+        containers.add(container);
+        container.start();
+    }
+
+    @Override
+    public <T> void subscribeKeyed(String topic, String subscriber, Class<T> type, KeyedEventHandler<T> handler) {
+        KeyOrderedConsumer<T> consumer = new KeyOrderedConsumer<>(subscriber, topic, consumerProperties, type, handler,
+                objectMapper, meterRegistry, keyedLanes, keyedMaxInFlight, keyedCommitIntervalMillis);
+        keyedConsumers.add(consumer);
+        consumer.start();
+    }
+
+    @Override
+    public void close() {
+        try {
+            for (ConcurrentMessageListenerContainer<String, byte[]> container : containers) {
+                container.stop();
+            }
+            for (KeyOrderedConsumer<?> consumer : keyedConsumers) {
+                consumer.stop();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Last, so events published by handlers still draining are sent
+            producer.close();
+        }
+    }
+
+    private static String batchTraceId(String subscriber, Set<String> traceIds) {
+        if (traceIds.size() == 1) {
+            return traceIds.iterator().next();
+        }
+        String traceId = TraceContext.newTraceId();
+        if (!traceIds.isEmpty()) {
+            log.debug("Event handler {} batch {} covers traces {}", subscriber, traceId, traceIds);
+        }
+        return traceId;
+    }
+
+    // Unreadable records are skipped rather than failing, and endlessly retrying, the whole batch
+    private <T> T read(ConsumerRecord<String, byte[]> record, Class<T> type) {
+        if (record.value() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(record.value(), type);
+        } catch (IOException e) {
+            log.warn("Skipping unreadable {} event at {}-{}@{}: {}", type.getSimpleName(),
+                    record.topic(), record.partition(), record.offset(), e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.ccpay.common.eventbus;
+
+// Receives one event at a time. Events with the same key arrive in publish order; events with
+// different keys may be handled concurrently.
+@FunctionalInterface
+public interface KeyedEventHandler<T> {
+    
+    void onEvent(String key, T event) throws Exception;
+}
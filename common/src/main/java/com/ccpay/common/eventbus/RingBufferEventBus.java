@@ -0,0 +1,304 @@
+package com.ccpay.common.eventbus;
+
+import com.ccpay.common.tracing.TraceContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+// In-process event bus in the style of the LMAX Disruptor. Each topic owns a preallocated
+// power-of-two ring of slots; producers claim sequences with one atomic add and publish by
+// stamping the slot's lap number, so no locks or per-event allocation sit on the hot path.
+// Every subscriber runs on its own thread, tracks its own sequence and takes everything
+// published since its last pass as one batch. Producers wait when the slowest subscriber is a
+// full ring behind. Delivery is at-most-once: a failing batch is logged and skipped, and
+// events published before a subscriber joins are not replayed to it. Serialized events are read
+// into the subscriber's type on its own thread; each batch runs under the trace id its events
+// share, or a fresh one.
+@Slf4j
+public class RingBufferEventBus implements EventBus {
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final int maxBatchSize;
+    private final Map<String, TopicRing> rings = new ConcurrentHashMap<>();
+    private final List<Subscriber<?>> subscribers = new CopyOnWriteArrayList<>();
+    private volatile boolean running = true;
+
+    public RingBufferEventBus(ObjectMapper objectMapper, int bufferSize, int maxBatchSize) {
+        if (Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Ring buffer size must be a power of two");
+        }
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public CompletableFuture<Void> publish(String topic, String key, Object event) {
+        return publish(topic, key, event, TraceContext.current());
+    }
+    
+    // The bytes stay in the slot; subscribers of byte[] get them as they are
+    @Override
+    public CompletableFuture<Void> publishJson(String topic, String key, byte[] json, String traceId,
+                                               Map<String, byte[]> headers) {
+        return publish(topic, key, json, traceId);
+    }
+
+    @Override
+    public <T> void subscribe(String topic, String subscriber, Class<T> type, EventHandler<T> handler) {
+        start(new Subscriber<>(ring(topic), topic, subscriber, type, (keys, events) -> handler.onEvents(events)));
+    }
+
+    // A subscriber thread already sees its topic in total order, which keeps every key in order;
+    // a failing event is logged and skipped without dropping the rest of its batch
+    @Override
+    public <T> void subscribeKeyed(String topic, String subscriber, Class<T> type, KeyedEventHandler<T> handler) {
+        start(new Subscriber<>(ring(topic), topic, subscriber, type, (keys, events) -> {
+            for (int i = 0; i < events.size(); i++) {
+                try {
+                    handler.onEvent(keys.get(i), events.get(i));
+                } catch (Exception e) {
+                    log.error("Event bus subscriber {} on {} dropped the event for key {}",
+                            subscriber, topic, keys.get(i), e);
+                }
+            }
+        }));
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        for (Subscriber<?> subscriber : subscribers) {
+            subscriber.thread.interrupt();
+        }
+        for (Subscriber<?> subscriber : subscribers) {
+            try {
+                subscriber.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private CompletableFuture<Void> publish(String topic, String key, Object event, String traceId) {
+        try {
+            if (!running) {
+                throw new IllegalStateException("Event bus is closed");
+            }
+            ring(topic).publish(key, event, traceId);
+            return CompletableFuture.completedFuture(null);
+        } catch (IllegalStateException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    private void start(Subscriber<?> subscriber) {
+        subscribers.add(subscriber);
+        subscriber.thread.start();
+    }
+
+    private TopicRing ring(String topic) {
+        return rings.computeIfAbsent(topic, name -> new TopicRing(bufferSize));
+    }
+
+    private static final class Slot {
+        private String key;
+        private Object event;
+        private String traceId;
+    }
+
+    private final class TopicRing {
+        private final Slot[] slots;
+        private final int mask;
+        private final int laps;
+        // Lap number of the last event written to each slot, -1 until first use
+        private final AtomicIntegerArray published;
+        private final Sequence claimed = new Sequence(-1);
+        private volatile Sequence[] gating = new Sequence[0];
+        private long cachedGatingMinimum = -1;
+
+        private TopicRing(int size) {
+            this.slots = new Slot[size];
+            for (int i = 0; i < size; i++) {
+                slots[i] = new Slot();
+            }
+            this.mask = size - 1;
+            this.laps = Integer.numberOfTrailingZeros(size);
+            this.published = new AtomicIntegerArray(size);
+            for (int i = 0; i < size; i++) {
+                published.set(i, -1);
+            }
+        }
+
+        private void publish(String key, Object event, String traceId) {
+            long sequence = claimed.incrementAndGet();
+            long wrapPoint = sequence - slots.length;
+            // The cached minimum is a racy hint: a stale value only costs a re-check
+            if (wrapPoint > cachedGatingMinimum) {
+                long minimum;
+                while (wrapPoint > (minimum = gatingMinimum(sequence))) {
+                    if (!running) {
+                        throw new IllegalStateException("Event bus is closed");
+                    }
+                    LockSupport.parkNanos(FULL_PARK_NANOS);
+                }
+                cachedGatingMinimum = minimum;
+            }
+            Slot slot = slots[(int) sequence & mask];
+            slot.key = key;
+            slot.event = event;
+            slot.traceId = traceId;
+            published.lazySet((int) sequence & mask, (int) (sequence >>> laps));
+        }
+
+        private boolean isPublished(long sequence) {
+            return published.get((int) sequence & mask) == (int) (sequence >>> laps);
+        }
+
+        // Highest sequence from 'from' onward with no unpublished gap, or from - 1
+        private long highestPublished(long from, long upTo) {
+            for (long sequence = from; sequence <= upTo; sequence++) {
+                if (!isPublished(sequence)) {
+                    return sequence - 1;
+                }
+            }
+            return upTo;
+        }
+
+        private long gatingMinimum(long fallback) {
+            long minimum = fallback;
+            for (Sequence sequence : gating) {
+                minimum = Math.min(minimum, sequence.get());
+            }
+            return minimum;
+        }
+
+        private Sequence join() {
+            synchronized (this) {
+                Sequence sequence = new Sequence(claimed.get());
+                Sequence[] current = gating;
+                Sequence[] updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = sequence;
+                gating = updated;
+                // Re-read after becoming visible to producers, as the Disruptor does
+                sequence.set(claimed.get());
+                return sequence;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchHandler<T> {
+        void handle(List<String> keys, List<T> events) throws Exception;
+    }
+
+    private final class Subscriber<T> implements Runnable {
+        private final TopicRing ring;
+        private final String topic;
+        private final String name;
+        private final Class<T> type;
+        private final BatchHandler<T> handler;
+        private final Sequence sequence;
+        private final List<String> keys = new ArrayList<>();
+        private final List<T> batch = new ArrayList<>();
+        private final Thread thread;
+
+        private Subscriber(TopicRing ring, String topic, String name, Class<T> type, BatchHandler<T> handler) {
+            this.ring = ring;
+            this.topic = topic;
+            this.name = name;
+            this.type = type;
+            this.handler = handler;
+            this.sequence = ring.join();
+            this.thread = new Thread(this, "event-bus-" + topic + "-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (running) {
+                long next = sequence.get() + 1;
+                long available = ring.highestPublished(next, Math.min(ring.claimed.get(), next + maxBatchSize - 1));
+                if (available < next) {
+                    idle = backOff(idle);
+                    continue;
+                }
+                idle = 0;
+                // Whatever fails, the sequence moves on: a stalled subscriber would gate producers forever
+                try {
+                    String traceId = ring.slots[(int) next & ring.mask].traceId;
+                    for (long s = next; s <= available; s++) {
+                        Slot slot = ring.slots[(int) s & ring.mask];
+                        T event = adapt(slot.event);
+                        if (event != null) {
+                            keys.add(slot.key);
+                            batch.add(event);
+                        }
+                        if (traceId != null && !traceId.equals(slot.traceId)) {
+                            traceId = null;
+                        }
+                    }
+                    TraceContext.set(traceId != null ? traceId : TraceContext.newTraceId());
+                    handler.handle(keys, batch);
+                } catch (Throwable e) {
+                    log.error("Event bus subscriber {} on {} dropped {} events",
+                            name, topic, available - next + 1, e);
+                } finally {
+                    TraceContext.clear();
+                    keys.clear();
+                    batch.clear();
+                    sequence.set(available);
+                }
+            }
+        }
+
+        // Unreadable serialized events are skipped, as on Kafka
+        private T adapt(Object event) {
+            if (type.isInstance(event)) {
+                return type.cast(event);
+            }
+            if (event instanceof byte[] json) {
+                try {
+                    return objectMapper.readValue(json, type);
+                } catch (IOException e) {
+                    log.warn("Event bus subscriber {} on {} skipped an unreadable {} event: {}",
+                            name, topic, type.getSimpleName(), e.getMessage());
+                    return null;
+                }
+            }
+            return objectMapper.convertValue(event, type);
+        }
+
+        // Spin, then yield, then park briefly: microsecond wake-ups under load, little CPU when idle
+        private int backOff(int idle) {
+            if (idle < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                return idle;
+            }
+            return idle + 1;
+        }
+    }
+}
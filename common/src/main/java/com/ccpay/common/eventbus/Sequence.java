@@ -0,0 +1,46 @@
+package com.ccpay.common.eventbus;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// A ring position padded onto its own cache line, so a producer's cursor and each consumer's
+// progress do not false-share. Field layout relies on superclass fields being laid out first.
+class SequenceLeftPadding {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+class SequenceValue extends SequenceLeftPadding {
+    protected volatile long value;
+}
+
+final class Sequence extends SequenceValue {
+    
+    private static final VarHandle VALUE;
+    
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    protected long p9, p10, p11, p12, p13, p14, p15;
+    
+    Sequence(long initial) {
+        VALUE.setRelease(this, initial);
+    }
+    
+    long get() {
+        return value;
+    }
+    
+    // Ordered store: cheaper than a volatile write and enough to publish preceding writes
+    void set(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+    
+    long incrementAndGet() {
+        return (long) VALUE.getAndAdd(this, 1L) + 1;
+    }
+}
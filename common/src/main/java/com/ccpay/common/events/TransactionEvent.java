@@ -0,0 +1,27 @@
+package com.ccpay.common.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionEvent {
+    private UUID transactionId;
+    private UUID userId;
+    private UUID walletId;
+    private String type;
+    private String status;
+    private BigDecimal amount;
+    private String currency;
+    private String category;
+    private LocalDateTime completedAt;
+    private BigDecimal balanceAfter;
+}
@@ -0,0 +1,25 @@
+package com.ccpay.common.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserEvent {
+    
+    public static final String USER_REGISTERED = "USER_REGISTERED";
+    
+    private String eventType;
+    private UUID userId;
+    private String email;
+    private String firstName;
+    private String lastName;
+    private LocalDateTime occurredAt;
+}
@@ -2,32 +2,45 @@ package com.ccpay.common.exceptions;
 
 import lombok.Getter;
 
+// Expected exceptions (routine outcomes, not faults) skip the stack trace and are logged sampled
 @Getter
 public abstract class BaseException extends RuntimeException {
     private final String errorCode;
     private final Object[] args;
+    private final boolean expected;
     
     protected BaseException(String errorCode, String message) {
         super(message);
         this.errorCode = errorCode;
         this.args = null;
+        this.expected = false;
     }
     
     protected BaseException(String errorCode, String message, Throwable cause) {
         super(message, cause);
         this.errorCode = errorCode;
         this.args = null;
+        this.expected = false;
     }
     
     protected BaseException(String errorCode, String message, Object... args) {
         super(message);
         this.errorCode = errorCode;
         this.args = args;
+        this.expected = false;
     }
     
     protected BaseException(String errorCode, String message, Throwable cause, Object... args) {
         super(message, cause);
         this.errorCode = errorCode;
         this.args = args;
+        this.expected = false;
     }
-}
\ No newline at end of file
+    
+    protected BaseException(String errorCode, String message, boolean expected) {
+        super(message, null, !expected, !expected);
+        this.errorCode = errorCode;
+        this.args = null;
+        this.expected = expected;
+    }
+}
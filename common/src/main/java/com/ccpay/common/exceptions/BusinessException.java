@@ -13,4 +13,13 @@ public class BusinessException extends BaseException {
     public BusinessException(String errorCode, String message, Object... args) {
         super(errorCode, message, args);
     }
+    
+    private BusinessException(String errorCode, String message, boolean expected) {
+        super(errorCode, message, expected);
+    }
+    
+    // Stackless, for rule violations callers trigger routinely, such as a duplicate email
+    public static BusinessException expected(String errorCode, String message) {
+        return new BusinessException(errorCode, message, true);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.ccpay.common.exceptions;
 
 import com.ccpay.common.dto.ErrorResponse;
+import com.ccpay.common.tracing.TraceContext;
+import com.ccpay.common.utils.LogSampler;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -14,23 +16,27 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
     
+    // Expected failures: up to 10 lines per error code every 10 seconds
+    private final LogSampler expectedFailures = new LogSampler(Duration.ofSeconds(10), 10);
+    
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleResourceNotFoundException(
             ResourceNotFoundException ex, HttpServletRequest request) {
-        String traceId = generateTraceId();
-        log.error("ResourceNotFoundException [{}]: {}", traceId, ex.getMessage());
+        String traceId = TraceContext.currentOrNew();
+        logFailure("ResourceNotFoundException", traceId, ex);
         
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .errorCode(ex.getErrorCode())
@@ -46,8 +52,8 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(ValidationException.class)
     public ResponseEntity<ErrorResponse> handleValidationException(
             ValidationException ex, HttpServletRequest request) {
-        String traceId = generateTraceId();
-        log.error("ValidationException [{}]: {}", traceId, ex.getMessage());
+        String traceId = TraceContext.currentOrNew();
+        logFailure("ValidationException", traceId, ex);
         
         List<ErrorResponse.FieldError> fieldErrors = ex.getFieldErrors().entrySet().stream()
                 .map(entry -> ErrorResponse.FieldError.builder()
@@ -71,7 +77,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleMethodArgumentNotValid(
             MethodArgumentNotValidException ex, HttpServletRequest request) {
-        String traceId = generateTraceId();
+        String traceId = TraceContext.currentOrNew();
         log.error("MethodArgumentNotValidException [{}]: {}", traceId, ex.getMessage());
         
         List<ErrorResponse.FieldError> fieldErrors = ex.getBindingResult()
@@ -94,8 +100,8 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(BusinessException.class)
     public ResponseEntity<ErrorResponse> handleBusinessException(
             BusinessException ex, HttpServletRequest request) {
-        String traceId = generateTraceId();
-        log.error("BusinessException [{}]: {}", traceId, ex.getMessage());
+        String traceId = TraceContext.currentOrNew();
+        logFailure("BusinessException", traceId, ex);
         
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .errorCode(ex.getErrorCode())
@@ -111,8 +117,8 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(UnauthorizedException.class)
     public ResponseEntity<ErrorResponse> handleUnauthorizedException(
             UnauthorizedException ex, HttpServletRequest request) {
-        String traceId = generateTraceId();
-        log.error("UnauthorizedException [{}]: {}", traceId, ex.getMessage());
+        String traceId = TraceContext.currentOrNew();
+        logFailure("UnauthorizedException", traceId, ex);
         
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .errorCode(ex.getErrorCode())
@@ -128,7 +134,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ErrorResponse> handleAccessDeniedException(
             AccessDeniedException ex, HttpServletRequest request) {
-        String traceId = generateTraceId();
+        String traceId = TraceContext.currentOrNew();
         log.error("AccessDeniedException [{}]: {}", traceId, ex.getMessage());
         
         ErrorResponse errorResponse = ErrorResponse.builder()
@@ -142,10 +148,29 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
     }
     
+    // No handler for the path. Answered as 404, not 500, so probes for unknown paths do not
+    // count as failures in the gateway's circuit breakers
+    @ExceptionHandler(NoResourceFoundException.class)
+    public ResponseEntity<ErrorResponse> handleNoResourceFoundException(
+            NoResourceFoundException ex, HttpServletRequest request) {
+        String traceId = TraceContext.currentOrNew();
+        log.debug("NoResourceFoundException [{}]: {}", traceId, ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .errorCode("NOT_FOUND")
+                .message("No endpoint at this path")
+                .path(request.getRequestURI())
+                .timestamp(LocalDateTime.now())
+                .traceId(traceId)
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+    }
+    
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<ErrorResponse> handleBadCredentialsException(
             BadCredentialsException ex, HttpServletRequest request) {
-        String traceId = generateTraceId();
+        String traceId = TraceContext.currentOrNew();
         log.error("BadCredentialsException [{}]: {}", traceId, ex.getMessage());
         
         ErrorResponse errorResponse = ErrorResponse.builder()
@@ -162,7 +187,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<ErrorResponse> handleDataIntegrityViolationException(
             DataIntegrityViolationException ex, HttpServletRequest request) {
-        String traceId = generateTraceId();
+        String traceId = TraceContext.currentOrNew();
         log.error("DataIntegrityViolationException [{}]: {}", traceId, ex.getMessage());
         
         String message = "Database constraint violation";
@@ -184,7 +209,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(
             Exception ex, HttpServletRequest request) {
-        String traceId = generateTraceId();
+        String traceId = TraceContext.currentOrNew();
         log.error("Unhandled exception [{}]: ", traceId, ex);
         
         ErrorResponse errorResponse = ErrorResponse.builder()
@@ -198,6 +223,18 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
     }
     
+    private void logFailure(String type, String traceId, BaseException ex) {
+        if (!ex.isExpected()) {
+            log.error("{} [{}]: {}", type, traceId, ex.getMessage());
+            return;
+        }
+        long suppressed = expectedFailures.tryLog(ex.getErrorCode());
+        if (suppressed >= 0) {
+            log.warn("{} [{}]: {} ({} more {} since last logged)",
+                    type, traceId, ex.getMessage(), suppressed, ex.getErrorCode());
+        }
+    }
+    
     private ErrorResponse.FieldError mapFieldError(FieldError fieldError) {
         return ErrorResponse.FieldError.builder()
                 .field(fieldError.getField())
@@ -206,8 +243,4 @@ public class GlobalExceptionHandler {
                 .code(fieldError.getCode())
                 .build();
     }
-    
-    private String generateTraceId() {
-        return UUID.randomUUID().toString();
-    }
 }
\ No newline at end of file
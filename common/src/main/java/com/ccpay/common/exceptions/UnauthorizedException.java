@@ -13,4 +13,13 @@ public class UnauthorizedException extends BaseException {
     public UnauthorizedException(String errorCode, String message, Throwable cause) {
         super(errorCode, message, cause);
     }
+    
+    private UnauthorizedException(String errorCode, String message, boolean expected) {
+        super(errorCode, message, expected);
+    }
+    
+    // Stackless, for failures attackers can trigger at will, such as bad credentials
+    public static UnauthorizedException expected(String errorCode, String message) {
+        return new UnauthorizedException(errorCode, message, true);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.ccpay.common.jdbc;
+
+import com.ccpay.common.utils.LogSampler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Counts the JDBC statements each request runs, and the time spent in them, through a
+// StatementCountingDataSource. Both are recorded per endpoint as http.server.requests.jdbc.*,
+// and a request running more statements than its budget is counted and logged (sampled per
+// endpoint) so an N+1 pattern shows up as soon as it is introduced. Budgets are the first
+// matching "pattern=statements" entry, else the default. Only the request thread is counted.
+// Not a component: services register it so it sees the whole request, security included.
+@Slf4j
+public class QueryBudgetFilter extends OncePerRequestFilter {
+    
+    private static final String UNKNOWN = "UNKNOWN";
+    
+    private final int defaultBudget;
+    private final Map<String, Integer> budgets;
+    private final List<String> exemptPaths;
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final LogSampler overBudgetLog = new LogSampler(Duration.ofMinutes(1), 5);
+    
+    public QueryBudgetFilter(int defaultBudget, Map<String, Integer> budgets, List<String> exemptPaths,
+                             MeterRegistry meterRegistry) {
+        this.defaultBudget = defaultBudget;
+        this.budgets = budgets;
+        this.exemptPaths = exemptPaths;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return exemptPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        QueryStats.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            record(request, QueryStats.end());
+        }
+    }
+    
+    private void record(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : UNKNOWN;
+        DistributionSummary.builder("http.server.requests.jdbc.statements")
+                .tag("uri", uri).publishPercentileHistogram().register(meterRegistry)
+                .record(stats.statements());
+        Timer.builder("http.server.requests.jdbc.time")
+                .tag("uri", uri).publishPercentileHistogram().register(meterRegistry)
+                .record(stats.nanos(), TimeUnit.NANOSECONDS);
+        
+        int budget = budget(request.getRequestURI());
+        if (stats.statements() <= budget) {
+            return;
+        }
+        Counter.builder("http.server.requests.jdbc.over.budget").tag("uri", uri).register(meterRegistry).increment();
+        long suppressed = overBudgetLog.tryLog(uri);
+        if (suppressed >= 0) {
+            log.warn("{} {} ran {} statements ({} ms), over its budget of {} ({} more over budget since last logged)",
+                    request.getMethod(), request.getRequestURI(), stats.statements(),
+                    TimeUnit.NANOSECONDS.toMillis(stats.nanos()), budget, suppressed);
+        }
+    }
+    
+    private int budget(String path) {
+        for (Map.Entry<String, Integer> entry : budgets.entrySet()) {
+            if (pathMatcher.match(entry.getKey(), path)) {
+                return entry.getValue();
+            }
+        }
+        return defaultBudget;
+    }
+}
@@ -0,0 +1,41 @@
+package com.ccpay.common.jdbc;
+
+// Per-thread tally of JDBC statements and the time spent executing them, kept between begin()
+// and end(). Statements run outside a scope, or on other threads such as @Async tasks and
+// the outbox relay, are not counted.
+public final class QueryStats {
+    
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+    
+    private int statements;
+    private long nanos;
+    
+    private QueryStats() {
+    }
+    
+    public static void begin() {
+        CURRENT.set(new QueryStats());
+    }
+    
+    public static QueryStats end() {
+        QueryStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+    
+    static void record(long elapsedNanos) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+            stats.nanos += elapsedNanos;
+        }
+    }
+    
+    public int statements() {
+        return statements;
+    }
+    
+    public long nanos() {
+        return nanos;
+    }
+}
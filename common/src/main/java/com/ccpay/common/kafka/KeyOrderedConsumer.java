@@ -0,0 +1,352 @@
+package com.ccpay.common.kafka;
+
+import com.ccpay.common.eventbus.KeyedEventHandler;
+import com.ccpay.common.tracing.KafkaTraceHeaders;
+import com.ccpay.common.tracing.TraceContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Consumes a topic with more parallelism than it has partitions. One poll thread fans records
+// out to single-threaded lanes chosen by key hash, so a key's events stay in order while a slow
+// key only holds up its own lane. Offsets are committed per partition up to the lowest record
+// still in flight, which keeps delivery at-least-once. When too many records are in flight the
+// poll thread pauses its partitions instead of buffering without bound. Records without a key
+// are laned by partition, preserving partition order. Each event is handled under the trace id
+// from its record headers. If the poll loop fails it is restarted with a fresh consumer after an
+// exponential backoff; the group redelivers whatever was not committed.
+@Slf4j
+public class KeyOrderedConsumer<T> {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+    private static final int MAX_HANDLER_ATTEMPTS = 3;
+    private static final long RETRY_BACKOFF_MILLIS = 200;
+    private static final long DRAIN_TIMEOUT_MILLIS = 10_000;
+    private static final long RESTART_BACKOFF_MILLIS = 1_000;
+    private static final long MAX_RESTART_BACKOFF_MILLIS = 60_000;
+
+    private final String name;
+    private final String topic;
+    private final Map<String, Object> consumerProperties;
+    private final Class<T> type;
+    private final KeyedEventHandler<T> handler;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService[] lanes;
+    private final int laneShift;
+    private final int maxInFlight;
+    private final long commitIntervalMillis;
+    private final Map<TopicPartition, PartitionOffsets> offsets = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter processedCounter;
+    private final Counter failedCounter;
+    private final Counter skippedCounter;
+    private final Counter restartCounter;
+    private volatile boolean running;
+    private volatile Consumer<String, byte[]> consumer;
+    private Thread pollThread;
+    // Poll thread only: whether the current consumer has polled since it was created
+    private boolean polled;
+
+    public KeyOrderedConsumer(String name, String topic, Map<String, Object> consumerProperties, Class<T> type,
+                              KeyedEventHandler<T> handler, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                              int laneCount, int maxInFlight, long commitIntervalMillis) {
+        this.name = name;
+        this.topic = topic;
+        this.consumerProperties = new HashMap<>(consumerProperties);
+        this.consumerProperties.put(ConsumerConfig.GROUP_ID_CONFIG, name);
+        this.consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        this.consumerProperties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        this.consumerProperties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        this.type = type;
+        this.handler = handler;
+        this.objectMapper = objectMapper;
+        this.maxInFlight = maxInFlight;
+        this.commitIntervalMillis = commitIntervalMillis;
+
+        // A power of two, so a lane is the top bits of the key's Fibonacci hash
+        int lanePower = laneCount <= 1 ? 1 : Integer.highestOneBit(laneCount - 1) << 1;
+        this.laneShift = Long.SIZE - Integer.numberOfTrailingZeros(lanePower);
+        this.lanes = new ExecutorService[lanePower];
+        for (int i = 0; i < lanePower; i++) {
+            String threadName = name + "-lane-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        this.processedCounter = counter(meterRegistry, "processed");
+        this.failedCounter = counter(meterRegistry, "failed");
+        this.skippedCounter = counter(meterRegistry, "skipped");
+        this.restartCounter = Counter.builder("kafka.keyed.consumer.restarts")
+                .tag("consumer", name).register(meterRegistry);
+        Gauge.builder("kafka.keyed.consumer.in.flight", inFlight, AtomicInteger::get)
+                .tag("consumer", name).register(meterRegistry);
+    }
+
+    public synchronized void start() {
+        running = true;
+        pollThread = new Thread(this::run, name + "-poll");
+        pollThread.setDaemon(true);
+        pollThread.start();
+    }
+
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        Consumer<String, byte[]> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        if (pollThread != null) {
+            pollThread.join(DRAIN_TIMEOUT_MILLIS + TimeUnit.SECONDS.toMillis(5));
+        }
+        for (ExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    private void run() {
+        long backoff = 0;
+        while (running) {
+            try {
+                consume();
+            } catch (WakeupException e) {
+                // stop() was called; closing the consumer revokes its partitions, which drains and commits
+                if (running) {
+                    log.error("Keyed consumer {} woken up unexpectedly", name, e);
+                }
+            } catch (Exception e) {
+                log.error("Keyed consumer {} on {} failed", name, topic, e);
+            }
+            if (!running) {
+                return;
+            }
+            // A consumer that got as far as polling starts the backoff over
+            backoff = polled || backoff == 0
+                    ? RESTART_BACKOFF_MILLIS : Math.min(backoff * 2, MAX_RESTART_BACKOFF_MILLIS);
+            restartCounter.increment();
+            log.warn("Restarting keyed consumer {} in {} ms", name, backoff);
+            if (!awaitRestart(backoff)) {
+                return;
+            }
+        }
+    }
+
+    private void consume() {
+        polled = false;
+        // Partitions of a failed consumer are redelivered from their last commit
+        offsets.clear();
+        try (KafkaConsumer<String, byte[]> kafkaConsumer = new KafkaConsumer<>(consumerProperties)) {
+            consumer = kafkaConsumer;
+            kafkaConsumer.subscribe(List.of(topic), new LaneRebalanceListener(kafkaConsumer));
+            long lastCommit = System.currentTimeMillis();
+            while (running) {
+                for (ConsumerRecord<String, byte[]> record : kafkaConsumer.poll(POLL_TIMEOUT)) {
+                    dispatch(record);
+                }
+                polled = true;
+                applyBackpressure(kafkaConsumer);
+                if (System.currentTimeMillis() - lastCommit >= commitIntervalMillis) {
+                    commit(kafkaConsumer, offsets.keySet(), false);
+                    lastCommit = System.currentTimeMillis();
+                }
+            }
+        } finally {
+            consumer = null;
+        }
+    }
+
+    // Sleeps in short steps so stop() is not held up by a long backoff
+    private boolean awaitRestart(long backoffMillis) {
+        long deadline = System.currentTimeMillis() + backoffMillis;
+        try {
+            long remaining;
+            while (running && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                Thread.sleep(Math.min(100, remaining));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return running;
+    }
+
+    private void dispatch(ConsumerRecord<String, byte[]> record) {
+        PartitionOffsets partitionOffsets = offsets.computeIfAbsent(
+                new TopicPartition(record.topic(), record.partition()), partition -> new PartitionOffsets());
+        T event = read(record);
+        if (event == null) {
+            partitionOffsets.skipped(record.offset());
+            skippedCounter.increment();
+            return;
+        }
+        long offset = record.offset();
+        String key = record.key();
+        partitionOffsets.dispatched(offset);
+        inFlight.incrementAndGet();
+        String traceId = KafkaTraceHeaders.extract(record.headers());
+        lanes[lane(record)].execute(() -> process(partitionOffsets, offset, key, event,
+                traceId != null ? traceId : TraceContext.newTraceId()));
+    }
+
+    private void process(PartitionOffsets partitionOffsets, long offset, String key, T event, String traceId) {
+        TraceContext.set(traceId);
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    handler.onEvent(key, event);
+                    processedCounter.increment();
+                    return;
+                } catch (Exception e) {
+                    if (attempt >= MAX_HANDLER_ATTEMPTS) {
+                        // Blocking the lane forever would stall every key hashed onto it
+                        failedCounter.increment();
+                        log.error("Keyed consumer {} gave up on key {} at offset {} after {} attempts",
+                                name, key, offset, attempt, e);
+                        return;
+                    }
+                    Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            TraceContext.clear();
+            partitionOffsets.done(offset);
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private int lane(ConsumerRecord<String, byte[]> record) {
+        if (lanes.length == 1) {
+            return 0;
+        }
+        long hash = record.key() != null ? record.key().hashCode() : record.partition();
+        // Fibonacci hashing: the multiply mixes every bit into the top ones, which pick the lane
+        return (int) ((hash * 0x9E3779B97F4A7C15L) >>> laneShift);
+    }
+
+    private void applyBackpressure(Consumer<String, byte[]> kafkaConsumer) {
+        int current = inFlight.get();
+        if (current >= maxInFlight) {
+            // Re-applied every loop so partitions assigned while paused are paused too
+            kafkaConsumer.pause(kafkaConsumer.assignment());
+        } else if (current <= maxInFlight / 2 && !kafkaConsumer.paused().isEmpty()) {
+            kafkaConsumer.resume(kafkaConsumer.paused());
+        }
+    }
+
+    private void commit(Consumer<String, byte[]> kafkaConsumer, Collection<TopicPartition> partitions, boolean sync) {
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            PartitionOffsets partitionOffsets = offsets.get(partition);
+            long committable = partitionOffsets != null ? partitionOffsets.takeCommittable() : -1;
+            if (committable >= 0) {
+                commits.put(partition, new OffsetAndMetadata(committable));
+            }
+        }
+        if (commits.isEmpty()) {
+            return;
+        }
+        if (sync) {
+            kafkaConsumer.commitSync(commits);
+        } else {
+            kafkaConsumer.commitAsync(commits, (committed, e) -> {
+                if (e != null) {
+                    log.warn("Keyed consumer {} failed to commit offsets: {}", name, e.getMessage());
+                }
+            });
+        }
+    }
+
+    // Waits for the partitions' in-flight records so their final offsets can be committed
+    private void drain(Collection<TopicPartition> partitions) {
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+        for (TopicPartition partition : partitions) {
+            PartitionOffsets partitionOffsets = offsets.get(partition);
+            while (partitionOffsets != null && partitionOffsets.pendingCount() > 0
+                    && System.currentTimeMillis() < deadline) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private T read(ConsumerRecord<String, byte[]> record) {
+        if (record.value() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(record.value(), type);
+        } catch (IOException e) {
+            log.warn("Keyed consumer {} skipping unreadable record at {}-{}@{}: {}",
+                    name, record.topic(), record.partition(), record.offset(), e.getMessage());
+            return null;
+        }
+    }
+
+    private Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("kafka.keyed.consumer.records")
+                .tag("consumer", name).tag("result", result).register(registry);
+    }
+
+    private final class LaneRebalanceListener implements ConsumerRebalanceListener {
+
+        private final Consumer<String, byte[]> kafkaConsumer;
+
+        private LaneRebalanceListener(Consumer<String, byte[]> kafkaConsumer) {
+            this.kafkaConsumer = kafkaConsumer;
+        }
+
+        // Runs on the poll thread inside poll() or close(); lanes keep working meanwhile
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            drain(partitions);
+            try {
+                commit(kafkaConsumer, partitions, true);
+            } catch (Exception e) {
+                log.warn("Keyed consumer {} failed to commit revoked partitions: {}", name, e.getMessage());
+            }
+            partitions.forEach(offsets::remove);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        }
+
+        // Ownership is already gone, so committing would fail; in-flight work will be redelivered
+        @Override
+        public void onPartitionsLost(Collection<TopicPartition> partitions) {
+            partitions.forEach(offsets::remove);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ccpay.common.kafka;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Offsets of one partition that were dispatched but are not yet done. Records finish out of
+// order across lanes, so the committable position is the lowest offset still pending, or one
+// past the highest dispatched offset once nothing is.
+final class PartitionOffsets {
+    
+    private final ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+    private long nextOffset = -1;
+    private long committedOffset = -1;
+    
+    // Poll thread only
+    void dispatched(long offset) {
+        pending.add(offset);
+        nextOffset = offset + 1;
+    }
+    
+    // Poll thread only, for records that never reach a lane
+    void skipped(long offset) {
+        nextOffset = offset + 1;
+    }
+    
+    void done(long offset) {
+        pending.remove(offset);
+    }
+    
+    int pendingCount() {
+        return pending.size();
+    }
+    
+    // Poll thread only. Returns the offset to commit, or -1 if it has not moved since the last commit
+    long takeCommittable() {
+        Long lowest = pending.ceiling(Long.MIN_VALUE);
+        long committable = lowest != null ? lowest : nextOffset;
+        if (committable < 0 || committable == committedOffset) {
+            return -1;
+        }
+        committedOffset = committable;
+        return committable;
+    }
+}
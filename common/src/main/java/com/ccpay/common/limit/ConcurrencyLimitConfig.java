@@ -0,0 +1,39 @@
+package com.ccpay.common.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+// The limit filter of every service that scans common. A service gives routes their own share
+// by declaring EndpointGroup beans, matched in @Order; everything else is in the default group.
+@Configuration
+public class ConcurrencyLimitConfig {
+    
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            ObjectProvider<EndpointGroup> endpointGroups,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${app.concurrency-limit.enabled:true}") boolean enabled,
+            @Value("${app.concurrency-limit.initial-limit:20}") int initialLimit,
+            @Value("${app.concurrency-limit.min-limit:5}") int minLimit,
+            @Value("${app.concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${app.concurrency-limit.retry-after-seconds:1}") int retryAfterSeconds) {
+        List<EndpointGroup> groups = endpointGroups.orderedStream().toList();
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(
+                new GradientLimit(initialLimit, minLimit, maxLimit), groups, meterRegistry);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limiter, groups, List.of("/actuator/**"), objectMapper, retryAfterSeconds));
+        // Ahead of Spring Security, so shed requests cost no authentication work
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+}
@@ -0,0 +1,140 @@
+package com.ccpay.common.limit;
+
+import com.ccpay.common.constants.ErrorCodes;
+import com.ccpay.common.dto.ErrorResponse;
+import com.ccpay.common.tracing.TraceContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Sheds load ahead of the servlet's thread and connection pools: requests over the adaptive
+// limit get 503 with Retry-After straight away instead of waiting in Tomcat's accept queue or
+// for a Hikari connection until they time out. Exempt paths, such as health checks, are never
+// counted or shed. Asynchronous requests hold their slot until the async response completes.
+// Not a component: ConcurrencyLimitConfig registers it ahead of the security filter chain.
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final ConcurrencyLimiter limiter;
+    private final List<EndpointGroup> groups;
+    private final List<String> exemptPaths;
+    private final ObjectMapper objectMapper;
+    private final int retryAfterSeconds;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public ConcurrencyLimitFilter(ConcurrencyLimiter limiter, List<EndpointGroup> groups, List<String> exemptPaths,
+                                  ObjectMapper objectMapper, int retryAfterSeconds) {
+        this.limiter = limiter;
+        this.groups = groups;
+        this.exemptPaths = exemptPaths;
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return exemptPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String group = group(request.getRequestURI());
+        int admittedAt = limiter.tryAcquire(group);
+        if (admittedAt < 0) {
+            reject(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                async = true;
+                request.getAsyncContext().addListener(new ReleasingListener(group, start, admittedAt));
+            }
+        } finally {
+            if (!async) {
+                limiter.release(group, System.nanoTime() - start, admittedAt);
+            }
+        }
+    }
+
+    private String group(String path) {
+        for (EndpointGroup group : groups) {
+            for (String pattern : group.pathPatterns()) {
+                if (pathMatcher.match(pattern, path)) {
+                    return group.name();
+                }
+            }
+        }
+        return ConcurrencyLimiter.DEFAULT_GROUP;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ErrorResponse.builder()
+                .errorCode(ErrorCodes.SERVICE_UNAVAILABLE)
+                .message("Service is at capacity, retry later")
+                .path(request.getRequestURI())
+                .timestamp(LocalDateTime.now())
+                .traceId(TraceContext.current())
+                .build());
+    }
+
+    private final class ReleasingListener implements AsyncListener {
+        private final String group;
+        private final long start;
+        private final int admittedAt;
+        private boolean released;
+
+        private ReleasingListener(String group, long start, int admittedAt) {
+            this.group = group;
+            this.start = start;
+            this.admittedAt = admittedAt;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        // onComplete follows onTimeout and onError, so guard against releasing twice
+        private synchronized void release() {
+            if (!released) {
+                released = true;
+                limiter.release(group, System.nanoTime() - start, admittedAt);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ccpay.common.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One adaptive limit for the whole service, partitioned between endpoint groups. A request is
+// admitted while the service is under its limit, or while its own group is under its guaranteed
+// share; everything else is rejected at once rather than queued for a pool thread or a
+// connection. Requests outside every group fall into DEFAULT_GROUP, which has no guaranteed share.
+public class ConcurrencyLimiter {
+    
+    public static final String DEFAULT_GROUP = "default";
+    
+    private final GradientLimit limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, Partition> partitions = new HashMap<>();
+    
+    public ConcurrencyLimiter(GradientLimit limit, List<EndpointGroup> groups, MeterRegistry meterRegistry) {
+        double totalShare = groups.stream().mapToDouble(EndpointGroup::share).sum();
+        if (totalShare > 1.0) {
+            throw new IllegalArgumentException("Endpoint group shares add up to more than 1: " + totalShare);
+        }
+        this.limit = limit;
+        for (EndpointGroup group : groups) {
+            partitions.put(group.name(), new Partition(group.name(), group.share(), meterRegistry));
+        }
+        partitions.putIfAbsent(DEFAULT_GROUP, new Partition(DEFAULT_GROUP, 0, meterRegistry));
+        Gauge.builder("concurrency.limit", limit, GradientLimit::current).register(meterRegistry);
+        Gauge.builder("concurrency.limit.in.flight", inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+    
+    // Returns the in-flight count the request was admitted at, or -1 if it was rejected
+    public int tryAcquire(String group) {
+        Partition partition = partitions.getOrDefault(group, partitions.get(DEFAULT_GROUP));
+        int total = inFlight.incrementAndGet();
+        int own = partition.inFlight.incrementAndGet();
+        int currentLimit = limit.current();
+        if (total <= currentLimit || own <= Math.ceil(partition.share * currentLimit)) {
+            partition.accepted.increment();
+            return total;
+        }
+        inFlight.decrementAndGet();
+        partition.inFlight.decrementAndGet();
+        partition.rejected.increment();
+        return -1;
+    }
+    
+    public void release(String group, long rttNanos, int admittedAt) {
+        Partition partition = partitions.getOrDefault(group, partitions.get(DEFAULT_GROUP));
+        partition.inFlight.decrementAndGet();
+        inFlight.decrementAndGet();
+        limit.onSample(rttNanos, admittedAt);
+    }
+    
+    private static final class Partition {
+        private final double share;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Counter accepted;
+        private final Counter rejected;
+        
+        private Partition(String name, double share, MeterRegistry meterRegistry) {
+            this.share = share;
+            this.accepted = Counter.builder("concurrency.limit.requests")
+                    .tag("group", name).tag("result", "accepted").register(meterRegistry);
+            this.rejected = Counter.builder("concurrency.limit.requests")
+                    .tag("group", name).tag("result", "rejected").register(meterRegistry);
+            Gauge.builder("concurrency.limit.group.in.flight", inFlight, AtomicInteger::get)
+                    .tag("group", name).register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.ccpay.common.limit;
+
+import java.util.List;
+
+// Endpoints sharing a slice of the concurrency limit. The share is guaranteed: a group is
+// admitted up to share x limit even when other groups have used up the whole limit, so cheap
+// or critical routes get a large share and sheddable ones none, and are turned away first.
+public record EndpointGroup(String name, double share, List<String> pathPatterns) {
+    
+    public static EndpointGroup of(String name, double share, String... pathPatterns) {
+        return new EndpointGroup(name, share, List.of(pathPatterns));
+    }
+}
@@ -0,0 +1,90 @@
+package com.ccpay.common.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Concurrency limit derived from latency, after Netflix's Gradient2. Completed requests are
+// averaged over short windows; each window's average is compared with a baseline that follows
+// falling latency quickly and rising latency only slowly. While latency holds steady the limit
+// grows by a small fixed queue allowance per window, and as queueing pushes latency above the
+// tolerated ratio the limit shrinks in proportion, so the service settles near the concurrency
+// it can serve without building queues. The limit only grows while at least half of it is in
+// use, so an idle service does not drift upward.
+public class GradientLimit {
+    
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    // Windows averaged into the long-term latency as it rises: about five minutes at the window
+    // length above. Sustained saturation otherwise becomes the new baseline and the limit creeps up.
+    private static final int LONG_WINDOWS = 600;
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    // Requests allowed to queue on top of what latency says the service can take
+    private static final int QUEUE_SIZE = 4;
+    
+    private final int minLimit;
+    private final int maxLimit;
+    private final LongAdder windowRttSum = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private long windowStart = System.nanoTime();
+    private double longRtt;
+    private volatile double limit;
+    
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+    
+    public int current() {
+        return (int) limit;
+    }
+    
+    // inFlight is the concurrency the request was admitted at, itself included
+    public void onSample(long rttNanos, int inFlight) {
+        windowRttSum.add(rttNanos);
+        windowSamples.increment();
+        windowMaxInFlight.accumulateAndGet(inFlight, Math::max);
+        // Whoever first sees the window expire rolls it; everyone else just records
+        if (System.nanoTime() - windowStart >= WINDOW_NANOS && updateLock.tryLock()) {
+            try {
+                roll();
+            } finally {
+                updateLock.unlock();
+            }
+        }
+    }
+    
+    private void roll() {
+        long now = System.nanoTime();
+        long samples = windowSamples.sum();
+        if (now - windowStart < WINDOW_NANOS || samples < MIN_WINDOW_SAMPLES) {
+            return;
+        }
+        double shortRtt = (double) windowRttSum.sumThenReset() / windowSamples.sumThenReset();
+        int maxInFlight = windowMaxInFlight.getAndSet(0);
+        windowStart = now;
+        
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+            return;
+        }
+        if (shortRtt < longRtt) {
+            // Faster than the baseline: adopt it quickly, so the baseline stays near unloaded latency
+            longRtt += (shortRtt - longRtt) * SMOOTHING;
+        } else {
+            longRtt += (shortRtt - longRtt) * 2 / (LONG_WINDOWS + 1);
+        }
+        double current = limit;
+        if (maxInFlight < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double target = current * gradient + QUEUE_SIZE;
+        limit = Math.max(minLimit, Math.min(maxLimit, current * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+}
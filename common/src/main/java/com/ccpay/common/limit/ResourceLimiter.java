@@ -0,0 +1,62 @@
+package com.ccpay.common.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Caps concurrent use of a blocking resource such as the database or an SMTP relay. With
+// virtual threads a thread pool no longer bounds how many callers reach the resource at once,
+// so the bound moves here. Callers wait up to maxWait for a permit, but once maxWaiting callers
+// are already queued further callers are turned away at once rather than piling up.
+public class ResourceLimiter {
+    
+    private final Semaphore permits;
+    private final int maxWaiting;
+    private final long maxWaitNanos;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter rejected;
+    
+    public ResourceLimiter(String name, int permits, int maxWaiting, Duration maxWait, MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(permits, true);
+        this.maxWaiting = maxWaiting;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.rejected = Counter.builder("resource.limit.rejected").tag("resource", name).register(meterRegistry);
+        Gauge.builder("resource.limit.in.use", this.permits, semaphore -> permits - semaphore.availablePermits())
+                .tag("resource", name).register(meterRegistry);
+        Gauge.builder("resource.limit.waiting", waiting, AtomicInteger::get)
+                .tag("resource", name).register(meterRegistry);
+    }
+    
+    // False when no permit came free in time, the wait queue was full, or the caller was interrupted
+    public boolean tryAcquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        try {
+            if (permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+            rejected.increment();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+    
+    public void release() {
+        permits.release();
+    }
+}
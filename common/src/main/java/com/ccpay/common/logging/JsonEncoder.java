@@ -0,0 +1,111 @@
+package com.ccpay.common.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+import org.slf4j.event.KeyValuePair;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+// One JSON object per line: timestamp, level, logger, thread, message, then the MDC (traceId
+// among it), any key-value pairs added through the fluent API and the stack trace. Builds
+// each line in a reused per-thread buffer; behind the AsyncAppender that is a single thread.
+public class JsonEncoder extends EncoderBase<ILoggingEvent> {
+    
+    private static final byte[] NO_BYTES = new byte[0];
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+    
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(512));
+    
+    @Override
+    public byte[] headerBytes() {
+        return NO_BYTES;
+    }
+    
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        StringBuilder json = buffers.get();
+        json.setLength(0);
+        json.append("{\"@timestamp\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(event.getInstant(), json);
+        json.append("\",\"level\":\"").append(event.getLevel().levelStr).append('"');
+        field(json, "logger", event.getLoggerName());
+        field(json, "thread", event.getThreadName());
+        field(json, "message", event.getFormattedMessage());
+        
+        for (Map.Entry<String, String> entry : event.getMDCPropertyMap().entrySet()) {
+            field(json, entry.getKey(), entry.getValue());
+        }
+        List<KeyValuePair> keyValuePairs = event.getKeyValuePairs();
+        if (keyValuePairs != null) {
+            for (KeyValuePair pair : keyValuePairs) {
+                value(json, pair.key, pair.value);
+            }
+        }
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            field(json, "exception", throwable.getClassName());
+            field(json, "stackTrace", ThrowableProxyUtil.asString(throwable));
+        }
+        json.append("}\n");
+        
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        // A huge stack trace should not pin a huge buffer for the life of the thread
+        if (json.capacity() > MAX_RETAINED_CAPACITY) {
+            buffers.remove();
+        }
+        return bytes;
+    }
+    
+    @Override
+    public byte[] footerBytes() {
+        return NO_BYTES;
+    }
+    
+    private static void value(StringBuilder json, String key, Object value) {
+        if (value instanceof Number || value instanceof Boolean) {
+            json.append(",\"");
+            escape(json, key);
+            json.append("\":").append(value);
+        } else {
+            field(json, key, value == null ? null : value.toString());
+        }
+    }
+    
+    private static void field(StringBuilder json, String key, String value) {
+        json.append(",\"");
+        escape(json, key);
+        json.append("\":");
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        escape(json, value);
+        json.append('"');
+    }
+    
+    private static void escape(StringBuilder json, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ccpay.common.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.filter.Filter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+
+// Exposes what the logging pipeline throws away: logging.async.dropped and
+// logging.async.queue.remaining per MeteredAsyncAppender on the root logger, and
+// logging.sampled.out per SamplingFilter on those appenders. Nothing is registered without Logback.
+@Component
+public class LoggingMetrics {
+    
+    public LoggingMetrics(MeterRegistry meterRegistry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return;
+        }
+        Iterator<Appender<ILoggingEvent>> appenders = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)
+                .iteratorForAppenders();
+        while (appenders.hasNext()) {
+            if (appenders.next() instanceof MeteredAsyncAppender appender) {
+                FunctionCounter.builder("logging.async.dropped", appender, MeteredAsyncAppender::getDropped)
+                        .tag("appender", appender.getName()).register(meterRegistry);
+                Gauge.builder("logging.async.queue.remaining", appender, MeteredAsyncAppender::getRemainingCapacity)
+                        .tag("appender", appender.getName()).register(meterRegistry);
+                for (Filter<ILoggingEvent> filter : appender.getCopyOfAttachedFiltersList()) {
+                    if (filter instanceof SamplingFilter sampling) {
+                        FunctionCounter.builder("logging.sampled.out", sampling, SamplingFilter::getSampledOut)
+                                .tag("appender", appender.getName())
+                                .tag("filter", String.valueOf(sampling.getName())).register(meterRegistry);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.ccpay.common.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// AsyncAppender that counts what it drops. Logback drops silently: debug and info events
+// once the queue is past its discarding threshold, and everything when it is full and
+// neverBlock is set. The count is taken just before the append, so it is approximate.
+public class MeteredAsyncAppender extends AsyncAppender {
+    
+    private final LongAdder dropped = new LongAdder();
+    
+    public long getDropped() {
+        return dropped.sum();
+    }
+    
+    @Override
+    protected void append(ILoggingEvent event) {
+        int remaining = getRemainingCapacity();
+        if ((remaining < getDiscardingThreshold() && isDiscardable(event)) || (remaining == 0 && isNeverBlock())) {
+            dropped.increment();
+        }
+        super.append(event);
+    }
+}
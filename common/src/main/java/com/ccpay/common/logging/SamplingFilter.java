@@ -0,0 +1,80 @@
+package com.ccpay.common.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+import com.ccpay.common.utils.LogSampler;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// Rate-limits noisy logger categories on the calling thread, before events reach the async
+// queue: each configured logger prefix may log linesPerSecond lines at maxLevel or below each
+// second, and the rest are denied. Warnings and errors are never sampled with the default
+// maxLevel of INFO. An appender filter rather than a turbo filter: a turbo filter sees the
+// fluent API (logger.atInfo()...log()) only as a level check, with no format, params or
+// throwable to tell the two apart, so it could neither count nor drop those lines.
+//
+//   <appender ...>
+//     <filter class="com.ccpay.common.logging.SamplingFilter">
+//       <loggers>org.springframework.security,org.hibernate.SQL</loggers>
+//       <linesPerSecond>20</linesPerSecond>
+//     </filter>
+//   </appender>
+public class SamplingFilter extends Filter<ILoggingEvent> {
+    
+    private final LongAdder sampledOut = new LongAdder();
+    private String[] loggers = new String[0];
+    private int linesPerSecond = 20;
+    private Level maxLevel = Level.INFO;
+    private LogSampler sampler;
+    
+    public void setLoggers(String loggers) {
+        this.loggers = Arrays.stream(loggers.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toArray(String[]::new);
+    }
+    
+    public void setLinesPerSecond(int linesPerSecond) {
+        this.linesPerSecond = linesPerSecond;
+    }
+    
+    public void setMaxLevel(String maxLevel) {
+        this.maxLevel = Level.toLevel(maxLevel, Level.INFO);
+    }
+    
+    public long getSampledOut() {
+        return sampledOut.sum();
+    }
+    
+    @Override
+    public void start() {
+        sampler = new LogSampler(Duration.ofSeconds(1), linesPerSecond);
+        super.start();
+    }
+    
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        if (!isStarted() || event.getLevel().toInt() > maxLevel.toInt()) {
+            return FilterReply.NEUTRAL;
+        }
+        String category = category(event.getLoggerName());
+        if (category == null || sampler.tryLog(category) >= 0) {
+            return FilterReply.NEUTRAL;
+        }
+        sampledOut.increment();
+        return FilterReply.DENY;
+    }
+    
+    private String category(String loggerName) {
+        for (String prefix : loggers) {
+            if (loggerName.startsWith(prefix)) {
+                return prefix;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,224 @@
+package com.ccpay.common.outbox;
+
+import com.ccpay.common.eventbus.EventBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Publishes outbox_events to the event bus in id order and deletes what was acknowledged. A single
+// relay per database holds an advisory lock; it sleeps in LISTEN until a committing writer
+// NOTIFYs, drains full batches back to back, and only falls back to a timed wake-up to catch
+// a missed notification. On Kafka delivery is at-least-once: a crash between send and delete
+// replays the batch, so records carry the outbox id for consumers that dedupe. In process the
+// ring accepts the batch at once and a crash loses what subscribers had not handled yet. Not a
+// Spring component: a service that owns an outbox_events table creates one over its bus.
+@Slf4j
+public class OutboxRelay {
+    
+    public static final String CHANNEL = "outbox_events";
+    
+    public static final String OUTBOX_ID_HEADER = "outbox-id";
+    public static final String EVENT_TYPE_HEADER = "event-type";
+    
+    // Arbitrary but fixed key, shared by every relay of a service's database
+    private static final long LEADER_LOCK_KEY = 0x6f7574626f78L;
+    
+    private static final String SELECT_BATCH = 
+            "SELECT id, topic, message_key, event_type, payload::text, trace_id, created_at FROM outbox_events " +
+            "ORDER BY id LIMIT ?";
+    
+    private static final String DELETE_BATCH = "DELETE FROM outbox_events WHERE id = ANY(?)";
+    
+    // Age of the oldest unpublished event on the database clock, 0 when the outbox is empty
+    private static final String LAG_MILLIS = 
+            "SELECT COALESCE((SELECT (extract(epoch from LOCALTIMESTAMP - created_at) * 1000)::bigint " +
+            "FROM outbox_events ORDER BY id LIMIT 1), 0)";
+    
+    private static final int DELETE_CHUNK_SIZE = 1000;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 30_000;
+    
+    private final DataSource dataSource;
+    private final EventBus eventBus;
+    private final int batchSize;
+    private final long maxWaitMillis;
+    private final Counter published;
+    private final Timer batchTimer;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private volatile boolean running;
+    private Thread thread;
+    
+    public OutboxRelay(DataSource dataSource, EventBus eventBus, MeterRegistry meterRegistry,
+                       int batchSize, long maxWaitMillis) {
+        this.dataSource = dataSource;
+        this.eventBus = eventBus;
+        this.batchSize = batchSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.published = Counter.builder("outbox.relay.published").register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.relay.batch").register(meterRegistry);
+        Gauge.builder("outbox.relay.lag.seconds", lagMillis, lag -> lag.get() / 1000.0).register(meterRegistry);
+    }
+    
+    public synchronized void start() {
+        running = true;
+        thread = new Thread(this::run, "outbox-relay");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+    
+    private void run() {
+        long reconnectDelay = 1000;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                if (!tryLead(connection)) {
+                    // Another instance relays; check again later in case it goes away
+                    Thread.sleep(maxWaitMillis);
+                    continue;
+                }
+                try {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("LISTEN " + CHANNEL);
+                    }
+                    log.info("Outbox relay leading, listening on {}", CHANNEL);
+                    reconnectDelay = 1000;
+                    relay(connection);
+                } finally {
+                    resign(connection);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Outbox relay failed, reconnecting in {} ms", reconnectDelay, e);
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MILLIS);
+            }
+        }
+    }
+    
+    private void relay(Connection connection) throws Exception {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+            while (publishBatch(connection) == batchSize && running) {
+                // Full batch: more is probably waiting, skip the wait
+            }
+            updateLag(connection);
+            // Blocks on the socket until a NOTIFY arrives; several commits collapse into one wake-up
+            pgConnection.getNotifications((int) maxWaitMillis);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+    
+    private int publishBatch(Connection connection) throws Exception {
+        long started = System.nanoTime();
+        // The bus keeps per-key order across its in-flight sends, so the whole batch is
+        // published before waiting on any acknowledgement
+        List<CompletableFuture<Void>> acks = new ArrayList<>(batchSize);
+        long[] ids = new long[batchSize];
+        int count = 0;
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_BATCH)) {
+            statement.setInt(1, batchSize);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    long id = rs.getLong("id");
+                    Map<String, byte[]> headers = Map.of(
+                            OUTBOX_ID_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(id).array(),
+                            EVENT_TYPE_HEADER, rs.getString("event_type").getBytes(StandardCharsets.UTF_8));
+                    acks.add(eventBus.publishJson(rs.getString("topic"), rs.getString("message_key"),
+                            rs.getString("payload").getBytes(StandardCharsets.UTF_8), rs.getString("trace_id"), headers));
+                    ids[count++] = id;
+                }
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        CompletableFuture.allOf(acks.toArray(new CompletableFuture[0])).get();
+        
+        for (int from = 0; from < count; from += DELETE_CHUNK_SIZE) {
+            deleteChunk(connection, Arrays.copyOfRange(ids, from, Math.min(from + DELETE_CHUNK_SIZE, count)));
+        }
+        published.increment(count);
+        batchTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return count;
+    }
+    
+    private void deleteChunk(Connection connection, long[] ids) throws SQLException {
+        Long[] boxed = new Long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            boxed[i] = ids[i];
+        }
+        Array array = connection.createArrayOf("bigint", boxed);
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_BATCH)) {
+            statement.setArray(1, array);
+            statement.executeUpdate();
+        } finally {
+            array.free();
+        }
+    }
+    
+    private void updateLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(LAG_MILLIS)) {
+            lagMillis.set(rs.next() ? Math.max(0, rs.getLong(1)) : 0);
+        }
+    }
+    
+    // Session-level lock, released when the connection closes
+    private static boolean tryLead(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, LEADER_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+    
+    // The connection goes back to the pool, which would otherwise keep the lock and the listener
+    private static void resign(Connection connection) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("UNLISTEN *");
+            statement.execute("SELECT pg_advisory_unlock_all()");
+        } catch (SQLException e) {
+            log.debug("Could not resign outbox relay leadership cleanly: {}", e.getMessage());
+        }
+    }
+}
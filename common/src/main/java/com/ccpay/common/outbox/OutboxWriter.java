@@ -0,0 +1,44 @@
+package com.ccpay.common.outbox;
+
+import com.ccpay.common.constants.ErrorCodes;
+import com.ccpay.common.exceptions.BusinessException;
+import com.ccpay.common.tracing.TraceContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Writes events into outbox_events as part of the caller's transaction, so an event exists if
+// and only if the business change committed. NOTIFY is delivered on commit and collapsed to one
+// per transaction by Postgres, which wakes the relay without polling. The writer's trace id is
+// stored with the event and sent as a record header.
+public class OutboxWriter {
+    
+    private static final String INSERT = 
+            "INSERT INTO outbox_events (topic, message_key, event_type, payload, trace_id) " +
+            "VALUES (?, ?, ?, CAST(? AS jsonb), ?)";
+    
+    private static final String NOTIFY = "NOTIFY " + OutboxRelay.CHANNEL;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    
+    public OutboxWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+    
+    public void append(String topic, String key, String eventType, Object event) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Outbox events must be written inside the business transaction");
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(ErrorCodes.INTERNAL_SERVER_ERROR, "Failed to serialize outbox event", e);
+        }
+        jdbcTemplate.update(INSERT, topic, key, eventType, payload, TraceContext.current());
+        jdbcTemplate.execute(NOTIFY);
+    }
+}
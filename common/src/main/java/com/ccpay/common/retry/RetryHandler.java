@@ -0,0 +1,11 @@
+package com.ccpay.common.retry;
+
+@FunctionalInterface
+public interface RetryHandler {
+    
+    // Throwing schedules another attempt with backoff, or dead-letters the item when exhausted
+    void handle(RetryItem item) throws Exception;
+    
+    default void onDeadLetter(RetryItem item, Exception lastError) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.ccpay.common.retry;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetryItem {
+    private String queueName;
+    private long dueBucket;
+    private UUID id;
+    private String payload;
+    // Attempts made so far, including the one in progress
+    private int attempts;
+    private LocalDateTime dueAt;
+}
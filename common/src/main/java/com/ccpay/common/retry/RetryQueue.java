@@ -0,0 +1,209 @@
+package com.ccpay.common.retry;
+
+import com.ccpay.common.constants.ApplicationConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+// Durable delayed-retry queue on Postgres. Rows are keyed (queue_name, due_bucket, id): a claim
+// walks the primary key from the oldest bucket and stops at the current one, so it never
+// scans future retries, and random ids spread inserts within a bucket instead of piling them
+// onto one right-most index page. Services using it create retry_queue and
+// retry_queue_dead_letters in their own migrations (see wallet-service V10).
+// All times come from the database clock.
+public class RetryQueue {
+
+    private static final String NOW = "LOCALTIMESTAMP";
+
+    private static final String BUCKET_OF_NOW = "floor(extract(epoch from " + NOW + ") / ?)::bigint";
+
+    private static final String ENQUEUE =
+            "INSERT INTO retry_queue (queue_name, due_bucket, due_at, payload, attempts) " +
+            "SELECT ?, floor(extract(epoch from d.due_at) / ?)::bigint, d.due_at, ?, ? " +
+            "FROM (SELECT " + NOW + " + make_interval(secs => ?) AS due_at) d";
+
+    private static final String CLAIM =
+            "UPDATE retry_queue q SET locked_until = " + NOW + " + make_interval(secs => ?), " +
+            "attempts = q.attempts + 1 " +
+            "FROM (SELECT queue_name, due_bucket, id FROM retry_queue " +
+            "WHERE queue_name = ? AND due_bucket <= " + BUCKET_OF_NOW + " AND due_at <= " + NOW + " " +
+            "AND (locked_until IS NULL OR locked_until < " + NOW + ") " +
+            "ORDER BY due_bucket LIMIT ? FOR UPDATE SKIP LOCKED) due " +
+            "WHERE q.queue_name = due.queue_name AND q.due_bucket = due.due_bucket AND q.id = due.id " +
+            "RETURNING q.queue_name, q.due_bucket, q.id, q.payload, q.attempts, q.due_at";
+
+    private static final String COMPLETE =
+            "DELETE FROM retry_queue WHERE queue_name = ? AND due_bucket = ? AND id = ?";
+
+    private static final String RESCHEDULE =
+            "UPDATE retry_queue SET due_at = d.due_at, due_bucket = floor(extract(epoch from d.due_at) / ?)::bigint, " +
+            "locked_until = NULL, last_error = ? " +
+            "FROM (SELECT " + NOW + " + make_interval(secs => ?) AS due_at) d " +
+            "WHERE queue_name = ? AND due_bucket = ? AND id = ?";
+
+    private static final String DEAD_LETTER =
+            "WITH dead AS (DELETE FROM retry_queue WHERE queue_name = ? AND due_bucket = ? AND id = ? " +
+            "RETURNING id, queue_name, payload, attempts, created_at) " +
+            "INSERT INTO retry_queue_dead_letters (id, queue_name, payload, attempts, last_error, created_at) " +
+            "SELECT id, queue_name, payload, attempts, ?, created_at FROM dead";
+
+    // Bucket-resolution lag, read from the first primary key entry of the queue
+    private static final String LAG_SECONDS =
+            "SELECT GREATEST(" + BUCKET_OF_NOW + " - MIN(due_bucket), 0) * ? FROM retry_queue WHERE queue_name = ?";
+
+    private static final String DEPTH = "SELECT COUNT(*) FROM retry_queue WHERE queue_name = ?";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private static final RowMapper<RetryItem> RETRY_ITEM_ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp dueAt = rs.getTimestamp("due_at");
+        return RetryItem.builder()
+                .queueName(rs.getString("queue_name"))
+                .dueBucket(rs.getLong("due_bucket"))
+                .id(rs.getObject("id", UUID.class))
+                .payload(rs.getString("payload"))
+                .attempts(rs.getInt("attempts"))
+                .dueAt(dueAt != null ? dueAt.toLocalDateTime() : null)
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long bucketSeconds;
+    private final int maxAttempts;
+    private final Map<String, QueueMeters> meters = new ConcurrentHashMap<>();
+    private volatile LongConsumer dueListener = delayMillis -> { };
+
+    public RetryQueue(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this(jdbcTemplate, meterRegistry, 1, ApplicationConstants.MAX_RETRY_ATTEMPTS);
+    }
+
+    public RetryQueue(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, long bucketSeconds, int maxAttempts) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.bucketSeconds = bucketSeconds;
+        this.maxAttempts = maxAttempts;
+    }
+
+    // Called with the delay until an item written through this instance falls due, so a worker
+    // can wake for it instead of waiting for its next poll
+    public void onScheduled(LongConsumer listener) {
+        this.dueListener = listener;
+    }
+
+    // attemptsSoFar counts attempts already made outside the queue, usually 1
+    public void enqueue(String queueName, String payload, int attemptsSoFar) {
+        long delaySeconds = backoffSeconds(Math.max(attemptsSoFar, 1));
+        jdbcTemplate.update(ENQUEUE, queueName, bucketSeconds, payload, attemptsSoFar, delaySeconds);
+        meters(queueName).enqueued.increment();
+        dueListener.accept(TimeUnit.SECONDS.toMillis(delaySeconds));
+    }
+
+    // Due at once: for work handed to the queue's workers rather than retried after a failure
+    public void enqueueNow(String queueName, String payload) {
+        jdbcTemplate.update(ENQUEUE, queueName, bucketSeconds, payload, 0, 0);
+        meters(queueName).enqueued.increment();
+        dueListener.accept(0);
+    }
+
+    public List<RetryItem> claim(String queueName, int limit, long leaseSeconds) {
+        return jdbcTemplate.query(CLAIM, RETRY_ITEM_ROW_MAPPER, leaseSeconds, queueName, bucketSeconds, limit);
+    }
+
+    public void complete(RetryItem item) {
+        jdbcTemplate.update(COMPLETE, item.getQueueName(), item.getDueBucket(), item.getId());
+        meters(item.getQueueName()).completed.increment();
+    }
+
+    public void complete(List<RetryItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(COMPLETE, items, items.size(), (ps, item) -> {
+            ps.setString(1, item.getQueueName());
+            ps.setLong(2, item.getDueBucket());
+            ps.setObject(3, item.getId());
+        });
+        for (RetryItem item : items) {
+            meters(item.getQueueName()).completed.increment();
+        }
+    }
+
+    // Returns true if the item was dead-lettered rather than rescheduled
+    public boolean fail(RetryItem item, Exception error) {
+        String message = describe(error);
+        QueueMeters queueMeters = meters(item.getQueueName());
+        if (item.getAttempts() >= maxAttempts) {
+            jdbcTemplate.update(DEAD_LETTER, item.getQueueName(), item.getDueBucket(), item.getId(), message);
+            queueMeters.deadLettered.increment();
+            return true;
+        }
+        long delaySeconds = backoffSeconds(item.getAttempts());
+        jdbcTemplate.update(RESCHEDULE, bucketSeconds, message, delaySeconds,
+                item.getQueueName(), item.getDueBucket(), item.getId());
+        queueMeters.retried.increment();
+        dueListener.accept(TimeUnit.SECONDS.toMillis(delaySeconds));
+        return false;
+    }
+
+    public void refreshMetrics(String queueName) {
+        QueueMeters queueMeters = meters(queueName);
+        Long lag = jdbcTemplate.queryForObject(LAG_SECONDS, Long.class, bucketSeconds, bucketSeconds, queueName);
+        Long depth = jdbcTemplate.queryForObject(DEPTH, Long.class, queueName);
+        queueMeters.lagSeconds.set(lag != null ? lag : 0);
+        queueMeters.depth.set(depth != null ? depth : 0);
+    }
+
+    // Capped exponential backoff with equal jitter, so a burst of failures does not retry in lockstep
+    long backoffSeconds(int attempts) {
+        long base = Math.min(ApplicationConstants.RETRY_DELAY_SECONDS << Math.min(attempts - 1, 20),
+                ApplicationConstants.MAX_RETRY_DELAY_SECONDS);
+        return base / 2 + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    private QueueMeters meters(String queueName) {
+        return meters.computeIfAbsent(queueName, name -> new QueueMeters(name, meterRegistry));
+    }
+
+    private static String describe(Exception error) {
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private static final class QueueMeters {
+        private final Counter enqueued;
+        private final Counter completed;
+        private final Counter retried;
+        private final Counter deadLettered;
+        private final AtomicLong lagSeconds = new AtomicLong();
+        private final AtomicLong depth = new AtomicLong();
+
+        private QueueMeters(String queueName, MeterRegistry registry) {
+            this.enqueued = counter(registry, queueName, "enqueued");
+            this.completed = counter(registry, queueName, "completed");
+            this.retried = counter(registry, queueName, "retried");
+            this.deadLettered = counter(registry, queueName, "dead_lettered");
+            Gauge.builder("retry.queue.lag.seconds", lagSeconds, AtomicLong::get)
+                    .tag("queue", queueName).register(registry);
+            Gauge.builder("retry.queue.depth", depth, AtomicLong::get)
+                    .tag("queue", queueName).register(registry);
+        }
+
+        private static Counter counter(MeterRegistry registry, String queueName, String result) {
+            return Counter.builder("retry.queue.items")
+                    .tag("queue", queueName).tag("result", result).register(registry);
+        }
+    }
+}
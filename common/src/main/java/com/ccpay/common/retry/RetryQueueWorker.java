@@ -0,0 +1,158 @@
+package com.ccpay.common.retry;
+
+import com.ccpay.common.utils.TimingWheel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Polls registered queues and runs their handlers on a bounded pool. Only as many items are
+// claimed as there are free workers, so leases never run down while items wait in memory.
+// Items written through this process's RetryQueue put a wake-up on a timing wheel at their due
+// time, so retries run on time and the fixed poll only catches items written by other nodes.
+// Not a Spring component: a service that owns retry tables creates one and registers handlers.
+@Slf4j
+public class RetryQueueWorker {
+    
+    // Three levels of 64 slots at 10 ms reach about 43 minutes, well past the longest backoff
+    private static final long WAKE_UP_TICK_MILLIS = 10;
+    private static final int WAKE_UP_LEVELS = 3;
+    
+    private final RetryQueue retryQueue;
+    private final Map<String, RetryHandler> handlers = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+    private final ScheduledExecutorService poller;
+    private final Semaphore permits;
+    private final int batchSize;
+    private final long leaseSeconds;
+    private final long pollIntervalMillis;
+    // One wheel entry per distinct wake-up tick, however many items share it
+    private final TimingWheel wakeUps = new TimingWheel(WAKE_UP_TICK_MILLIS, WAKE_UP_LEVELS, 1024,
+            System.currentTimeMillis());
+    private final Set<Long> wakeUpTicks = ConcurrentHashMap.newKeySet();
+    
+    public RetryQueueWorker(RetryQueue retryQueue, int concurrency, int batchSize, 
+                            long leaseSeconds, long pollIntervalMillis) {
+        this.retryQueue = retryQueue;
+        this.permits = new Semaphore(concurrency);
+        this.batchSize = batchSize;
+        this.leaseSeconds = leaseSeconds;
+        this.pollIntervalMillis = pollIntervalMillis;
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "retry-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "retry-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public void register(String queueName, RetryHandler handler) {
+        handlers.put(queueName, handler);
+    }
+    
+    public void start() {
+        retryQueue.onScheduled(this::wakeUpAfter);
+        poller.scheduleWithFixedDelay(this::pollSafely, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        poller.scheduleAtFixedRate(this::advanceWakeUps, WAKE_UP_TICK_MILLIS, WAKE_UP_TICK_MILLIS, TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::refreshMetrics, 0, 30, TimeUnit.SECONDS);
+    }
+    
+    public void stop() throws InterruptedException {
+        poller.shutdownNow();
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+    
+    // One tick late, so the database clock has reached the due time too
+    private void wakeUpAfter(long delayMillis) {
+        long tick = (System.currentTimeMillis() + delayMillis) / WAKE_UP_TICK_MILLIS + 1;
+        if (wakeUpTicks.add(tick) && !wakeUps.schedule(new UUID(0, tick), tick * WAKE_UP_TICK_MILLIS)) {
+            // Beyond the wheel's reach: left to the poll
+            wakeUpTicks.remove(tick);
+        }
+    }
+    
+    // Runs on the poller thread, so a wake-up never overlaps a poll
+    private void advanceWakeUps() {
+        int due = wakeUps.advance(System.currentTimeMillis(), id -> wakeUpTicks.remove(id.getLeastSignificantBits()));
+        if (due > 0) {
+            pollSafely();
+        }
+    }
+    
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (Exception e) {
+            log.error("Retry queue poll failed", e);
+        }
+    }
+    
+    private void poll() {
+        for (Map.Entry<String, RetryHandler> entry : handlers.entrySet()) {
+            while (true) {
+                int limit = Math.min(batchSize, permits.availablePermits());
+                if (limit == 0) {
+                    return;
+                }
+                List<RetryItem> claimed = retryQueue.claim(entry.getKey(), limit, leaseSeconds);
+                for (RetryItem item : claimed) {
+                    permits.acquireUninterruptibly();
+                    workers.execute(() -> process(entry.getValue(), item));
+                }
+                if (claimed.size() < limit) {
+                    break;
+                }
+            }
+        }
+    }
+    
+    private void process(RetryHandler handler, RetryItem item) {
+        try {
+            handler.handle(item);
+            retryQueue.complete(item);
+        } catch (Exception e) {
+            handleFailure(handler, item, e);
+        } finally {
+            permits.release();
+        }
+    }
+    
+    private void handleFailure(RetryHandler handler, RetryItem item, Exception error) {
+        try {
+            if (retryQueue.fail(item, error)) {
+                log.warn("Retry item {} on {} dead-lettered after {} attempts: {}", 
+                        item.getId(), item.getQueueName(), item.getAttempts(), error.getMessage());
+                handler.onDeadLetter(item, error);
+            }
+        } catch (Exception e) {
+            // The lease lapses and the item is claimed again
+            log.error("Failed to record retry failure for {} on {}", item.getId(), item.getQueueName(), e);
+        }
+    }
+    
+    private void refreshMetrics() {
+        for (String queueName : handlers.keySet()) {
+            try {
+                retryQueue.refreshMetrics(queueName);
+            } catch (Exception e) {
+                log.warn("Failed to refresh retry queue metrics for {}: {}", queueName, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ccpay.common.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+// Authenticates requests from the signed identity headers the api-gateway sets. Requests
+// without them, or with a bad signature, stay anonymous and fall through to the security
+// rules. Not a component: services add it to their filter chain.
+@Slf4j
+public class TrustedHeaderAuthenticationFilter extends OncePerRequestFilter {
+    
+    private final TrustedHeaders trustedHeaders;
+    
+    public TrustedHeaderAuthenticationFilter(TrustedHeaders trustedHeaders) {
+        this.trustedHeaders = trustedHeaders;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String userId = request.getHeader(TrustedHeaders.USER_ID);
+        if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String username = request.getHeader(TrustedHeaders.USERNAME);
+            String authorities = request.getHeader(TrustedHeaders.AUTHORITIES);
+            if (trustedHeaders.verify(userId, username, authorities, 
+                    request.getHeader(TrustedHeaders.EXPIRES), request.getHeader(TrustedHeaders.SIGNATURE))) {
+                authenticate(userId, username, authorities);
+            } else {
+                log.warn("Rejected unsigned or expired identity headers from {}", request.getRemoteAddr());
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+    
+    private void authenticate(String userId, String username, String authorities) {
+        UUID id;
+        try {
+            id = UUID.fromString(userId);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+        List<SimpleGrantedAuthority> granted = authorities == null || authorities.isEmpty() 
+                ? List.of() 
+                : Arrays.stream(authorities.split(",")).map(SimpleGrantedAuthority::new).toList();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(new TrustedPrincipal(id, username), null, granted));
+    }
+}
@@ -0,0 +1,7 @@
+package com.ccpay.common.security;
+
+import java.util.UUID;
+
+// Principal of a request authenticated from gateway headers
+public record TrustedPrincipal(UUID userId, String username) {
+}
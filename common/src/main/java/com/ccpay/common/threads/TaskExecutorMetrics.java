@@ -0,0 +1,107 @@
+package com.ccpay.common.threads;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.MDC;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Metrics for the @Async executors, all tagged with the executor's name: running tasks, queue
+// depth, how long tasks waited before starting and how long they ran, and how often a full
+// pool rejected work or ran it on the submitting thread instead. The submitter's MDC is carried
+// into the task, so logs written by async work keep the request's trace context.
+// Must be applied before the executor is initialized.
+public final class TaskExecutorMetrics {
+    
+    private TaskExecutorMetrics() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+    
+    public static void instrument(ThreadPoolTaskExecutor executor, String name,
+                                  RejectedExecutionHandler rejectionPolicy, MeterRegistry registry) {
+        executor.setTaskDecorator(new InstrumentingDecorator(name, registry));
+        executor.setRejectedExecutionHandler(new CountingRejectionHandler(name, rejectionPolicy, registry));
+        // Read on scrape, by which time the executor has been initialized
+        Gauge.builder("async.executor.queued", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .tag("executor", name).register(registry);
+        Gauge.builder("async.executor.pool.size", executor, ThreadPoolTaskExecutor::getPoolSize)
+                .tag("executor", name).register(registry);
+    }
+    
+    // A virtual-thread executor has no pool or queue; every task starts on its own thread
+    public static void instrument(SimpleAsyncTaskExecutor executor, String name, MeterRegistry registry) {
+        executor.setTaskDecorator(new InstrumentingDecorator(name, registry));
+    }
+    
+    private static final class InstrumentingDecorator implements TaskDecorator {
+        private final AtomicInteger active = new AtomicInteger();
+        private final Timer wait;
+        private final Timer run;
+        
+        private InstrumentingDecorator(String name, MeterRegistry registry) {
+            this.wait = Timer.builder("async.executor.wait").tag("executor", name)
+                    .publishPercentileHistogram().register(registry);
+            this.run = Timer.builder("async.executor.run").tag("executor", name)
+                    .publishPercentileHistogram().register(registry);
+            Gauge.builder("async.executor.active", active, AtomicInteger::get).tag("executor", name).register(registry);
+        }
+        
+        // Called on the submitting thread as the task is handed over
+        @Override
+        public Runnable decorate(Runnable task) {
+            long submitted = System.nanoTime();
+            Map<String, String> context = MDC.getCopyOfContextMap();
+            return () -> {
+                long started = System.nanoTime();
+                wait.record(started - submitted, TimeUnit.NANOSECONDS);
+                Map<String, String> previous = MDC.getCopyOfContextMap();
+                if (context != null) {
+                    MDC.setContextMap(context);
+                }
+                active.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    active.decrementAndGet();
+                    run.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    // Caller-runs executes on a request thread, whose own context must survive
+                    if (previous != null) {
+                        MDC.setContextMap(previous);
+                    } else {
+                        MDC.clear();
+                    }
+                }
+            };
+        }
+    }
+    
+    private static final class CountingRejectionHandler implements RejectedExecutionHandler {
+        private final RejectedExecutionHandler delegate;
+        private final Counter rejected;
+        private final Counter callerRuns;
+        
+        private CountingRejectionHandler(String name, RejectedExecutionHandler delegate, MeterRegistry registry) {
+            this.delegate = delegate;
+            this.rejected = Counter.builder("async.executor.rejected").tag("executor", name).register(registry);
+            this.callerRuns = Counter.builder("async.executor.caller.runs").tag("executor", name).register(registry);
+        }
+        
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor pool) {
+            rejected.increment();
+            if (delegate instanceof ThreadPoolExecutor.CallerRunsPolicy && !pool.isShutdown()) {
+                callerRuns.increment();
+            }
+            delegate.rejectedExecution(task, pool);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.ccpay.common.threads;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+// Virtual threads need Java 21 while the build still targets 17, so they are only reached
+// through Spring's executor support, which works when the service runs on 21 or later. The
+// switch is Spring Boot's own property, which also moves Tomcat's request threads over.
+public final class VirtualThreads {
+    
+    public static final String ENABLED_PROPERTY = "spring.threads.virtual.enabled";
+    
+    private VirtualThreads() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+    
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+    
+    // One new virtual thread per task; anything the tasks block on must be limited separately
+    public static SimpleAsyncTaskExecutor executor(String threadNamePrefix, long terminationTimeoutMillis) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        if (terminationTimeoutMillis > 0) {
+            executor.setTaskTerminationTimeout(terminationTimeoutMillis);
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,31 @@
+package com.ccpay.common.tracing;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+// Trace ids on Kafka records. Separate from TraceContext because Kafka is only on the classpath
+// of services that produce or consume events.
+public final class KafkaTraceHeaders {
+    
+    // Lower-case like the outbox relay's other record headers
+    public static final String HEADER = "trace-id";
+    
+    private KafkaTraceHeaders() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+    
+    public static void inject(Headers headers, String traceId) {
+        if (traceId != null) {
+            headers.remove(HEADER);
+            headers.add(HEADER, traceId.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    public static String extract(Headers headers) {
+        Header header = headers.lastHeader(HEADER);
+        return header != null && header.value() != null
+                ? TraceContext.sanitize(new String(header.value(), StandardCharsets.UTF_8)) : null;
+    }
+}
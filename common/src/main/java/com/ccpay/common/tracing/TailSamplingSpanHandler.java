@@ -0,0 +1,264 @@
+package com.ccpay.common.tracing;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import com.ccpay.common.utils.RecentKeySet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.util.AntPathMatcher;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Tail-based sampling in front of the span reporters. Every request is recorded (the head
+// sampler stays at 1.0), but spans are held per local root until the root span ends, and only
+// then is the trace kept or dropped: always kept if any span failed or the root exceeded its
+// endpoint's latency threshold, otherwise kept at baselineRate up to baselinePerSecond. Kept
+// spans go to the other SpanHandlers (the Zipkin reporter); this handler is ordered first and
+// stops every span from reaching them directly. Memory is bounded by maxPendingTraces and
+// maxSpansPerTrace; traces that do not fit are decided span by span, keeping only failures.
+// Spans ending after their root follow its decision. Each service decides on its own spans,
+// so a trace can be kept on one side of a call and dropped on the other. Traces whose root
+// never ends (an abandoned span, a missed finish) are evicted after maxTraceAge.
+public class TailSamplingSpanHandler extends SpanHandler {
+    
+    // Request trace id (TraceContext) on local root spans, to find a trace from X-Trace-Id
+    public static final String REQUEST_TRACE_ID_TAG = "request.trace_id";
+    
+    private final Supplier<List<SpanHandler>> downstream;
+    private final double baselineRate;
+    private final int baselinePerSecond;
+    private final long defaultThresholdMicros;
+    private final Map<String, Long> thresholdMicros;
+    private final int maxPendingTraces;
+    private final int maxSpansPerTrace;
+    private final long maxTraceAgeNanos;
+    private final Map<Long, PendingTrace> pending = new ConcurrentHashMap<>();
+    private final RecentKeySet kept = new RecentKeySet(Duration.ofMinutes(1), 100_000);
+    private final RecentKeySet decided = new RecentKeySet(Duration.ofMinutes(1), 100_000);
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final AtomicLong baselineSecond = new AtomicLong();
+    private final AtomicLong baselineCount = new AtomicLong();
+    private final Counter keptError;
+    private final Counter keptSlow;
+    private final Counter keptBaseline;
+    private final Counter dropped;
+    private final Counter overflow;
+    private final ScheduledExecutorService sweeper;
+    private volatile List<SpanHandler> handlers;
+    
+    public TailSamplingSpanHandler(Supplier<List<SpanHandler>> downstream, double baselineRate, int baselinePerSecond,
+                                   Duration defaultThreshold, Map<String, Duration> endpointThresholds,
+                                   int maxPendingTraces, int maxSpansPerTrace, Duration maxTraceAge,
+                                   MeterRegistry meterRegistry) {
+        this.downstream = downstream;
+        this.baselineRate = baselineRate;
+        this.baselinePerSecond = baselinePerSecond;
+        this.defaultThresholdMicros = defaultThreshold.toNanos() / 1000;
+        this.thresholdMicros = new LinkedHashMap<>();
+        endpointThresholds.forEach((pattern, threshold) -> thresholdMicros.put(pattern, threshold.toNanos() / 1000));
+        this.maxPendingTraces = maxPendingTraces;
+        this.maxSpansPerTrace = maxSpansPerTrace;
+        this.maxTraceAgeNanos = maxTraceAge.toNanos();
+        this.keptError = decision(meterRegistry, "error");
+        this.keptSlow = decision(meterRegistry, "slow");
+        this.keptBaseline = decision(meterRegistry, "baseline");
+        this.dropped = decision(meterRegistry, "dropped");
+        this.overflow = decision(meterRegistry, "overflow");
+        Gauge.builder("tracing.tail.pending.traces", pending, Map::size).register(meterRegistry);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tail-sampling-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public void start() {
+        long interval = Math.max(maxTraceAgeNanos / 2, TimeUnit.SECONDS.toNanos(1));
+        sweeper.scheduleWithFixedDelay(this::evictStale, interval, interval, TimeUnit.NANOSECONDS);
+    }
+    
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+    
+    @Override
+    public boolean begin(TraceContext context, MutableSpan span, TraceContext parent) {
+        if (context.isLocalRoot()) {
+            String requestTraceId = com.ccpay.common.tracing.TraceContext.current();
+            if (requestTraceId != null) {
+                span.tag(REQUEST_TRACE_ID_TAG, requestTraceId);
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (cause == Cause.ABANDONED) {
+            return false;
+        }
+        String rootKey = Long.toHexString(context.localRootId());
+        if (decided.contains(rootKey)) {
+            // Late span of a trace already decided
+            if (kept.contains(rootKey)) {
+                forward(context, span, cause);
+            }
+            return false;
+        }
+        
+        PendingTrace trace = pending.get(context.localRootId());
+        if (trace == null && !context.isLocalRoot()) {
+            if (pending.size() >= maxPendingTraces) {
+                decideAlone(context, span, cause);
+                return false;
+            }
+            trace = pending.computeIfAbsent(context.localRootId(), id -> new PendingTrace());
+        }
+        if (trace != null && !context.isLocalRoot()) {
+            if (!trace.add(context, span, cause, maxSpansPerTrace, failed(span))) {
+                decideAlone(context, span, cause);
+            }
+            return false;
+        }
+        
+        // The local root ended: decide for the whole trace
+        PendingTrace finished = pending.remove(context.localRootId());
+        List<BufferedSpan> spans = finished != null ? finished.drain() : List.of();
+        boolean keep = keep(span, finished != null && finished.failed);
+        decided.add(rootKey);
+        if (keep) {
+            kept.add(rootKey);
+            for (BufferedSpan buffered : spans) {
+                forward(buffered.context(), buffered.span(), buffered.cause());
+            }
+            forward(context, span, cause);
+        }
+        return false;
+    }
+    
+    // Spans of an evicted trace are dropped with it, unless one of them failed
+    private void evictStale() {
+        long now = System.nanoTime();
+        pending.forEach((rootId, trace) -> {
+            if (now - trace.createdAt > maxTraceAgeNanos && pending.remove(rootId, trace)) {
+                overflow.increment();
+                if (trace.failed) {
+                    for (BufferedSpan buffered : trace.drain()) {
+                        forward(buffered.context(), buffered.span(), buffered.cause());
+                    }
+                }
+            }
+        });
+    }
+    
+    private boolean keep(MutableSpan root, boolean childFailed) {
+        if (childFailed || failed(root)) {
+            keptError.increment();
+            return true;
+        }
+        long durationMicros = root.finishTimestamp() - root.startTimestamp();
+        if (durationMicros > threshold(root)) {
+            keptSlow.increment();
+            return true;
+        }
+        if (ThreadLocalRandom.current().nextDouble() < baselineRate && withinBaselineBudget()) {
+            keptBaseline.increment();
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+    
+    // No trace to wait for: only failures are worth a partial trace
+    private void decideAlone(TraceContext context, MutableSpan span, Cause cause) {
+        overflow.increment();
+        if (failed(span)) {
+            forward(context, span, cause);
+        }
+    }
+    
+    private long threshold(MutableSpan root) {
+        String uri = root.tag("uri");
+        if (uri != null) {
+            for (Map.Entry<String, Long> entry : thresholdMicros.entrySet()) {
+                if (pathMatcher.match(entry.getKey(), uri)) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return defaultThresholdMicros;
+    }
+    
+    private boolean withinBaselineBudget() {
+        long second = System.nanoTime() / 1_000_000_000L;
+        long current = baselineSecond.get();
+        if (current != second && baselineSecond.compareAndSet(current, second)) {
+            baselineCount.set(0);
+        }
+        return baselineCount.incrementAndGet() <= baselinePerSecond;
+    }
+    
+    private static boolean failed(MutableSpan span) {
+        if (span.error() != null || span.tag("error") != null) {
+            return true;
+        }
+        String outcome = span.tag("outcome");
+        return "SERVER_ERROR".equals(outcome);
+    }
+    
+    private void forward(TraceContext context, MutableSpan span, Cause cause) {
+        List<SpanHandler> targets = handlers;
+        if (targets == null) {
+            // Resolved on first use: the reporters are created after this handler
+            targets = downstream.get().stream().filter(handler -> handler != this).toList();
+            handlers = targets;
+        }
+        for (SpanHandler handler : targets) {
+            if (!handler.end(context, span, cause)) {
+                return;
+            }
+        }
+    }
+    
+    private static Counter decision(MeterRegistry registry, String result) {
+        return Counter.builder("tracing.tail.decisions").tag("result", result).register(registry);
+    }
+    
+    private record BufferedSpan(TraceContext context, MutableSpan span, Cause cause) {
+    }
+    
+    private static final class PendingTrace {
+        private final long createdAt = System.nanoTime();
+        private final List<BufferedSpan> spans = new ArrayList<>();
+        private volatile boolean failed;
+        
+        private synchronized boolean add(TraceContext context, MutableSpan span, Cause cause,
+                                         int maxSpans, boolean spanFailed) {
+            if (spanFailed) {
+                failed = true;
+            }
+            if (spans.size() >= maxSpans) {
+                return false;
+            }
+            spans.add(new BufferedSpan(context, span, cause));
+            return true;
+        }
+        
+        private synchronized List<BufferedSpan> drain() {
+            return new ArrayList<>(spans);
+        }
+    }
+}
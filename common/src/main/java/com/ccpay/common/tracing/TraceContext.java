@@ -0,0 +1,88 @@
+package com.ccpay.common.tracing;
+
+import com.ccpay.common.constants.ApplicationConstants;
+import org.slf4j.MDC;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+// One trace id per request, kept in the MDC under "traceId" so every log line carries it and
+// TaskExecutorMetrics copies it into @Async tasks. Ids arrive in X-Trace-Id, or a W3C
+// traceparent from instrumented clients, and leave in response and Kafka headers (see
+// KafkaTraceHeaders). New ids are 32 hex characters from ThreadLocalRandom: unique enough for
+// correlation and far cheaper than UUID.randomUUID's SecureRandom.
+public final class TraceContext {
+    
+    public static final String HEADER = ApplicationConstants.TRACE_ID_HEADER;
+    public static final String TRACEPARENT_HEADER = "traceparent";
+    public static final String MDC_KEY = "traceId";
+    
+    private static final int MAX_LENGTH = 64;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    private TraceContext() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+    
+    public static String current() {
+        return MDC.get(MDC_KEY);
+    }
+    
+    public static String currentOrNew() {
+        String traceId = current();
+        return traceId != null ? traceId : newTraceId();
+    }
+    
+    public static void set(String traceId) {
+        MDC.put(MDC_KEY, traceId);
+    }
+    
+    public static void clear() {
+        MDC.remove(MDC_KEY);
+    }
+    
+    public static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] id = new char[32];
+        writeHex(id, 0, random.nextLong());
+        writeHex(id, 16, random.nextLong());
+        return new String(id);
+    }
+    
+    // Returns the incoming id if it is safe to log and echo, otherwise null
+    public static String sanitize(String traceId) {
+        if (traceId == null || traceId.isEmpty() || traceId.length() > MAX_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < traceId.length(); i++) {
+            char c = traceId.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '-' || c == '_')) {
+                return null;
+            }
+        }
+        return traceId;
+    }
+    
+    // version-traceid-parentid-flags; only the trace id is kept
+    public static String fromTraceparent(String traceparent) {
+        if (traceparent == null) {
+            return null;
+        }
+        String[] parts = traceparent.split("-");
+        return parts.length == 4 && parts[1].length() == 32 ? sanitize(parts[1]) : null;
+    }
+    
+    public static String resolve(String traceIdHeader, String traceparentHeader) {
+        String traceId = sanitize(traceIdHeader);
+        if (traceId == null) {
+            traceId = fromTraceparent(traceparentHeader);
+        }
+        return traceId != null ? traceId : newTraceId();
+    }
+    
+    private static void writeHex(char[] target, int offset, long value) {
+        for (int i = 15; i >= 0; i--) {
+            target[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
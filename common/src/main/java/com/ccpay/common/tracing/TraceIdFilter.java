@@ -0,0 +1,45 @@
+package com.ccpay.common.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// First filter on every request: adopts the caller's trace id or creates one, puts it in the
+// MDC for the request's lifetime and returns it in X-Trace-Id. Async dispatches run on other
+// threads, so the id is kept on the request and restored for them.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TraceIdFilter extends OncePerRequestFilter {
+    
+    private static final String ATTRIBUTE = TraceIdFilter.class.getName() + ".traceId";
+    
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String traceId = (String) request.getAttribute(ATTRIBUTE);
+        if (traceId == null) {
+            traceId = TraceContext.resolve(request.getHeader(TraceContext.HEADER),
+                    request.getHeader(TraceContext.TRACEPARENT_HEADER));
+            request.setAttribute(ATTRIBUTE, traceId);
+            response.setHeader(TraceContext.HEADER, traceId);
+        }
+        TraceContext.set(traceId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            TraceContext.clear();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ccpay.common.utils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lets through the first few log lines per key in each window and counts the rest, so a flood
+// of one kind of event costs a counter increment instead of a log line. Keys should come from a
+// small fixed set, such as error codes.
+public class LogSampler {
+    
+    private final long windowNanos;
+    private final int linesPerWindow;
+    private final Map<String, KeyWindow> windows = new ConcurrentHashMap<>();
+    
+    public LogSampler(Duration window, int linesPerWindow) {
+        this.windowNanos = window.toNanos();
+        this.linesPerWindow = linesPerWindow;
+    }
+    
+    // Returns -1 if the line should be dropped, otherwise how many were dropped since the last one
+    public long tryLog(String key) {
+        KeyWindow window = windows.computeIfAbsent(key, k -> new KeyWindow());
+        long now = System.nanoTime();
+        // Lock-free while the window's lines are used up, which is the flood case
+        if (now - window.startedAt < windowNanos && window.logged >= linesPerWindow) {
+            window.suppressed.increment();
+            return -1;
+        }
+        synchronized (window) {
+            if (now - window.startedAt >= windowNanos) {
+                window.startedAt = now;
+                window.logged = 0;
+            }
+            if (window.logged < linesPerWindow) {
+                window.logged++;
+                return window.suppressed.sumThenReset();
+            }
+        }
+        window.suppressed.increment();
+        return -1;
+    }
+    
+    private static final class KeyWindow {
+        private final LongAdder suppressed = new LongAdder();
+        private volatile long startedAt = System.nanoTime();
+        private volatile int logged;
+    }
+}
@@ -0,0 +1,30 @@
+package com.ccpay.common.utils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Parses per-endpoint settings written as "pattern=value" list entries, keeping their order so
+// callers can apply the first pattern that matches.
+public final class PatternValues {
+    
+    private PatternValues() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+    
+    public static <T> Map<String, T> parse(List<String> entries, Function<String, T> valueParser) {
+        Map<String, T> values = new LinkedHashMap<>();
+        for (String entry : entries) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected pattern=value: " + entry);
+            }
+            values.put(entry.substring(0, separator).trim(), valueParser.apply(entry.substring(separator + 1).trim()));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,59 @@
+package com.ccpay.common.utils;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Approximate "seen recently" set: two generations rotated every window, so entries live
+// between one and two windows and memory is bounded by the write rate, not total history
+public class RecentKeySet {
+    
+    private final long windowNanos;
+    private final int maxEntriesPerGeneration;
+    private volatile Set<String> current = ConcurrentHashMap.newKeySet();
+    private volatile Set<String> previous = ConcurrentHashMap.newKeySet();
+    private volatile long rotatedAt = System.nanoTime();
+    
+    public RecentKeySet(Duration window, int maxEntriesPerGeneration) {
+        this.windowNanos = window.toNanos();
+        this.maxEntriesPerGeneration = maxEntriesPerGeneration;
+    }
+    
+    public boolean contains(String key) {
+        rotateIfNeeded();
+        return current.contains(key) || previous.contains(key);
+    }
+    
+    public void add(String key) {
+        rotateIfNeeded();
+        current.add(key);
+    }
+    
+    // Returns true if the key was not already present
+    public boolean addIfAbsent(String key) {
+        rotateIfNeeded();
+        return !previous.contains(key) && current.add(key);
+    }
+    
+    public void remove(String key) {
+        current.remove(key);
+        previous.remove(key);
+    }
+    
+    public int size() {
+        return current.size() + previous.size();
+    }
+    
+    private void rotateIfNeeded() {
+        long now = System.nanoTime();
+        if (now - rotatedAt >= windowNanos || current.size() >= maxEntriesPerGeneration) {
+            synchronized (this) {
+                if (now - rotatedAt >= windowNanos || current.size() >= maxEntriesPerGeneration) {
+                    previous = current;
+                    current = ConcurrentHashMap.newKeySet();
+                    rotatedAt = now;
+                }
+            }
+        }
+    }
+}
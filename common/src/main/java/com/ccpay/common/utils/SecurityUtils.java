@@ -1,5 +1,6 @@
 package com.ccpay.common.utils;
 
+import com.ccpay.common.security.TrustedPrincipal;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -27,6 +28,8 @@ public class SecurityUtils {
         Object principal = authentication.getPrincipal();
         if (principal instanceof UserDetails) {
             return Optional.of(((UserDetails) principal).getUsername());
+        } else if (principal instanceof TrustedPrincipal) {
+            return Optional.of(((TrustedPrincipal) principal).username());
         } else if (principal instanceof String) {
             return Optional.of((String) principal);
         }
@@ -40,8 +43,10 @@ public class SecurityUtils {
             return Optional.empty();
         }
         
-        // Assuming the principal contains user ID information
-        // This needs to be implemented based on your UserDetails implementation
+        // Set by TrustedHeaderAuthenticationFilter from the gateway's identity headers
+        if (authentication.getPrincipal() instanceof TrustedPrincipal) {
+            return Optional.of(((TrustedPrincipal) authentication.getPrincipal()).userId());
+        }
         return Optional.empty();
     }
     
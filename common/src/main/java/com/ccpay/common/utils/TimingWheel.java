@@ -0,0 +1,171 @@
+package com.ccpay.common.utils;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Hierarchical timing wheel keyed by UUID. Entries live in parallel primitive arrays linked
+// through next[], so a scheduled item costs 28 bytes and no object; millions fit comfortably.
+// Each level has 64 buckets and each bucket of level n spans 64^n ticks; items are cascaded
+// down a level when the wheel reaches their bucket. Not meant for cancellation: callers are
+// expected to re-validate fired ids against the source of truth.
+public class TimingWheel {
+    
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int NIL = -1;
+    
+    private final long tickMillis;
+    private final int levels;
+    private final int[] heads;
+    private long[] mostSigBits;
+    private long[] leastSigBits;
+    private long[] deadlines;
+    private int[] next;
+    private int freeHead = NIL;
+    private int allocated;
+    private int expiredHead = NIL;
+    private int size;
+    private long currentTick;
+    
+    public TimingWheel(long tickMillis, int levels, int initialCapacity, long startMillis) {
+        if (tickMillis <= 0 || levels <= 0 || levels * WHEEL_BITS >= 63) {
+            throw new IllegalArgumentException("Invalid timing wheel geometry");
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.heads = new int[levels * WHEEL_SIZE];
+        Arrays.fill(heads, NIL);
+        int capacity = Math.max(initialCapacity, 16);
+        this.mostSigBits = new long[capacity];
+        this.leastSigBits = new long[capacity];
+        this.deadlines = new long[capacity];
+        this.next = new int[capacity];
+        this.currentTick = startMillis / tickMillis;
+    }
+    
+    // Deadlines up to this far ahead of the wheel's current time are always accepted
+    public long horizonMillis() {
+        return (WHEEL_SIZE - 1L) * (1L << ((levels - 1) * WHEEL_BITS)) * tickMillis;
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+    
+    // Returns false if the deadline lies beyond the horizon; the caller keeps it elsewhere
+    public synchronized boolean schedule(UUID id, long deadlineMillis) {
+        long deadlineTick = deadlineMillis / tickMillis;
+        int topShift = (levels - 1) * WHEEL_BITS;
+        if ((deadlineTick >>> topShift) - (currentTick >>> topShift) >= WHEEL_SIZE) {
+            return false;
+        }
+        int entry = allocate();
+        mostSigBits[entry] = id.getMostSignificantBits();
+        leastSigBits[entry] = id.getLeastSignificantBits();
+        deadlines[entry] = deadlineMillis;
+        place(entry, deadlineTick);
+        size++;
+        return true;
+    }
+    
+    // Fires every entry whose tick has been reached, in tick order; the callback runs under the
+    // wheel's lock, so it should only hand ids off
+    public synchronized int advance(long nowMillis, Consumer<UUID> onExpired) {
+        int fired = drainExpired(onExpired);
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = levels - 1; level > 0; level--) {
+                long levelTicks = currentTick >>> (level * WHEEL_BITS);
+                if ((levelTicks << (level * WHEEL_BITS)) == currentTick) {
+                    cascade(level * WHEEL_SIZE + (int) (levelTicks & WHEEL_MASK));
+                }
+            }
+            fired += fireBucket((int) (currentTick & WHEEL_MASK), onExpired);
+            // Cascaded entries due on this very tick land on the expired list
+            fired += drainExpired(onExpired);
+        }
+        return fired;
+    }
+    
+    private void place(int entry, long deadlineTick) {
+        if (deadlineTick <= currentTick) {
+            next[entry] = expiredHead;
+            expiredHead = entry;
+            return;
+        }
+        for (int level = 0; level < levels; level++) {
+            int shift = level * WHEEL_BITS;
+            long distance = (deadlineTick >>> shift) - (currentTick >>> shift);
+            if (distance < WHEEL_SIZE) {
+                int bucket = level * WHEEL_SIZE + (int) ((deadlineTick >>> shift) & WHEEL_MASK);
+                next[entry] = heads[bucket];
+                heads[bucket] = entry;
+                return;
+            }
+        }
+        throw new IllegalStateException("Deadline beyond timing wheel horizon");
+    }
+    
+    private void cascade(int bucket) {
+        int entry = heads[bucket];
+        heads[bucket] = NIL;
+        while (entry != NIL) {
+            int following = next[entry];
+            place(entry, deadlines[entry] / tickMillis);
+            entry = following;
+        }
+    }
+    
+    private int fireBucket(int bucket, Consumer<UUID> onExpired) {
+        int entry = heads[bucket];
+        heads[bucket] = NIL;
+        int fired = 0;
+        while (entry != NIL) {
+            int following = next[entry];
+            fire(entry, onExpired);
+            entry = following;
+            fired++;
+        }
+        return fired;
+    }
+    
+    private int drainExpired(Consumer<UUID> onExpired) {
+        int entry = expiredHead;
+        expiredHead = NIL;
+        int fired = 0;
+        while (entry != NIL) {
+            int following = next[entry];
+            fire(entry, onExpired);
+            entry = following;
+            fired++;
+        }
+        return fired;
+    }
+    
+    private void fire(int entry, Consumer<UUID> onExpired) {
+        UUID id = new UUID(mostSigBits[entry], leastSigBits[entry]);
+        next[entry] = freeHead;
+        freeHead = entry;
+        size--;
+        onExpired.accept(id);
+    }
+    
+    private int allocate() {
+        if (freeHead != NIL) {
+            int entry = freeHead;
+            freeHead = next[entry];
+            return entry;
+        }
+        if (allocated == next.length) {
+            int capacity = next.length + (next.length >> 1);
+            mostSigBits = Arrays.copyOf(mostSigBits, capacity);
+            leastSigBits = Arrays.copyOf(leastSigBits, capacity);
+            deadlines = Arrays.copyOf(deadlines, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        return allocated++;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ccpay.wallet;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@SpringBootApplication(scanBasePackages = {"com.ccpay.wallet", "com.ccpay.common"})
+@EnableJpaRepositories
+@EntityScan(basePackages = {"com.ccpay.wallet.entity", "com.ccpay.common.audit"})
+@EnableJpaAuditing
+@EnableCaching
+@EnableAsync
+@EnableScheduling
+public class WalletServiceApplication {
+    
+    public static void main(String[] args) {
+        SpringApplication.run(WalletServiceApplication.class, args);
+    }
+}
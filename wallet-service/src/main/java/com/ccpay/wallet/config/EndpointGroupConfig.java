@@ -0,0 +1,16 @@
+package com.ccpay.wallet.config;
+
+import com.ccpay.common.limit.EndpointGroup;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Card networks retry unacknowledged webhooks with growing delays, so they keep a
+// guaranteed share; everything else is in the default group.
+@Configuration
+public class EndpointGroupConfig {
+    
+    @Bean
+    public EndpointGroup webhookEndpointGroup() {
+        return EndpointGroup.of("webhooks", 0.5, "/api/v1/webhooks/**");
+    }
+}
@@ -0,0 +1,29 @@
+package com.ccpay.wallet.config;
+
+import com.ccpay.common.eventbus.EventBus;
+import com.ccpay.common.outbox.OutboxRelay;
+import com.ccpay.common.outbox.OutboxWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class OutboxConfig {
+    
+    @Bean
+    public OutboxWriter outboxWriter(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        return new OutboxWriter(jdbcTemplate, objectMapper);
+    }
+    
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public OutboxRelay outboxRelay(DataSource dataSource, EventBus eventBus, MeterRegistry meterRegistry,
+                                   @Value("${app.outbox.batch-size:500}") int batchSize,
+                                   @Value("${app.outbox.max-wait-millis:5000}") long maxWaitMillis) {
+        return new OutboxRelay(dataSource, eventBus, meterRegistry, batchSize, maxWaitMillis);
+    }
+}
@@ -0,0 +1,61 @@
+package com.ccpay.wallet.config;
+
+import com.ccpay.common.constants.ErrorCodes;
+import com.ccpay.common.exceptions.BusinessException;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// One circuit breaker and one bulkhead per card payment provider, created on first use
+@Configuration
+public class ResilienceConfig {
+    
+    @Bean
+    public CircuitBreakerRegistry paymentProviderCircuitBreakers(
+            MeterRegistry meterRegistry,
+            @Value("${app.bill-payment.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${app.bill-payment.circuit-breaker.slow-call-millis:3000}") long slowCallMillis,
+            @Value("${app.bill-payment.circuit-breaker.window-size:50}") int windowSize,
+            @Value("${app.bill-payment.circuit-breaker.open-seconds:30}") long openSeconds) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallMillis))
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(windowSize)
+                .minimumNumberOfCalls(Math.max(windowSize / 2, 1))
+                .waitDurationInOpenState(Duration.ofSeconds(openSeconds))
+                .permittedNumberOfCallsInHalfOpenState(5)
+                // A declined card says nothing about the provider's health
+                .recordException(e -> !(e instanceof BusinessException be 
+                        && ErrorCodes.TRANSFER_FAILED.equals(be.getErrorCode())))
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+    
+    @Bean
+    public BulkheadRegistry paymentProviderBulkheads(
+            MeterRegistry meterRegistry,
+            @Value("${app.bill-payment.bulkhead.max-concurrent-calls:20}") int maxConcurrentCalls) {
+        // No waiting: a full bulkhead hands the payment back for a delayed retry instead of
+        // parking a pay-stage worker that other providers could use
+        BulkheadConfig config = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ZERO)
+                .build();
+        BulkheadRegistry registry = BulkheadRegistry.of(config);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+}
@@ -0,0 +1,29 @@
+package com.ccpay.wallet.config;
+
+import com.ccpay.common.retry.RetryQueue;
+import com.ccpay.common.retry.RetryQueueWorker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+public class RetryQueueConfig {
+    
+    @Bean
+    public RetryQueue retryQueue(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                                 @Value("${app.retry-queue.bucket-seconds:1}") long bucketSeconds,
+                                 @Value("${app.retry-queue.max-attempts:3}") int maxAttempts) {
+        return new RetryQueue(jdbcTemplate, meterRegistry, bucketSeconds, maxAttempts);
+    }
+    
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public RetryQueueWorker retryQueueWorker(RetryQueue retryQueue,
+                                             @Value("${app.retry-queue.concurrency:16}") int concurrency,
+                                             @Value("${app.retry-queue.batch-size:100}") int batchSize,
+                                             @Value("${app.retry-queue.lease-seconds:120}") long leaseSeconds,
+                                             @Value("${app.retry-queue.poll-interval-millis:500}") long pollIntervalMillis) {
+        return new RetryQueueWorker(retryQueue, concurrency, batchSize, leaseSeconds, pollIntervalMillis);
+    }
+}
@@ -0,0 +1,38 @@
+package com.ccpay.wallet.config;
+
+import com.ccpay.common.security.TrustedHeaderAuthenticationFilter;
+import com.ccpay.common.security.TrustedHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+@Configuration
+@EnableWebSecurity
+public class SecurityConfig {
+    
+    @Value("${app.gateway.trusted-header-secret}")
+    private String trustedHeaderSecret;
+    
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+        return http
+            .csrf(csrf -> csrf.disable())
+            // The api-gateway has already verified the access token; trust its signed identity headers
+            .addFilterBefore(new TrustedHeaderAuthenticationFilter(new TrustedHeaders(trustedHeaderSecret)),
+                UsernamePasswordAuthenticationFilter.class)
+            .sessionManagement(session -> 
+                session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .authorizeHttpRequests(auth -> auth
+                // Webhooks authenticate with an HMAC signature instead of a user token
+                .requestMatchers("/api/v1/webhooks/**").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+                .anyRequest().authenticated()
+            )
+            .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.ccpay.wallet.controller;
+
+import com.ccpay.common.constants.ErrorCodes;
+import com.ccpay.common.dto.ApiResponse;
+import com.ccpay.common.exceptions.BusinessException;
+import com.ccpay.common.exceptions.UnauthorizedException;
+import com.ccpay.common.exceptions.ValidationException;
+import com.ccpay.wallet.dto.CardTransactionWebhook;
+import com.ccpay.wallet.dto.WebhookAckResponse;
+import com.ccpay.wallet.security.WebhookSignatureVerifier;
+import com.ccpay.wallet.service.CardTransactionIngestionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@RestController
+@RequestMapping("/api/v1/webhooks")
+@RequiredArgsConstructor
+public class CardTransactionWebhookController {
+    
+    public static final String SIGNATURE_HEADER = "X-Webhook-Signature";
+    public static final String TIMESTAMP_HEADER = "X-Webhook-Timestamp";
+    
+    private final WebhookSignatureVerifier signatureVerifier;
+    private final CardTransactionIngestionService ingestionService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    
+    // The raw body is needed for signature verification, so it is parsed here rather than bound
+    @PostMapping("/card-transactions")
+    public CompletableFuture<ResponseEntity<ApiResponse<WebhookAckResponse>>> receiveCardTransaction(
+            @RequestHeader(value = TIMESTAMP_HEADER, required = false) String timestamp,
+            @RequestHeader(value = SIGNATURE_HEADER, required = false) String signature,
+            @RequestBody byte[] body) {
+        if (!signatureVerifier.verify(timestamp, signature, body)) {
+            throw new UnauthorizedException(ErrorCodes.INVALID_CREDENTIALS, "Invalid webhook signature");
+        }
+        
+        CardTransactionWebhook transaction = parse(body);
+        
+        return ingestionService.submit(transaction)
+                .thenApply(ack -> ResponseEntity
+                        .status(WebhookAckResponse.STATUS_ACCEPTED.equals(ack.getStatus()) 
+                                ? HttpStatus.ACCEPTED : HttpStatus.OK)
+                        .body(ApiResponse.success(ack)))
+                .exceptionally(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof BusinessException) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header("Retry-After", "1")
+                                .body(ApiResponse.error(ErrorCodes.SERVICE_UNAVAILABLE, cause.getMessage()));
+                    }
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .body(ApiResponse.error(ErrorCodes.DATABASE_ERROR, "Failed to store card transaction"));
+                });
+    }
+    
+    private CardTransactionWebhook parse(byte[] body) {
+        CardTransactionWebhook transaction;
+        try {
+            transaction = objectMapper.readValue(body, CardTransactionWebhook.class);
+        } catch (IOException e) {
+            throw new ValidationException(ErrorCodes.INVALID_REQUEST_FORMAT, "Malformed card transaction payload");
+        }
+        
+        Set<ConstraintViolation<CardTransactionWebhook>> violations = validator.validate(transaction);
+        if (!violations.isEmpty()) {
+            ValidationException exception = new ValidationException(ErrorCodes.VALIDATION_FAILED, 
+                    "Invalid card transaction payload");
+            violations.forEach(v -> exception.addFieldError(v.getPropertyPath().toString(), v.getMessage()));
+            throw exception;
+        }
+        return transaction;
+    }
+}
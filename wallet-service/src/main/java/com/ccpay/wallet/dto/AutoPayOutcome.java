@@ -0,0 +1,21 @@
+package com.ccpay.wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutoPayOutcome {
+    private UUID ruleId;
+    private LocalDateTime nextExecutionAt;
+    private LocalDateTime executedAt;
+    private LocalDateTime originalDueAt;
+    private int failureCount;
+}
@@ -0,0 +1,41 @@
+package com.ccpay.wallet.dto;
+
+import com.ccpay.wallet.entity.enums.AutoPayAmountType;
+import com.ccpay.wallet.entity.enums.AutoPayFrequency;
+import com.ccpay.wallet.entity.enums.AutoPayRuleType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutoPayRuleSnapshot {
+    private UUID ruleId;
+    private UUID userId;
+    private UUID cardId;
+    private UUID bankAccountId;
+    private AutoPayRuleType ruleType;
+    private AutoPayFrequency frequency;
+    private AutoPayAmountType amountType;
+    private BigDecimal fixedAmount;
+    private BigDecimal percentageAmount;
+    private BigDecimal maxAmount;
+    private BigDecimal minAmount;
+    private Integer triggerDay;
+    private LocalDateTime startDate;
+    private LocalDateTime nextExecutionAt;
+    private LocalDateTime originalDueAt;
+    private int failureCount;
+    
+    // The schedule slot being executed; retries keep pointing at the slot that first failed
+    public LocalDateTime getDueAt() {
+        return originalDueAt != null ? originalDueAt : nextExecutionAt;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ccpay.wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillPayment {
+    private UUID transactionId;
+    private UUID userId;
+    private UUID walletId;
+    private UUID cardId;
+    private BigDecimal amount;
+    private String currency;
+    private String referenceNumber;
+    private String provider;
+    private boolean fundsReserved;
+}
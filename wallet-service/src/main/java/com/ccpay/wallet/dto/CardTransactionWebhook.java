@@ -0,0 +1,43 @@
+package com.ccpay.wallet.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardTransactionWebhook {
+    
+    @NotBlank(message = "External transaction ID is required")
+    private String externalTransactionId;
+    
+    @NotNull(message = "Card ID is required")
+    private UUID cardId;
+    
+    @NotNull(message = "User ID is required")
+    private UUID userId;
+    
+    @NotNull(message = "Amount is required")
+    private BigDecimal amount;
+    
+    private String merchantName;
+    
+    private String merchantCategory;
+    
+    @NotNull(message = "Transaction date is required")
+    private LocalDateTime transactionDate;
+    
+    private LocalDateTime postedDate;
+    
+    @Builder.Default
+    private boolean pending = true;
+}
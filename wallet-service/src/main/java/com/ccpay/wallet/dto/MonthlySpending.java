@@ -0,0 +1,22 @@
+package com.ccpay.wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlySpending {
+    private UUID userId;
+    private LocalDate month;
+    private String category;
+    private BigDecimal totalSpent;
+    private long transactionCount;
+}
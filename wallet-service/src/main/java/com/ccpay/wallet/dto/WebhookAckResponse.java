@@ -0,0 +1,19 @@
+package com.ccpay.wallet.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookAckResponse {
+    
+    public static final String STATUS_ACCEPTED = "ACCEPTED";
+    public static final String STATUS_DUPLICATE = "DUPLICATE";
+    
+    private String externalTransactionId;
+    private String status;
+}
@@ -0,0 +1,48 @@
+package com.ccpay.wallet.entity;
+
+import com.ccpay.common.audit.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.UUID;
+
+@Entity
+@Table(name = "reconciliation_checkpoints")
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationCheckpoint extends BaseEntity {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "checkpoint_id")
+    private UUID checkpointId;
+    
+    @Column(name = "run_id", nullable = false)
+    private UUID runId;
+    
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+    
+    @Column(name = "range_start", nullable = false)
+    private UUID rangeStart;
+    
+    @Column(name = "range_end", nullable = false)
+    private UUID rangeEnd;
+    
+    @Column(name = "last_wallet_id")
+    private UUID lastWalletId;
+    
+    @Column(name = "wallets_checked")
+    @Builder.Default
+    private long walletsChecked = 0;
+    
+    @Column(name = "discrepancy_count")
+    @Builder.Default
+    private long discrepancyCount = 0;
+    
+    @Builder.Default
+    private boolean completed = false;
+}
@@ -0,0 +1,52 @@
+package com.ccpay.wallet.entity;
+
+import com.ccpay.common.audit.BaseEntity;
+import com.ccpay.wallet.entity.enums.ReconciliationStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "reconciliation_runs")
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReconciliationRun extends BaseEntity {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "run_id")
+    private UUID runId;
+    
+    @Column(name = "business_date", nullable = false, unique = true)
+    private LocalDate businessDate;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReconciliationStatus status;
+    
+    @Column(name = "partition_count", nullable = false)
+    private int partitionCount;
+    
+    @Column(name = "wallets_checked")
+    @Builder.Default
+    private long walletsChecked = 0;
+    
+    @Column(name = "discrepancy_count")
+    @Builder.Default
+    private long discrepancyCount = 0;
+    
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
+    @Column(name = "failure_reason")
+    private String failureReason;
+}
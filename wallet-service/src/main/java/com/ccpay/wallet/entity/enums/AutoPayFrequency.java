@@ -0,0 +1,8 @@
+package com.ccpay.wallet.entity.enums;
+
+public enum AutoPayFrequency {
+    DAILY,
+    WEEKLY,
+    MONTHLY,
+    ON_TRANSACTION
+}
@@ -0,0 +1,6 @@
+package com.ccpay.wallet.entity.enums;
+
+public enum AutoPayRuleType {
+    EXPENSE_SYNC,
+    MONTHLY_PAYMENT
+}
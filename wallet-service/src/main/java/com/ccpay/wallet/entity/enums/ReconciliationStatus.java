@@ -0,0 +1,7 @@
+package com.ccpay.wallet.entity.enums;
+
+public enum ReconciliationStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,32 @@
+package com.ccpay.wallet.listener;
+
+import com.ccpay.common.constants.ApplicationConstants;
+import com.ccpay.common.eventbus.EventBus;
+import com.ccpay.common.events.TransactionEvent;
+import com.ccpay.wallet.service.SpendingRollupService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SpendingRollupListener {
+    
+    private final EventBus eventBus;
+    private final SpendingRollupService spendingRollupService;
+    
+    @PostConstruct
+    public void subscribe() {
+        eventBus.subscribe(ApplicationConstants.TRANSACTION_EVENTS_TOPIC, "wallet-spending-rollup",
+                TransactionEvent.class, this::onTransactionEvents);
+    }
+    
+    // One batch becomes one upsert statement; on Kafka, offsets are committed after it succeeds
+    public void onTransactionEvents(List<TransactionEvent> events) {
+        spendingRollupService.applyEvents(events);
+    }
+}
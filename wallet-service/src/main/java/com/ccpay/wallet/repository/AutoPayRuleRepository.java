@@ -0,0 +1,165 @@
+package com.ccpay.wallet.repository;
+
+import com.ccpay.wallet.dto.AutoPayOutcome;
+import com.ccpay.wallet.dto.AutoPayRuleSnapshot;
+import com.ccpay.wallet.entity.enums.AutoPayAmountType;
+import com.ccpay.wallet.entity.enums.AutoPayFrequency;
+import com.ccpay.wallet.entity.enums.AutoPayRuleType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public class AutoPayRuleRepository {
+    
+    // SKIP LOCKED lets every node claim a disjoint batch without waiting on the others
+    private static final String CLAIM_PREFIX = 
+            "UPDATE auto_pay_rules r SET claimed_by = ?, " +
+            "claimed_until = CURRENT_TIMESTAMP + make_interval(secs => ?) " +
+            "FROM (SELECT rule_id FROM auto_pay_rules " +
+            "WHERE is_active = true AND (claimed_until IS NULL OR claimed_until < CURRENT_TIMESTAMP) ";
+    
+    private static final String CLAIM_SUFFIX = 
+            "ORDER BY next_execution_at LIMIT ? FOR UPDATE SKIP LOCKED) due " +
+            "WHERE r.rule_id = due.rule_id " +
+            "RETURNING r.rule_id, r.user_id, r.card_id, r.bank_account_id, r.rule_type, r.frequency, " +
+            "r.amount_type, r.fixed_amount, r.percentage_amount, r.max_amount, r.min_amount, " +
+            "r.trigger_day, COALESCE(r.start_date, r.created_at) AS start_date, r.next_execution_at, " +
+            "r.original_due_at, r.failure_count";
+    
+    private static final String CLAIM_DUE = 
+            CLAIM_PREFIX + "AND next_execution_at <= CURRENT_TIMESTAMP " + CLAIM_SUFFIX;
+    
+    // Due by the caller's clock, which the trigger wheel fired on, rather than the database's
+    private static final String CLAIM_DUE_BY_ID = 
+            CLAIM_PREFIX + "AND rule_id = ANY(?) AND next_execution_at <= ? " + CLAIM_SUFFIX;
+    
+    private static final String SCHEDULED_BETWEEN = 
+            "SELECT rule_id, next_execution_at FROM auto_pay_rules " +
+            "WHERE is_active = true AND next_execution_at >= ? AND next_execution_at < ?";
+    
+    private static final String SCHEDULED_BEFORE = 
+            "SELECT rule_id, next_execution_at FROM auto_pay_rules " +
+            "WHERE is_active = true AND next_execution_at < ?";
+    
+    private static final String RESCHEDULED_SINCE = 
+            "SELECT rule_id, next_execution_at FROM auto_pay_rules " +
+            "WHERE is_active = true AND next_execution_at < ? AND updated_at >= ?";
+    
+    private static final String COMPLETE_PREFIX = 
+            "UPDATE auto_pay_rules r SET next_execution_at = v.next_execution_at, " +
+            "last_executed_at = COALESCE(v.executed_at, r.last_executed_at), " +
+            "original_due_at = v.original_due_at, failure_count = v.failure_count, " +
+            "claimed_by = NULL, claimed_until = NULL, updated_at = CURRENT_TIMESTAMP " +
+            "FROM (VALUES ";
+    
+    private static final String COMPLETE_ROW = 
+            "(CAST(? AS uuid), CAST(? AS timestamp), CAST(? AS timestamp), CAST(? AS timestamp), CAST(? AS integer))";
+    
+    // The owner guard stops a node whose lease expired from overwriting the new owner's result
+    private static final String COMPLETE_SUFFIX = 
+            ") AS v (rule_id, next_execution_at, executed_at, original_due_at, failure_count) " +
+            "WHERE r.rule_id = v.rule_id AND r.claimed_by = ?";
+    
+    public static final RowMapper<AutoPayRuleSnapshot> RULE_ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp originalDueAt = rs.getTimestamp("original_due_at");
+        Timestamp nextExecutionAt = rs.getTimestamp("next_execution_at");
+        Timestamp startDate = rs.getTimestamp("start_date");
+        return AutoPayRuleSnapshot.builder()
+                .ruleId(rs.getObject("rule_id", UUID.class))
+                .userId(rs.getObject("user_id", UUID.class))
+                .cardId(rs.getObject("card_id", UUID.class))
+                .bankAccountId(rs.getObject("bank_account_id", UUID.class))
+                .ruleType(AutoPayRuleType.valueOf(rs.getString("rule_type")))
+                .frequency(AutoPayFrequency.valueOf(rs.getString("frequency")))
+                .amountType(AutoPayAmountType.valueOf(rs.getString("amount_type")))
+                .fixedAmount(rs.getBigDecimal("fixed_amount"))
+                .percentageAmount(rs.getBigDecimal("percentage_amount"))
+                .maxAmount(rs.getBigDecimal("max_amount"))
+                .minAmount(rs.getBigDecimal("min_amount"))
+                .triggerDay((Integer) rs.getObject("trigger_day"))
+                .startDate(startDate != null ? startDate.toLocalDateTime() : null)
+                .nextExecutionAt(nextExecutionAt != null ? nextExecutionAt.toLocalDateTime() : null)
+                .originalDueAt(originalDueAt != null ? originalDueAt.toLocalDateTime() : null)
+                .failureCount(rs.getInt("failure_count"))
+                .build();
+    };
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    
+    public AutoPayRuleRepository(JdbcTemplate jdbcTemplate, 
+                                 @Value("${app.autopay.wheel.fetch-size:10000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // A positive fetch size inside a transaction makes the driver use a server-side cursor
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+    
+    public List<AutoPayRuleSnapshot> claimDue(String owner, long leaseSeconds, int limit) {
+        return jdbcTemplate.query(CLAIM_DUE, RULE_ROW_MAPPER, owner, leaseSeconds, limit);
+    }
+    
+    // Rules that are not due by now, rescheduled or already claimed are simply not returned
+    public List<AutoPayRuleSnapshot> claimDueById(String owner, long leaseSeconds, Collection<UUID> ruleIds,
+                                                  LocalDateTime now) {
+        if (ruleIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(CLAIM_DUE_BY_ID);
+            statement.setString(1, owner);
+            statement.setLong(2, leaseSeconds);
+            statement.setArray(3, connection.createArrayOf("uuid", ruleIds.toArray()));
+            statement.setObject(4, now);
+            statement.setInt(5, ruleIds.size());
+            return statement;
+        }, RULE_ROW_MAPPER);
+    }
+    
+    // Rows carry (rule_id, next_execution_at); callers must stream inside a transaction
+    public void streamScheduledBefore(LocalDateTime horizon, RowCallbackHandler handler) {
+        streamingJdbcTemplate.query(SCHEDULED_BEFORE, handler, horizon);
+    }
+    
+    public void streamScheduledBetween(LocalDateTime from, LocalDateTime to, RowCallbackHandler handler) {
+        streamingJdbcTemplate.query(SCHEDULED_BETWEEN, handler, from, to);
+    }
+    
+    public void streamRescheduledSince(LocalDateTime since, LocalDateTime horizon, RowCallbackHandler handler) {
+        streamingJdbcTemplate.query(RESCHEDULED_SINCE, handler, horizon, since);
+    }
+    
+    public int complete(String owner, List<AutoPayOutcome> outcomes) {
+        if (outcomes.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder(COMPLETE_PREFIX);
+        List<Object> args = new ArrayList<>(outcomes.size() * 5 + 1);
+        for (int i = 0; i < outcomes.size(); i++) {
+            AutoPayOutcome outcome = outcomes.get(i);
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(COMPLETE_ROW);
+            args.add(outcome.getRuleId());
+            args.add(outcome.getNextExecutionAt());
+            args.add(outcome.getExecutedAt());
+            args.add(outcome.getOriginalDueAt());
+            args.add(outcome.getFailureCount());
+        }
+        sql.append(COMPLETE_SUFFIX);
+        args.add(owner);
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+}
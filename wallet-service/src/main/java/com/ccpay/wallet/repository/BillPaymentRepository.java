@@ -0,0 +1,127 @@
+package com.ccpay.wallet.repository;
+
+import com.ccpay.wallet.dto.BillPayment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+// Callers run reserve, confirm and release inside one transaction each
+@Repository
+public class BillPaymentRepository {
+    
+    public static final String DEFAULT_PROVIDER = "DEFAULT";
+    
+    // PROCESSING rows whose lease has lapsed belonged to a node that died mid-pipeline
+    private static final String CLAIM_DUE = 
+            "UPDATE transactions t SET status = 'PROCESSING', processing_started_at = CURRENT_TIMESTAMP " +
+            "FROM (SELECT transaction_id FROM transactions " +
+            "WHERE type = 'PAYMENT' AND destination_type = 'CREDIT_CARD' " +
+            "AND (status = 'PENDING' OR (status = 'PROCESSING' " +
+            "AND processing_started_at < CURRENT_TIMESTAMP - make_interval(secs => ?))) " +
+            "ORDER BY initiated_at LIMIT ? FOR UPDATE SKIP LOCKED) due " +
+            "WHERE t.transaction_id = due.transaction_id " +
+            "RETURNING t.transaction_id, t.user_id, t.wallet_id, t.destination_id, t.amount, t.currency, " +
+            "t.reference_number, t.funds_reserved, COALESCE(t.metadata ->> 'provider', '" + DEFAULT_PROVIDER + "')";
+    
+    private static final String FIND_PROCESSING = 
+            "SELECT transaction_id, user_id, wallet_id, destination_id, amount, currency, reference_number, " +
+            "funds_reserved, COALESCE(metadata ->> 'provider', '" + DEFAULT_PROVIDER + "') " +
+            "FROM transactions WHERE transaction_id = ? AND status = 'PROCESSING'";
+    
+    private static final String AVAILABLE_BALANCE = 
+            "SELECT balance - COALESCE(reserved_balance, 0) FROM wallets WHERE wallet_id = ? AND status = 'ACTIVE'";
+    
+    private static final String MARK_RESERVED = 
+            "UPDATE transactions SET funds_reserved = true " +
+            "WHERE transaction_id = ? AND status = 'PROCESSING' AND funds_reserved = false";
+    
+    private static final String RESERVE_FUNDS = 
+            "UPDATE wallets SET reserved_balance = COALESCE(reserved_balance, 0) + ?, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE wallet_id = ? AND status = 'ACTIVE' AND balance - COALESCE(reserved_balance, 0) >= ?";
+    
+    private static final String MARK_COMPLETED = 
+            "UPDATE transactions SET status = 'COMPLETED', completed_at = CURRENT_TIMESTAMP, funds_reserved = false " +
+            "WHERE transaction_id = ? AND status = 'PROCESSING' AND funds_reserved = true";
+    
+    private static final String DEBIT_RESERVED = 
+            "UPDATE wallets SET balance = balance - ?, reserved_balance = reserved_balance - ?, " +
+            "updated_at = CURRENT_TIMESTAMP WHERE wallet_id = ? RETURNING balance";
+    
+    private static final String CLEAR_RESERVED = 
+            "UPDATE transactions SET funds_reserved = false WHERE transaction_id = ? AND funds_reserved = true";
+    
+    private static final String RELEASE_RESERVED = 
+            "UPDATE wallets SET reserved_balance = reserved_balance - ?, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE wallet_id = ?";
+    
+    private static final String MARK_FAILED = 
+            "UPDATE transactions SET status = 'FAILED', failed_at = CURRENT_TIMESTAMP, failure_reason = ? " +
+            "WHERE transaction_id = ? AND status = 'PROCESSING'";
+    
+    private static final RowMapper<BillPayment> BILL_PAYMENT_ROW_MAPPER = (rs, rowNum) -> BillPayment.builder()
+            .transactionId(rs.getObject(1, UUID.class))
+            .userId(rs.getObject(2, UUID.class))
+            .walletId(rs.getObject(3, UUID.class))
+            .cardId(rs.getObject(4, UUID.class))
+            .amount(rs.getBigDecimal(5))
+            .currency(rs.getString(6))
+            .referenceNumber(rs.getString(7))
+            .fundsReserved(rs.getBoolean(8))
+            .provider(rs.getString(9))
+            .build();
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public BillPaymentRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    public List<BillPayment> claimDue(long leaseSeconds, int limit) {
+        return jdbcTemplate.query(CLAIM_DUE, BILL_PAYMENT_ROW_MAPPER, leaseSeconds, limit);
+    }
+    
+    // Null once the payment has left PROCESSING
+    public BillPayment findProcessing(UUID transactionId) {
+        List<BillPayment> payments = jdbcTemplate.query(FIND_PROCESSING, BILL_PAYMENT_ROW_MAPPER, transactionId);
+        return payments.isEmpty() ? null : payments.get(0);
+    }
+    
+    // Null when the wallet is missing or not active
+    public BigDecimal findAvailableBalance(UUID walletId) {
+        List<BigDecimal> balances = jdbcTemplate.queryForList(AVAILABLE_BALANCE, BigDecimal.class, walletId);
+        return balances.isEmpty() ? null : balances.get(0);
+    }
+    
+    public boolean markReserved(UUID transactionId) {
+        return jdbcTemplate.update(MARK_RESERVED, transactionId) == 1;
+    }
+    
+    public boolean reserveFunds(UUID walletId, BigDecimal amount) {
+        return jdbcTemplate.update(RESERVE_FUNDS, amount, walletId, amount) == 1;
+    }
+    
+    public boolean markCompleted(UUID transactionId) {
+        return jdbcTemplate.update(MARK_COMPLETED, transactionId) == 1;
+    }
+    
+    // Returns the balance left after the debit
+    public BigDecimal debitReserved(UUID walletId, BigDecimal amount) {
+        return jdbcTemplate.queryForObject(DEBIT_RESERVED, BigDecimal.class, amount, amount, walletId);
+    }
+    
+    public boolean clearReserved(UUID transactionId) {
+        return jdbcTemplate.update(CLEAR_RESERVED, transactionId) == 1;
+    }
+    
+    public void releaseReserved(UUID walletId, BigDecimal amount) {
+        jdbcTemplate.update(RELEASE_RESERVED, amount, walletId);
+    }
+    
+    public void markFailed(UUID transactionId, String reason) {
+        jdbcTemplate.update(MARK_FAILED, reason, transactionId);
+    }
+}
@@ -0,0 +1,57 @@
+package com.ccpay.wallet.repository;
+
+import com.ccpay.wallet.dto.CardTransactionWebhook;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+public class CardTransactionRepository {
+    
+    private static final String INSERT_PREFIX = 
+            "INSERT INTO card_transactions (external_transaction_id, card_id, user_id, amount, " +
+            "merchant_name, merchant_category, transaction_date, posted_date, is_pending) VALUES ";
+    
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_SUFFIX = 
+            " ON CONFLICT (external_transaction_id) DO NOTHING RETURNING external_transaction_id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public CardTransactionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    // One multi-row statement per batch; rows already stored are skipped, not errors. Returns the
+    // external ids this statement actually inserted.
+    public Set<String> insertIgnoringDuplicates(List<CardTransactionWebhook> transactions) {
+        if (transactions.isEmpty()) {
+            return Set.of();
+        }
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        List<Object> args = new ArrayList<>(transactions.size() * 9);
+        for (int i = 0; i < transactions.size(); i++) {
+            CardTransactionWebhook tx = transactions.get(i);
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(INSERT_ROW);
+            args.add(tx.getExternalTransactionId());
+            args.add(tx.getCardId());
+            args.add(tx.getUserId());
+            args.add(tx.getAmount());
+            args.add(tx.getMerchantName());
+            args.add(tx.getMerchantCategory());
+            args.add(tx.getTransactionDate());
+            args.add(tx.getPostedDate());
+            args.add(tx.isPending());
+        }
+        sql.append(INSERT_SUFFIX);
+        return new HashSet<>(jdbcTemplate.queryForList(sql.toString(), String.class, args.toArray()));
+    }
+}
@@ -0,0 +1,66 @@
+package com.ccpay.wallet.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public class LedgerRepository {
+    
+    // Balances and amounts are DECIMAL(19, 4); they are streamed as scaled longs
+    public static final int MINOR_UNIT_SCALE = 4;
+    
+    private static final String WALLETS_FROM = 
+            "SELECT wallet_id, (balance * 10000)::bigint FROM wallets " +
+            "WHERE wallet_id >= ? AND wallet_id <= ? ORDER BY wallet_id LIMIT ?";
+    
+    private static final String WALLETS_AFTER = 
+            "SELECT wallet_id, (balance * 10000)::bigint FROM wallets " +
+            "WHERE wallet_id > ? AND wallet_id <= ? ORDER BY wallet_id LIMIT ?";
+    
+    private static final String LEDGER_ENTRIES = 
+            "SELECT wallet_id, CASE WHEN type IN ('DEPOSIT', 'REFUND') " +
+            "THEN (amount * 10000)::bigint ELSE -(amount * 10000)::bigint END " +
+            "FROM transactions WHERE status = 'COMPLETED' AND wallet_id >= ? AND wallet_id <= ? " +
+            "ORDER BY wallet_id";
+    
+    private static final String INSERT_DISCREPANCY = 
+            "INSERT INTO reconciliation_discrepancies " +
+            "(run_id, wallet_id, recorded_balance, computed_balance, difference) VALUES (?, ?, ?, ?, ?)";
+    
+    private static final String DISCREPANCY_TOTAL = 
+            "SELECT COALESCE(SUM(ABS(difference)), 0) FROM reconciliation_discrepancies WHERE run_id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public LedgerRepository(DataSource dataSource, 
+                            @Value("${app.reconciliation.fetch-size:10000}") int fetchSize) {
+        // A positive fetch size inside a transaction makes the driver use a server-side cursor
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+    
+    public void streamWallets(UUID from, boolean inclusive, UUID to, int limit, RowCallbackHandler handler) {
+        jdbcTemplate.query(inclusive ? WALLETS_FROM : WALLETS_AFTER, handler, from, to, limit);
+    }
+    
+    public void streamLedgerEntries(UUID from, UUID to, RowCallbackHandler handler) {
+        jdbcTemplate.query(LEDGER_ENTRIES, handler, from, to);
+    }
+    
+    public void insertDiscrepancies(List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_DISCREPANCY, rows);
+        }
+    }
+    
+    public BigDecimal totalAbsoluteDiscrepancy(UUID runId) {
+        return jdbcTemplate.queryForObject(DISCREPANCY_TOTAL, BigDecimal.class, runId);
+    }
+}
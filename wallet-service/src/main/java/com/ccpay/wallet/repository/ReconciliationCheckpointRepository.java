@@ -0,0 +1,39 @@
+package com.ccpay.wallet.repository;
+
+import com.ccpay.wallet.entity.ReconciliationCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ReconciliationCheckpointRepository extends JpaRepository<ReconciliationCheckpoint, UUID> {
+    
+    List<ReconciliationCheckpoint> findByRunIdOrderByPartitionNo(UUID runId);
+    
+    List<ReconciliationCheckpoint> findByRunIdAndCompletedFalseOrderByPartitionNo(UUID runId);
+    
+    @Modifying
+    @Query("UPDATE ReconciliationCheckpoint c SET c.lastWalletId = :lastWalletId, " +
+            "c.walletsChecked = c.walletsChecked + :wallets, " +
+            "c.discrepancyCount = c.discrepancyCount + :discrepancies " +
+            "WHERE c.checkpointId = :checkpointId")
+    void advance(@Param("checkpointId") UUID checkpointId,
+                 @Param("lastWalletId") UUID lastWalletId,
+                 @Param("wallets") long wallets,
+                 @Param("discrepancies") long discrepancies);
+    
+    @Modifying
+    @Query("UPDATE ReconciliationCheckpoint c SET c.completed = true WHERE c.checkpointId = :checkpointId")
+    void markCompleted(@Param("checkpointId") UUID checkpointId);
+    
+    @Query("SELECT COALESCE(SUM(c.walletsChecked), 0) FROM ReconciliationCheckpoint c WHERE c.runId = :runId")
+    long sumWalletsChecked(@Param("runId") UUID runId);
+    
+    @Query("SELECT COALESCE(SUM(c.discrepancyCount), 0) FROM ReconciliationCheckpoint c WHERE c.runId = :runId")
+    long sumDiscrepancies(@Param("runId") UUID runId);
+}
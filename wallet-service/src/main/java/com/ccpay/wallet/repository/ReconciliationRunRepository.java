@@ -0,0 +1,15 @@
+package com.ccpay.wallet.repository;
+
+import com.ccpay.wallet.entity.ReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, UUID> {
+    
+    Optional<ReconciliationRun> findByBusinessDate(LocalDate businessDate);
+}
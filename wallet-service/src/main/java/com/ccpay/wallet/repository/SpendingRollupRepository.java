@@ -0,0 +1,140 @@
+package com.ccpay.wallet.repository;
+
+import com.ccpay.wallet.dto.MonthlySpending;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public class SpendingRollupRepository {
+    
+    public static final String UNCATEGORIZED = "UNCATEGORIZED";
+    
+    // First half of the two-key advisory locks on a month; the second is the month's index
+    private static final int MONTH_LOCK_NAMESPACE = 0x726f6c6c;
+    
+    // Live upserts share a month, a rebuild takes it alone; both hold it until commit
+    private static final String LOCK_MONTH_SHARED = "SELECT pg_advisory_xact_lock_shared(?, ?)";
+    
+    private static final String LOCK_MONTH_EXCLUSIVE = "SELECT pg_advisory_xact_lock(?, ?)";
+    
+    private static final String SPENDING_FILTER = 
+            "status = 'COMPLETED' AND type IN ('PAYMENT', 'WITHDRAWAL', 'FEE') " +
+            "AND completed_at >= ? AND completed_at < ?";
+    
+    // Marks each transaction as applied and folds only the newly marked ones into the rollups
+    private static final String UPSERT_PREFIX = 
+            "WITH incoming (transaction_id, user_id, month, category, amount) AS (VALUES ";
+    
+    private static final String UPSERT_ROW = 
+            "(CAST(? AS uuid), CAST(? AS uuid), CAST(? AS date), CAST(? AS varchar), CAST(? AS numeric))";
+    
+    private static final String UPSERT_SUFFIX = 
+            "), applied AS (" +
+            "INSERT INTO spending_rollup_applied (transaction_id, month) " +
+            "SELECT transaction_id, month FROM incoming " +
+            "ON CONFLICT (transaction_id) DO NOTHING RETURNING transaction_id) " +
+            "INSERT INTO monthly_spending_rollups AS r " +
+            "(user_id, month, category, total_spent, transaction_count, updated_at) " +
+            "SELECT i.user_id, i.month, i.category, SUM(i.amount), COUNT(*), CURRENT_TIMESTAMP " +
+            "FROM incoming i JOIN applied a ON a.transaction_id = i.transaction_id " +
+            "GROUP BY i.user_id, i.month, i.category ORDER BY i.user_id, i.month, i.category " +
+            "ON CONFLICT (user_id, month, category) DO UPDATE SET " +
+            "total_spent = r.total_spent + EXCLUDED.total_spent, " +
+            "transaction_count = r.transaction_count + EXCLUDED.transaction_count, " +
+            "updated_at = EXCLUDED.updated_at";
+    
+    private static final String FIND_BY_USER_AND_MONTH = 
+            "SELECT user_id, month, category, total_spent, transaction_count " +
+            "FROM monthly_spending_rollups WHERE user_id = ? AND month = ? ORDER BY category";
+    
+    private static final String DELETE_MONTH_ROLLUPS = 
+            "DELETE FROM monthly_spending_rollups WHERE month = ?";
+    
+    private static final String DELETE_MONTH_MARKERS = 
+            "DELETE FROM spending_rollup_applied WHERE month = ?";
+    
+    private static final String REBUILD_MONTH_MARKERS = 
+            "INSERT INTO spending_rollup_applied (transaction_id, month) " +
+            "SELECT transaction_id, CAST(? AS date) FROM transactions WHERE " + SPENDING_FILTER +
+            " ON CONFLICT (transaction_id) DO NOTHING";
+    
+    private static final String REBUILD_MONTH_ROLLUPS = 
+            "INSERT INTO monthly_spending_rollups " +
+            "(user_id, month, category, total_spent, transaction_count, updated_at) " +
+            "SELECT user_id, CAST(? AS date), COALESCE(metadata->>'category', '" + UNCATEGORIZED + "'), " +
+            "SUM(amount), COUNT(*), CURRENT_TIMESTAMP FROM transactions WHERE " + SPENDING_FILTER + 
+            " GROUP BY user_id, COALESCE(metadata->>'category', '" + UNCATEGORIZED + "')";
+    
+    private static final String PRUNE_MARKERS = 
+            "DELETE FROM spending_rollup_applied WHERE transaction_id IN (" +
+            "SELECT transaction_id FROM spending_rollup_applied WHERE applied_at < ? LIMIT ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public SpendingRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    // Must run in the upsert's transaction, for every month it touches, in ascending order
+    public void lockMonthShared(LocalDate month) {
+        jdbcTemplate.query(LOCK_MONTH_SHARED, rs -> { }, MONTH_LOCK_NAMESPACE, monthIndex(month));
+    }
+    
+    // Each row is {transactionId, userId, month, category, amount}
+    public int upsertBatch(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder(UPSERT_PREFIX.length() + rows.size() * UPSERT_ROW.length() 
+                + UPSERT_SUFFIX.length());
+        List<Object> args = new ArrayList<>(rows.size() * 5);
+        sql.append(UPSERT_PREFIX);
+        for (int i = 0; i < rows.size(); i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(UPSERT_ROW);
+            for (Object value : rows.get(i)) {
+                args.add(value);
+            }
+        }
+        sql.append(UPSERT_SUFFIX);
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+    
+    public List<MonthlySpending> findByUserAndMonth(UUID userId, LocalDate month) {
+        return jdbcTemplate.query(FIND_BY_USER_AND_MONTH, (rs, rowNum) -> MonthlySpending.builder()
+                .userId(rs.getObject("user_id", UUID.class))
+                .month(rs.getObject("month", LocalDate.class))
+                .category(rs.getString("category"))
+                .totalSpent(rs.getBigDecimal("total_spent"))
+                .transactionCount(rs.getLong("transaction_count"))
+                .build(), userId, month);
+    }
+    
+    // Waits for live upserts into the month to commit and holds new ones off until this commits,
+    // so none can land between the delete and the re-insert of its markers
+    public int rebuildMonth(LocalDate month) {
+        LocalDateTime from = month.atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atStartOfDay();
+        jdbcTemplate.query(LOCK_MONTH_EXCLUSIVE, rs -> { }, MONTH_LOCK_NAMESPACE, monthIndex(month));
+        jdbcTemplate.update(DELETE_MONTH_ROLLUPS, month);
+        jdbcTemplate.update(DELETE_MONTH_MARKERS, month);
+        jdbcTemplate.update(REBUILD_MONTH_MARKERS, month, from, to);
+        return jdbcTemplate.update(REBUILD_MONTH_ROLLUPS, month, from, to);
+    }
+    
+    public int pruneAppliedMarkers(LocalDateTime appliedBefore, int limit) {
+        return jdbcTemplate.update(PRUNE_MARKERS, appliedBefore, limit);
+    }
+    
+    private static int monthIndex(LocalDate month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+}
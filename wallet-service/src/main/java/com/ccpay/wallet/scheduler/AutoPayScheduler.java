@@ -0,0 +1,19 @@
+package com.ccpay.wallet.scheduler;
+
+import com.ccpay.wallet.service.AutoPayDispatcher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// No SchedulerLock: every node polls and SKIP LOCKED hands each one a disjoint batch
+@Component
+@RequiredArgsConstructor
+public class AutoPayScheduler {
+    
+    private final AutoPayDispatcher autoPayDispatcher;
+    
+    @Scheduled(fixedDelayString = "${app.autopay.poll-interval-millis:1000}")
+    public void poll() {
+        autoPayDispatcher.dispatch();
+    }
+}
@@ -0,0 +1,20 @@
+package com.ccpay.wallet.scheduler;
+
+import com.ccpay.wallet.service.BillPaymentPipeline;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// No SchedulerLock: claims use SKIP LOCKED, so every node can feed its own pipeline
+@Component
+@RequiredArgsConstructor
+public class BillPaymentScheduler {
+    
+    private final BillPaymentPipeline billPaymentPipeline;
+    
+    // One claim per tick keeps the shared scheduler thread free for the other jobs
+    @Scheduled(fixedDelayString = "${app.bill-payment.poll-interval-millis:250}")
+    public void selectDue() {
+        billPaymentPipeline.selectDue();
+    }
+}
@@ -0,0 +1,25 @@
+package com.ccpay.wallet.scheduler;
+
+import com.ccpay.wallet.service.ReconciliationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReconciliationScheduler {
+    
+    private final ReconciliationService reconciliationService;
+    
+    @Scheduled(cron = "${app.reconciliation.cron:0 30 2 * * *}")
+    @SchedulerLock(name = "walletReconciliation", lockAtMostFor = "PT6H")
+    public void reconcileDaily() {
+        log.info("Starting daily wallet balance reconciliation");
+        reconciliationService.reconcile(LocalDate.now());
+    }
+}
@@ -0,0 +1,20 @@
+package com.ccpay.wallet.scheduler;
+
+import com.ccpay.wallet.service.SpendingRollupService;
+import lombok.RequiredArgsConstructor;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class SpendingRollupScheduler {
+    
+    private final SpendingRollupService spendingRollupService;
+    
+    @Scheduled(cron = "${app.spending-rollup.compaction-cron:0 0 4 * * *}")
+    @SchedulerLock(name = "spendingRollupCompaction", lockAtMostFor = "PT1H")
+    public void compact() {
+        spendingRollupService.compact();
+    }
+}
@@ -0,0 +1,58 @@
+package com.ccpay.wallet.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+@Component
+public class WebhookSignatureVerifier {
+    
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    
+    private final SecretKeySpec secretKey;
+    private final long toleranceSeconds;
+    
+    public WebhookSignatureVerifier(
+            @Value("${app.card-webhook.secret}") String secret,
+            @Value("${app.card-webhook.timestamp-tolerance-seconds:300}") long toleranceSeconds) {
+        this.secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.toleranceSeconds = toleranceSeconds;
+    }
+    
+    // Signature is hex(HMAC-SHA256(secret, timestamp + "." + body)); the timestamp bounds replays
+    public boolean verify(String timestamp, String signature, byte[] body) {
+        if (timestamp == null || signature == null) {
+            return false;
+        }
+        
+        long sentAt;
+        try {
+            sentAt = Long.parseLong(timestamp);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (Math.abs(System.currentTimeMillis() / 1000 - sentAt) > toleranceSeconds) {
+            return false;
+        }
+        
+        byte[] expected;
+        byte[] provided;
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secretKey);
+            mac.update(timestamp.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) '.');
+            expected = mac.doFinal(body);
+            provided = HexFormat.of().parseHex(signature);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected, provided);
+    }
+}
@@ -0,0 +1,225 @@
+package com.ccpay.wallet.service;
+
+import com.ccpay.common.constants.ApplicationConstants;
+import com.ccpay.wallet.dto.AutoPayOutcome;
+import com.ccpay.wallet.dto.AutoPayRuleSnapshot;
+import com.ccpay.wallet.repository.AutoPayRuleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+@Service
+@Slf4j
+public class AutoPayDispatcher {
+    
+    private static final int COMPLETE_BATCH_SIZE = 500;
+    
+    private final AutoPayRuleRepository autoPayRuleRepository;
+    private final AutoPayRuleExecutor autoPayRuleExecutor;
+    private final ExecutorService workers;
+    private final Semaphore permits;
+    private final Queue<AutoPayOutcome> outcomes = new ConcurrentLinkedQueue<>();
+    private final String owner;
+    private final Counter succeededCounter;
+    private final Counter retriedCounter;
+    private final Counter exhaustedCounter;
+    private final Timer executionTimer;
+    private volatile BiConsumer<UUID, LocalDateTime> retryListener = (ruleId, dueAt) -> { };
+    
+    @Value("${app.autopay.claim-batch-size:100}")
+    private int claimBatchSize;
+    
+    @Value("${app.autopay.lease-seconds:300}")
+    private long leaseSeconds;
+    
+    public AutoPayDispatcher(AutoPayRuleRepository autoPayRuleRepository,
+                             AutoPayRuleExecutor autoPayRuleExecutor,
+                             MeterRegistry meterRegistry,
+                             @Value("${spring.application.name}") String applicationName,
+                             @Value("${app.autopay.worker-threads:16}") int workerThreads) {
+        this.autoPayRuleRepository = autoPayRuleRepository;
+        this.autoPayRuleExecutor = autoPayRuleExecutor;
+        this.permits = new Semaphore(workerThreads);
+        this.owner = applicationName + "@" + ManagementFactory.getRuntimeMXBean().getName();
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "autopay-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        this.succeededCounter = Counter.builder("wallet.autopay.executions")
+                .tag("result", "succeeded").register(meterRegistry);
+        this.retriedCounter = Counter.builder("wallet.autopay.executions")
+                .tag("result", "retried").register(meterRegistry);
+        this.exhaustedCounter = Counter.builder("wallet.autopay.executions")
+                .tag("result", "exhausted").register(meterRegistry);
+        this.executionTimer = Timer.builder("wallet.autopay.execution")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("wallet.autopay.in.flight", permits, p -> workerThreads - p.availablePermits())
+                .register(meterRegistry);
+    }
+    
+    public int dispatch() {
+        flushOutcomes();
+        
+        // Only claim what can start immediately so leases are not burnt waiting in a queue
+        int dispatched = 0;
+        while (true) {
+            int free = permits.availablePermits();
+            if (free == 0) {
+                break;
+            }
+            int limit = Math.min(claimBatchSize, free);
+            List<AutoPayRuleSnapshot> claimed = autoPayRuleRepository.claimDue(owner, leaseSeconds, limit);
+            for (AutoPayRuleSnapshot rule : claimed) {
+                permits.acquireUninterruptibly();
+                workers.execute(() -> run(rule));
+            }
+            dispatched += claimed.size();
+            if (claimed.size() < limit) {
+                break;
+            }
+        }
+        
+        if (dispatched > 0) {
+            log.debug("Dispatched {} auto-pay rules", dispatched);
+        }
+        return dispatched;
+    }
+    
+    // Claims what fits in the free workers and returns the ids that did not fit, for the caller
+    // to offer again; ids claimed elsewhere or no longer due are simply dropped. Due is judged by
+    // this node's clock, which the wheel fired on, so database clock skew cannot drop a rule
+    public List<UUID> dispatchRules(List<UUID> ruleIds) {
+        flushOutcomes();
+        
+        LocalDateTime now = LocalDateTime.now();
+        int free = permits.availablePermits();
+        if (free >= ruleIds.size()) {
+            dispatchClaimed(autoPayRuleRepository.claimDueById(owner, leaseSeconds, ruleIds, now));
+            return List.of();
+        }
+        if (free > 0) {
+            dispatchClaimed(autoPayRuleRepository.claimDueById(owner, leaseSeconds, ruleIds.subList(0, free), now));
+        }
+        return List.copyOf(ruleIds.subList(free, ruleIds.size()));
+    }
+    
+    // Called with each retry's rule and due time once the retry is recorded, so the caller can
+    // fire it on time instead of waiting for the next poll
+    public void onRetryScheduled(BiConsumer<UUID, LocalDateTime> listener) {
+        this.retryListener = listener;
+    }
+    
+    private void dispatchClaimed(List<AutoPayRuleSnapshot> claimed) {
+        for (AutoPayRuleSnapshot rule : claimed) {
+            permits.acquireUninterruptibly();
+            workers.execute(() -> run(rule));
+        }
+    }
+    
+    private void run(AutoPayRuleSnapshot rule) {
+        try {
+            executionTimer.record(() -> autoPayRuleExecutor.execute(rule));
+            outcomes.add(succeeded(rule));
+        } catch (Exception e) {
+            log.warn("Auto-pay rule {} failed for slot {}: {}", rule.getRuleId(), rule.getDueAt(), e.getMessage());
+            outcomes.add(failed(rule));
+        } finally {
+            permits.release();
+        }
+    }
+    
+    private AutoPayOutcome succeeded(AutoPayRuleSnapshot rule) {
+        succeededCounter.increment();
+        LocalDateTime now = LocalDateTime.now();
+        return AutoPayOutcome.builder()
+                .ruleId(rule.getRuleId())
+                .nextExecutionAt(AutoPaySchedule.nextExecution(rule, rule.getDueAt(), now))
+                .executedAt(now)
+                .build();
+    }
+    
+    private AutoPayOutcome failed(AutoPayRuleSnapshot rule) {
+        LocalDateTime now = LocalDateTime.now();
+        int failures = rule.getFailureCount() + 1;
+        if (failures >= ApplicationConstants.MAX_RETRY_ATTEMPTS) {
+            // Give up on this slot and move on to the next one
+            exhaustedCounter.increment();
+            return AutoPayOutcome.builder()
+                    .ruleId(rule.getRuleId())
+                    .nextExecutionAt(AutoPaySchedule.nextExecution(rule, rule.getDueAt(), now))
+                    .build();
+        }
+        retriedCounter.increment();
+        return AutoPayOutcome.builder()
+                .ruleId(rule.getRuleId())
+                .nextExecutionAt(now.plusSeconds(AutoPaySchedule.retryDelaySeconds(failures)))
+                .originalDueAt(rule.getDueAt())
+                .failureCount(failures)
+                .build();
+    }
+    
+    public void flushOutcomes() {
+        List<AutoPayOutcome> batch = new ArrayList<>(COMPLETE_BATCH_SIZE);
+        AutoPayOutcome outcome;
+        while ((outcome = outcomes.poll()) != null) {
+            batch.add(outcome);
+            if (batch.size() == COMPLETE_BATCH_SIZE) {
+                complete(batch);
+                batch = new ArrayList<>(COMPLETE_BATCH_SIZE);
+            }
+        }
+        complete(batch);
+    }
+    
+    private void complete(List<AutoPayOutcome> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            int updated = autoPayRuleRepository.complete(owner, batch);
+            if (updated < batch.size()) {
+                log.warn("{} auto-pay outcomes dropped after their lease was taken over", batch.size() - updated);
+            }
+            // A dropped retry fired anyway fails the due check when claimed
+            for (AutoPayOutcome outcome : batch) {
+                if (outcome.getOriginalDueAt() != null) {
+                    retryListener.accept(outcome.getRuleId(), outcome.getNextExecutionAt());
+                }
+            }
+        } catch (Exception e) {
+            // Claims stay in place and the rules are re-run, idempotently, once the lease expires
+            log.error("Failed to record {} auto-pay outcomes", batch.size(), e);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+        flushOutcomes();
+    }
+}
@@ -0,0 +1,9 @@
+package com.ccpay.wallet.service;
+
+import com.ccpay.wallet.dto.AutoPayRuleSnapshot;
+
+public interface AutoPayRuleExecutor {
+    
+    // Must be idempotent per (rule, due slot): a rule can be re-run after a lease expires
+    void execute(AutoPayRuleSnapshot rule);
+}
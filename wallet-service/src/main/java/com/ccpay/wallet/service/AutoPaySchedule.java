@@ -0,0 +1,51 @@
+package com.ccpay.wallet.service;
+
+import com.ccpay.common.constants.ApplicationConstants;
+import com.ccpay.wallet.dto.AutoPayRuleSnapshot;
+
+import java.time.LocalDateTime;
+
+public final class AutoPaySchedule {
+    
+    private AutoPaySchedule() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+    
+    // Next slot strictly after now; slots missed while no node was running are skipped, not replayed
+    public static LocalDateTime nextExecution(AutoPayRuleSnapshot rule, LocalDateTime dueAt, LocalDateTime now) {
+        LocalDateTime next = advance(rule, dueAt);
+        while (next != null && !next.isAfter(now)) {
+            next = advance(rule, next);
+        }
+        return next;
+    }
+    
+    public static long retryDelaySeconds(int failureCount) {
+        long delay = ApplicationConstants.RETRY_DELAY_SECONDS << Math.min(Math.max(failureCount - 1, 0), 20);
+        return Math.min(delay, ApplicationConstants.MAX_RETRY_DELAY_SECONDS);
+    }
+    
+    private static LocalDateTime advance(AutoPayRuleSnapshot rule, LocalDateTime from) {
+        switch (rule.getFrequency()) {
+            case DAILY:
+                return from.plusDays(1);
+            case WEEKLY:
+                return from.plusWeeks(1);
+            case MONTHLY:
+                // Clamped per month from the anchor, so Jan 31 gives Feb 28 and then Mar 31, not Mar 28
+                LocalDateTime next = from.plusMonths(1);
+                int lastDay = next.toLocalDate().lengthOfMonth();
+                return next.withDayOfMonth(Math.min(anchorDay(rule, from), lastDay));
+            default:
+                // ON_TRANSACTION rules are driven by card events, not the clock
+                return null;
+        }
+    }
+    
+    private static int anchorDay(AutoPayRuleSnapshot rule, LocalDateTime from) {
+        if (rule.getTriggerDay() != null) {
+            return rule.getTriggerDay();
+        }
+        return rule.getStartDate() != null ? rule.getStartDate().getDayOfMonth() : from.getDayOfMonth();
+    }
+}
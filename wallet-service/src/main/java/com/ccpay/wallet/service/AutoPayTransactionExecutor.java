@@ -0,0 +1,64 @@
+package com.ccpay.wallet.service;
+
+import com.ccpay.common.constants.ErrorCodes;
+import com.ccpay.common.exceptions.BusinessException;
+import com.ccpay.wallet.dto.AutoPayRuleSnapshot;
+import com.ccpay.wallet.entity.enums.AutoPayAmountType;
+import com.ccpay.wallet.entity.enums.AutoPayRuleType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AutoPayTransactionExecutor implements AutoPayRuleExecutor {
+    
+    // The unique reference number makes a re-executed slot a no-op
+    private static final String INSERT_PENDING_TRANSACTION = 
+            "INSERT INTO transactions (user_id, wallet_id, type, amount, source_type, source_id, " +
+            "destination_type, destination_id, reference_number, status, description) " +
+            "VALUES (?, (SELECT wallet_id FROM wallets WHERE user_id = ? AND status = 'ACTIVE' LIMIT 1), " +
+            "?, ?, ?, ?, ?, ?, ?, 'PENDING', ?) ON CONFLICT (reference_number) DO NOTHING";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public void execute(AutoPayRuleSnapshot rule) {
+        BigDecimal amount = resolveAmount(rule);
+        String reference = "AUTOPAY-" + rule.getRuleId() + "-" + rule.getDueAt().toEpochSecond(ZoneOffset.UTC);
+        
+        boolean monthlyPayment = rule.getRuleType() == AutoPayRuleType.MONTHLY_PAYMENT;
+        int inserted = jdbcTemplate.update(INSERT_PENDING_TRANSACTION,
+                rule.getUserId(),
+                rule.getUserId(),
+                monthlyPayment ? "PAYMENT" : "DEPOSIT",
+                amount,
+                monthlyPayment ? "WALLET" : "BANK_ACCOUNT",
+                monthlyPayment ? null : rule.getBankAccountId(),
+                monthlyPayment ? "CREDIT_CARD" : "WALLET",
+                monthlyPayment ? rule.getCardId() : null,
+                reference,
+                "Auto-pay rule " + rule.getRuleId());
+        
+        if (inserted == 0) {
+            log.debug("Auto-pay slot {} already recorded", reference);
+        }
+    }
+    
+    // Percentage and dynamic amounts are settled by the payment pipeline; the cap is reserved here
+    private BigDecimal resolveAmount(AutoPayRuleSnapshot rule) {
+        BigDecimal amount = rule.getAmountType() == AutoPayAmountType.FIXED 
+                ? rule.getFixedAmount() 
+                : rule.getMaxAmount();
+        if (amount == null || amount.signum() <= 0) {
+            throw new BusinessException(ErrorCodes.INVALID_AMOUNT, 
+                    "Auto-pay rule " + rule.getRuleId() + " has no payable amount");
+        }
+        return amount;
+    }
+}
@@ -0,0 +1,211 @@
+package com.ccpay.wallet.service;
+
+import com.ccpay.common.utils.TimingWheel;
+import com.ccpay.wallet.repository.AutoPayRuleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Holds the next few minutes of auto-pay due times in memory and fires them on time, instead
+// of waiting for the next poll. Retries recorded by the dispatcher are added as they happen,
+// and fired rules that find every worker busy go back on the wheel for the next tick. The table
+// stays the source of truth: fired rules are claimed with the same due/lease checks as
+// polling, so stale or duplicate entries are harmless.
+@Service
+@Slf4j
+public class AutoPayTriggerWheel {
+    
+    private static final int WHEEL_LEVELS = 4;
+    
+    private final AutoPayRuleRepository autoPayRuleRepository;
+    private final AutoPayDispatcher autoPayDispatcher;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final BlockingQueue<UUID> fired = new LinkedBlockingQueue<>();
+    private final Counter loadedCounter;
+    private final Counter firedCounter;
+    private final Counter requeuedCounter;
+    private final MeterRegistry meterRegistry;
+    private volatile TimingWheel wheel;
+    private volatile boolean running;
+    private Thread ticker;
+    private Thread trigger;
+    private LocalDateTime loadedUntil;
+    private LocalDateTime refilledSince;
+    
+    @Value("${app.autopay.wheel.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.autopay.wheel.tick-millis:1}")
+    private long tickMillis;
+    
+    @Value("${app.autopay.wheel.window-minutes:10}")
+    private long windowMinutes;
+    
+    @Value("${app.autopay.wheel.initial-capacity:65536}")
+    private int initialCapacity;
+    
+    @Value("${app.autopay.wheel.refill-overlap-seconds:5}")
+    private long refillOverlapSeconds;
+    
+    @Value("${app.autopay.wheel.trigger-batch-size:500}")
+    private int triggerBatchSize;
+    
+    public AutoPayTriggerWheel(AutoPayRuleRepository autoPayRuleRepository,
+                               AutoPayDispatcher autoPayDispatcher,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.autoPayRuleRepository = autoPayRuleRepository;
+        this.autoPayDispatcher = autoPayDispatcher;
+        this.meterRegistry = meterRegistry;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        
+        this.loadedCounter = Counter.builder("wallet.autopay.wheel.loaded").register(meterRegistry);
+        this.firedCounter = Counter.builder("wallet.autopay.wheel.fired").register(meterRegistry);
+        this.requeuedCounter = Counter.builder("wallet.autopay.wheel.requeued").register(meterRegistry);
+    }
+    
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        wheel = new TimingWheel(tickMillis, WHEEL_LEVELS, initialCapacity, System.currentTimeMillis());
+        Duration window = Duration.ofMinutes(windowMinutes);
+        if (window.toMillis() >= wheel.horizonMillis()) {
+            throw new IllegalStateException("Auto-pay wheel window exceeds the wheel horizon of " 
+                    + Duration.ofMillis(wheel.horizonMillis()));
+        }
+        Gauge.builder("wallet.autopay.wheel.size", this, w -> w.wheel.size()).register(meterRegistry);
+        
+        // After a crash or restart the whole window, overdue slots included, is scanned again
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime horizon = startedAt.plus(window);
+        readOnlyTransactionTemplate.executeWithoutResult(status -> 
+                autoPayRuleRepository.streamScheduledBefore(horizon, loader()));
+        loadedUntil = horizon;
+        refilledSince = startedAt.minusSeconds(refillOverlapSeconds);
+        log.info("Auto-pay trigger wheel preloaded {} rules due before {}", wheel.size(), horizon);
+        
+        running = true;
+        autoPayDispatcher.onRetryScheduled(this::schedule);
+        ticker = new Thread(this::tick, "autopay-wheel-ticker");
+        ticker.setDaemon(true);
+        ticker.start();
+        trigger = new Thread(this::triggerDue, "autopay-wheel-trigger");
+        trigger.setDaemon(true);
+        trigger.start();
+    }
+    
+    // Slides the window forward and picks up rules rescheduled since the last refill; the
+    // overlap absorbs clock skew and late commits, and any duplicates it loads are harmless
+    @Scheduled(fixedDelayString = "${app.autopay.wheel.refill-interval-millis:5000}")
+    public void refill() {
+        if (!running) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.plusMinutes(windowMinutes);
+        LocalDateTime from = loadedUntil;
+        LocalDateTime since = refilledSince;
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            RowCallbackHandler loader = loader();
+            autoPayRuleRepository.streamScheduledBetween(from, horizon, loader);
+            autoPayRuleRepository.streamRescheduledSince(since, from, loader);
+        });
+        loadedUntil = horizon;
+        refilledSince = now.minusSeconds(refillOverlapSeconds);
+    }
+    
+    // Beyond the horizon, a refill or the fallback poll finds the rule instead
+    private void schedule(UUID ruleId, LocalDateTime dueAt) {
+        if (running && !wheel.schedule(ruleId, Timestamp.valueOf(dueAt).getTime())) {
+            log.debug("Auto-pay rule {} due at {} is beyond the wheel horizon", ruleId, dueAt);
+        }
+    }
+    
+    private RowCallbackHandler loader() {
+        return rs -> {
+            UUID ruleId = rs.getObject(1, UUID.class);
+            long dueAtMillis = rs.getTimestamp(2).getTime();
+            if (wheel.schedule(ruleId, dueAtMillis)) {
+                loadedCounter.increment();
+            }
+        };
+    }
+    
+    private void tick() {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        while (running) {
+            int count = wheel.advance(System.currentTimeMillis(), fired::offer);
+            if (count > 0) {
+                firedCounter.increment(count);
+            }
+            LockSupport.parkNanos(tickNanos);
+        }
+    }
+    
+    // Claiming hits the database, so it runs off the ticker thread to keep ticks on time
+    private void triggerDue() {
+        List<UUID> batch = new ArrayList<>(triggerBatchSize);
+        while (running) {
+            try {
+                UUID first = fired.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    autoPayDispatcher.flushOutcomes();
+                    continue;
+                }
+                batch.add(first);
+                fired.drainTo(batch, triggerBatchSize - 1);
+                List<UUID> overflow = autoPayDispatcher.dispatchRules(batch);
+                if (!overflow.isEmpty()) {
+                    long nextTick = System.currentTimeMillis() + tickMillis;
+                    for (UUID ruleId : overflow) {
+                        wheel.schedule(ruleId, nextTick);
+                    }
+                    requeuedCounter.increment(overflow.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Rules that were not claimed stay due and are picked up by the fallback poll
+                log.error("Failed to dispatch {} auto-pay rules from the trigger wheel", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (ticker != null) {
+            ticker.join(1000);
+        }
+        if (trigger != null) {
+            trigger.interrupt();
+            trigger.join(5000);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.ccpay.wallet.service;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static com.ccpay.wallet.repository.LedgerRepository.MINOR_UNIT_SCALE;
+
+// Reusable primitive buffer for one reconciliation chunk; keeps partition memory flat
+final class BalanceChunk {
+    
+    private final long[] walletMsb;
+    private final long[] walletLsb;
+    private final long[] recorded;
+    private final long[] computed;
+    private int size;
+    private int cursor;
+    
+    BalanceChunk(int capacity) {
+        this.walletMsb = new long[capacity];
+        this.walletLsb = new long[capacity];
+        this.recorded = new long[capacity];
+        this.computed = new long[capacity];
+    }
+    
+    void reset() {
+        size = 0;
+        cursor = 0;
+    }
+    
+    void addWallet(UUID walletId, long recordedMinor) {
+        walletMsb[size] = walletId.getMostSignificantBits();
+        walletLsb[size] = walletId.getLeastSignificantBits();
+        recorded[size] = recordedMinor;
+        computed[size] = 0L;
+        size++;
+    }
+    
+    // Ledger entries arrive ordered by wallet_id, so a single forward cursor merges them
+    void applyEntry(UUID walletId, long amountMinor) {
+        long msb = walletId.getMostSignificantBits();
+        long lsb = walletId.getLeastSignificantBits();
+        while (cursor < size && compare(walletMsb[cursor], walletLsb[cursor], msb, lsb) < 0) {
+            cursor++;
+        }
+        if (cursor < size && walletMsb[cursor] == msb && walletLsb[cursor] == lsb) {
+            computed[cursor] += amountMinor;
+        }
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    boolean isFull() {
+        return size == walletMsb.length;
+    }
+    
+    UUID walletId(int index) {
+        return new UUID(walletMsb[index], walletLsb[index]);
+    }
+    
+    UUID firstWalletId() {
+        return walletId(0);
+    }
+    
+    UUID lastWalletId() {
+        return walletId(size - 1);
+    }
+    
+    boolean matches(int index) {
+        return recorded[index] == computed[index];
+    }
+    
+    BigDecimal recordedBalance(int index) {
+        return BigDecimal.valueOf(recorded[index], MINOR_UNIT_SCALE);
+    }
+    
+    BigDecimal computedBalance(int index) {
+        return BigDecimal.valueOf(computed[index], MINOR_UNIT_SCALE);
+    }
+    
+    BigDecimal difference(int index) {
+        return BigDecimal.valueOf(recorded[index] - computed[index], MINOR_UNIT_SCALE);
+    }
+    
+    // PostgreSQL orders UUIDs by their unsigned big-endian bytes
+    static int compare(long msbA, long lsbA, long msbB, long lsbB) {
+        int result = Long.compareUnsigned(msbA, msbB);
+        return result != 0 ? result : Long.compareUnsigned(lsbA, lsbB);
+    }
+}
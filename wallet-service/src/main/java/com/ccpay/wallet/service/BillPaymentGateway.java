@@ -0,0 +1,10 @@
+package com.ccpay.wallet.service;
+
+import com.ccpay.wallet.dto.BillPayment;
+
+public interface BillPaymentGateway {
+    
+    // Throws BusinessException: TRANSFER_FAILED for a decline, EXTERNAL_SERVICE_ERROR when
+    // the outcome is unknown and the call may be retried with the same reference number
+    void pay(BillPayment payment);
+}
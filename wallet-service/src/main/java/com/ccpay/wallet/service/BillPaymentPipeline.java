@@ -0,0 +1,296 @@
+package com.ccpay.wallet.service;
+
+import com.ccpay.common.constants.ApplicationConstants;
+import com.ccpay.common.constants.ErrorCodes;
+import com.ccpay.common.events.TransactionEvent;
+import com.ccpay.common.exceptions.BusinessException;
+import com.ccpay.common.outbox.OutboxWriter;
+import com.ccpay.common.retry.RetryHandler;
+import com.ccpay.common.retry.RetryItem;
+import com.ccpay.common.retry.RetryQueue;
+import com.ccpay.common.retry.RetryQueueWorker;
+import com.ccpay.wallet.dto.BillPayment;
+import com.ccpay.wallet.repository.BillPaymentRepository;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// Monthly bill payments (design doc 3.5) as a staged pipeline:
+// select due -> check balance -> reserve -> pay -> confirm.
+// Each stage has its own bounded queue and worker count. Select only claims what the check
+// stage has room for, so a due-date spike queues in the table rather than in memory.
+// Retryable provider failures go to the durable retry queue.
+@Service
+@Slf4j
+public class BillPaymentPipeline {
+    
+    public static final String RETRY_QUEUE = "bill-payment";
+    
+    private final BillPaymentRepository billPaymentRepository;
+    private final BillPaymentGateway billPaymentGateway;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final TransactionTemplate transactionTemplate;
+    private final RetryQueue retryQueue;
+    private final OutboxWriter outboxWriter;
+    private final BillPaymentStage checkStage;
+    private final BillPaymentStage reserveStage;
+    private final BillPaymentStage payStage;
+    private final BillPaymentStage confirmStage;
+    private final Counter selectedCounter;
+    private final Counter completedCounter;
+    private final Counter skippedCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+    
+    @Value("${app.bill-payment.select-batch-size:500}")
+    private int selectBatchSize;
+    
+    @Value("${app.bill-payment.lease-seconds:600}")
+    private long leaseSeconds;
+    
+    public BillPaymentPipeline(BillPaymentRepository billPaymentRepository,
+                               BillPaymentGateway billPaymentGateway,
+                               CircuitBreakerRegistry circuitBreakers,
+                               BulkheadRegistry bulkheads,
+                               RetryQueue retryQueue,
+                               RetryQueueWorker retryQueueWorker,
+                               OutboxWriter outboxWriter,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.bill-payment.stage-capacity:1000}") int stageCapacity,
+                               @Value("${app.bill-payment.check-concurrency:8}") int checkConcurrency,
+                               @Value("${app.bill-payment.reserve-concurrency:8}") int reserveConcurrency,
+                               @Value("${app.bill-payment.pay-concurrency:64}") int payConcurrency,
+                               @Value("${app.bill-payment.confirm-concurrency:8}") int confirmConcurrency) {
+        this.billPaymentRepository = billPaymentRepository;
+        this.billPaymentGateway = billPaymentGateway;
+        this.circuitBreakers = circuitBreakers;
+        this.bulkheads = bulkheads;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retryQueue = retryQueue;
+        this.outboxWriter = outboxWriter;
+        
+        this.selectedCounter = Counter.builder("wallet.bill.payment.stage.processed")
+                .tag("stage", "select").register(meterRegistry);
+        this.completedCounter = Counter.builder("wallet.bill.payment.outcomes")
+                .tag("result", "completed").register(meterRegistry);
+        this.skippedCounter = Counter.builder("wallet.bill.payment.outcomes")
+                .tag("result", "skipped").register(meterRegistry);
+        this.failedCounter = Counter.builder("wallet.bill.payment.outcomes")
+                .tag("result", "failed").register(meterRegistry);
+        this.retriedCounter = Counter.builder("wallet.bill.payment.outcomes")
+                .tag("result", "retried").register(meterRegistry);
+        
+        this.confirmStage = new BillPaymentStage("confirm", confirmConcurrency, stageCapacity, 
+                this::confirm, meterRegistry);
+        this.payStage = new BillPaymentStage("pay", payConcurrency, stageCapacity, 
+                this::pay, meterRegistry);
+        this.reserveStage = new BillPaymentStage("reserve", reserveConcurrency, stageCapacity, 
+                this::reserve, meterRegistry);
+        this.checkStage = new BillPaymentStage("check", checkConcurrency, stageCapacity, 
+                this::checkBalance, meterRegistry);
+        
+        retryQueueWorker.register(RETRY_QUEUE, new PaymentRetryHandler());
+    }
+    
+    public int selectDue() {
+        int room = checkStage.remainingCapacity();
+        if (room == 0) {
+            return 0;
+        }
+        List<BillPayment> due = billPaymentRepository.claimDue(leaseSeconds, Math.min(room, selectBatchSize));
+        for (BillPayment payment : due) {
+            // Room was reserved above, and select is the only producer for this stage
+            checkStage.offer(payment);
+        }
+        selectedCounter.increment(due.size());
+        return due.size();
+    }
+    
+    private void checkBalance(BillPayment payment) {
+        // Resumed after a crash with funds already held: straight to the provider
+        if (payment.isFundsReserved()) {
+            handOff(payStage, payment);
+            return;
+        }
+        if (payment.getWalletId() == null) {
+            fail(payment, ErrorCodes.WALLET_NOT_FOUND, "No active wallet for user");
+            return;
+        }
+        BigDecimal available = billPaymentRepository.findAvailableBalance(payment.getWalletId());
+        if (available == null) {
+            fail(payment, ErrorCodes.WALLET_NOT_FOUND, "Wallet is not active");
+        } else if (available.compareTo(payment.getAmount()) < 0) {
+            fail(payment, ErrorCodes.INSUFFICIENT_BALANCE, "Insufficient wallet balance");
+        } else {
+            handOff(reserveStage, payment);
+        }
+    }
+    
+    private void reserve(BillPayment payment) {
+        boolean reserved = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!billPaymentRepository.markReserved(payment.getTransactionId())) {
+                return true;
+            }
+            if (!billPaymentRepository.reserveFunds(payment.getWalletId(), payment.getAmount())) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        }));
+        if (!reserved) {
+            // Balance moved between the check and the reserve
+            fail(payment, ErrorCodes.INSUFFICIENT_BALANCE, "Insufficient wallet balance");
+            return;
+        }
+        payment.setFundsReserved(true);
+        handOff(payStage, payment);
+    }
+    
+    private void pay(BillPayment payment) {
+        try {
+            callProvider(payment);
+        } catch (BusinessException e) {
+            if (isRetryable(e)) {
+                // Durable, so the retry survives a restart; the reservation is kept meanwhile
+                retryQueue.enqueue(RETRY_QUEUE, payment.getTransactionId().toString(), 1);
+                retriedCounter.increment();
+            } else {
+                fail(payment, e.getErrorCode(), e.getMessage());
+            }
+            return;
+        }
+        handOff(confirmStage, payment);
+    }
+    
+    private void callProvider(BillPayment payment) {
+        CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(payment.getProvider());
+        Bulkhead bulkhead = bulkheads.bulkhead(payment.getProvider());
+        try {
+            // Bulkhead outside the breaker so a full bulkhead is not counted as a provider failure
+            Bulkhead.decorateRunnable(bulkhead, 
+                    CircuitBreaker.decorateRunnable(circuitBreaker, () -> billPaymentGateway.pay(payment)))
+                    .run();
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            throw new BusinessException(ErrorCodes.SERVICE_UNAVAILABLE, 
+                    "Provider " + payment.getProvider() + " unavailable", e);
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BusinessException(ErrorCodes.EXTERNAL_SERVICE_ERROR, e.getMessage(), e);
+        }
+    }
+    
+    private static boolean isRetryable(BusinessException e) {
+        return ErrorCodes.EXTERNAL_SERVICE_ERROR.equals(e.getErrorCode()) 
+                || ErrorCodes.SERVICE_UNAVAILABLE.equals(e.getErrorCode());
+    }
+    
+    // A payment no longer processing with its funds reserved, e.g. completed by a redelivered
+    // confirm, is counted as skipped rather than completed twice
+    private void confirm(BillPayment payment) {
+        Boolean completed = transactionTemplate.execute(status -> {
+            if (!billPaymentRepository.markCompleted(payment.getTransactionId())) {
+                return false;
+            }
+            BigDecimal balance = billPaymentRepository.debitReserved(payment.getWalletId(), payment.getAmount());
+            outboxWriter.append(ApplicationConstants.TRANSACTION_EVENTS_TOPIC, payment.getUserId().toString(),
+                    ApplicationConstants.TRANSACTION_COMPLETED, completedEvent(payment, balance));
+            return true;
+        });
+        if (Boolean.TRUE.equals(completed)) {
+            completedCounter.increment();
+        } else {
+            skippedCounter.increment();
+        }
+    }
+    
+    private static TransactionEvent completedEvent(BillPayment payment, BigDecimal balanceAfter) {
+        return TransactionEvent.builder()
+                .transactionId(payment.getTransactionId())
+                .userId(payment.getUserId())
+                .walletId(payment.getWalletId())
+                .type("PAYMENT")
+                .status(ApplicationConstants.TRANSACTION_COMPLETED)
+                .amount(payment.getAmount())
+                .currency(payment.getCurrency())
+                .completedAt(LocalDateTime.now())
+                .balanceAfter(balanceAfter)
+                .build();
+    }
+    
+    private void fail(BillPayment payment, String errorCode, String reason) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (billPaymentRepository.clearReserved(payment.getTransactionId())) {
+                billPaymentRepository.releaseReserved(payment.getWalletId(), payment.getAmount());
+            }
+            billPaymentRepository.markFailed(payment.getTransactionId(), errorCode + ": " + reason);
+        });
+        failedCounter.increment();
+        log.warn("Bill payment {} failed: {} {}", payment.getTransactionId(), errorCode, reason);
+    }
+    
+    private void handOff(BillPaymentStage next, BillPayment payment) {
+        try {
+            next.submit(payment);
+        } catch (InterruptedException e) {
+            // Shutting down; the row stays PROCESSING and is reclaimed once its lease lapses
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // Retries re-enter at pay; the queue applies the backoff and dead-letters after the last attempt
+    private class PaymentRetryHandler implements RetryHandler {
+        
+        @Override
+        public void handle(RetryItem item) {
+            BillPayment payment = billPaymentRepository.findProcessing(UUID.fromString(item.getPayload()));
+            if (payment == null) {
+                return;
+            }
+            try {
+                callProvider(payment);
+            } catch (BusinessException e) {
+                if (isRetryable(e)) {
+                    throw e;
+                }
+                fail(payment, e.getErrorCode(), e.getMessage());
+                return;
+            }
+            handOff(confirmStage, payment);
+        }
+        
+        @Override
+        public void onDeadLetter(RetryItem item, Exception lastError) {
+            BillPayment payment = billPaymentRepository.findProcessing(UUID.fromString(item.getPayload()));
+            if (payment != null) {
+                fail(payment, ErrorCodes.EXTERNAL_SERVICE_ERROR, "Retries exhausted: " + lastError.getMessage());
+            }
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        checkStage.shutdown(5000);
+        reserveStage.shutdown(5000);
+        payStage.shutdown(10000);
+        confirmStage.shutdown(5000);
+    }
+}
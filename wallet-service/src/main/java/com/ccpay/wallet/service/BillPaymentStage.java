@@ -0,0 +1,91 @@
+package com.ccpay.wallet.service;
+
+import com.ccpay.wallet.dto.BillPayment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// One pipeline stage: a bounded queue drained by a fixed number of workers. A full queue
+// blocks the upstream stage instead of running the work on the caller's thread.
+@Slf4j
+class BillPaymentStage {
+    
+    private final String name;
+    private final BlockingQueue<BillPayment> queue;
+    private final Consumer<BillPayment> handler;
+    private final List<Thread> workers = new ArrayList<>();
+    private final Counter processedCounter;
+    private final Timer durationTimer;
+    private volatile boolean running = true;
+    
+    BillPaymentStage(String name, int concurrency, int capacity, Consumer<BillPayment> handler, 
+                     MeterRegistry meterRegistry) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.handler = handler;
+        this.processedCounter = Counter.builder("wallet.bill.payment.stage.processed")
+                .tag("stage", name).register(meterRegistry);
+        this.durationTimer = Timer.builder("wallet.bill.payment.stage.duration")
+                .tag("stage", name).publishPercentileHistogram().register(meterRegistry);
+        Gauge.builder("wallet.bill.payment.stage.queue.depth", queue, BlockingQueue::size)
+                .tag("stage", name).register(meterRegistry);
+        
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = new Thread(this::work, "bill-payment-" + name + "-" + (i + 1));
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+    
+    void submit(BillPayment payment) throws InterruptedException {
+        queue.put(payment);
+    }
+    
+    boolean offer(BillPayment payment) {
+        return queue.offer(payment);
+    }
+    
+    int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+    
+    void shutdown(long timeoutMillis) throws InterruptedException {
+        running = false;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Thread worker : workers) {
+            worker.join(Math.max(deadline - System.currentTimeMillis(), 1));
+        }
+    }
+    
+    private void work() {
+        while (running) {
+            BillPayment payment;
+            try {
+                payment = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (payment == null) {
+                continue;
+            }
+            try {
+                durationTimer.record(() -> handler.accept(payment));
+            } catch (Exception e) {
+                // Handlers route their own failures; anything escaping is left to the lease
+                log.error("Bill payment {} escaped the {} stage", payment.getTransactionId(), name, e);
+            }
+            processedCounter.increment();
+        }
+    }
+}
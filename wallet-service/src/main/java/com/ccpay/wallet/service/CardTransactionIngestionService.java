@@ -0,0 +1,259 @@
+package com.ccpay.wallet.service;
+
+import com.ccpay.common.constants.ErrorCodes;
+import com.ccpay.common.exceptions.BusinessException;
+import com.ccpay.common.utils.RecentKeySet;
+import com.ccpay.wallet.dto.CardTransactionWebhook;
+import com.ccpay.wallet.dto.WebhookAckResponse;
+import com.ccpay.wallet.repository.CardTransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class CardTransactionIngestionService {
+    
+    private static final String SEEN_KEY_PREFIX = "card-tx:seen:";
+    
+    private final CardTransactionRepository cardTransactionRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final BlockingQueue<PendingTransaction> queue;
+    private final RecentKeySet recentlySeen;
+    private final List<Thread> flushers = new ArrayList<>();
+    private final Counter acceptedCounter;
+    private final Counter duplicateCounter;
+    private final Counter rejectedCounter;
+    private final Timer flushTimer;
+    private volatile boolean running;
+    
+    @Value("${app.card-webhook.max-batch-size:500}")
+    private int maxBatchSize;
+    
+    @Value("${app.card-webhook.linger-millis:5}")
+    private long lingerMillis;
+    
+    @Value("${app.card-webhook.flusher-threads:2}")
+    private int flusherThreads;
+    
+    @Value("${app.card-webhook.dedup-ttl-hours:72}")
+    private long dedupTtlHours;
+    
+    public CardTransactionIngestionService(CardTransactionRepository cardTransactionRepository,
+                                           StringRedisTemplate redisTemplate,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${app.card-webhook.queue-capacity:20000}") int queueCapacity) {
+        this.cardTransactionRepository = cardTransactionRepository;
+        this.redisTemplate = redisTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.recentlySeen = new RecentKeySet(Duration.ofMinutes(10), 500_000);
+        
+        this.acceptedCounter = Counter.builder("card.webhook.events")
+                .tag("result", "accepted").register(meterRegistry);
+        this.duplicateCounter = Counter.builder("card.webhook.events")
+                .tag("result", "duplicate").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("card.webhook.events")
+                .tag("result", "rejected").register(meterRegistry);
+        this.flushTimer = Timer.builder("card.webhook.flush")
+                .description("Time to dedup and insert one micro-batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meterRegistry.gauge("card.webhook.queue.depth", queue, BlockingQueue::size);
+    }
+    
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < flusherThreads; i++) {
+            Thread flusher = new Thread(this::flushLoop, "CardWebhookFlusher-" + i);
+            flusher.setDaemon(true);
+            flusher.start();
+            flushers.add(flusher);
+        }
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread flusher : flushers) {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+    
+    // Completes once the event is durably stored (or known to be), so acks never precede the insert
+    public CompletableFuture<WebhookAckResponse> submit(CardTransactionWebhook transaction) {
+        String externalId = transaction.getExternalTransactionId();
+        if (recentlySeen.contains(externalId)) {
+            duplicateCounter.increment();
+            return CompletableFuture.completedFuture(ack(externalId, WebhookAckResponse.STATUS_DUPLICATE));
+        }
+        
+        PendingTransaction pending = new PendingTransaction(transaction, new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            rejectedCounter.increment();
+            return CompletableFuture.failedFuture(new BusinessException(ErrorCodes.SERVICE_UNAVAILABLE, 
+                    "Card transaction ingestion is saturated, retry later"));
+        }
+        return pending.result();
+    }
+    
+    private void flushLoop() {
+        List<PendingTransaction> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTransaction first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                
+                // Linger briefly for a fuller batch when the burst is still arriving
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingTransaction next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                
+                flushTimer.record(() -> flush(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Card transaction flush failed for {} events", batch.size(), e);
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void flush(List<PendingTransaction> batch) {
+        // Collapse redeliveries that landed in the same batch
+        Map<String, List<PendingTransaction>> byExternalId = new LinkedHashMap<>();
+        for (PendingTransaction pending : batch) {
+            byExternalId.computeIfAbsent(pending.transaction().getExternalTransactionId(), 
+                    id -> new ArrayList<>(1)).add(pending);
+        }
+        
+        List<String> ids = new ArrayList<>(byExternalId.keySet());
+        List<Boolean> seenInRedis = lookupSeen(ids);
+        
+        List<CardTransactionWebhook> toInsert = new ArrayList<>(ids.size());
+        List<String> unseenIds = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            if (Boolean.TRUE.equals(seenInRedis.get(i))) {
+                recentlySeen.add(id);
+                complete(byExternalId.get(id), WebhookAckResponse.STATUS_DUPLICATE);
+            } else {
+                toInsert.add(byExternalId.get(id).get(0).transaction());
+                unseenIds.add(id);
+            }
+        }
+        
+        // ON CONFLICT DO NOTHING is the authoritative dedup; the seen-sets only save round-trips.
+        // Rows it skipped were stored by an earlier delivery, so they are acked as duplicates.
+        Set<String> insertedIds = cardTransactionRepository.insertIgnoringDuplicates(toInsert);
+        markSeen(unseenIds);
+        
+        for (String id : unseenIds) {
+            recentlySeen.add(id);
+            complete(byExternalId.get(id), insertedIds.contains(id) 
+                    ? WebhookAckResponse.STATUS_ACCEPTED : WebhookAckResponse.STATUS_DUPLICATE);
+        }
+    }
+    
+    private void complete(List<PendingTransaction> deliveries, String status) {
+        for (int i = 0; i < deliveries.size(); i++) {
+            String deliveryStatus = i == 0 ? status : WebhookAckResponse.STATUS_DUPLICATE;
+            if (WebhookAckResponse.STATUS_ACCEPTED.equals(deliveryStatus)) {
+                acceptedCounter.increment();
+            } else {
+                duplicateCounter.increment();
+            }
+            PendingTransaction pending = deliveries.get(i);
+            pending.result().complete(ack(pending.transaction().getExternalTransactionId(), deliveryStatus));
+        }
+    }
+    
+    private List<Boolean> lookupSeen(List<String> ids) {
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String id : ids) {
+                    connection.keyCommands().exists(seenKey(id));
+                }
+                return null;
+            });
+            List<Boolean> seen = new ArrayList<>(results.size());
+            for (Object result : results) {
+                seen.add(result instanceof Boolean b ? b : result instanceof Long l && l > 0);
+            }
+            return seen;
+        } catch (RuntimeException e) {
+            log.warn("Redis seen-set lookup failed, falling back to database dedup: {}", e.getMessage());
+            List<Boolean> unknown = new ArrayList<>(ids.size());
+            ids.forEach(id -> unknown.add(Boolean.FALSE));
+            return unknown;
+        }
+    }
+    
+    private void markSeen(List<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        byte[] value = {'1'};
+        Expiration ttl = Expiration.from(dedupTtlHours, TimeUnit.HOURS);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String id : ids) {
+                    connection.stringCommands().set(seenKey(id), value, ttl, RedisStringCommands.SetOption.UPSERT);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to record {} card transactions in Redis seen-set: {}", ids.size(), e.getMessage());
+        }
+    }
+    
+    private byte[] seenKey(String externalId) {
+        return (SEEN_KEY_PREFIX + externalId).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private WebhookAckResponse ack(String externalId, String status) {
+        return WebhookAckResponse.builder()
+                .externalTransactionId(externalId)
+                .status(status)
+                .build();
+    }
+    
+    private record PendingTransaction(CardTransactionWebhook transaction, 
+                                      CompletableFuture<WebhookAckResponse> result) {
+    }
+}
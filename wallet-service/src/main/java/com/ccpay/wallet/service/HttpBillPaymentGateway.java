@@ -0,0 +1,64 @@
+package com.ccpay.wallet.service;
+
+import com.ccpay.common.constants.ApplicationConstants;
+import com.ccpay.common.constants.ErrorCodes;
+import com.ccpay.common.exceptions.BusinessException;
+import com.ccpay.wallet.dto.BillPayment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
+@Service
+public class HttpBillPaymentGateway implements BillPaymentGateway {
+    
+    private final RestClient restClient;
+    
+    public HttpBillPaymentGateway(@Value("${app.bill-payment.gateway.base-url}") String baseUrl,
+                                  @Value("${app.bill-payment.gateway.connect-timeout-millis:1000}") long connectTimeoutMillis,
+                                  @Value("${app.bill-payment.gateway.read-timeout-millis:5000}") long readTimeoutMillis) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+        this.restClient = RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .build();
+    }
+    
+    @Override
+    public void pay(BillPayment payment) {
+        try {
+            restClient.post()
+                    .uri("/v1/card-payments")
+                    .header(ApplicationConstants.IDEMPOTENCY_KEY_HEADER, payment.getReferenceNumber())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of(
+                            "reference", payment.getReferenceNumber(),
+                            "provider", payment.getProvider(),
+                            "cardId", payment.getCardId().toString(),
+                            "amount", payment.getAmount(),
+                            "currency", payment.getCurrency()))
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (RestClientResponseException e) {
+            if (e.getStatusCode().is4xxClientError() && e.getStatusCode().value() != 429) {
+                throw new BusinessException(ErrorCodes.TRANSFER_FAILED, 
+                        "Card payment declined: " + e.getStatusCode().value());
+            }
+            throw new BusinessException(ErrorCodes.EXTERNAL_SERVICE_ERROR, 
+                    "Payment gateway error: " + e.getStatusCode().value(), e);
+        } catch (ResourceAccessException e) {
+            throw new BusinessException(ErrorCodes.EXTERNAL_SERVICE_ERROR, "Payment gateway unreachable", e);
+        }
+    }
+}
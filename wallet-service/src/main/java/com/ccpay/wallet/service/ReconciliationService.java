@@ -0,0 +1,254 @@
+package com.ccpay.wallet.service;
+
+import com.ccpay.wallet.entity.ReconciliationCheckpoint;
+import com.ccpay.wallet.entity.ReconciliationRun;
+import com.ccpay.wallet.entity.enums.ReconciliationStatus;
+import com.ccpay.wallet.repository.LedgerRepository;
+import com.ccpay.wallet.repository.ReconciliationCheckpointRepository;
+import com.ccpay.wallet.repository.ReconciliationRunRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+@Service
+@Slf4j
+public class ReconciliationService {
+    
+    private final ReconciliationRunRepository runRepository;
+    private final ReconciliationCheckpointRepository checkpointRepository;
+    private final LedgerRepository ledgerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate chunkTransactionTemplate;
+    private final Counter walletsCounter;
+    private final Counter discrepancyCounter;
+    private final Timer runTimer;
+    
+    @Value("${app.reconciliation.parallelism:0}")
+    private int parallelism;
+    
+    @Value("${app.reconciliation.partitions-per-thread:4}")
+    private int partitionsPerThread;
+    
+    @Value("${app.reconciliation.chunk-size:5000}")
+    private int chunkSize;
+    
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int maxPoolSize;
+    
+    public ReconciliationService(ReconciliationRunRepository runRepository,
+                                 ReconciliationCheckpointRepository checkpointRepository,
+                                 LedgerRepository ledgerRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.runRepository = runRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        
+        // Wallet snapshot and ledger scan of a chunk must see the same database snapshot
+        this.chunkTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkTransactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        
+        this.walletsCounter = Counter.builder("wallet.reconciliation.wallets")
+                .description("Wallets whose balance was recomputed from the ledger")
+                .register(meterRegistry);
+        this.discrepancyCounter = Counter.builder("wallet.reconciliation.discrepancies")
+                .description("Wallets whose recorded balance did not match the ledger")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("wallet.reconciliation.duration")
+                .description("Wall-clock time of a reconciliation run")
+                .register(meterRegistry);
+    }
+    
+    public ReconciliationRun reconcile(LocalDate businessDate) {
+        ReconciliationRun existing = runRepository.findByBusinessDate(businessDate).orElse(null);
+        if (existing != null && existing.getStatus() == ReconciliationStatus.COMPLETED) {
+            log.info("Reconciliation for {} already completed (run {})", businessDate, existing.getRunId());
+            return existing;
+        }
+        
+        int threads = effectiveParallelism();
+        ReconciliationRun run = existing != null ? resumeRun(existing) : startRun(businessDate, threads);
+        List<ReconciliationCheckpoint> pending = 
+                checkpointRepository.findByRunIdAndCompletedFalseOrderByPartitionNo(run.getRunId());
+        
+        log.info("Reconciliation run {} for {}: {} of {} partitions pending, parallelism {}", 
+                run.getRunId(), businessDate, pending.size(), run.getPartitionCount(), threads);
+        
+        Timer.Sample sample = Timer.start();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(pending.size());
+            for (ReconciliationCheckpoint checkpoint : pending) {
+                tasks.add(pool.submit(() -> reconcilePartition(run.getRunId(), checkpoint)));
+            }
+            
+            RuntimeException failure = null;
+            for (ForkJoinTask<?> task : tasks) {
+                try {
+                    task.join();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            
+            if (failure != null) {
+                return failRun(run, failure);
+            }
+            return completeRun(run);
+        } finally {
+            pool.shutdown();
+            sample.stop(runTimer);
+        }
+    }
+    
+    private void reconcilePartition(UUID runId, ReconciliationCheckpoint checkpoint) {
+        BalanceChunk chunk = new BalanceChunk(chunkSize);
+        List<Object[]> discrepancies = new ArrayList<>();
+        UUID cursor = checkpoint.getLastWalletId();
+        boolean moreWallets = true;
+        
+        while (moreWallets) {
+            UUID from = cursor != null ? cursor : checkpoint.getRangeStart();
+            boolean inclusive = cursor == null;
+            
+            UUID last = chunkTransactionTemplate.execute(status -> {
+                chunk.reset();
+                discrepancies.clear();
+                
+                ledgerRepository.streamWallets(from, inclusive, checkpoint.getRangeEnd(), chunkSize, 
+                        rs -> chunk.addWallet(rs.getObject(1, UUID.class), rs.getLong(2)));
+                if (chunk.size() == 0) {
+                    return null;
+                }
+                
+                ledgerRepository.streamLedgerEntries(chunk.firstWalletId(), chunk.lastWalletId(), 
+                        rs -> chunk.applyEntry(rs.getObject(1, UUID.class), rs.getLong(2)));
+                
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (!chunk.matches(i)) {
+                        discrepancies.add(new Object[]{
+                                runId, chunk.walletId(i), chunk.recordedBalance(i),
+                                chunk.computedBalance(i), chunk.difference(i)});
+                    }
+                }
+                ledgerRepository.insertDiscrepancies(discrepancies);
+                
+                // Discrepancies and the checkpoint commit together, so a restart never double-reports
+                UUID lastWalletId = chunk.lastWalletId();
+                checkpointRepository.advance(checkpoint.getCheckpointId(), lastWalletId, 
+                        chunk.size(), discrepancies.size());
+                return lastWalletId;
+            });
+            
+            if (last == null) {
+                moreWallets = false;
+            } else {
+                walletsCounter.increment(chunk.size());
+                discrepancyCounter.increment(discrepancies.size());
+                cursor = last;
+                moreWallets = chunk.isFull();
+            }
+        }
+        
+        transactionTemplate.executeWithoutResult(status -> 
+                checkpointRepository.markCompleted(checkpoint.getCheckpointId()));
+        log.debug("Reconciliation partition {} of run {} completed", checkpoint.getPartitionNo(), runId);
+    }
+    
+    private ReconciliationRun startRun(LocalDate businessDate, int threads) {
+        int partitions = Math.max(1, threads * partitionsPerThread);
+        
+        return transactionTemplate.execute(status -> {
+            ReconciliationRun run = runRepository.save(ReconciliationRun.builder()
+                    .businessDate(businessDate)
+                    .status(ReconciliationStatus.RUNNING)
+                    .partitionCount(partitions)
+                    .startedAt(LocalDateTime.now())
+                    .build());
+            
+            // Split the unsigned 128-bit wallet-ID space into equal ranges on the high 64 bits
+            long step = Long.divideUnsigned(-1L, partitions);
+            List<ReconciliationCheckpoint> checkpoints = new ArrayList<>(partitions);
+            for (int i = 0; i < partitions; i++) {
+                UUID rangeStart = new UUID(step * i, 0L);
+                UUID rangeEnd = i == partitions - 1 
+                        ? new UUID(-1L, -1L) 
+                        : new UUID(step * (i + 1) - 1, -1L);
+                checkpoints.add(ReconciliationCheckpoint.builder()
+                        .runId(run.getRunId())
+                        .partitionNo(i)
+                        .rangeStart(rangeStart)
+                        .rangeEnd(rangeEnd)
+                        .build());
+            }
+            checkpointRepository.saveAll(checkpoints);
+            return run;
+        });
+    }
+    
+    private ReconciliationRun resumeRun(ReconciliationRun run) {
+        log.info("Resuming reconciliation run {} for {} from checkpoint", run.getRunId(), run.getBusinessDate());
+        run.setStatus(ReconciliationStatus.RUNNING);
+        run.setFailureReason(null);
+        return runRepository.save(run);
+    }
+    
+    private ReconciliationRun completeRun(ReconciliationRun run) {
+        UUID runId = run.getRunId();
+        ReconciliationRun completed = transactionTemplate.execute(status -> {
+            ReconciliationRun current = runRepository.findById(runId).orElseThrow();
+            current.setStatus(ReconciliationStatus.COMPLETED);
+            current.setCompletedAt(LocalDateTime.now());
+            current.setWalletsChecked(checkpointRepository.sumWalletsChecked(runId));
+            current.setDiscrepancyCount(checkpointRepository.sumDiscrepancies(runId));
+            return runRepository.save(current);
+        });
+        
+        BigDecimal totalDifference = ledgerRepository.totalAbsoluteDiscrepancy(runId);
+        if (completed.getDiscrepancyCount() > 0) {
+            log.warn("Reconciliation run {} for {} found {} discrepancies across {} wallets (absolute difference {})",
+                    runId, completed.getBusinessDate(), completed.getDiscrepancyCount(), 
+                    completed.getWalletsChecked(), totalDifference);
+        } else {
+            log.info("Reconciliation run {} for {} balanced: {} wallets checked", 
+                    runId, completed.getBusinessDate(), completed.getWalletsChecked());
+        }
+        return completed;
+    }
+    
+    private ReconciliationRun failRun(ReconciliationRun run, RuntimeException failure) {
+        log.error("Reconciliation run {} failed; it will resume from its checkpoints on the next attempt", 
+                run.getRunId(), failure);
+        UUID runId = run.getRunId();
+        return transactionTemplate.execute(status -> {
+            ReconciliationRun current = runRepository.findById(runId).orElseThrow();
+            current.setStatus(ReconciliationStatus.FAILED);
+            current.setFailureReason(failure.getMessage());
+            return runRepository.save(current);
+        });
+    }
+    
+    private int effectiveParallelism() {
+        int requested = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        // Every partition worker holds a connection; leave headroom for request traffic
+        return Math.max(1, Math.min(requested, maxPoolSize - 2));
+    }
+}
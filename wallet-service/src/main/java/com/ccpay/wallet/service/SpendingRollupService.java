@@ -0,0 +1,115 @@
+package com.ccpay.wallet.service;
+
+import com.ccpay.common.constants.ApplicationConstants;
+import com.ccpay.common.events.TransactionEvent;
+import com.ccpay.wallet.dto.MonthlySpending;
+import com.ccpay.wallet.repository.SpendingRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SpendingRollupService {
+    
+    private static final Set<String> SPENDING_TYPES = Set.of("PAYMENT", "WITHDRAWAL", "FEE");
+    
+    // Keeps each statement well under the PostgreSQL bind-parameter limit
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+    
+    private static final int PRUNE_CHUNK_SIZE = 10000;
+    
+    private final SpendingRollupRepository spendingRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${app.spending-rollup.dedup-retention-days:35}")
+    private int dedupRetentionDays;
+    
+    @Transactional
+    public int applyEvents(List<TransactionEvent> events) {
+        // Redeliveries inside one batch would otherwise be counted twice by the same statement
+        Map<UUID, Object[]> rows = new LinkedHashMap<>();
+        Set<LocalDate> months = new TreeSet<>();
+        for (TransactionEvent event : events) {
+            if (isSpending(event)) {
+                LocalDate month = monthOf(event.getCompletedAt());
+                months.add(month);
+                rows.putIfAbsent(event.getTransactionId(), new Object[]{
+                        event.getTransactionId(),
+                        event.getUserId(),
+                        month,
+                        event.getCategory() != null ? event.getCategory() : SpendingRollupRepository.UNCATEGORIZED,
+                        event.getAmount()
+                });
+            }
+        }
+        
+        List<Object[]> pending = new ArrayList<>(rows.values());
+        // Keeps a concurrent rebuild of these months from deleting what this batch marks
+        months.forEach(spendingRollupRepository::lockMonthShared);
+        int applied = 0;
+        for (int from = 0; from < pending.size(); from += MAX_ROWS_PER_STATEMENT) {
+            int to = Math.min(from + MAX_ROWS_PER_STATEMENT, pending.size());
+            applied += spendingRollupRepository.upsertBatch(pending.subList(from, to));
+        }
+        
+        log.debug("Applied {} spending events from a batch of {} ({} rollup rows touched)", 
+                pending.size(), events.size(), applied);
+        return applied;
+    }
+    
+    @Transactional(readOnly = true)
+    public List<MonthlySpending> getMonthlySpending(UUID userId, YearMonth month) {
+        return spendingRollupRepository.findByUserAndMonth(userId, month.atDay(1));
+    }
+    
+    // Each month is rebuilt atomically; live upserts wait for the month being rebuilt only
+    public void rebuild(YearMonth from, YearMonth to) {
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            LocalDate firstDay = month.atDay(1);
+            Integer rows = transactionTemplate.execute(status -> spendingRollupRepository.rebuildMonth(firstDay));
+            log.info("Rebuilt spending rollups for {}: {} rows", month, rows);
+        }
+    }
+    
+    public long compact() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(dedupRetentionDays);
+        long pruned = 0;
+        int deleted;
+        do {
+            deleted = spendingRollupRepository.pruneAppliedMarkers(cutoff, PRUNE_CHUNK_SIZE);
+            pruned += deleted;
+        } while (deleted == PRUNE_CHUNK_SIZE);
+        
+        log.info("Spending rollup compaction pruned {} dedup markers applied before {}", pruned, cutoff);
+        return pruned;
+    }
+    
+    private boolean isSpending(TransactionEvent event) {
+        return ApplicationConstants.TRANSACTION_COMPLETED.equals(event.getStatus())
+                && event.getType() != null && SPENDING_TYPES.contains(event.getType())
+                && event.getTransactionId() != null
+                && event.getUserId() != null
+                && event.getAmount() != null
+                && event.getCompletedAt() != null;
+    }
+    
+    private LocalDate monthOf(LocalDateTime completedAt) {
+        return completedAt.toLocalDate().withDayOfMonth(1);
+    }
+}
@@ -0,0 +1,29 @@
+-- Durable delayed retries (com.ccpay.common.retry.RetryQueue). Keyed so that claims walk the
+-- primary key from the oldest due bucket; random ids spread inserts within a bucket.
+CREATE TABLE IF NOT EXISTS retry_queue (
+    queue_name VARCHAR(100) NOT NULL,
+    due_bucket BIGINT NOT NULL,
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    due_at TIMESTAMP NOT NULL,
+    payload TEXT NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    locked_until TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (queue_name, due_bucket, id)
+);
+
+-- High churn: vacuum early so dead tuples do not bloat the claim path
+ALTER TABLE retry_queue SET (autovacuum_vacuum_scale_factor = 0.01, autovacuum_vacuum_threshold = 1000);
+
+CREATE TABLE IF NOT EXISTS retry_queue_dead_letters (
+    id UUID PRIMARY KEY,
+    queue_name VARCHAR(100) NOT NULL,
+    payload TEXT NOT NULL,
+    attempts INTEGER NOT NULL,
+    last_error TEXT,
+    created_at TIMESTAMP,
+    dead_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_retry_queue_dead_letters_queue ON retry_queue_dead_letters(queue_name, dead_at);
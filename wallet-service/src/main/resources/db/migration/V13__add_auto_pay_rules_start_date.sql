@@ -0,0 +1,5 @@
+-- First scheduled slot; MONTHLY rules without a trigger_day keep returning to its day of month
+ALTER TABLE auto_pay_rules ADD COLUMN IF NOT EXISTS start_date TIMESTAMP;
+
+UPDATE auto_pay_rules SET start_date = COALESCE(original_due_at, next_execution_at, created_at)
+WHERE start_date IS NULL;
@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS wallets (
+    wallet_id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    user_id UUID NOT NULL,
+    balance DECIMAL(19, 4) NOT NULL DEFAULT 0.00,
+    currency VARCHAR(3) DEFAULT 'USD',
+    reserved_balance DECIMAL(19, 4) DEFAULT 0.00,
+    status VARCHAR(50) DEFAULT 'ACTIVE',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    created_by VARCHAR(255),
+    updated_by VARCHAR(255),
+    version BIGINT DEFAULT 0,
+    CONSTRAINT chk_balance CHECK (balance >= 0),
+    CONSTRAINT chk_currency CHECK (currency IN ('USD', 'EUR', 'GBP')),
+    CONSTRAINT chk_wallet_status CHECK (status IN ('ACTIVE', 'FROZEN', 'CLOSED'))
+);
+
+CREATE INDEX idx_wallets_user_id ON wallets(user_id);
+CREATE INDEX idx_wallets_status ON wallets(status);
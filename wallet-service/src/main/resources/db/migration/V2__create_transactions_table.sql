@@ -0,0 +1,32 @@
+CREATE TABLE IF NOT EXISTS transactions (
+    transaction_id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    user_id UUID NOT NULL,
+    wallet_id UUID,
+    type VARCHAR(50) NOT NULL,
+    amount DECIMAL(19, 4) NOT NULL,
+    currency VARCHAR(3) DEFAULT 'USD',
+    source_type VARCHAR(50),
+    source_id UUID,
+    destination_type VARCHAR(50),
+    destination_id UUID,
+    reference_number VARCHAR(100) UNIQUE,
+    status VARCHAR(50) DEFAULT 'PENDING',
+    description TEXT,
+    metadata JSONB,
+    initiated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP,
+    failed_at TIMESTAMP,
+    failure_reason TEXT,
+    CONSTRAINT fk_transactions_wallet FOREIGN KEY (wallet_id) REFERENCES wallets(wallet_id),
+    CONSTRAINT chk_transaction_type CHECK (type IN ('DEPOSIT', 'WITHDRAWAL', 'PAYMENT', 'REFUND', 'FEE')),
+    CONSTRAINT chk_transaction_status CHECK (status IN ('PENDING', 'PROCESSING', 'COMPLETED', 'FAILED', 'CANCELLED'))
+);
+
+CREATE INDEX idx_transactions_user_id ON transactions(user_id);
+CREATE INDEX idx_transactions_wallet_id ON transactions(wallet_id);
+CREATE INDEX idx_transactions_status ON transactions(status);
+CREATE INDEX idx_transactions_created_at ON transactions(initiated_at);
+
+-- Covering index so the reconciliation ledger scan is an ordered index-only scan
+CREATE INDEX idx_transactions_wallet_ledger ON transactions(wallet_id) INCLUDE (type, amount)
+    WHERE status = 'COMPLETED';
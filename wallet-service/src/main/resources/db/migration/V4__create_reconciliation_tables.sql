@@ -0,0 +1,51 @@
+CREATE TABLE IF NOT EXISTS reconciliation_runs (
+    run_id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    business_date DATE NOT NULL UNIQUE,
+    status VARCHAR(50) NOT NULL,
+    partition_count INTEGER NOT NULL,
+    wallets_checked BIGINT DEFAULT 0,
+    discrepancy_count BIGINT DEFAULT 0,
+    started_at TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP,
+    failure_reason TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    created_by VARCHAR(255),
+    updated_by VARCHAR(255),
+    version BIGINT DEFAULT 0,
+    CONSTRAINT chk_reconciliation_status CHECK (status IN ('RUNNING', 'COMPLETED', 'FAILED'))
+);
+
+-- One row per wallet-ID range; last_wallet_id is the restart checkpoint
+CREATE TABLE IF NOT EXISTS reconciliation_checkpoints (
+    checkpoint_id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    run_id UUID NOT NULL,
+    partition_no INTEGER NOT NULL,
+    range_start UUID NOT NULL,
+    range_end UUID NOT NULL,
+    last_wallet_id UUID,
+    wallets_checked BIGINT DEFAULT 0,
+    discrepancy_count BIGINT DEFAULT 0,
+    completed BOOLEAN DEFAULT false,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    created_by VARCHAR(255),
+    updated_by VARCHAR(255),
+    version BIGINT DEFAULT 0,
+    CONSTRAINT fk_reconciliation_checkpoints_run FOREIGN KEY (run_id) REFERENCES reconciliation_runs(run_id) ON DELETE CASCADE,
+    CONSTRAINT uq_reconciliation_checkpoints_partition UNIQUE (run_id, partition_no)
+);
+
+CREATE TABLE IF NOT EXISTS reconciliation_discrepancies (
+    discrepancy_id BIGSERIAL PRIMARY KEY,
+    run_id UUID NOT NULL,
+    wallet_id UUID NOT NULL,
+    recorded_balance DECIMAL(19, 4) NOT NULL,
+    computed_balance DECIMAL(19, 4) NOT NULL,
+    difference DECIMAL(19, 4) NOT NULL,
+    detected_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_reconciliation_discrepancies_run FOREIGN KEY (run_id) REFERENCES reconciliation_runs(run_id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_reconciliation_discrepancies_run_id ON reconciliation_discrepancies(run_id);
+CREATE INDEX idx_reconciliation_discrepancies_wallet_id ON reconciliation_discrepancies(wallet_id);
@@ -0,0 +1,22 @@
+-- Incrementally maintained replacement for the monthly_spending materialized view
+CREATE TABLE IF NOT EXISTS monthly_spending_rollups (
+    user_id UUID NOT NULL,
+    month DATE NOT NULL,
+    category VARCHAR(100) NOT NULL,
+    total_spent DECIMAL(19, 4) NOT NULL DEFAULT 0.00,
+    transaction_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, month, category)
+);
+
+-- Transactions already folded into a rollup; makes event redelivery idempotent
+CREATE TABLE IF NOT EXISTS spending_rollup_applied (
+    transaction_id UUID PRIMARY KEY,
+    month DATE NOT NULL,
+    applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_spending_rollup_applied_applied_at ON spending_rollup_applied(applied_at);
+CREATE INDEX idx_spending_rollup_applied_month ON spending_rollup_applied(month);
+
+CREATE INDEX idx_transactions_completed_at ON transactions(completed_at) WHERE status = 'COMPLETED';
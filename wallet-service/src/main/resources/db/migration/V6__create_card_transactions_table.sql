@@ -0,0 +1,22 @@
+CREATE TABLE IF NOT EXISTS card_transactions (
+    card_transaction_id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    card_id UUID NOT NULL,
+    user_id UUID NOT NULL,
+    external_transaction_id VARCHAR(255) UNIQUE,
+    amount DECIMAL(19, 4) NOT NULL,
+    merchant_name VARCHAR(255),
+    merchant_category VARCHAR(100),
+    transaction_date TIMESTAMP NOT NULL,
+    posted_date TIMESTAMP,
+    is_pending BOOLEAN DEFAULT true,
+    is_synced_to_wallet BOOLEAN DEFAULT false,
+    wallet_transaction_id UUID,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    synced_at TIMESTAMP,
+    CONSTRAINT fk_card_transactions_wallet_transaction FOREIGN KEY (wallet_transaction_id) REFERENCES transactions(transaction_id)
+);
+
+CREATE INDEX idx_card_transactions_card_id ON card_transactions(card_id);
+CREATE INDEX idx_card_transactions_user_id ON card_transactions(user_id);
+CREATE INDEX idx_card_transactions_date ON card_transactions(transaction_date);
+CREATE INDEX idx_card_transactions_synced ON card_transactions(is_synced_to_wallet) WHERE is_synced_to_wallet = false;
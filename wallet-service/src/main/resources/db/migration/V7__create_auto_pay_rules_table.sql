@@ -0,0 +1,37 @@
+CREATE TABLE IF NOT EXISTS auto_pay_rules (
+    rule_id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    user_id UUID NOT NULL,
+    card_id UUID NOT NULL,
+    bank_account_id UUID NOT NULL,
+    rule_type VARCHAR(50) NOT NULL,
+    frequency VARCHAR(50) NOT NULL,
+    amount_type VARCHAR(50) NOT NULL,
+    fixed_amount DECIMAL(19, 4),
+    percentage_amount DECIMAL(5, 2),
+    max_amount DECIMAL(19, 4),
+    min_amount DECIMAL(19, 4),
+    trigger_day INTEGER,
+    is_active BOOLEAN DEFAULT true,
+    last_executed_at TIMESTAMP,
+    next_execution_at TIMESTAMP,
+    -- Scheduler bookkeeping: lease owner, lease expiry and retry state of the current due slot
+    claimed_by VARCHAR(255),
+    claimed_until TIMESTAMP,
+    original_due_at TIMESTAMP,
+    failure_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    created_by VARCHAR(255),
+    updated_by VARCHAR(255),
+    version BIGINT DEFAULT 0,
+    CONSTRAINT chk_rule_type CHECK (rule_type IN ('EXPENSE_SYNC', 'MONTHLY_PAYMENT')),
+    CONSTRAINT chk_frequency CHECK (frequency IN ('DAILY', 'WEEKLY', 'MONTHLY', 'ON_TRANSACTION')),
+    CONSTRAINT chk_amount_type CHECK (amount_type IN ('FIXED', 'PERCENTAGE', 'DYNAMIC'))
+);
+
+CREATE INDEX idx_auto_pay_rules_user_id ON auto_pay_rules(user_id);
+CREATE INDEX idx_auto_pay_rules_active ON auto_pay_rules(is_active);
+
+-- Only active, time-scheduled rules are ever claimed, so the claim scan stays on this small index
+CREATE INDEX idx_auto_pay_rules_next_execution ON auto_pay_rules(next_execution_at)
+    WHERE is_active = true AND next_execution_at IS NOT NULL;
@@ -0,0 +1,3 @@
+-- Lets the trigger wheel pick up rules rescheduled since its last refill without a full scan
+CREATE INDEX idx_auto_pay_rules_updated_at ON auto_pay_rules(updated_at)
+    WHERE is_active = true AND next_execution_at IS NOT NULL;
@@ -0,0 +1,7 @@
+-- Bill payment pipeline state: when the current processing lease started and whether the
+-- payment amount is currently held in the wallet's reserved_balance
+ALTER TABLE transactions ADD COLUMN processing_started_at TIMESTAMP;
+ALTER TABLE transactions ADD COLUMN funds_reserved BOOLEAN NOT NULL DEFAULT false;
+
+CREATE INDEX idx_transactions_bill_payment_queue ON transactions(initiated_at)
+    WHERE type = 'PAYMENT' AND destination_type = 'CREDIT_CARD' AND status IN ('PENDING', 'PROCESSING');